@@ -0,0 +1,188 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for the reference data login and token refresh read on every call: a user's
+ * email and the role names of an account / user.
+ *
+ * Reads go local Caffeine, then Redis, then the loader, and fill the tiers on the way back.
+ * Role changes evict explicitly: the Redis keys are deleted and every pod is told over pub/sub
+ * to drop its local copy. Evictions inside a transaction run after commit, and loaders must read
+ * the master: a slave lagging behind the commit would hand the next miss the rows just replaced,
+ * and that stale read would then live for the whole Redis TTL. The short local TTL bounds the
+ * damage if an eviction message is lost.
+ *
+ * Password hashes are deliberately not cached; login still reads the account row itself.
+ */
+@Slf4j
+public class AccountLookupCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "auth:lookup-cache:invalidate";
+
+    private static final String KEY_PREFIX = "auth:lookup:";
+    private static final String EMAIL_BY_USER = "email:user:";
+    private static final String ROLES_BY_USER = "roles:user:";
+    private static final String ROLES_BY_ACCOUNT = "roles:account:";
+    private static final TypeReference<String> STRING = new TypeReference<>() {
+    };
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final Cache<String, Object> local;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public AccountLookupCache(StringRedisTemplate redis, ObjectMapper objectMapper, Duration localTtl,
+                              Duration redisTtl, long maxSize, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.redisTtl = redisTtl;
+        this.local = Caffeine.newBuilder()
+                .expireAfterWrite(localTtl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "auth.lookup");
+        this.localHits = lookups(meterRegistry, "local");
+        this.redisHits = lookups(meterRegistry, "redis");
+        this.misses = lookups(meterRegistry, "database");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("auth.lookup.requests")
+                .description("Account/role lookups by the tier that answered them")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    public String emailByUserId(String userId, Supplier<String> loader) {
+        return get(EMAIL_BY_USER + userId, STRING, loader);
+    }
+
+    public List<String> rolesByUserId(String userId, Supplier<List<String>> loader) {
+        return get(ROLES_BY_USER + userId, STRING_LIST, loader);
+    }
+
+    public List<String> rolesByAccountId(String accountId, Supplier<List<String>> loader) {
+        return get(ROLES_BY_ACCOUNT + accountId, STRING_LIST, loader);
+    }
+
+    /** Drop the cached role names of an account, under both its account id and user id. */
+    public void evictRoles(String accountId, String userId) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(ROLES_BY_ACCOUNT + accountId);
+        if (userId != null) {
+            keys.add(ROLES_BY_USER + userId);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(keys);
+                }
+            });
+        } else {
+            evict(keys);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, TypeReference<T> type, Supplier<T> loader) {
+        Object cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return (T) cached;
+        }
+
+        T value = readRedis(key, type);
+        if (value != null) {
+            redisHits.increment();
+            value = immutable(value);
+            local.put(key, value);
+            return value;
+        }
+
+        misses.increment();
+        value = loader.get();
+        if (value != null) {
+            value = immutable(value);
+            local.put(key, value);
+            writeRedis(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * The local tier hands the same instance to every caller, so lists are stored as
+     * unmodifiable copies that neither the loader nor a caller can change afterwards.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T immutable(T value) {
+        return value instanceof List<?> list ? (T) List.copyOf(list) : value;
+    }
+
+    private <T> T readRedis(String key, TypeReference<T> type) {
+        try {
+            String json = redis.opsForValue().get(KEY_PREFIX + key);
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            log.warn("(readRedis) unreadable cache entry, key: {}", key);
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("(readRedis) redis unavailable, key: {}, error: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, Object value) {
+        try {
+            redis.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(value), redisTtl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("(writeRedis) could not cache key: {}, error: {}", key, e.getMessage());
+        }
+    }
+
+    private void evict(List<String> keys) {
+        log.info("(evict)keys: {}", keys);
+        local.invalidateAll(keys);
+        try {
+            redis.delete(keys.stream().map(key -> KEY_PREFIX + key).toList());
+            keys.forEach(key -> redis.convertAndSend(INVALIDATION_CHANNEL, key));
+        } catch (RuntimeException e) {
+            log.error("(evict) redis eviction failed, entries expire by TTL, keys: {}, error: {}", keys, e.getMessage());
+        }
+    }
+
+    /** Eviction broadcast from any pod, this one included. */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        log.debug("(onMessage) evicting local key: {}", key);
+        local.invalidate(key);
+    }
+}
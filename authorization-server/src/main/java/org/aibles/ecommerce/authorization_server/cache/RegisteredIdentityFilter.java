@@ -0,0 +1,214 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.authorization_server.repository.slave.SlaveAccountRepository;
+import org.aibles.ecommerce.authorization_server.repository.slave.SlaveUserRepository;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory membership filter of registered emails and usernames, so that the existence
+ * probes behind signup and the OTP flows only reach MySQL when the answer might be "yes".
+ *
+ * The filter is rebuilt in the background from a streamed scan of the slave at startup and
+ * every {@code rebuildInterval}; until the first build completes every probe answers "maybe".
+ * Registrations are added locally and broadcast over pub/sub so other pods learn them before
+ * their next rebuild. Keys added shortly before a rebuild are replayed into the new filter,
+ * which covers both the scan window and replica lag.
+ *
+ * Keys are folded the way the default MySQL collation compares them (case- and
+ * accent-insensitive) so a DB match is never a filter miss. The unique constraints remain the
+ * final authority; a stale "absent" on register only means the insert fails on the constraint.
+ */
+@Slf4j
+public class RegisteredIdentityFilter implements MessageListener {
+
+    public static final String ADDITION_CHANNEL = "auth:identity-filter:add";
+
+    private static final String EMAIL = "email:";
+    private static final String USERNAME = "username:";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Duration REPLAY_WINDOW = Duration.ofMinutes(5);
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final SlaveUserRepository slaveUserRepository;
+    private final SlaveAccountRepository slaveAccountRepository;
+    private final StringRedisTemplate redis;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final ScheduledExecutorService rebuilder;
+
+    /** Keys added recently, by the time they were added, for replay into the next rebuild. */
+    private final Map<String, Long> recent = new ConcurrentHashMap<>();
+
+    private volatile ScalableBloomFilter filter;
+
+    /** Start of the rebuild in progress, 0 when idle. */
+    private volatile long rebuildingSince;
+
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter notReady;
+    private final Timer rebuilds;
+
+    public RegisteredIdentityFilter(SlaveUserRepository slaveUserRepository,
+                                    SlaveAccountRepository slaveAccountRepository,
+                                    StringRedisTemplate redis,
+                                    long expectedEntries,
+                                    double falsePositiveRate,
+                                    Duration rebuildInterval,
+                                    MeterRegistry meterRegistry) {
+        this.slaveUserRepository = slaveUserRepository;
+        this.slaveAccountRepository = slaveAccountRepository;
+        this.redis = redis;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "identity-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.absent = checks(meterRegistry, "absent");
+        this.maybe = checks(meterRegistry, "maybe");
+        this.notReady = checks(meterRegistry, "not_ready");
+        this.rebuilds = Timer.builder("auth.identity_filter.rebuild")
+                .description("Time to rebuild the registered email/username filter from the slave")
+                .register(meterRegistry);
+        Gauge.builder("auth.identity_filter.entries", this, f -> f.filter == null ? 0 : f.filter.size())
+                .description("Approximate number of keys in the registered email/username filter")
+                .register(meterRegistry);
+        Gauge.builder("auth.identity_filter.bits", this, f -> f.filter == null ? 0 : f.filter.bitCount())
+                .register(meterRegistry);
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.identity_filter.checks")
+                .description("Email/username existence probes by filter answer; only 'maybe' and 'not_ready' hit MySQL")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /** False only when the email is definitely not registered. */
+    public boolean mightContainEmail(String email) {
+        return mightContain(EMAIL + fold(email));
+    }
+
+    /** False only when the username is definitely not taken. */
+    public boolean mightContainUsername(String username) {
+        return mightContain(USERNAME + fold(username));
+    }
+
+    public void addEmail(String email) {
+        addAndBroadcast(EMAIL + fold(email));
+    }
+
+    public void addUsername(String username) {
+        addAndBroadcast(USERNAME + fold(username));
+    }
+
+    /** Addition broadcast from any pod, this one included. */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private boolean mightContain(String key) {
+        ScalableBloomFilter current = filter;
+        if (current == null) {
+            notReady.increment();
+            return true;
+        }
+        if (current.mightContain(key)) {
+            maybe.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    private void addAndBroadcast(String key) {
+        add(key);
+        try {
+            redis.convertAndSend(ADDITION_CHANNEL, key);
+        } catch (RuntimeException e) {
+            log.warn("(addAndBroadcast) broadcast failed, other pods learn the key on their next rebuild, error: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void add(String key) {
+        long now = System.currentTimeMillis();
+        recent.put(key, now);
+        if (recent.size() > PRUNE_THRESHOLD) {
+            pruneRecent(now);
+        }
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+    }
+
+    private void pruneRecent(long now) {
+        long since = rebuildingSince;
+        long keepFrom = (since > 0 ? Math.min(since, now) : now) - REPLAY_WINDOW.toMillis();
+        recent.entrySet().removeIf(entry -> entry.getValue() < keepFrom);
+    }
+
+    private void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        rebuildingSince = startedAt;
+        try {
+            ScalableBloomFilter next = new ScalableBloomFilter(expectedEntries, falsePositiveRate);
+            rebuilds.record(() -> {
+                slaveUserRepository.streamEmails(email -> next.put(EMAIL + fold(email)));
+                slaveAccountRepository.streamUsernames(username -> next.put(USERNAME + fold(username)));
+            });
+            filter = next;
+            // Publish first, then replay: anything added from here on lands in the new filter directly.
+            pruneRecent(startedAt);
+            recent.keySet().forEach(next::put);
+            log.info("(rebuild) entries: {}, stages: {}, bits: {}, took: {} ms",
+                    next.size(), next.stageCount(), next.bitCount(), System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            // Keep serving the previous filter (or "maybe" for everything if there is none).
+            log.error("(rebuild) failed, error: {}", e.getMessage(), e);
+        } finally {
+            rebuildingSince = 0;
+        }
+    }
+
+    static String fold(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,155 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter over strings (Almeida et al.): a chain of fixed-size stages where each
+ * new stage has twice the capacity and half the false-positive rate of the previous one, so the
+ * compound rate stays under twice the initial rate however far the set outgrows its sizing.
+ *
+ * Safe for concurrent {@link #put} and {@link #mightContain}: bits live in atomic arrays and
+ * the stage chain is only ever appended to, under the instance lock.
+ *
+ * Probes use double hashing ({@code h1 + i * h2}) over two 64-bit hashes of the UTF-8 bytes.
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private volatile Stage[] stages;
+    private final AtomicLong size = new AtomicLong();
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.stages = new Stage[]{new Stage(Math.max(1, initialCapacity), falsePositiveRate)};
+    }
+
+    void put(String value) {
+        long[] hashes = hash(value);
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hashes)) {
+                return;
+            }
+        }
+        Stage last = current[current.length - 1];
+        if (last.count.incrementAndGet() > last.capacity) {
+            last = grow(current);
+        }
+        last.put(hashes);
+        size.incrementAndGet();
+    }
+
+    boolean mightContain(String value) {
+        long[] hashes = hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hashes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Approximate number of distinct values inserted. */
+    long size() {
+        return size.get();
+    }
+
+    long bitCount() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.bitCount;
+        }
+        return bits;
+    }
+
+    int stageCount() {
+        return stages.length;
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        Stage[] current = stages;
+        if (current != seen) {
+            // Another writer already appended a stage.
+            return current[current.length - 1];
+        }
+        Stage last = current[current.length - 1];
+        Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+        next.count.incrementAndGet();
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+
+    private static long[] hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // FNV-1a for the first hash, finalised with the murmur3 mixer for both.
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ bytes.length) | 1L;
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final class Stage {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long m = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2)));
+            this.bits = new AtomicLongArray((int) ((m + 63) >>> 6));
+            this.bitCount = m;
+            this.hashCount = Math.max(1, (int) Math.round((double) m / capacity * ln2));
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        private void put(long[] hashes) {
+            long combined = hashes[0];
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(combined, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long bitsAt = bits.get(word);
+                while ((bitsAt & mask) == 0 && !bits.compareAndSet(word, bitsAt, bitsAt | mask)) {
+                    bitsAt = bits.get(word);
+                }
+                combined += hashes[1];
+            }
+        }
+
+        private boolean mightContain(long[] hashes) {
+            long combined = hashes[0];
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(combined, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += hashes[1];
+            }
+            return true;
+        }
+    }
+}
@@ -2,17 +2,23 @@ package org.aibles.ecommerce.authorization_server.configuration;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
 import java.text.ParseException;
+import java.time.Duration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aibles.ecommerce.authorization_server.cache.AccountLookupCache;
+import org.aibles.ecommerce.authorization_server.cache.RegisteredIdentityFilter;
 import org.aibles.ecommerce.authorization_server.repository.master.MasterAccountRepository;
 import org.aibles.ecommerce.authorization_server.repository.master.MasterAccountRoleRepository;
 import org.aibles.ecommerce.authorization_server.repository.master.MasterUserRepository;
 import org.aibles.ecommerce.authorization_server.repository.slave.SlaveAccountRepository;
 import org.aibles.ecommerce.authorization_server.repository.slave.SlaveRoleRepository;
 import org.aibles.ecommerce.authorization_server.repository.slave.SlaveUserRepository;
+import org.aibles.ecommerce.authorization_server.security.BoundedPasswordEncoder;
 import org.aibles.ecommerce.authorization_server.service.*;
 import org.aibles.ecommerce.authorization_server.service.impl.*;
 import org.aibles.ecommerce.core_email.adapter.repository.EmailHelper;
@@ -28,7 +34,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -48,11 +58,50 @@ public class AuthorizationServerConfiguration {
     private Integer refreshTokenLifetime;
 
     @Value("${application.authentication-key-id}")
-    private String secretKey;
+    private String activeKeyId;
 
     @Value("${application.jwk}")
     private String jwkJson;
 
+    @Value("${application.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${application.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${application.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${application.password-hashing.max-queue-wait:1s}")
+    private Duration passwordHashingMaxQueueWait;
+
+    @Value("${application.lookup-cache.local-ttl:60s}")
+    private Duration lookupCacheLocalTtl;
+
+    @Value("${application.lookup-cache.redis-ttl:30m}")
+    private Duration lookupCacheRedisTtl;
+
+    @Value("${application.lookup-cache.max-size:50000}")
+    private long lookupCacheMaxSize;
+
+    @Value("${application.identity-filter.expected-entries:1000000}")
+    private long identityFilterExpectedEntries;
+
+    @Value("${application.identity-filter.false-positive-rate:0.001}")
+    private double identityFilterFalsePositiveRate;
+
+    @Value("${application.identity-filter.rebuild-interval:6h}")
+    private Duration identityFilterRebuildInterval;
+
+    @Value("${application.user-export.fetch-size:1000}")
+    private int userExportFetchSize;
+
+    @Value("${application.user-export.flush-rows:1000}")
+    private int userExportFlushRows;
+
+    @Value("${application.user-export.max-concurrent:2}")
+    private int userExportMaxConcurrent;
+
     @Bean
     public JWKSet jwkSet() throws ParseException {
         // Load a STABLE signing key from Vault (application.jwk) rather than
@@ -62,17 +111,73 @@ public class AuthorizationServerConfiguration {
         // would sign with a different key under the same kid, so the gateway's
         // cached JWKS validated only one replica's tokens. The kid/use/alg are
         // embedded in the JWK JSON.
-        return new JWKSet(RSAKey.parse(jwkJson));
+        //
+        // application.jwk may also be a full JWK set ({"keys": [...]}) holding RSA, EC (P-256)
+        // or Ed25519 keys. Every key is published on the JWKS endpoint; only the one named by
+        // application.authentication-key-id signs. Rotate by publishing the new kid first,
+        // switching authentication-key-id once gateways have refreshed their JWKS, and
+        // dropping the old key after the longest token lifetime has passed.
+        String json = jwkJson.trim();
+        try {
+            return JWKSet.parse(json);
+        } catch (ParseException notASet) {
+            try {
+                return new JWKSet(JWK.parse(json));
+            } catch (ParseException notAKey) {
+                notAKey.addSuppressed(notASet);
+                throw notAKey;
+            }
+        }
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        // bcrypt is the auth tier's CPU ceiling; keep it off request threads and bounded.
+        int threads = passwordHashingThreads > 0 ? passwordHashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads,
+                passwordHashingQueueCapacity, passwordHashingMaxQueueWait, meterRegistry);
+    }
+
+    @Bean
+    public AccountLookupCache accountLookupCache(StringRedisTemplate stringRedisTemplate,
+                                                 ObjectMapper objectMapper,
+                                                 MeterRegistry meterRegistry) {
+        return new AccountLookupCache(stringRedisTemplate, objectMapper, lookupCacheLocalTtl,
+                lookupCacheRedisTtl, lookupCacheMaxSize, meterRegistry);
+    }
+
+    @Bean
+    public RegisteredIdentityFilter registeredIdentityFilter(SlaveUserRepository slaveUserRepository,
+                                                             SlaveAccountRepository slaveAccountRepository,
+                                                             StringRedisTemplate stringRedisTemplate,
+                                                             MeterRegistry meterRegistry) {
+        return new RegisteredIdentityFilter(slaveUserRepository, slaveAccountRepository, stringRedisTemplate,
+                identityFilterExpectedEntries, identityFilterFalsePositiveRate, identityFilterRebuildInterval, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       AccountLookupCache accountLookupCache,
+                                                                       RegisteredIdentityFilter registeredIdentityFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(accountLookupCache, new ChannelTopic(AccountLookupCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(registeredIdentityFilter, new ChannelTopic(RegisteredIdentityFilter.ADDITION_CHANNEL));
+        return container;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public UserService userService(MasterUserRepository masterUserRepository, SlaveUserRepository slaveUserRepository,
+                                   AccountLookupCache accountLookupCache,
+                                   RegisteredIdentityFilter registeredIdentityFilter) {
+        return new UserServiceImpl(masterUserRepository, slaveUserRepository, accountLookupCache, registeredIdentityFilter);
     }
 
     @Bean
-    public UserService userService(MasterUserRepository masterUserRepository, SlaveUserRepository slaveUserRepository) {
-        return new UserServiceImpl(masterUserRepository, slaveUserRepository);
+    public UserExportService userExportService(SlaveUserRepository slaveUserRepository, ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry) {
+        return new UserExportServiceImpl(slaveUserRepository, objectMapper, userExportFetchSize, userExportFlushRows,
+                userExportMaxConcurrent, meterRegistry);
     }
 
     @Bean
@@ -80,8 +185,11 @@ public class AuthorizationServerConfiguration {
                                          SlaveAccountRepository slaveAccountRepository,
                                          MasterAccountRoleRepository masterAccountRoleRepository,
                                          PasswordEncoder passwordEncoder,
-                                         RefreshTokenService refreshTokenService) {
-        return new AccountServiceImpl(masterAccountRepository, slaveAccountRepository, masterAccountRoleRepository, passwordEncoder, refreshTokenService);
+                                         RefreshTokenService refreshTokenService,
+                                         TokenRevocationService tokenRevocationService,
+                                         AccountLookupCache accountLookupCache,
+                                         RegisteredIdentityFilter registeredIdentityFilter) {
+        return new AccountServiceImpl(masterAccountRepository, slaveAccountRepository, masterAccountRoleRepository, passwordEncoder, refreshTokenService, tokenRevocationService, accountLookupCache, registeredIdentityFilter);
     }
 
     @Bean
@@ -90,13 +198,19 @@ public class AuthorizationServerConfiguration {
     }
 
     @Bean
-    public RefreshTokenService refreshTokenService(RedisTemplate<String, Object> redisTemplate) {
-        return new RefreshTokenServiceImpl(redisTemplate, refreshTokenLifetime.longValue());
+    public RefreshTokenService refreshTokenService(StringRedisTemplate stringRedisTemplate,
+                                                   RedisTemplate<String, Object> redisTemplate) {
+        return new RefreshTokenServiceImpl(stringRedisTemplate, redisTemplate, refreshTokenLifetime.longValue());
+    }
+
+    @Bean
+    public TokenRevocationService tokenRevocationService(StringRedisTemplate stringRedisTemplate, JWKSet jwkSet) {
+        return new TokenRevocationServiceImpl(stringRedisTemplate, jwkSet, accessTokenLifetime.longValue());
     }
 
     @Bean
-    public JWTService jwtService(JWKSet jwkSet) {
-        return new JWTServiceImpl(jwkSet, accessTokenLifetime, refreshTokenLifetime);
+    public JWTService jwtService(JWKSet jwkSet) throws JOSEException {
+        return new JWTServiceImpl(jwkSet, activeKeyId, accessTokenLifetime, refreshTokenLifetime);
     }
 
     @Bean
@@ -115,7 +229,8 @@ public class AuthorizationServerConfiguration {
                                                PasswordEncoder passwordEncoder,
                                                JWTService jwtService,
                                                RoleService roleService,
-                                               RefreshTokenService refreshTokenService) {
-        return new AuthFacadeServiceImpl(accountService, userService, redisRepository, emailHelper, passwordEncoder, jwtService, roleService, refreshTokenService);
+                                               RefreshTokenService refreshTokenService,
+                                               TokenRevocationService tokenRevocationService) {
+        return new AuthFacadeServiceImpl(accountService, userService, redisRepository, emailHelper, passwordEncoder, jwtService, roleService, refreshTokenService, tokenRevocationService);
     }
 }
@@ -0,0 +1,52 @@
+package org.aibles.ecommerce.authorization_server.configuration;
+
+import com.mysql.cj.jdbc.MysqlDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.aibles.ecommerce.core_routing_db.configuration.CommonJPAProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Read-only persistence unit used only by the bulk user export.
+ *
+ * Connector/J reads a positive fetch size through a server-side cursor only when useCursorFetch
+ * is set, and that property changes how every statement with a fetch size runs on the
+ * connection. It is therefore set on this export-only data source instead of the shared slave
+ * pools. The data source is neither XA nor pooled: exports run outside JTA, are capped by
+ * application.user-export.max-concurrent and hold their connection for the whole run anyway.
+ */
+@Configuration
+public class ExportEntityFactoryConfiguration {
+
+    @Bean
+    public DataSource exportDatasource(
+            @Qualifier("slave2DataSourceProperties") DataSourceProperties slave2DataSourceProperties) throws SQLException {
+        // slave1 is the routing default; keep long-running exports on the other replica.
+        MysqlDataSource mysqlDataSource = new MysqlDataSource();
+        mysqlDataSource.setUrl(slave2DataSourceProperties.getUrl());
+        mysqlDataSource.setUser(slave2DataSourceProperties.getUsername());
+        mysqlDataSource.setPassword(slave2DataSourceProperties.getPassword());
+        mysqlDataSource.setUseCursorFetch(true);
+        return mysqlDataSource;
+    }
+
+    @Bean
+    public EntityManagerFactory exportEntityManager(@Qualifier("exportDatasource") DataSource exportDatasource) {
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setJpaVendorAdapter(vendorAdapter);
+        factory.setPackagesToScan("org.aibles.ecommerce.authorization_server.entity");
+        factory.setDataSource(exportDatasource);
+        factory.setPersistenceUnitName("authorizationServerExport");
+        factory.setJpaPropertyMap(CommonJPAProperties.getSlaveProperties());
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+}
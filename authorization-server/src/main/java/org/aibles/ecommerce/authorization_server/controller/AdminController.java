@@ -1,11 +1,15 @@
 package org.aibles.ecommerce.authorization_server.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.aibles.ecommerce.authorization_server.constant.ExportFormat;
 import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
 import org.aibles.ecommerce.authorization_server.dto.request.UpdateRoleRequest;
 import org.aibles.ecommerce.authorization_server.service.AuthFacadeService;
+import org.aibles.ecommerce.authorization_server.service.UserExportService;
 import org.aibles.ecommerce.authorization_server.service.UserService;
 import org.aibles.ecommerce.common_dto.response.BaseResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -16,9 +20,12 @@ public class AdminController {
 
     private final UserService userService;
 
-    public AdminController(AuthFacadeService authFacadeService, UserService userService) {
+    private final UserExportService userExportService;
+
+    public AdminController(AuthFacadeService authFacadeService, UserService userService, UserExportService userExportService) {
         this.authFacadeService = authFacadeService;
         this.userService = userService;
+        this.userExportService = userExportService;
     }
 
     @PatchMapping("/admin:update-role")
@@ -36,4 +43,25 @@ public class AdminController {
     public BaseResponse filter(@RequestBody @Valid FilterRequest request) {
         return BaseResponse.ok(userService.filter(request));
     }
+
+    @PostMapping("/admin/users:filter-page")
+    public BaseResponse filterPage(@RequestBody @Valid FilterRequest request) {
+        return BaseResponse.ok(userService.filterPage(request));
+    }
+
+    /**
+     * Streams every matching user as CSV or NDJSON. Written synchronously on the request thread
+     * so a long export is not cut off by the async request timeout.
+     */
+    @PostMapping("/admin/users:export")
+    public void export(@RequestParam(value = "format", defaultValue = "CSV") ExportFormat format,
+                       @RequestBody(required = false) @Valid FilterRequest request,
+                       HttpServletResponse response) {
+        userExportService.export(request != null ? request : new FilterRequest(), format, () -> {
+            response.setContentType(format.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + format.getExtension() + "\"");
+            return response.getOutputStream();
+        });
+    }
 }
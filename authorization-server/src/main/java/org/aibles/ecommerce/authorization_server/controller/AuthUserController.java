@@ -52,8 +52,9 @@ public class AuthUserController {
 
     @PostMapping("/auth:logout")
     @ResponseStatus(HttpStatus.OK)
-    public BaseResponse logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String refreshToken) {
-        authFacadeService.logout(refreshToken);
+    public BaseResponse logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String refreshToken,
+                               @RequestHeader(value = "X-Access-Token", required = false) String accessToken) {
+        authFacadeService.logout(refreshToken, accessToken);
         return BaseResponse.ok("");
     }
 
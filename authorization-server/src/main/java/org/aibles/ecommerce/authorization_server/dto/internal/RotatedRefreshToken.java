@@ -0,0 +1,16 @@
+package org.aibles.ecommerce.authorization_server.dto.internal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Outcome of a successful rotation: the family's owner and the token that replaced the old one. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RotatedRefreshToken {
+    private String userId;
+    private String refreshToken;
+}
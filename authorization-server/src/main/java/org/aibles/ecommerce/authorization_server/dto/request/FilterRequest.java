@@ -3,6 +3,8 @@ package org.aibles.ecommerce.authorization_server.dto.request;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,4 +24,11 @@ public class FilterRequest {
 
     @Valid
     private List<SortModel> sort;
+
+    /** Opaque position returned as next_cursor by the previous page; only read by the paged filter. */
+    private String cursor;
+
+    @Min(1)
+    @Max(200)
+    private Integer limit;
 }
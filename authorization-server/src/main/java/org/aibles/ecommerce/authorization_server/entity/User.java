@@ -7,12 +7,17 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import org.aibles.ecommerce.authorization_server.constant.Gender;
 
 @Entity
-@Table(name = "\"user\"")
+@Table(name = "\"user\"", indexes = {
+        @Index(name = "idx_user_name_id", columnList = "name, id"),
+        @Index(name = "idx_user_address_id", columnList = "address, id"),
+        @Index(name = "idx_user_gender_id", columnList = "gender, id")
+})
 @Data
 public class User {
 
@@ -0,0 +1,10 @@
+package org.aibles.ecommerce.authorization_server.exception;
+
+import org.aibles.ecommerce.common_dto.exception.BadRequestException;
+
+public class InvalidCursorException extends BadRequestException {
+
+    public InvalidCursorException() {
+        setCode("common.invalid_cursor");
+    }
+}
@@ -0,0 +1,11 @@
+package org.aibles.ecommerce.authorization_server.exception;
+
+import org.aibles.ecommerce.common_dto.exception.BaseException;
+
+public class UserExportBusyException extends BaseException {
+
+    public UserExportBusyException() {
+        setStatus(503);
+        setCode("common.service_unavailable");
+    }
+}
@@ -6,9 +6,21 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MasterAccountRepository extends JpaRepository<Account, String> {
 
+    @Query("""
+            select r.name from Account a join AccountRole ar on a.id = ar.accountId join Role r on ar.roleId = r.id where a.id = :id
+            """)
+    List<String> findRolesById(String id);
+
+    @Query("""
+        select r.name from Account a join AccountRole ar on a.id = ar.accountId join Role r on ar.roleId = r.id where a.userId = :userId
+       """)
+    List<String> findRolesByUserId(String userId);
+
     @Query("""
         delete from AccountRole ar where ar.accountId = :id
         """)
@@ -21,4 +33,10 @@ public interface MasterAccountRepository extends JpaRepository<Account, String>
         set a.password = :newPassword where u.email = :email
         """, nativeQuery = true)
     void resetPasswordByEmail(String email, String newPassword);
+
+    @Modifying
+    @Query("""
+        update Account a set a.password = :newPassword where a.id = :id and a.password = :currentPassword
+        """)
+    int updatePasswordIfUnchanged(String id, String currentPassword, String newPassword);
 }
@@ -0,0 +1,9 @@
+package org.aibles.ecommerce.authorization_server.repository.slave;
+
+import java.util.function.Consumer;
+
+public interface AccountRepositoryCustom {
+
+    /** Streams every taken username over a forward-only cursor. */
+    void streamUsernames(Consumer<String> consumer);
+}
@@ -0,0 +1,41 @@
+package org.aibles.ecommerce.authorization_server.repository.slave;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+@Repository
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+    /** Row-by-row streaming on the shared slave pools; see UserRepositoryCustomImpl. */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public AccountRepositoryCustomImpl(@Qualifier("slaveEntityManager") EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void streamUsernames(Consumer<String> consumer) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            org.hibernate.query.Query<String> scrollQuery = entityManager.createQuery("select a.username from Account a", String.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, STREAMING_FETCH_SIZE)
+                    .unwrap(org.hibernate.query.Query.class);
+            try (ScrollableResults<String> results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    consumer.accept(results.get());
+                }
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SlaveAccountRepository extends JpaRepository<Account, String> {
+public interface SlaveAccountRepository extends JpaRepository<Account, String>, AccountRepositoryCustom {
 
     boolean existsByUsername(String username);
 
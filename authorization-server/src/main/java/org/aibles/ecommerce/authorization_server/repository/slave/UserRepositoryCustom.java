@@ -2,11 +2,30 @@ package org.aibles.ecommerce.authorization_server.repository.slave;
 
 import org.aibles.ecommerce.authorization_server.dto.QueryModel;
 import org.aibles.ecommerce.authorization_server.dto.SortModel;
+import org.aibles.ecommerce.authorization_server.dto.response.PageResponse;
 import org.aibles.ecommerce.authorization_server.entity.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserRepositoryCustom {
 
     List<User> filter(List<QueryModel> query, List<SortModel> sort);
+
+    /**
+     * Returns at most {@code limit} users ordered by {@code sort} and then id, starting
+     * right after the row encoded in {@code cursor} (first page when null). The returned
+     * next cursor is null on the last page.
+     */
+    PageResponse<User> filterPage(List<QueryModel> query, SortModel sort, String cursor, int limit);
+
+    /**
+     * Streams every matching user to {@code consumer} over a forward-only server-side cursor
+     * on the dedicated export data source, reading {@code fetchSize} rows per round trip. The persistence context is cleared
+     * after each batch, so memory stays flat regardless of result size.
+     */
+    void stream(List<QueryModel> query, List<SortModel> sort, int fetchSize, Consumer<User> consumer);
+
+    /** Streams every registered email row by row over a forward-only result set. */
+    void streamEmails(Consumer<String> consumer);
 }
@@ -3,39 +3,155 @@ package org.aibles.ecommerce.authorization_server.repository.slave;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.criteria.*;
+import org.aibles.ecommerce.authorization_server.constant.Gender;
 import org.aibles.ecommerce.authorization_server.dto.QueryModel;
 import org.aibles.ecommerce.authorization_server.dto.SortModel;
+import org.aibles.ecommerce.authorization_server.dto.response.PageResponse;
 import org.aibles.ecommerce.authorization_server.entity.User;
 import org.aibles.ecommerce.authorization_server.entity.User_;
+import org.aibles.ecommerce.authorization_server.exception.InvalidCursorException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 public class UserRepositoryCustomImpl implements UserRepositoryCustom {
 
-    private final EntityManager entityManager;
+    private static final Set<String> KEYSET_FIELDS = Set.of(User_.ID, User_.NAME, User_.EMAIL, User_.ADDRESS, User_.GENDER);
 
-    public UserRepositoryCustomImpl(@Qualifier("slaveEntityManager") EntityManagerFactory entityManagerFactory) {
-        this.entityManager = entityManagerFactory.createEntityManager();
+    private static final String CURSOR_SEPARATOR = ":";
+
+    /** Stands for a NULL sort value; '~' is outside the URL-safe Base64 alphabet. */
+    private static final String NULL_VALUE = "~";
+
+    /**
+     * On the shared slave pools (no useCursorFetch) Integer.MIN_VALUE is Connector/J's signal to
+     * stream the result set row by row instead of buffering it. The connection cannot run
+     * another statement until the stream is fully read.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final EntityManagerFactory exportEntityManagerFactory;
+
+    public UserRepositoryCustomImpl(@Qualifier("slaveEntityManager") EntityManagerFactory entityManagerFactory,
+                                    @Qualifier("exportEntityManager") EntityManagerFactory exportEntityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.exportEntityManagerFactory = exportEntityManagerFactory;
     }
 
     @Override
     public List<User> filter(List<QueryModel> query, List<SortModel> sort) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<User> cq = cb.createQuery(User.class);
-        Root<User> root = cq.from(User.class);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery(createQuery(entityManager, query, sort)).getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
 
-        List<Predicate> predicates = new ArrayList<>();
-        if (query != null && !query.isEmpty()) {
-            for(QueryModel qm : query) {
-                createPredicates(qm, predicates, cb, root);
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public PageResponse<User> filterPage(List<QueryModel> query, SortModel sort, String cursor, int limit) {
+        String field = sort != null ? sort.getField() : User_.ID;
+        boolean ascending = sort == null || !"desc".equals(sort.getDirection());
+        if (!KEYSET_FIELDS.contains(field)) {
+            field = User_.ID;
+        }
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<User> cq = cb.createQuery(User.class);
+            Root<User> root = cq.from(User.class);
+
+            List<Predicate> predicates = createPredicates(query, cb, root);
+            // The bare column, so ORDER BY and the seek can both run on the (column, id) index.
+            Path<Comparable> sortKey = root.get(field);
+            Path<String> id = root.get(User_.ID);
+            if (cursor != null && !cursor.isBlank()) {
+                CursorPosition position = decodeCursor(cursor, field, ascending);
+                predicates.add(afterPosition(cb, field, sortKey, id, position, ascending));
+            }
+            cq.where(predicates.toArray(new Predicate[0]));
+            if (User_.ID.equals(field)) {
+                cq.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+            } else {
+                cq.orderBy(ascending ? cb.asc(sortKey) : cb.desc(sortKey), ascending ? cb.asc(id) : cb.desc(id));
             }
+
+            // One extra row tells whether another page exists without a COUNT query.
+            List<User> users = entityManager.createQuery(cq)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setMaxResults(limit + 1)
+                    .getResultList();
+            if (users.size() <= limit) {
+                return new PageResponse<>(users, null);
+            }
+            List<User> page = new ArrayList<>(users.subList(0, limit));
+            return new PageResponse<>(page, encodeCursor(field, ascending, page.get(limit - 1)));
+        } finally {
+            entityManager.close();
         }
+    }
 
-        cq.where(predicates.toArray(new Predicate[0]));
+    @Override
+    public void stream(List<QueryModel> query, List<SortModel> sort, int fetchSize, Consumer<User> consumer) {
+        // The export unit has useCursorFetch on, so the positive fetch size opens a server-side cursor.
+        EntityManager entityManager = exportEntityManagerFactory.createEntityManager();
+        try {
+            org.hibernate.query.Query<User> scrollQuery = entityManager.createQuery(createQuery(entityManager, query, sort))
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .unwrap(org.hibernate.query.Query.class);
+            try (ScrollableResults<User> results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+                int count = 0;
+                while (results.next()) {
+                    consumer.accept(results.get());
+                    // Drop each fetched batch from the persistence context once it is written.
+                    if (++count % fetchSize == 0) {
+                        entityManager.clear();
+                    }
+                }
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Override
+    public void streamEmails(Consumer<String> consumer) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            org.hibernate.query.Query<String> scrollQuery = entityManager.createQuery("select u.email from User u", String.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, STREAMING_FETCH_SIZE)
+                    .unwrap(org.hibernate.query.Query.class);
+            try (ScrollableResults<String> results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    consumer.accept(results.get());
+                }
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private CriteriaQuery<User> createQuery(EntityManager entityManager, List<QueryModel> query, List<SortModel> sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> cq = cb.createQuery(User.class);
+        Root<User> root = cq.from(User.class);
+
+        cq.where(createPredicates(query, cb, root).toArray(new Predicate[0]));
 
         List<Order> orders = new ArrayList<>();
         if (sort != null && !sort.isEmpty()) {
@@ -45,8 +161,83 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
         }
 
         cq.orderBy(orders);
+        return cq;
+    }
+
+    private List<Predicate> createPredicates(List<QueryModel> query, CriteriaBuilder cb, Root<User> root) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query != null && !query.isEmpty()) {
+            for(QueryModel qm : query) {
+                createPredicates(qm, predicates, cb, root);
+            }
+        }
+        return predicates;
+    }
+
+    /**
+     * Rows strictly after {@code position} in (sort key, id) order. MySQL sorts NULLs first
+     * ascending and last descending, so a NULL sort value is its own run at that end.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Predicate afterPosition(CriteriaBuilder cb, String field, Path<Comparable> sortKey, Path<String> id,
+                                    CursorPosition position, boolean ascending) {
+        Predicate beyondId = ascending ? cb.greaterThan(id, position.id()) : cb.lessThan(id, position.id());
+        if (User_.ID.equals(field)) {
+            return beyondId;
+        }
+        if (position.value() == null) {
+            Predicate restOfNullRun = cb.and(cb.isNull(sortKey), beyondId);
+            return ascending ? cb.or(restOfNullRun, cb.isNotNull(sortKey)) : restOfNullRun;
+        }
+        Predicate beyondValue = ascending
+                ? cb.greaterThan(sortKey, position.value()) : cb.lessThan(sortKey, position.value());
+        Predicate tie = cb.and(cb.equal(sortKey, position.value()), beyondId);
+        return ascending ? cb.or(beyondValue, tie) : cb.or(beyondValue, tie, cb.isNull(sortKey));
+    }
+
+    /** Last row of a page: its sort value (typed like the column, null for NULL) and id. */
+    record CursorPosition(Comparable<?> value, String id) {
+    }
+
+    static String encodeCursor(String field, boolean ascending, User last) {
+        String value = switch (field) {
+            case User_.NAME -> last.getName();
+            case User_.EMAIL -> last.getEmail();
+            case User_.ADDRESS -> last.getAddress();
+            case User_.GENDER -> last.getGender() != null ? last.getGender().name() : null;
+            default -> last.getId();
+        };
+        String raw = String.join(CURSOR_SEPARATOR,
+                field,
+                ascending ? "asc" : "desc",
+                value != null ? Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)) : NULL_VALUE,
+                last.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        return entityManager.createQuery(cq).getResultList();
+    /**
+     * A cursor minted for a different sort, or one that does not decode to a value of the
+     * column's type, is rejected rather than silently skipping or repeating rows.
+     */
+    static CursorPosition decodeCursor(String cursor, String field, boolean ascending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 4);
+            if (parts.length != 4 || !parts[0].equals(field) || !parts[1].equals(ascending ? "asc" : "desc")
+                    || parts[3].isEmpty()) {
+                throw new InvalidCursorException();
+            }
+            if (NULL_VALUE.equals(parts[2])) {
+                if (User_.ID.equals(field) || User_.EMAIL.equals(field)) {
+                    throw new InvalidCursorException();
+                }
+                return new CursorPosition(null, parts[3]);
+            }
+            String value = new String(Base64.getUrlDecoder().decode(parts[2]), StandardCharsets.UTF_8);
+            return new CursorPosition(User_.GENDER.equals(field) ? Gender.valueOf(value) : value, parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
     }
 
     private void createOrders(SortModel sm, List<Order> orders, CriteriaBuilder cb, Root<User> root) {
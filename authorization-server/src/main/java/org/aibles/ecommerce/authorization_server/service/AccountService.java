@@ -28,5 +28,11 @@ public interface AccountService {
 
     void updatePassword(String userId, String oldPassword, String newPassword);
 
+    /**
+     * Swap in a hash already re-encoded at the configured bcrypt cost. Skipped if the stored
+     * hash changed in the meantime; the caller encodes before calling so no transaction spans bcrypt.
+     */
+    void rehashPassword(String accountId, String currentHash, String newHash);
+
     String getUserIdByEmail(String email);
 }
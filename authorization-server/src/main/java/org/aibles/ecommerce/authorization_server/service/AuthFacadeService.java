@@ -29,7 +29,7 @@ public interface AuthFacadeService {
 
     void resendOtp(OTPType type, String email);
 
-    void logout(String refreshTokenHeader);
+    void logout(String refreshTokenHeader, String accessToken);
 
     void logoutAll(String userId);
 }
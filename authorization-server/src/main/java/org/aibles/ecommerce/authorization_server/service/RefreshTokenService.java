@@ -1,6 +1,6 @@
 package org.aibles.ecommerce.authorization_server.service;
 
-import org.aibles.ecommerce.authorization_server.dto.internal.TokenFamily;
+import org.aibles.ecommerce.authorization_server.dto.internal.RotatedRefreshToken;
 
 public interface RefreshTokenService {
 
@@ -9,10 +9,10 @@ public interface RefreshTokenService {
 
     /**
      * Look up the incoming raw token, verify it is the family's current token,
-     * rotate to a new RT. Throws TokenInvalidException if unknown / revoked /
-     * reuse-detected.
+     * rotate to a new RT and return it with the family's userId. Throws
+     * TokenInvalidException if unknown / revoked / reuse-detected.
      */
-    String rotate(String incomingToken);
+    RotatedRefreshToken rotate(String incomingToken);
 
     /** Revoke the family the given RT belongs to. No-op if already revoked. */
     void revokeByToken(String incomingToken);
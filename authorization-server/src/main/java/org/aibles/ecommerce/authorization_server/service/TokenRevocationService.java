@@ -0,0 +1,16 @@
+package org.aibles.ecommerce.authorization_server.service;
+
+public interface TokenRevocationService {
+
+    /**
+     * Revoke every access token already issued to the user (logout-all / password-change).
+     * Tokens issued afterwards are unaffected.
+     */
+    void revokeAllForUser(String userId);
+
+    /**
+     * Revoke a single access token until it expires. Tokens that fail verification are
+     * ignored, so a caller cannot plant arbitrary entries.
+     */
+    void revokeAccessToken(String accessToken);
+}
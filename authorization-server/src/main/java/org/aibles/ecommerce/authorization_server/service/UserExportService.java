@@ -0,0 +1,17 @@
+package org.aibles.ecommerce.authorization_server.service;
+
+import org.aibles.ecommerce.authorization_server.constant.ExportFormat;
+import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
+
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+public interface UserExportService {
+
+    /**
+     * Writes every user matching {@code request} to the stream opened by {@code target}, one
+     * row per user. {@code target} is only called once an export slot is free, so a busy
+     * rejection can still be answered with a normal error response.
+     */
+    void export(FilterRequest request, ExportFormat format, Callable<OutputStream> target);
+}
@@ -2,6 +2,7 @@ package org.aibles.ecommerce.authorization_server.service;
 
 import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
 import org.aibles.ecommerce.authorization_server.dto.request.UpdateUserRequest;
+import org.aibles.ecommerce.authorization_server.dto.response.PageResponse;
 import org.aibles.ecommerce.authorization_server.dto.response.UserDetailResponse;
 import org.aibles.ecommerce.authorization_server.entity.User;
 
@@ -11,11 +12,23 @@ public interface UserService {
 
     boolean isExistedByEmail(String email);
 
+    /**
+     * Registration pre-check, answered from the registered-identity Bloom filter when it says
+     * absent. A false negative only lets the insert reach the unique constraint, so this must
+     * not be used where a miss would be reported to the user (activation, OTP, password reset).
+     */
+    boolean isTakenForRegistration(String email);
+
     User save(String email);
 
     void update(String userId, UpdateUserRequest request);
 
     UserDetailResponse get(String userId);
 
+    /** Email of the user, served from the account lookup cache when possible. */
+    String getEmail(String userId);
+
     List<UserDetailResponse> filter(FilterRequest request);
+
+    PageResponse<UserDetailResponse> filterPage(FilterRequest request);
 }
@@ -1,6 +1,8 @@
 package org.aibles.ecommerce.authorization_server.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.authorization_server.cache.AccountLookupCache;
+import org.aibles.ecommerce.authorization_server.cache.RegisteredIdentityFilter;
 import org.aibles.ecommerce.authorization_server.entity.Account;
 import org.aibles.ecommerce.authorization_server.entity.AccountRole;
 import org.aibles.ecommerce.authorization_server.exception.EmailNotFoundException;
@@ -12,7 +14,9 @@ import org.aibles.ecommerce.authorization_server.repository.projection.AccountUs
 import org.aibles.ecommerce.authorization_server.repository.slave.SlaveAccountRepository;
 import org.aibles.ecommerce.authorization_server.service.AccountService;
 import org.aibles.ecommerce.authorization_server.service.RefreshTokenService;
+import org.aibles.ecommerce.authorization_server.service.TokenRevocationService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
@@ -32,18 +36,30 @@ public class AccountServiceImpl implements AccountService {
 
     private final RefreshTokenService refreshTokenService;
 
-    public AccountServiceImpl(MasterAccountRepository masterAccountRepository, SlaveAccountRepository slaveAccountRepository, MasterAccountRoleRepository masterAccountRoleRepository, PasswordEncoder passwordEncoder, RefreshTokenService refreshTokenService) {
+    private final TokenRevocationService tokenRevocationService;
+
+    private final AccountLookupCache accountLookupCache;
+
+    private final RegisteredIdentityFilter registeredIdentityFilter;
+
+    public AccountServiceImpl(MasterAccountRepository masterAccountRepository, SlaveAccountRepository slaveAccountRepository, MasterAccountRoleRepository masterAccountRoleRepository, PasswordEncoder passwordEncoder, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService, AccountLookupCache accountLookupCache, RegisteredIdentityFilter registeredIdentityFilter) {
         this.masterAccountRepository = masterAccountRepository;
         this.slaveAccountRepository = slaveAccountRepository;
         this.masterAccountRoleRepository = masterAccountRoleRepository;
         this.passwordEncoder = passwordEncoder;
         this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.accountLookupCache = accountLookupCache;
+        this.registeredIdentityFilter = registeredIdentityFilter;
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean isExistedByUsername(String username) {
         log.info("(isExistedByUsername)username: {}", username);
+        if (!registeredIdentityFilter.mightContainUsername(username)) {
+            return false;
+        }
         return slaveAccountRepository.existsByUsername(username);
     }
 
@@ -59,6 +75,7 @@ public class AccountServiceImpl implements AccountService {
                 .isActivated(false)
                 .build();
         masterAccountRepository.save(account);
+        registeredIdentityFilter.addUsername(username);
     }
 
     @Override
@@ -90,14 +107,14 @@ public class AccountServiceImpl implements AccountService {
     @Transactional(readOnly = true)
     public List<String> getRolesById(String id) {
         log.info("(getRolesById)id : {}", id);
-        return slaveAccountRepository.findRolesById(id);
+        return accountLookupCache.rolesByAccountId(id, () -> masterAccountRepository.findRolesById(id));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getRolesByUserId(String userId) {
         log.info("(getRolesByUserId)userId : {}", userId);
-        return slaveAccountRepository.findRolesByUserId(userId);
+        return accountLookupCache.rolesByUserId(userId, () -> masterAccountRepository.findRolesByUserId(userId));
     }
 
     @Override
@@ -105,6 +122,7 @@ public class AccountServiceImpl implements AccountService {
     public void deleteRoles(String id) {
         log.info("(deleteRoles)id : {}", id);
         masterAccountRepository.deleteRolesById(id);
+        evictRoles(id);
     }
 
     @Override
@@ -121,6 +139,12 @@ public class AccountServiceImpl implements AccountService {
             accountRoles.add(accountRole);
         }
         masterAccountRoleRepository.saveAll(accountRoles);
+        evictRoles(accountId);
+    }
+
+    private void evictRoles(String accountId) {
+        String userId = masterAccountRepository.findById(accountId).map(Account::getUserId).orElse(null);
+        accountLookupCache.evictRoles(accountId, userId);
     }
 
     @Override
@@ -153,6 +177,14 @@ public class AccountServiceImpl implements AccountService {
 
         log.info("revoked all refresh-token families on password change. userId={}", userId);
         refreshTokenService.revokeAllForUser(userId);
+        tokenRevocationService.revokeAllForUser(userId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rehashPassword(String accountId, String currentHash, String newHash) {
+        int updated = masterAccountRepository.updatePasswordIfUnchanged(accountId, currentHash, newHash);
+        log.info("(rehashPassword)accountId: {}, updated: {}", accountId, updated == 1);
     }
 
     @Override
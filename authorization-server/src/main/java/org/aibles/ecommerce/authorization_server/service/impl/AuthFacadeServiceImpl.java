@@ -4,6 +4,7 @@ import com.nimbusds.jose.JOSEException;
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.ecommerce.authorization_server.constant.CacheConstant;
 import org.aibles.ecommerce.authorization_server.constant.OTPType;
+import org.aibles.ecommerce.authorization_server.dto.internal.RotatedRefreshToken;
 import org.aibles.ecommerce.authorization_server.dto.request.RegisterUserRequest;
 import org.aibles.ecommerce.authorization_server.dto.request.ResetPasswordRequest;
 import org.aibles.ecommerce.authorization_server.dto.response.LoginResponse;
@@ -45,7 +46,9 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
 
     private final RefreshTokenService refreshTokenService;
 
-    public AuthFacadeServiceImpl(AccountService accountService, UserService userService, RedisRepository redisRepository, EmailHelper emailHelper, PasswordEncoder passwordEncoder, JWTService jwtService, RoleService roleService, RefreshTokenService refreshTokenService) {
+    private final TokenRevocationService tokenRevocationService;
+
+    public AuthFacadeServiceImpl(AccountService accountService, UserService userService, RedisRepository redisRepository, EmailHelper emailHelper, PasswordEncoder passwordEncoder, JWTService jwtService, RoleService roleService, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.accountService = accountService;
         this.userService = userService;
         this.redisRepository = redisRepository;
@@ -54,13 +57,14 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
         this.jwtService = jwtService;
         this.roleService = roleService;
         this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
     @Transactional
     public void register(RegisterUserRequest request) {
         log.info("(register)email: {}, username: {}", request.getEmail(), request.getUsername());
-        if (userService.isExistedByEmail(request.getEmail()) ||
+        if (userService.isTakenForRegistration(request.getEmail()) ||
                 accountService.isExistedByUsername(request.getUsername())) {
             log.error("(register)email : {} or username: {} already existed", request.getEmail(), request.getUsername());
             throw new UserAlreadyExistedException();
@@ -117,6 +121,10 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
             throw new PasswordInvalidException();
         }
 
+        if (passwordEncoder.upgradeEncoding(accountUserPrj.getPassword())) {
+            rehashPassword(accountUserPrj, password);
+        }
+
         List<String> roles = accountService.getRolesById(accountUserPrj.getAccountId());
         String accessToken;
         try {
@@ -153,12 +161,12 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
         }
         String rawToken = refreshToken.substring(7);
 
-        String userId = refreshTokenService.userIdForToken(rawToken);
-        if (userId == null) {
-            throw new TokenInvalidException();
-        }
+        // Rotate first: the script validates the token and returns its owner in one EVAL, so
+        // there is no window between resolving the user and consuming the token.
+        RotatedRefreshToken rotated = refreshTokenService.rotate(rawToken);
+        String userId = rotated.getUserId();
 
-        String email = userService.get(userId).getEmail();
+        String email = userService.getEmail(userId);
         List<String> roles = accountService.getRolesByUserId(userId);
 
         String newAccessToken;
@@ -169,20 +177,21 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
             throw new InternalErrorException();
         }
 
-        String newRefreshToken = refreshTokenService.rotate(rawToken);
-
         return RefreshTokenResponse.builder()
                 .accessToken(newAccessToken)
-                .refreshToken(newRefreshToken)
+                .refreshToken(rotated.getRefreshToken())
                 .build();
     }
 
     @Override
-    public void logout(String refreshTokenHeader) {
+    public void logout(String refreshTokenHeader, String accessToken) {
         if (Objects.isNull(refreshTokenHeader) || !refreshTokenHeader.startsWith("Bearer ")) {
             throw new TokenInvalidException();
         }
         refreshTokenService.revokeByToken(refreshTokenHeader.substring(7));
+        if (Objects.nonNull(accessToken) && !accessToken.isBlank()) {
+            tokenRevocationService.revokeAccessToken(accessToken);
+        }
     }
 
     @Override
@@ -191,6 +200,7 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
             throw new TokenInvalidException();
         }
         refreshTokenService.revokeAllForUser(userId);
+        tokenRevocationService.revokeAllForUser(userId);
     }
 
     @Override
@@ -264,6 +274,7 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
         String userId = accountService.getUserIdByEmail(request.getEmail());
         log.info("revoked all refresh-token families on password reset. userId={}", userId);
         refreshTokenService.revokeAllForUser(userId);
+        tokenRevocationService.revokeAllForUser(userId);
 
         redisRepository.delete(CacheConstant.RESET_PASSWORD_KEY, request.getEmail());
     }
@@ -282,6 +293,16 @@ public class AuthFacadeServiceImpl implements AuthFacadeService {
         saveRedisAndSendMail(email, type, otp);
     }
 
+    /** The bcrypt cost was raised since this hash was stored; a failed upgrade must not fail the login. */
+    private void rehashPassword(AccountUserProjection accountUserPrj, String password) {
+        try {
+            String newHash = passwordEncoder.encode(password);
+            accountService.rehashPassword(accountUserPrj.getAccountId(), accountUserPrj.getPassword(), newHash);
+        } catch (RuntimeException ex) {
+            log.warn("(rehashPassword) password rehash skipped. accountId={}", accountUserPrj.getAccountId(), ex);
+        }
+    }
+
     private void saveRedisAndSendMail(String email, OTPType type, String otp) {
         redisRepository.save(email + CacheConstant.SEPARATOR_KEY + type.getRedisKey(),
                 otp, type.getMinute(), TimeUnit.MINUTES);
@@ -4,32 +4,75 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.Ed25519Signer;
 import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.core_jwt_util.constant.JwtConstant;
+import org.aibles.core_jwt_util.util.JwtUtil;
 import org.aibles.ecommerce.authorization_server.service.JWTService;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Slf4j
 public class JWTServiceImpl implements JWTService {
 
-    private final JWKSet jwkSet;
-
     private final Integer accessTokenLifetime;
 
     private final Integer refreshTokenLifetime;
 
-    public JWTServiceImpl(JWKSet jwkSet, Integer accessTokenLifetime, Integer refreshTokenLifetime) {
-        this.jwkSet = jwkSet;
+    /**
+     * The key every new token is signed with, built once. Other keys in the set are only
+     * published for verification, which is what lets a new kid be rolled out before it signs.
+     */
+    private final SigningKey signingKey;
+
+    public JWTServiceImpl(JWKSet jwkSet, String activeKeyId, Integer accessTokenLifetime, Integer refreshTokenLifetime) throws JOSEException {
         this.accessTokenLifetime = accessTokenLifetime;
         this.refreshTokenLifetime = refreshTokenLifetime;
+        this.signingKey = signingKey(jwkSet, activeKeyId);
+        log.info("(JWTServiceImpl) signing with kid: {}, alg: {}", signingKey.header().getKeyID(), signingKey.header().getAlgorithm());
+    }
+
+    private static SigningKey signingKey(JWKSet jwkSet, String activeKeyId) throws JOSEException {
+        JWK jwk = activeKeyId == null || activeKeyId.isBlank() ? null : jwkSet.getKeyByKeyId(activeKeyId);
+        if (jwk == null) {
+            jwk = jwkSet.getKeys().stream().filter(JWK::isPrivate).findFirst()
+                    .orElseThrow(() -> new JOSEException("JWK set has no private signing key"));
+        }
+        if (!jwk.isPrivate()) {
+            throw new JOSEException("Active signing key " + jwk.getKeyID() + " has no private part");
+        }
+
+        JWSAlgorithm algorithm = JwtUtil.algorithmFor(jwk);
+        JWSSigner signer;
+        if (jwk instanceof RSAKey rsaKey) {
+            signer = new RSASSASigner(rsaKey);
+        } else if (jwk instanceof ECKey ecKey) {
+            signer = new ECDSASigner(ecKey);
+        } else if (jwk instanceof OctetKeyPair okp) {
+            if (!JwtUtil.EDDSA_AVAILABLE) {
+                throw new JOSEException("Signing with Ed25519 kid " + jwk.getKeyID()
+                        + " needs com.google.crypto.tink:tink on the classpath");
+            }
+            signer = new Ed25519Signer(okp);
+        } else {
+            throw new JOSEException("Unsupported signing key type: " + jwk.getKeyType());
+        }
+        if (algorithm == null || !signer.supportedJWSAlgorithms().contains(algorithm)) {
+            throw new JOSEException("Unsupported signing algorithm for kid " + jwk.getKeyID() + ": " + algorithm);
+        }
+        return new SigningKey(new JWSHeader.Builder(algorithm).keyID(jwk.getKeyID()).build(), signer);
     }
 
     @Override
@@ -46,25 +89,23 @@ public class JWTServiceImpl implements JWTService {
 
     private String generateToken(String subject, String email, List<String> roles, Integer lifetime) throws JOSEException {
         log.info("(generateToken)subject : {}", subject);
-        RSAKey rsaKey = (RSAKey) jwkSet.getKeys().get(0);
-        JWSSigner signer = new RSASSASigner(rsaKey.toPrivateKey());
-
+        Date issuedAt = new Date();
         JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
                 .subject(subject)
                 .claim(JwtConstant.ClaimKey.EMAIL, email)
                 .claim(JwtConstant.ClaimKey.ROLES, roles.isEmpty() ? new ArrayList<>() : roles)
-                .expirationTime(new Date(System.currentTimeMillis() + lifetime))
+                .issueTime(issuedAt)
+                .expirationTime(new Date(issuedAt.getTime() + lifetime))
                 .build();
 
-        SignedJWT signedJWT = new SignedJWT(
-                new JWSHeader.Builder(JWSAlgorithm.RS256)
-                        .keyID(rsaKey.getKeyID())
-                        .build(),
-                claimsSet
-        );
+        SignedJWT signedJWT = new SignedJWT(signingKey.header(), claimsSet);
 
-        signedJWT.sign(signer);
+        signedJWT.sign(signingKey.signer());
 
         return signedJWT.serialize();
     }
+
+    private record SigningKey(JWSHeader header, JWSSigner signer) {
+    }
 }
@@ -1,18 +1,34 @@
 package org.aibles.ecommerce.authorization_server.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.authorization_server.dto.internal.RotatedRefreshToken;
 import org.aibles.ecommerce.authorization_server.exception.TokenInvalidException;
 import org.aibles.ecommerce.authorization_server.service.RefreshTokenService;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Refresh-token families kept in Redis. The token key is read first to find the family, then
+ * every write is a single Lua script run via EVALSHA with all the keys it touches declared in
+ * KEYS, so the read-compare-write steps of rotation and reuse detection cannot interleave with
+ * a concurrent refresh of the same family.
+ *
+ * Layout: {@code rt:{token}} = familyId, hash {@code family:{id}} (userId, currentToken,
+ * createdAt, expiresAt) and set {@code user:{userId}:families}, all stored as plain strings.
+ *
+ * Families written by the previous implementation (JSON values, JDK-serialized hash fields)
+ * are still read: the token key is unquoted, and the family hash and index member are
+ * rewritten in the plain format on first use, so existing sessions survive the switch.
+ */
 @Slf4j
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
@@ -21,14 +37,117 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     private static final String USER_FAMILIES_PREFIX = "user:";
     private static final String USER_FAMILIES_SUFFIX = ":families";
 
-    private final RedisTemplate<String, Object> redis;
+    private static final String ROTATE_INVALID = "INVALID";
+    private static final String ROTATE_OK_PREFIX = "OK:";
+    private static final String ROTATE_REUSED_PREFIX = "REUSED:";
+
+    private static final int REVOKE_BATCH_SIZE = 500;
+
+    /**
+     * KEYS[1] = rt:{token}, KEYS[2] = family:{id}, KEYS[3] = user:{userId}:families.
+     * ARGV[1] = familyId, ARGV[2] = userId, ARGV[3] = token, ARGV[4] = createdAt,
+     * ARGV[5] = expiresAt, ARGV[6] = lifetime (ms).
+     */
+    private static final String ISSUE_LUA_SCRIPT =
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[6])\n" +
+            "redis.call('HSET', KEYS[2], 'userId', ARGV[2], 'currentToken', ARGV[3],\n" +
+            "    'createdAt', ARGV[4], 'expiresAt', ARGV[5])\n" +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[6])\n" +
+            "redis.call('SADD', KEYS[3], ARGV[1])\n" +
+            "redis.call('PEXPIRE', KEYS[3], ARGV[6])\n" +
+            "return 1\n";
+
+    /**
+     * KEYS[1] = rt:{incomingToken}, KEYS[2] = family:{id}, KEYS[3] = rt:{newToken}.
+     * ARGV[1] = value read from KEYS[1], ARGV[2] = familyId, ARGV[3] = incoming token,
+     * ARGV[4] = new token, ARGV[5] = now (ms).
+     * Returns OK:{userId}, so a refresh needs no separate owner lookup, INVALID (unknown,
+     * revoked or changed since the read) or REUSED:{userId} after deleting the family because
+     * a superseded token was replayed; the caller then drops the family from the user's index.
+     */
+    private static final String ROTATE_LUA_SCRIPT =
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 'INVALID' end\n" +
+            "local family = redis.call('HMGET', KEYS[2], 'userId', 'currentToken', 'expiresAt')\n" +
+            "local userId = family[1]\n" +
+            "local currentToken = family[2]\n" +
+            "if not currentToken or not userId then return 'INVALID' end\n" +
+            "\n" +
+            "if currentToken ~= ARGV[3] then\n" +
+            "    redis.call('DEL', KEYS[2], KEYS[1])\n" +
+            "    return 'REUSED:' .. userId\n" +
+            "end\n" +
+            "\n" +
+            "local remaining = math.max(1, tonumber(family[3]) - tonumber(ARGV[5]))\n" +
+            "redis.call('SET', KEYS[3], ARGV[2], 'PX', remaining)\n" +
+            "redis.call('HSET', KEYS[2], 'currentToken', ARGV[4])\n" +
+            "return 'OK:' .. userId\n";
+
+    /**
+     * KEYS[1] = rt:{token}, KEYS[2] = family:{id}. ARGV[1] = value read from KEYS[1].
+     * Deletes the family and returns its userId, or false if it was already gone.
+     */
+    private static final String REVOKE_BY_TOKEN_LUA_SCRIPT =
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return false end\n" +
+            "local userId = redis.call('HGET', KEYS[2], 'userId')\n" +
+            "redis.call('DEL', KEYS[2])\n" +
+            "return userId\n";
+
+    /**
+     * KEYS[1] = user:{userId}:families, KEYS[2..n] = family:{id} for each member read.
+     * ARGV = the members read, in the same order. Unlinks the family hashes in batches of 500
+     * and removes only those members, so a family issued meanwhile stays indexed.
+     */
+    private static final String REVOKE_ALL_LUA_SCRIPT =
+            "local batch = {}\n" +
+            "for i = 2, #KEYS do\n" +
+            "    batch[#batch + 1] = KEYS[i]\n" +
+            "    if #batch == " + REVOKE_BATCH_SIZE + " or i == #KEYS then\n" +
+            "        redis.call('UNLINK', unpack(batch))\n" +
+            "        batch = {}\n" +
+            "    end\n" +
+            "end\n" +
+            "for i = 1, #ARGV, " + REVOKE_BATCH_SIZE + " do\n" +
+            "    redis.call('SREM', KEYS[1], unpack(ARGV, i, math.min(i + " + (REVOKE_BATCH_SIZE - 1) + ", #ARGV)))\n" +
+            "end\n" +
+            "return #ARGV\n";
+
+    /**
+     * KEYS[1] = family:{id}, KEYS[2] = user:{userId}:families.
+     * ARGV[1] = userId, ARGV[2] = currentToken, ARGV[3] = createdAt, ARGV[4] = expiresAt,
+     * ARGV[5] = familyId, ARGV[6] = the family's member as the old format stored it.
+     * Rewrites a family in the plain format unless another call already did.
+     */
+    private static final String UPGRADE_LEGACY_LUA_SCRIPT =
+            "if redis.call('HEXISTS', KEYS[1], 'userId') == 1 then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "redis.call('HSET', KEYS[1], 'userId', ARGV[1], 'currentToken', ARGV[2],\n" +
+            "    'createdAt', ARGV[3], 'expiresAt', ARGV[4])\n" +
+            "redis.call('PEXPIREAT', KEYS[1], ARGV[4])\n" +
+            "redis.call('SREM', KEYS[2], ARGV[6])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[5])\n" +
+            "return 1\n";
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = RedisScript.of(ISSUE_LUA_SCRIPT, Long.class);
+    private static final RedisScript<String> ROTATE_SCRIPT = RedisScript.of(ROTATE_LUA_SCRIPT, String.class);
+    private static final RedisScript<String> REVOKE_BY_TOKEN_SCRIPT = RedisScript.of(REVOKE_BY_TOKEN_LUA_SCRIPT, String.class);
+    private static final RedisScript<Long> REVOKE_ALL_SCRIPT = RedisScript.of(REVOKE_ALL_LUA_SCRIPT, Long.class);
+    private static final RedisScript<Long> UPGRADE_LEGACY_SCRIPT = RedisScript.of(UPGRADE_LEGACY_LUA_SCRIPT, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final RedisTemplate<String, Object> legacyRedis;
     private final long refreshTokenLifetimeMs;
     private final SecureRandom random = new SecureRandom();
 
-    public RefreshTokenServiceImpl(RedisTemplate<String, Object> redis, long refreshTokenLifetimeMs) {
+    /**
+     * @param legacyRedis the core-redis template the previous implementation wrote with, used
+     *                    only to read families stored in that format
+     */
+    public RefreshTokenServiceImpl(StringRedisTemplate redis, RedisTemplate<String, Object> legacyRedis,
+                                   long refreshTokenLifetimeMs) {
         this.redis = redis;
+        this.legacyRedis = legacyRedis;
         this.refreshTokenLifetimeMs = refreshTokenLifetimeMs;
-}
+    }
 
     @Override
     public String issueForUser(String userId) {
@@ -38,93 +157,120 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         long now = System.currentTimeMillis();
         long expiresAt = now + refreshTokenLifetimeMs;
 
-        // rt:{token} → familyId
-        redis.opsForValue().set(RT_PREFIX + rawToken, familyId, refreshTokenLifetimeMs, TimeUnit.MILLISECONDS);
-
-        // family:{familyId} hash
-        Map<String, Object> familyHash = new HashMap<>();
-        familyHash.put("userId", userId);
-        familyHash.put("currentToken", rawToken);
-        familyHash.put("createdAt", now);
-        familyHash.put("expiresAt", expiresAt);
-        String familyKey = FAMILY_PREFIX + familyId;
-        redis.opsForHash().putAll(familyKey, familyHash);
-        redis.expire(familyKey, refreshTokenLifetimeMs, TimeUnit.MILLISECONDS);
-
-        String userFamiliesKey = userFamiliesKey(userId);
-        redis.opsForSet().add(userFamiliesKey, familyId);
-        redis.expire(userFamiliesKey, refreshTokenLifetimeMs, TimeUnit.MILLISECONDS);
-
+        redis.execute(ISSUE_SCRIPT,
+                List.of(RT_PREFIX + rawToken, FAMILY_PREFIX + familyId, userFamiliesKey(userId)),
+                familyId, userId, rawToken, String.valueOf(now), String.valueOf(expiresAt),
+                String.valueOf(refreshTokenLifetimeMs));
         return rawToken;
     }
 
     @Override
-    public String rotate(String incomingToken) {
-        String familyId = (String) redis.opsForValue().get(RT_PREFIX + incomingToken);
-        if (familyId == null) {
-            throw new TokenInvalidException();
-        }
-        String familyKey = FAMILY_PREFIX + familyId;
-        Map<Object, Object> familyHash = redis.opsForHash().entries(familyKey);
-        if (familyHash.isEmpty()) {
+    public RotatedRefreshToken rotate(String incomingToken) {
+        String tokenKey = RT_PREFIX + incomingToken;
+        String stored = redis.opsForValue().get(tokenKey);
+        if (stored == null) {
             throw new TokenInvalidException();
         }
+        String familyId = resolveFamilyId(stored);
+        String newToken = randomOpaqueToken();
+        String outcome = redis.execute(ROTATE_SCRIPT,
+                List.of(tokenKey, FAMILY_PREFIX + familyId, RT_PREFIX + newToken),
+                stored, familyId, incomingToken, newToken, String.valueOf(System.currentTimeMillis()));
 
-        String currentToken = (String) familyHash.get("currentToken");
-        if (!incomingToken.equals(currentToken)) {
-            String userId = (String) familyHash.get("userId");
-            log.warn("(rotate) refresh-token reuse detected, revoking family. userId={} familyId={}", userId, familyId);
-            redis.delete(familyKey);
-            redis.opsForValue().getAndDelete(RT_PREFIX + incomingToken);
-            if (userId != null) {
-                redis.opsForSet().remove(userFamiliesKey(userId), familyId);
-            }
-            throw new TokenInvalidException();
+        if (outcome != null && outcome.startsWith(ROTATE_OK_PREFIX)) {
+            return new RotatedRefreshToken(outcome.substring(ROTATE_OK_PREFIX.length()), newToken);
         }
-
-        long expiresAt = ((Number) familyHash.get("expiresAt")).longValue();
-        long remainingMs = Math.max(1, expiresAt - System.currentTimeMillis());
-
-        String newToken = randomOpaqueToken();
-        redis.opsForValue().set(RT_PREFIX + newToken, familyId, remainingMs, TimeUnit.MILLISECONDS);
-        redis.opsForHash().put(familyKey, "currentToken", newToken);
-        return newToken;
+        if (outcome != null && outcome.startsWith(ROTATE_REUSED_PREFIX)) {
+            String userId = outcome.substring(ROTATE_REUSED_PREFIX.length());
+            log.warn("(rotate) refresh-token reuse detected, revoked family. userId={}", userId);
+            removeFromUserIndex(userId, familyId);
+        } else if (!ROTATE_INVALID.equals(outcome)) {
+            log.error("(rotate) unexpected rotate outcome: {}", outcome);
+        }
+        throw new TokenInvalidException();
     }
 
     @Override
     public void revokeByToken(String incomingToken) {
-        String familyId = (String) redis.opsForValue().get(RT_PREFIX + incomingToken);
-        if (familyId == null) return;
-        String familyKey = FAMILY_PREFIX + familyId;
-        Map<Object, Object> familyHash = redis.opsForHash().entries(familyKey);
-        String userId = (String) familyHash.get("userId");
-        redis.delete(familyKey);
-        if (userId != null) {
-            redis.opsForSet().remove(userFamiliesKey(userId), familyId);
+        String tokenKey = RT_PREFIX + incomingToken;
+        String stored = redis.opsForValue().get(tokenKey);
+        if (stored == null) {
+            return;
         }
+        String familyId = resolveFamilyId(stored);
+        String userId = redis.execute(REVOKE_BY_TOKEN_SCRIPT, List.of(tokenKey, FAMILY_PREFIX + familyId), stored);
+        removeFromUserIndex(userId, familyId);
     }
 
     @Override
     public void revokeAllForUser(String userId) {
         String userFamiliesKey = userFamiliesKey(userId);
-        Set<Object> familyIds = redis.opsForSet().members(userFamiliesKey);
-        if (familyIds != null) {
-            for (Object familyId : familyIds) {
-                redis.delete(FAMILY_PREFIX + familyId);
-            }
+        Set<String> members = redis.opsForSet().members(userFamiliesKey);
+        if (members == null || members.isEmpty()) {
+            log.info("revoked all refresh-token families. userId={} count=0", userId);
+            return;
         }
-        log.info("revoked all refresh-token families. userId={} count={}", userId, familyIds == null ? 0 : familyIds.size());
-        redis.delete(userFamiliesKey);
+        List<String> keys = new ArrayList<>(members.size() + 1);
+        keys.add(userFamiliesKey);
+        members.forEach(member -> keys.add(FAMILY_PREFIX + unquoteLegacy(member)));
+
+        Long count = redis.execute(REVOKE_ALL_SCRIPT, keys, members.toArray());
+        log.info("revoked all refresh-token families. userId={} count={}", userId, count == null ? 0 : count);
     }
 
     @Override
     public String userIdForToken(String incomingToken) {
-        String familyId = (String) redis.opsForValue().get(RT_PREFIX + incomingToken);
-        if (familyId == null) return null;
-        Object userId = redis.opsForHash().get(FAMILY_PREFIX + familyId, "userId");
+        String stored = redis.opsForValue().get(RT_PREFIX + incomingToken);
+        if (stored == null) {
+            return null;
+        }
+        Object userId = redis.opsForHash().get(FAMILY_PREFIX + resolveFamilyId(stored), "userId");
         return userId == null ? null : userId.toString();
     }
 
+    /**
+     * The family id behind a token key's value. A JSON-quoted value was written by the previous
+     * implementation; its family is rewritten in the plain format before the caller's script runs.
+     */
+    private String resolveFamilyId(String stored) {
+        String familyId = unquoteLegacy(stored);
+        if (!familyId.equals(stored)) {
+            upgradeLegacyFamily(familyId);
+        }
+        return familyId;
+    }
+
+    private void upgradeLegacyFamily(String familyId) {
+        String familyKey = FAMILY_PREFIX + familyId;
+        if (redis.opsForHash().hasKey(familyKey, "userId")) {
+            return;
+        }
+        Map<Object, Object> family = legacyRedis.opsForHash().entries(familyKey);
+        Object userId = family.get("userId");
+        Object currentToken = family.get("currentToken");
+        Object expiresAt = family.get("expiresAt");
+        if (userId == null || currentToken == null || expiresAt == null) {
+            return;
+        }
+        Object createdAt = family.getOrDefault("createdAt", expiresAt);
+        Long upgraded = redis.execute(UPGRADE_LEGACY_SCRIPT, List.of(familyKey, userFamiliesKey(userId.toString())),
+                userId.toString(), currentToken.toString(), createdAt.toString(), expiresAt.toString(),
+                familyId, "\"" + familyId + "\"");
+        log.info("(upgradeLegacyFamily) familyId: {}, upgraded: {}", familyId, upgraded);
+    }
+
+    private void removeFromUserIndex(String userId, String familyId) {
+        if (userId != null && !userId.isEmpty()) {
+            redis.opsForSet().remove(userFamiliesKey(userId), familyId);
+        }
+    }
+
+    private static String unquoteLegacy(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
     private String randomOpaqueToken() {
         byte[] buf = new byte[32];
         random.nextBytes(buf);
@@ -0,0 +1,75 @@
+package org.aibles.ecommerce.authorization_server.service.impl;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.core_jwt_util.constant.JwtConstant;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.aibles.core_jwt_util.util.JwtUtil;
+import org.aibles.ecommerce.authorization_server.service.TokenRevocationService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes access-token revocations to Redis for the gateway to enforce.
+ *
+ * Every entry is written twice: an exact key the gateway consults on a Bloom-filter hit, and a
+ * member of {@code revoked:entries} (scored by expiry) that gateways periodically read to
+ * rebuild their filters. Entries only need to live as long as the longest access token they
+ * can match, so both expire after at most one access-token lifetime.
+ */
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final StringRedisTemplate redis;
+    private final JWKSet jwkSet;
+    private final long accessTokenLifetimeMs;
+
+    public TokenRevocationServiceImpl(StringRedisTemplate redis, JWKSet jwkSet, long accessTokenLifetimeMs) {
+        this.redis = redis;
+        this.jwkSet = jwkSet;
+        this.accessTokenLifetimeMs = accessTokenLifetimeMs;
+    }
+
+    @Override
+    public void revokeAllForUser(String userId) {
+        log.info("(revokeAllForUser)userId: {}", userId);
+        long now = System.currentTimeMillis();
+        redis.opsForValue().set(JwtConstant.Revocation.SUBJECT_KEY_PREFIX + userId, String.valueOf(now),
+                accessTokenLifetimeMs, TimeUnit.MILLISECONDS);
+        publish(JwtConstant.Revocation.SUBJECT_MEMBER_PREFIX + userId, now, now + accessTokenLifetimeMs);
+    }
+
+    @Override
+    public void revokeAccessToken(String accessToken) {
+        TokenClaims claims;
+        try {
+            claims = JwtUtil.verifyAndExtractClaims(jwkSet, accessToken);
+        } catch (ParseException | JOSEException e) {
+            log.warn("(revokeAccessToken) access token could not be verified: {}", e.getMessage());
+            return;
+        }
+        if (claims == null || claims.getTokenId() == null) {
+            log.debug("(revokeAccessToken) access token is expired, invalid or has no jti, nothing to revoke");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long remainingMs = claims.getExpiresAt().toEpochMilli() - now;
+        if (remainingMs <= 0) {
+            return;
+        }
+        log.info("(revokeAccessToken)userId: {}, jti: {}", claims.getUserId(), claims.getTokenId());
+        redis.opsForValue().set(JwtConstant.Revocation.TOKEN_KEY_PREFIX + claims.getTokenId(), "1",
+                remainingMs, TimeUnit.MILLISECONDS);
+        publish(JwtConstant.Revocation.TOKEN_MEMBER_PREFIX + claims.getTokenId(), now, now + remainingMs);
+    }
+
+    private void publish(String member, long now, long expiresAt) {
+        redis.opsForZSet().add(JwtConstant.Revocation.ENTRIES_KEY, member, expiresAt);
+        // Trim lapsed entries so the set gateways sync stays bounded by live revocations.
+        redis.opsForZSet().removeRangeByScore(JwtConstant.Revocation.ENTRIES_KEY, Double.NEGATIVE_INFINITY, now);
+    }
+}
@@ -0,0 +1,168 @@
+package org.aibles.ecommerce.authorization_server.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.authorization_server.constant.ExportFormat;
+import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
+import org.aibles.ecommerce.authorization_server.dto.response.UserDetailResponse;
+import org.aibles.ecommerce.authorization_server.entity.User;
+import org.aibles.ecommerce.authorization_server.exception.UserExportBusyException;
+import org.aibles.ecommerce.authorization_server.repository.slave.SlaveUserRepository;
+import org.aibles.ecommerce.authorization_server.service.UserExportService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulk user export that never holds more than one fetch batch in memory: rows come off a
+ * server-side cursor on the slave and go straight into a fixed-size buffer on the response.
+ *
+ * Writes block when the client reads slower than the cursor produces, which in turn stalls the
+ * next fetch, so a slow consumer throttles the query instead of growing the heap. Each export
+ * pins a slave connection for its whole duration, hence the concurrency cap.
+ */
+@Slf4j
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final String[] CSV_HEADER = {"id", "email", "name", "gender", "address", "avatar_url"};
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final SlaveUserRepository slaveUserRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int flushRows;
+    private final Semaphore slots;
+
+    private final Counter rows;
+    private final MeterRegistry meterRegistry;
+
+    public UserExportServiceImpl(SlaveUserRepository slaveUserRepository, ObjectMapper objectMapper, int fetchSize,
+                                 int flushRows, int maxConcurrent, MeterRegistry meterRegistry) {
+        if (fetchSize <= 0 || flushRows <= 0 || maxConcurrent <= 0) {
+            throw new IllegalArgumentException("fetchSize, flushRows and maxConcurrent must be positive");
+        }
+        this.slaveUserRepository = slaveUserRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.flushRows = flushRows;
+        this.slots = new Semaphore(maxConcurrent);
+        this.meterRegistry = meterRegistry;
+        this.rows = Counter.builder("auth.user_export.rows")
+                .description("Users written by bulk exports")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void export(FilterRequest request, ExportFormat format, Callable<OutputStream> target) {
+        log.info("(export)format: {}, request: {}", format, request);
+        if (!slots.tryAcquire()) {
+            log.warn("(export) rejected, all export slots are in use");
+            throw new UserExportBusyException();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        long[] written = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(target.call(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(writer, CSV_HEADER);
+            }
+            slaveUserRepository.stream(request.getQuery(), request.getSort(), fetchSize, user -> {
+                try {
+                    writeRow(writer, format, user);
+                    if (++written[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            // Almost always the client going away; the cursor is closed on the way out.
+            outcome = "aborted";
+            log.warn("(export) aborted after {} rows, error: {}", written[0], e.getMessage());
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            throw e;
+        } catch (Exception e) {
+            outcome = "failed";
+            throw new IllegalStateException("could not open export target", e);
+        } finally {
+            slots.release();
+            rows.increment(written[0]);
+            sample.stop(Timer.builder("auth.user_export.duration")
+                    .description("Wall time of bulk user exports")
+                    .tag("format", format.name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            log.info("(export) {} after {} rows", outcome, written[0]);
+        }
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, User user) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writeJsonRow(writer, user);
+            return;
+        }
+        writeCsvRow(writer, new String[]{
+                user.getId(),
+                user.getEmail(),
+                user.getName(),
+                user.getGender() != null ? user.getGender().name() : null,
+                user.getAddress(),
+                user.getAvatarUrl()
+        });
+    }
+
+    private void writeJsonRow(Writer writer, User user) throws IOException {
+        UserDetailResponse row = UserDetailResponse.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .gender(user.getGender())
+                .address(user.getAddress())
+                .avatarUrl(user.getAvatarUrl())
+                .build();
+        try {
+            writer.write(objectMapper.writeValueAsString(row));
+        } catch (JsonProcessingException e) {
+            throw new IOException(e);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /** RFC 4180 quoting, plus a leading quote on values a spreadsheet would run as a formula. */
+    static String csvField(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
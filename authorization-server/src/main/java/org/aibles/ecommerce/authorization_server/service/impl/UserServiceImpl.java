@@ -1,9 +1,13 @@
 package org.aibles.ecommerce.authorization_server.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.authorization_server.cache.AccountLookupCache;
+import org.aibles.ecommerce.authorization_server.cache.RegisteredIdentityFilter;
 import org.aibles.ecommerce.authorization_server.constant.Gender;
+import org.aibles.ecommerce.authorization_server.dto.SortModel;
 import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
 import org.aibles.ecommerce.authorization_server.dto.request.UpdateUserRequest;
+import org.aibles.ecommerce.authorization_server.dto.response.PageResponse;
 import org.aibles.ecommerce.authorization_server.dto.response.UserDetailResponse;
 import org.aibles.ecommerce.authorization_server.entity.User;
 import org.aibles.ecommerce.authorization_server.exception.UserNotFoundException;
@@ -17,13 +21,21 @@ import java.util.List;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final MasterUserRepository masterUserRepository;
 
     private final SlaveUserRepository slaveUserRepository;
 
-    public UserServiceImpl(MasterUserRepository masterUserRepository, SlaveUserRepository slaveUserRepository) {
+    private final AccountLookupCache accountLookupCache;
+
+    private final RegisteredIdentityFilter registeredIdentityFilter;
+
+    public UserServiceImpl(MasterUserRepository masterUserRepository, SlaveUserRepository slaveUserRepository, AccountLookupCache accountLookupCache, RegisteredIdentityFilter registeredIdentityFilter) {
         this.masterUserRepository = masterUserRepository;
         this.slaveUserRepository = slaveUserRepository;
+        this.accountLookupCache = accountLookupCache;
+        this.registeredIdentityFilter = registeredIdentityFilter;
     }
 
     @Override
@@ -33,13 +45,25 @@ public class UserServiceImpl implements UserService {
         return slaveUserRepository.existsByEmail(email);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isTakenForRegistration(String email) {
+        log.info("(isTakenForRegistration)email: {}", email);
+        if (!registeredIdentityFilter.mightContainEmail(email)) {
+            return false;
+        }
+        return slaveUserRepository.existsByEmail(email);
+    }
+
     @Override
     @Transactional
     public User save(String email) {
         log.info("(save)email: {}", email);
         User user = new User();
         user.setEmail(email);
-        return masterUserRepository.save(user);
+        user = masterUserRepository.save(user);
+        registeredIdentityFilter.addEmail(email);
+        return user;
     }
 
     @Override
@@ -65,20 +89,41 @@ public class UserServiceImpl implements UserService {
                 .build();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getEmail(String userId) {
+        return accountLookupCache.emailByUserId(userId, () -> masterUserRepository.findById(userId)
+                .orElseThrow(UserNotFoundException::new)
+                .getEmail());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UserDetailResponse> filter(FilterRequest request) {
         log.info("(filter)request: {}", request);
-        return slaveUserRepository.filter(request.getQuery(), request.getSort()).stream().map(
-                user ->  UserDetailResponse.builder()
-                        .id(user.getId())
-                        .name(user.getName())
-                        .email(user.getEmail())
-                        .gender(user.getGender())
-                        .address(user.getAddress())
-                        .avatarUrl(user.getAvatarUrl())
-                        .build()
-        ).toList();
+        return slaveUserRepository.filter(request.getQuery(), request.getSort()).stream()
+                .map(this::toDetailResponse)
+                .toList();
+    }
+
+    @Override
+    public PageResponse<UserDetailResponse> filterPage(FilterRequest request) {
+        log.info("(filterPage)request: {}", request);
+        SortModel sort = request.getSort() != null && !request.getSort().isEmpty() ? request.getSort().get(0) : null;
+        int limit = request.getLimit() != null ? request.getLimit() : DEFAULT_PAGE_SIZE;
+        PageResponse<User> page = slaveUserRepository.filterPage(request.getQuery(), sort, request.getCursor(), limit);
+        return new PageResponse<>(page.getItems().stream().map(this::toDetailResponse).toList(), page.getNextCursor());
+    }
+
+    private UserDetailResponse toDetailResponse(User user) {
+        return UserDetailResponse.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .gender(user.getGender())
+                .address(user.getAddress())
+                .avatarUrl(user.getAvatarUrl())
+                .build();
     }
 
     private void updateUserInfo(User user, UpdateUserRequest request) {
@@ -0,0 +1,100 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Two "pods" sharing one Redis: the Redis tier and the pub/sub eviction between them. */
+@Testcontainers
+class AccountLookupCacheIT {
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+    static LettuceConnectionFactory connectionFactory;
+    static StringRedisTemplate stringRedisTemplate;
+    static RedisMessageListenerContainer listenerContainer;
+    static AccountLookupCache podA;
+    static AccountLookupCache podB;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        podA = newCache();
+        podB = newCache();
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(podA, new ChannelTopic(AccountLookupCache.INVALIDATION_CHANNEL));
+        listenerContainer.addMessageListener(podB, new ChannelTopic(AccountLookupCache.INVALIDATION_CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    private static AccountLookupCache newCache() {
+        return new AccountLookupCache(stringRedisTemplate, new ObjectMapper(), Duration.ofMinutes(5),
+                Duration.ofMinutes(30), 100, new SimpleMeterRegistry());
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        listenerContainer.destroy();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void secondPodIsServedFromTheRedisTier() {
+        String accountId = "acc-" + UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        podA.rolesByAccountId(accountId, () -> {
+            loads.incrementAndGet();
+            return List.of("USER");
+        });
+        List<String> roles = podB.rolesByAccountId(accountId, () -> {
+            loads.incrementAndGet();
+            return List.of("STALE");
+        });
+
+        assertThat(roles).containsExactly("USER");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictionOnOnePod_dropsTheOtherPodsLocalCopy() throws InterruptedException {
+        String accountId = "acc-" + UUID.randomUUID();
+        podA.rolesByAccountId(accountId, () -> List.of("USER"));
+        podB.rolesByAccountId(accountId, () -> List.of("USER"));
+
+        podA.evictRoles(accountId, null);
+
+        List<String> roles = List.of();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            roles = podB.rolesByAccountId(accountId, () -> List.of("USER", "ADMIN"));
+            if (roles.contains("ADMIN")) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(roles).containsExactly("USER", "ADMIN");
+    }
+}
@@ -0,0 +1,135 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountLookupCacheTest {
+
+    private static final Duration REDIS_TTL = Duration.ofMinutes(30);
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private AccountLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redis.opsForValue()).thenReturn(values);
+        cache = new AccountLookupCache(redis, new ObjectMapper(), Duration.ofMinutes(1), REDIS_TTL, 100,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<String> loadRoles() {
+        loads.incrementAndGet();
+        return new ArrayList<>(List.of("USER"));
+    }
+
+    @Test
+    void miss_loadsOnce_fillsRedisWithTtl_andThenAnswersFromTheLocalTier() {
+        assertThat(cache.rolesByAccountId("acc-1", this::loadRoles)).containsExactly("USER");
+        assertThat(cache.rolesByAccountId("acc-1", this::loadRoles)).containsExactly("USER");
+
+        assertThat(loads).hasValue(1);
+        verify(values).set("auth:lookup:roles:account:acc-1", "[\"USER\"]", REDIS_TTL);
+        verify(values, times(1)).get(anyString());
+    }
+
+    @Test
+    void redisHit_skipsTheLoader_andFillsTheLocalTier() {
+        when(values.get("auth:lookup:email:user:user-1")).thenReturn("\"a@example.com\"");
+
+        assertThat(cache.emailByUserId("user-1", () -> {
+            loads.incrementAndGet();
+            return "db@example.com";
+        })).isEqualTo("a@example.com");
+        cache.emailByUserId("user-1", () -> "db@example.com");
+
+        assertThat(loads).hasValue(0);
+        verify(values, times(1)).get("auth:lookup:email:user:user-1");
+        verify(values, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void redisUnavailable_fallsThroughToTheLoader() {
+        when(values.get(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertThat(cache.rolesByUserId("user-1", this::loadRoles)).containsExactly("USER");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void cachedListsAreUnmodifiableCopies() {
+        List<String> loaded = new ArrayList<>(List.of("USER"));
+
+        List<String> roles = cache.rolesByUserId("user-1", () -> loaded);
+        loaded.add("ADMIN");
+
+        assertThat(cache.rolesByUserId("user-1", this::loadRoles)).containsExactly("USER");
+        assertThatThrownBy(() -> roles.add("ADMIN")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void evictRoles_deletesRedisKeys_andBroadcastsEachKey() {
+        cache.evictRoles("acc-1", "user-1");
+
+        verify(redis).delete(List.of("auth:lookup:roles:account:acc-1", "auth:lookup:roles:user:user-1"));
+        verify(redis).convertAndSend(AccountLookupCache.INVALIDATION_CHANNEL, "roles:account:acc-1");
+        verify(redis).convertAndSend(AccountLookupCache.INVALIDATION_CHANNEL, "roles:user:user-1");
+    }
+
+    @Test
+    void evictRoles_insideATransaction_waitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictRoles("acc-1", null);
+        verify(redis, never()).delete(anyList());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redis).delete(List.of("auth:lookup:roles:account:acc-1"));
+    }
+
+    @Test
+    void invalidationMessage_dropsTheLocalEntry() {
+        cache.rolesByAccountId("acc-1", this::loadRoles);
+
+        cache.onMessage(new DefaultMessage(AccountLookupCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "roles:account:acc-1".getBytes(StandardCharsets.UTF_8)), null);
+        cache.rolesByAccountId("acc-1", this::loadRoles);
+
+        assertThat(loads).hasValue(2);
+    }
+}
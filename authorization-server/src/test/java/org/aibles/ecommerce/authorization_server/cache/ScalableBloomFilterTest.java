@@ -0,0 +1,70 @@
+package org.aibles.ecommerce.authorization_server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_neverMissesInsertedValuesPastInitialCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("email:user-" + i + "@example.com");
+        }
+
+        assertThat(filter.stageCount()).isGreaterThan(1);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("email:user-" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_keepsFalsePositivesBoundedAfterGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("username:" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("username:absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Compound rate is bounded by initialRate / (1 - 0.5) = 2%.
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void put_isSafeUnderConcurrentWriters() throws InterruptedException {
+        ScalableBloomFilter filter = new ScalableBloomFilter(64, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    filter.put("email:" + thread + "-" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 2_000; i++) {
+                assertThat(filter.mightContain("email:" + t + "-" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void fold_matchesCaseAndAccentInsensitiveCollation() {
+        assertThat(RegisteredIdentityFilter.fold(" José@Example.COM"))
+                .isEqualTo(RegisteredIdentityFilter.fold("jose@example.com"));
+    }
+}
@@ -0,0 +1,121 @@
+package org.aibles.ecommerce.authorization_server.repository.slave;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.aibles.ecommerce.authorization_server.constant.Gender;
+import org.aibles.ecommerce.authorization_server.dto.SortModel;
+import org.aibles.ecommerce.authorization_server.dto.response.PageResponse;
+import org.aibles.ecommerce.authorization_server.entity.User;
+import org.aibles.ecommerce.authorization_server.entity.User_;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Pages through a real MySQL table, NULL sort values and ties included. */
+@Testcontainers
+class UserRepositoryCustomImplIT {
+
+    private static final String[] NAMES = {"anna", "bob", null, "carl"};
+    private static final Gender[] GENDERS = {Gender.MALE, null, Gender.FEMALE};
+    private static final int PAGE_SIZE = 4;
+
+    @Container
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    static EntityManagerFactory entityManagerFactory;
+    static UserRepositoryCustomImpl repository;
+    static List<User> users = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan("org.aibles.ecommerce.authorization_server.entity");
+        factory.setDataSource(dataSource);
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        repository = new UserRepositoryCustomImpl(entityManagerFactory, entityManagerFactory);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < 23; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setName(NAMES[i % NAMES.length]);
+            user.setGender(GENDERS[i % GENDERS.length]);
+            entityManager.persist(user);
+            users.add(user);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    private static SortModel sort(String field, String direction) {
+        return new SortModel(field, direction);
+    }
+
+    private static List<String> pageThrough(SortModel sort) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResponse<User> page = repository.filterPage(null, sort, cursor, PAGE_SIZE);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getItems().forEach(user -> ids.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    /** MySQL order: NULLs first ascending, then the value, then id; descending is the exact reverse. */
+    private static List<String> expected(Function<User, String> key, boolean ascending) {
+        Comparator<User> order = Comparator.comparing(key, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(User::getId);
+        return users.stream()
+                .sorted(ascending ? order : order.reversed())
+                .map(User::getId)
+                .toList();
+    }
+
+    @Test
+    void pagingByNullableName_visitsEveryRowOnceInOrder() {
+        assertThat(pageThrough(sort(User_.NAME, "asc"))).isEqualTo(expected(User::getName, true));
+        assertThat(pageThrough(sort(User_.NAME, "desc"))).isEqualTo(expected(User::getName, false));
+    }
+
+    @Test
+    void pagingByGender_comparesTheStoredNames() {
+        Function<User, String> gender = user -> user.getGender() != null ? user.getGender().name() : null;
+
+        assertThat(pageThrough(sort(User_.GENDER, "asc"))).isEqualTo(expected(gender, true));
+        assertThat(pageThrough(sort(User_.GENDER, "desc"))).isEqualTo(expected(gender, false));
+    }
+
+    @Test
+    void pagingById_andByEmail_visitEveryRowOnce() {
+        assertThat(pageThrough(sort(User_.ID, "asc"))).isEqualTo(expected(User::getId, true));
+        assertThat(new HashSet<>(pageThrough(sort(User_.EMAIL, "desc")))).hasSize(users.size());
+    }
+}
@@ -0,0 +1,82 @@
+package org.aibles.ecommerce.authorization_server.repository.slave;
+
+import org.aibles.ecommerce.authorization_server.constant.Gender;
+import org.aibles.ecommerce.authorization_server.entity.User;
+import org.aibles.ecommerce.authorization_server.entity.User_;
+import org.aibles.ecommerce.authorization_server.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserRepositoryCustomImplTest {
+
+    private static User user(String id, String name, Gender gender) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@example.com");
+        user.setName(name);
+        user.setGender(gender);
+        return user;
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void cursor_roundTripsValueAndId() {
+        String cursor = UserRepositoryCustomImpl.encodeCursor(User_.NAME, true, user("u-1", "Zoë: \"a\"", null));
+
+        UserRepositoryCustomImpl.CursorPosition position = UserRepositoryCustomImpl.decodeCursor(cursor, User_.NAME, true);
+
+        assertThat(position.value()).isEqualTo("Zoë: \"a\"");
+        assertThat(position.id()).isEqualTo("u-1");
+    }
+
+    @Test
+    void cursor_keepsNullDistinctFromEmpty() {
+        String nullName = UserRepositoryCustomImpl.encodeCursor(User_.NAME, true, user("u-1", null, null));
+        String emptyName = UserRepositoryCustomImpl.encodeCursor(User_.NAME, true, user("u-1", "", null));
+
+        assertThat(UserRepositoryCustomImpl.decodeCursor(nullName, User_.NAME, true).value()).isNull();
+        assertThat(UserRepositoryCustomImpl.decodeCursor(emptyName, User_.NAME, true).value()).isEqualTo("");
+    }
+
+    @Test
+    void cursor_decodesGenderToTheEnum() {
+        String cursor = UserRepositoryCustomImpl.encodeCursor(User_.GENDER, false, user("u-1", "a", Gender.FEMALE));
+
+        assertThat(UserRepositoryCustomImpl.decodeCursor(cursor, User_.GENDER, false).value()).isEqualTo(Gender.FEMALE);
+    }
+
+    @Test
+    void cursor_mintedForAnotherSort_isRejected() {
+        String cursor = UserRepositoryCustomImpl.encodeCursor(User_.NAME, true, user("u-1", "a", null));
+
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(cursor, User_.EMAIL, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(cursor, User_.NAME, false))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void tamperedCursor_isRejected() {
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor("not*base64", User_.NAME, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(encode("name:asc:YQ"), User_.NAME, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(encode("name:asc:!!:u-1"), User_.NAME, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(encode("name:asc:YQ:"), User_.NAME, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(encode("gender:asc:" + encode("OTHER") + ":u-1"),
+                User_.GENDER, true))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserRepositoryCustomImpl.decodeCursor(encode("email:asc:~:u-1"), User_.EMAIL, true))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,105 @@
+package org.aibles.ecommerce.authorization_server.service;
+
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.SignedJWT;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.aibles.core_jwt_util.util.JwtUtil;
+import org.aibles.ecommerce.authorization_server.service.impl.JWTServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tokens signed by JWTServiceImpl must verify with JwtUtil, as the gateway does. */
+class JWTServiceImplTest {
+
+    private static final int ACCESS_LIFETIME_MS = 60_000;
+    private static final int REFRESH_LIFETIME_MS = 600_000;
+
+    // Kids are unique per test: JwtUtil's verifier cache is static and shared across tests.
+    private static String kid(String prefix) {
+        return prefix + "-" + UUID.randomUUID();
+    }
+
+    private static String accessToken(JWKSet jwkSet, String activeKeyId) throws Exception {
+        return new JWTServiceImpl(jwkSet, activeKeyId, ACCESS_LIFETIME_MS, REFRESH_LIFETIME_MS)
+                .generateAccessToken("user-1", "a@example.com", List.of("USER"));
+    }
+
+    /** What the JWKS endpoint publishes, i.e. what a verifier actually holds. */
+    private static JWKSet published(JWK... keys) {
+        return new JWKSet(List.of(keys)).toPublicJWKSet();
+    }
+
+    @Test
+    void es256Token_verifiesAgainstThePublishedKey() throws Exception {
+        JWK key = new ECKeyGenerator(Curve.P_256).keyID(kid("es")).generate();
+
+        String token = accessToken(new JWKSet(key), key.getKeyID());
+        TokenClaims claims = JwtUtil.verifyAndExtractClaims(published(key), token);
+
+        assertThat(SignedJWT.parse(token).getHeader().getAlgorithm().getName()).isEqualTo("ES256");
+        assertThat(claims).isNotNull();
+        assertThat(claims.getUserId()).isEqualTo("user-1");
+        assertThat(claims.getRoles()).containsExactly("USER");
+    }
+
+    @Test
+    void edDsaToken_verifiesAgainstThePublishedKey() throws Exception {
+        JWK key = new OctetKeyPairGenerator(Curve.Ed25519).keyID(kid("ed")).generate();
+
+        String token = accessToken(new JWKSet(key), key.getKeyID());
+
+        assertThat(SignedJWT.parse(token).getHeader().getAlgorithm().getName()).isEqualTo("EdDSA");
+        assertThat(JwtUtil.verifyToken(published(key), token)).isTrue();
+    }
+
+    @Test
+    void kidRotation_oldAndNewTokensVerifyWhileBothKeysArePublished() throws Exception {
+        JWK oldKey = new RSAKeyGenerator(2048).keyID(kid("rsa")).generate();
+        JWK newKey = new ECKeyGenerator(Curve.P_256).keyID(kid("es")).generate();
+        JWKSet signingKeys = new JWKSet(List.of(oldKey, newKey));
+
+        String beforeSwitch = accessToken(signingKeys, oldKey.getKeyID());
+        String afterSwitch = accessToken(signingKeys, newKey.getKeyID());
+
+        assertThat(SignedJWT.parse(afterSwitch).getHeader().getKeyID()).isEqualTo(newKey.getKeyID());
+        assertThat(JwtUtil.verifyToken(published(oldKey, newKey), beforeSwitch)).isTrue();
+        assertThat(JwtUtil.verifyToken(published(oldKey, newKey), afterSwitch)).isTrue();
+        // Once the old key is dropped its tokens no longer verify.
+        assertThat(JwtUtil.verifyToken(published(newKey), beforeSwitch)).isFalse();
+        assertThat(JwtUtil.verifyToken(published(newKey), afterSwitch)).isTrue();
+    }
+
+    @Test
+    void keyReplacedUnderTheSameKid_rebuildsTheCachedVerifier() throws Exception {
+        String keyId = kid("es");
+        JWK first = new ECKeyGenerator(Curve.P_256).keyID(keyId).generate();
+        JWK second = new ECKeyGenerator(Curve.P_256).keyID(keyId).generate();
+
+        String firstToken = accessToken(new JWKSet(first), keyId);
+        assertThat(JwtUtil.verifyToken(published(first), firstToken)).isTrue();
+
+        String secondToken = accessToken(new JWKSet(second), keyId);
+        assertThat(JwtUtil.verifyToken(published(second), secondToken)).isTrue();
+        assertThat(JwtUtil.verifyToken(published(second), firstToken)).isFalse();
+    }
+
+    @Test
+    void tokenWhoseAlgorithmDiffersFromTheKeys_isRejected() throws Exception {
+        String keyId = kid("shared");
+        JWK ecKey = new ECKeyGenerator(Curve.P_256).keyID(keyId).generate();
+        JWK edKey = new OctetKeyPairGenerator(Curve.Ed25519).keyID(keyId).generate();
+
+        String edToken = accessToken(new JWKSet(edKey), keyId);
+
+        assertThat(JwtUtil.verifyToken(published(ecKey), edToken)).isFalse();
+    }
+}
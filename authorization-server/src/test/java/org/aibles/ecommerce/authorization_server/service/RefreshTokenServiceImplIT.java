@@ -0,0 +1,140 @@
+package org.aibles.ecommerce.authorization_server.service;
+
+import org.aibles.ecommerce.authorization_server.dto.internal.RotatedRefreshToken;
+import org.aibles.ecommerce.authorization_server.exception.TokenInvalidException;
+import org.aibles.ecommerce.authorization_server.service.impl.RefreshTokenServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Runs the refresh-token Lua scripts against a real Redis. */
+@Testcontainers
+class RefreshTokenServiceImplIT {
+
+    private static final long LIFETIME_MS = 60_000L;
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+    static LettuceConnectionFactory connectionFactory;
+    static StringRedisTemplate stringRedisTemplate;
+    static RedisTemplate<String, Object> legacyRedisTemplate;
+    static RefreshTokenServiceImpl service;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        // Same serializers as core-redis' RedisTemplate, which wrote the previous format.
+        legacyRedisTemplate = new RedisTemplate<>();
+        legacyRedisTemplate.setConnectionFactory(connectionFactory);
+        legacyRedisTemplate.setKeySerializer(new StringRedisSerializer());
+        legacyRedisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        legacyRedisTemplate.afterPropertiesSet();
+        service = new RefreshTokenServiceImpl(stringRedisTemplate, legacyRedisTemplate, LIFETIME_MS);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void rotationChainsAndTheSupersededTokenRevokesTheFamily() {
+        String userId = "user-" + UUID.randomUUID();
+        String first = service.issueForUser(userId);
+
+        RotatedRefreshToken rotated = service.rotate(first);
+        assertThat(rotated.getUserId()).isEqualTo(userId);
+        String second = rotated.getRefreshToken();
+        assertThat(service.userIdForToken(second)).isEqualTo(userId);
+        assertThat(stringRedisTemplate.getExpire("rt:" + second, TimeUnit.MILLISECONDS)).isPositive();
+
+        assertThatThrownBy(() -> service.rotate(first)).isInstanceOf(TokenInvalidException.class);
+        // Replaying the old token took the whole family down, including the current token.
+        assertThatThrownBy(() -> service.rotate(second)).isInstanceOf(TokenInvalidException.class);
+        assertThat(stringRedisTemplate.opsForSet().members("user:" + userId + ":families")).isEmpty();
+    }
+
+    @Test
+    void revokeByTokenRemovesTheFamilyAndItsIndexEntry() {
+        String userId = "user-" + UUID.randomUUID();
+        String token = service.issueForUser(userId);
+
+        service.revokeByToken(token);
+
+        assertThat(service.userIdForToken(token)).isNull();
+        assertThatThrownBy(() -> service.rotate(token)).isInstanceOf(TokenInvalidException.class);
+        assertThat(stringRedisTemplate.opsForSet().members("user:" + userId + ":families")).isEmpty();
+    }
+
+    @Test
+    void revokeAllForUserRevokesEveryFamily() {
+        String userId = "user-" + UUID.randomUUID();
+        String a = service.issueForUser(userId);
+        String b = service.issueForUser(userId);
+        String other = service.issueForUser("other-" + UUID.randomUUID());
+
+        service.revokeAllForUser(userId);
+
+        assertThatThrownBy(() -> service.rotate(a)).isInstanceOf(TokenInvalidException.class);
+        assertThatThrownBy(() -> service.rotate(b)).isInstanceOf(TokenInvalidException.class);
+        assertThat(stringRedisTemplate.hasKey("user:" + userId + ":families")).isFalse();
+        assertThat(service.rotate(other).getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void familiesWrittenInThePreviousFormatStillRotate() {
+        String userId = "user-" + UUID.randomUUID();
+        String familyId = UUID.randomUUID().toString();
+        String token = "legacy-" + UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        legacyRedisTemplate.opsForValue().set("rt:" + token, familyId, LIFETIME_MS, TimeUnit.MILLISECONDS);
+        legacyRedisTemplate.opsForHash().putAll("family:" + familyId, Map.of(
+                "userId", userId, "currentToken", token, "createdAt", now, "expiresAt", now + LIFETIME_MS));
+        legacyRedisTemplate.opsForSet().add("user:" + userId + ":families", familyId);
+
+        assertThat(service.userIdForToken(token)).isEqualTo(userId);
+        RotatedRefreshToken rotation = service.rotate(token);
+        assertThat(rotation.getUserId()).isEqualTo(userId);
+        String rotated = rotation.getRefreshToken();
+
+        assertThat(service.userIdForToken(rotated)).isEqualTo(userId);
+        assertThat(stringRedisTemplate.opsForSet().members("user:" + userId + ":families")).containsExactly(familyId);
+        // The pre-switch token is now superseded and counts as reuse.
+        assertThatThrownBy(() -> service.rotate(token)).isInstanceOf(TokenInvalidException.class);
+        assertThat(service.userIdForToken(rotated)).isNull();
+    }
+
+    @Test
+    void revokeAllAlsoRemovesFamiliesStillInThePreviousFormat() {
+        String userId = "user-" + UUID.randomUUID();
+        String familyId = UUID.randomUUID().toString();
+        String token = "legacy-" + UUID.randomUUID();
+        legacyRedisTemplate.opsForValue().set("rt:" + token, familyId, LIFETIME_MS, TimeUnit.MILLISECONDS);
+        legacyRedisTemplate.opsForHash().putAll("family:" + familyId, Map.of(
+                "userId", userId, "currentToken", token, "expiresAt", System.currentTimeMillis() + LIFETIME_MS));
+        legacyRedisTemplate.opsForSet().add("user:" + userId + ":families", familyId);
+
+        service.revokeAllForUser(userId);
+
+        assertThat(stringRedisTemplate.hasKey("family:" + familyId)).isFalse();
+        assertThatThrownBy(() -> service.rotate(token)).isInstanceOf(TokenInvalidException.class);
+    }
+}
@@ -1,145 +1,135 @@
 package org.aibles.ecommerce.authorization_server.service;
 
+import org.aibles.ecommerce.authorization_server.dto.internal.RotatedRefreshToken;
 import org.aibles.ecommerce.authorization_server.exception.TokenInvalidException;
 import org.aibles.ecommerce.authorization_server.service.impl.RefreshTokenServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyMap;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+/** Key and argument wiring; the scripts themselves run against Redis in RefreshTokenServiceImplIT. */
 class RefreshTokenServiceImplTest {
 
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
     @SuppressWarnings("unchecked")
-    private final RedisTemplate<String, Object> redis = mock(RedisTemplate.class);
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
     @SuppressWarnings("unchecked")
-    private final ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+    private final SetOperations<String, String> sets = mock(SetOperations.class);
     @SuppressWarnings("unchecked")
-    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
-    @SuppressWarnings("unchecked")
-    private final SetOperations<String, Object> setOps = mock(SetOperations.class);
+    private final HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
 
     private RefreshTokenServiceImpl service;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setup() {
-        when(redis.opsForValue()).thenReturn(valueOps);
-        when(redis.opsForHash()).thenReturn(hashOps);
-        when(redis.opsForSet()).thenReturn(setOps);
-        service = new RefreshTokenServiceImpl(redis, 604_800_000L);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForSet()).thenReturn(sets);
+        when(redis.opsForHash()).thenReturn(hashes);
+        service = new RefreshTokenServiceImpl(redis, mock(RedisTemplate.class), 604_800_000L);
     }
 
     @Test
-    void issueForUser_writes_three_keys_with_ttl() {
+    @SuppressWarnings("unchecked")
+    void issueForUser_writes_three_keys_with_ttl_in_one_script() {
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+
         String token = service.issueForUser("user-1");
 
         assertThat(token).isNotBlank().hasSizeGreaterThan(30);
-        verify(valueOps).set(eq("rt:" + token), anyString(), eq(604_800_000L), eq(TimeUnit.MILLISECONDS));
-        verify(hashOps).putAll(startsWith("family:"), anyMap());
-        verify(redis).expire(startsWith("family:"), eq(604_800_000L), eq(TimeUnit.MILLISECONDS));
-        verify(setOps).add(eq("user:user-1:families"), anyString());
-        verify(redis).expire(eq("user:user-1:families"), eq(604_800_000L), eq(TimeUnit.MILLISECONDS));
+        verify(redis).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+        assertThat(keys.getValue()).hasSize(3);
+        assertThat(keys.getValue().get(0)).isEqualTo("rt:" + token);
+        assertThat(keys.getValue().get(1)).startsWith("family:");
+        assertThat(keys.getValue().get(2)).isEqualTo("user:user-1:families");
     }
 
     @Test
-    void rotate_happyPath_returns_new_token_and_updates_family() {
-        String oldToken = "old-token";
-        String familyId = "fam-1";
-        when(valueOps.get("rt:" + oldToken)).thenReturn(familyId);
-        Map<Object, Object> familyHash = new HashMap<>();
-        familyHash.put("userId", "user-1");
-        familyHash.put("currentToken", oldToken);
-        familyHash.put("createdAt", 1L);
-        familyHash.put("expiresAt", System.currentTimeMillis() + 60_000L);
-        when(hashOps.entries("family:" + familyId)).thenReturn(familyHash);
-
-        String newToken = service.rotate(oldToken);
-
-        assertThat(newToken).isNotBlank().isNotEqualTo(oldToken);
-        verify(valueOps).set(eq("rt:" + newToken), eq(familyId), anyLong(), eq(TimeUnit.MILLISECONDS));
-        verify(hashOps).put("family:" + familyId, "currentToken", newToken);
+    @SuppressWarnings("unchecked")
+    void rotate_happyPath_declares_every_key_and_returns_new_token_with_its_owner() {
+        when(values.get("rt:old-token")).thenReturn("fam-1");
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        when(redis.execute(any(RedisScript.class), keys.capture(), any(Object[].class))).thenReturn("OK:user-1");
+
+        RotatedRefreshToken rotated = service.rotate("old-token");
+
+        assertThat(rotated.getUserId()).isEqualTo("user-1");
+        assertThat(rotated.getRefreshToken()).isNotBlank().isNotEqualTo("old-token");
+        assertThat(keys.getValue()).containsExactly("rt:old-token", "family:fam-1", "rt:" + rotated.getRefreshToken());
+        verify(hashes, never()).get(any(), any());
     }
 
     @Test
-    void rotate_reuse_detection_branch() {
-        String oldToken = "old-token";
-        String familyId = "fam-1";
-        when(valueOps.get("rt:" + oldToken)).thenReturn(familyId);
-        Map<Object, Object> familyHash = new HashMap<>();
-        familyHash.put("userId", "user-1");
-        familyHash.put("currentToken", "newer-token");
-        familyHash.put("createdAt", 1L);
-        familyHash.put("expiresAt", System.currentTimeMillis() + 60_000L);
-        when(hashOps.entries("family:" + familyId)).thenReturn(familyHash);
-
-        assertThatThrownBy(() -> service.rotate(oldToken))
+    @SuppressWarnings("unchecked")
+    void rotate_reuse_detection_branch_drops_family_from_user_index() {
+        when(values.get("rt:old-token")).thenReturn("fam-1");
+        when(redis.execute(any(RedisScript.class), any(List.class), any(Object[].class))).thenReturn("REUSED:user-1");
+
+        assertThatThrownBy(() -> service.rotate("old-token"))
                 .isInstanceOf(TokenInvalidException.class);
-        verify(redis).delete("family:" + familyId);
-        verify(setOps).remove("user:user-1:families", familyId);
+        verify(sets).remove("user:user-1:families", "fam-1");
     }
 
     @Test
-    void revokeByToken_deletes_family_and_index_entry() {
-        when(valueOps.get("rt:t1")).thenReturn("fam-1");
-        Map<Object, Object> familyHash = new HashMap<>();
-        familyHash.put("userId", "user-1");
-        familyHash.put("currentToken", "t1");
-        familyHash.put("expiresAt", System.currentTimeMillis() + 60_000L);
-        when(hashOps.entries("family:fam-1")).thenReturn(familyHash);
-
-        service.revokeByToken("t1");
-
-        verify(redis).delete("family:fam-1");
-        verify(setOps).remove("user:user-1:families", "fam-1");
+    @SuppressWarnings("unchecked")
+    void rotate_unknown_token_is_invalid_without_running_a_script() {
+        assertThatThrownBy(() -> service.rotate("unknown"))
+                .isInstanceOf(TokenInvalidException.class);
+        verify(redis, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
     }
 
     @Test
-    void revokeByToken_silent_on_unknown_token() {
-        when(valueOps.get("rt:unknown")).thenReturn(null);
-        service.revokeByToken("unknown");
-        verify(redis, never()).delete(anyString());
+    @SuppressWarnings("unchecked")
+    void revokeByToken_runs_script_against_token_and_family_keys() {
+        when(values.get("rt:t1")).thenReturn("fam-1");
+        when(redis.execute(any(RedisScript.class), eq(List.of("rt:t1", "family:fam-1")), any(Object[].class)))
+                .thenReturn("user-1");
+
+        service.revokeByToken("t1");
+
+        verify(sets).remove("user:user-1:families", "fam-1");
     }
 
     @Test
-    void revokeAllForUser_wipes_all_families_and_index() {
-        when(setOps.members("user:user-1:families")).thenReturn(Set.of("fam-a", "fam-b"));
+    @SuppressWarnings("unchecked")
+    void revokeAllForUser_declares_index_and_family_keys() {
+        when(sets.members("user:user-1:families")).thenReturn(Set.of("fam-1"));
+        when(redis.execute(any(RedisScript.class), eq(List.of("user:user-1:families", "family:fam-1")), any(Object[].class)))
+                .thenReturn(1L);
 
         service.revokeAllForUser("user-1");
 
-        verify(redis).delete("family:fam-a");
-        verify(redis).delete("family:fam-b");
-        verify(redis).delete("user:user-1:families");
+        verify(redis).execute(any(RedisScript.class), eq(List.of("user:user-1:families", "family:fam-1")), any(Object[].class));
     }
 
     @Test
     void userIdForToken_returns_userId_from_family() {
-        when(valueOps.get("rt:t1")).thenReturn("fam-1");
-        when(hashOps.get("family:fam-1", "userId")).thenReturn("user-1");
+        when(values.get("rt:t1")).thenReturn("fam-1");
+        when(hashes.get("family:fam-1", "userId")).thenReturn("user-1");
 
         assertThat(service.userIdForToken("t1")).isEqualTo("user-1");
     }
 
     @Test
     void userIdForToken_returns_null_for_unknown_token() {
-        when(valueOps.get("rt:unknown")).thenReturn(null);
         assertThat(service.userIdForToken("unknown")).isNull();
     }
 }
@@ -0,0 +1,91 @@
+package org.aibles.ecommerce.authorization_server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.authorization_server.constant.ExportFormat;
+import org.aibles.ecommerce.authorization_server.constant.Gender;
+import org.aibles.ecommerce.authorization_server.dto.request.FilterRequest;
+import org.aibles.ecommerce.authorization_server.entity.User;
+import org.aibles.ecommerce.authorization_server.repository.slave.SlaveUserRepository;
+import org.aibles.ecommerce.authorization_server.service.impl.UserExportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class UserExportServiceImplTest {
+
+    private final SlaveUserRepository slaveUserRepository = mock(SlaveUserRepository.class);
+
+    private UserExportServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        service = new UserExportServiceImpl(slaveUserRepository, new ObjectMapper(), 100, 1, 1, new SimpleMeterRegistry());
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(3);
+            consumer.accept(user("u-1", "a@example.com", "Doe, \"Jo\"", Gender.FEMALE, null));
+            consumer.accept(user("u-2", "b@example.com", "=HYPERLINK(\"x\")", null, "line1\nline2"));
+            return null;
+        }).when(slaveUserRepository).stream(any(), any(), eq(100), any(Consumer.class));
+    }
+
+    @Test
+    void export_csv_quotes_fields_and_neutralises_formulas() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(new FilterRequest(), ExportFormat.CSV, () -> out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,email,name,gender,address,avatar_url\r\n"
+                        + "u-1,a@example.com,\"Doe, \"\"Jo\"\"\",FEMALE,,\r\n"
+                        + "u-2,b@example.com,\"'=HYPERLINK(\"\"x\"\")\",,\"line1\nline2\",\r\n");
+    }
+
+    @Test
+    void export_ndjson_writes_one_snake_case_object_per_line() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(new FilterRequest(), ExportFormat.NDJSON, () -> out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":\"u-1\"").contains("\"avatar_url\":null");
+    }
+
+    @Test
+    void export_releases_its_slot_when_the_client_disconnects() {
+        service.export(new FilterRequest(), ExportFormat.CSV, () -> new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        // The single slot is free again, so a second export is admitted.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(new FilterRequest(), ExportFormat.CSV, () -> out);
+        assertThat(out.size()).isPositive();
+    }
+
+    private static User user(String id, String email, String name, Gender gender, String address) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        user.setGender(gender);
+        user.setAddress(address);
+        return user;
+    }
+}
@@ -0,0 +1,9 @@
+package org.aibles.ecommerce.common_dto.exception;
+
+public class IdempotencyKeyReusedException extends BaseException {
+
+  public IdempotencyKeyReusedException() {
+    setStatus(422);
+    setCode("common.idempotency.key_reused");
+  }
+}
@@ -0,0 +1,9 @@
+package org.aibles.ecommerce.common_dto.exception;
+
+public class IdempotentRequestInProgressException extends BaseException {
+
+  public IdempotentRequestInProgressException() {
+    setStatus(409);
+    setCode("common.idempotency.in_progress");
+  }
+}
@@ -9,4 +9,19 @@ public class JwtConstant {
         public static final String EMAIL = "email";
         public static final String ROLES = "roles";
     }
+
+    /**
+     * Redis layout shared by the authorization-server (writer) and the gateway (reader) for
+     * access-token revocation.
+     */
+    public static class Revocation {
+        /** {@code revoked:sub:{userId}} = epoch millis; tokens issued at or before it are revoked. */
+        public static final String SUBJECT_KEY_PREFIX = "revoked:sub:";
+        /** {@code revoked:jti:{jti}} = "1" while the revoked token would still be valid. */
+        public static final String TOKEN_KEY_PREFIX = "revoked:jti:";
+        /** Sorted set of live entries ({@code sub:{userId}} / {@code jti:{jti}}) scored by expiry millis. */
+        public static final String ENTRIES_KEY = "revoked:entries";
+        public static final String SUBJECT_MEMBER_PREFIX = "sub:";
+        public static final String TOKEN_MEMBER_PREFIX = "jti:";
+    }
 }
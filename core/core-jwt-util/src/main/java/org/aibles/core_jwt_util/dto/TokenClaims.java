@@ -3,6 +3,7 @@ package org.aibles.core_jwt_util.dto;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -28,6 +29,21 @@ public class TokenClaims {
      */
     private final List<String> roles;
 
+    /**
+     * Expiration time extracted from JWT exp claim; null when not read from a verified token.
+     */
+    private final Instant expiresAt;
+
+    /**
+     * Token id extracted from JWT jti claim; null for tokens minted without one.
+     */
+    private final String tokenId;
+
+    /**
+     * Issue time extracted from JWT iat claim; null for tokens minted without one.
+     */
+    private final Instant issuedAt;
+
     /**
      * Validates that all required claims are present.
      *
@@ -1,27 +1,131 @@
 package org.aibles.core_jwt_util.util;
 
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.core_jwt_util.constant.JwtConstant;
 import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.springframework.util.ClassUtils;
 
 import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class JwtUtil {
 
+    /**
+     * Verifiers keyed by kid. Building one parses the public key, so it is done once per key
+     * rather than per token; an entry is rebuilt if the key under its kid changes.
+     */
+    private static final Map<String, CachedVerifier> VERIFIERS = new ConcurrentHashMap<>();
+
+    /**
+     * Ed25519 in nimbus-jose-jwt is backed by Tink, which this module only declares as optional:
+     * a service that signs or verifies EdDSA keys puts it on its own classpath.
+     */
+    public static final boolean EDDSA_AVAILABLE =
+            ClassUtils.isPresent("com.google.crypto.tink.subtle.Ed25519Sign", JwtUtil.class.getClassLoader());
+
     private JwtUtil() {}
 
+    /**
+     * Signing algorithm for a key: its declared {@code alg}, otherwise RS256 for RSA, ES256/384/512
+     * by curve for EC and EdDSA for Ed25519. Returns null for unsupported key types.
+     */
+    public static JWSAlgorithm algorithmFor(JWK jwk) {
+        if (jwk.getAlgorithm() != null) {
+            return JWSAlgorithm.parse(jwk.getAlgorithm().getName());
+        }
+        if (jwk instanceof RSAKey) {
+            return JWSAlgorithm.RS256;
+        }
+        if (jwk instanceof ECKey ecKey) {
+            Curve curve = ecKey.getCurve();
+            if (Curve.P_256.equals(curve)) {
+                return JWSAlgorithm.ES256;
+            }
+            if (Curve.P_384.equals(curve)) {
+                return JWSAlgorithm.ES384;
+            }
+            if (Curve.P_521.equals(curve)) {
+                return JWSAlgorithm.ES512;
+            }
+            return null;
+        }
+        if (jwk instanceof OctetKeyPair okp && Curve.Ed25519.equals(okp.getCurve())) {
+            return JWSAlgorithm.EdDSA;
+        }
+        return null;
+    }
+
+    /**
+     * Cached verifier for the key, or null when the key type is unsupported.
+     */
+    public static JWSVerifier verifierFor(JWK jwk) throws JOSEException {
+        String cacheKey = jwk.getKeyID() == null ? "" : jwk.getKeyID();
+        CachedVerifier cached = VERIFIERS.get(cacheKey);
+        if (cached != null && (cached.jwk() == jwk || cached.jwk().equals(jwk))) {
+            return cached.verifier();
+        }
+
+        JWSVerifier verifier;
+        if (jwk instanceof RSAKey rsaKey) {
+            verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+        } else if (jwk instanceof ECKey ecKey) {
+            verifier = new ECDSAVerifier(ecKey.toPublicJWK());
+        } else if (jwk instanceof OctetKeyPair okp && Curve.Ed25519.equals(okp.getCurve())) {
+            if (!EDDSA_AVAILABLE) {
+                log.warn("(verifierFor) Tink is not on the classpath, cannot verify EdDSA kid: {}", jwk.getKeyID());
+                return null;
+            }
+            verifier = new Ed25519Verifier(okp.toPublicJWK());
+        } else {
+            return null;
+        }
+        VERIFIERS.put(cacheKey, new CachedVerifier(jwk, verifier));
+        return verifier;
+    }
+
+    /**
+     * Checks the signature against the key named by the token's kid. The header alg must be
+     * the key's own algorithm, so a token cannot pick a weaker or mismatched one.
+     */
+    private static boolean verifySignature(JWKSet jwkSet, SignedJWT signedJWT) throws JOSEException {
+        String kid = signedJWT.getHeader().getKeyID();
+        JWK jwk = kid == null ? null : jwkSet.getKeyByKeyId(kid);
+        if (jwk == null) {
+            log.warn("(verifySignature) Unknown kid: {}", kid);
+            return false;
+        }
+        JWSAlgorithm expected = algorithmFor(jwk);
+        JWSVerifier verifier = verifierFor(jwk);
+        if (expected == null || verifier == null) {
+            log.warn("(verifySignature) Unsupported key type for kid: {}", kid);
+            return false;
+        }
+        if (!expected.equals(signedJWT.getHeader().getAlgorithm())) {
+            log.warn("(verifySignature) Algorithm {} does not match key {} ({})",
+                    signedJWT.getHeader().getAlgorithm(), kid, expected);
+            return false;
+        }
+        return signedJWT.verify(verifier);
+    }
+
     /**
      * SECURITY FIX: Removed token logging to prevent sensitive data exposure
      */
@@ -98,15 +202,7 @@ public class JwtUtil {
         SignedJWT signedJWT = SignedJWT.parse(token);
 
         // Verify signature
-        String kid = signedJWT.getHeader().getKeyID();
-        JWK jwk = jwkSet.getKeyByKeyId(kid);
-        if (!(jwk instanceof RSAKey rsaKey)) {
-            log.warn("(verifyAndExtractClaims) Invalid key type for kid: {}", kid);
-            return null;
-        }
-
-        JWSVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-        if (!signedJWT.verify(verifier)) {
+        if (!verifySignature(jwkSet, signedJWT)) {
             log.warn("(verifyAndExtractClaims) Signature verification failed");
             return null;
         }
@@ -124,6 +220,9 @@ public class JwtUtil {
                 .userId(claimsSet.getSubject())
                 .email((String) claimsSet.getClaim(JwtConstant.ClaimKey.EMAIL))
                 .roles((List<String>) claimsSet.getClaim(JwtConstant.ClaimKey.ROLES))
+                .expiresAt(expirationTime.toInstant())
+                .tokenId(claimsSet.getJWTID())
+                .issuedAt(claimsSet.getIssueTime() == null ? null : claimsSet.getIssueTime().toInstant())
                 .build();
     }
 
@@ -134,15 +233,7 @@ public class JwtUtil {
     public static boolean verifyToken(JWKSet jwkSet, String token) throws ParseException, JOSEException {
         log.debug("(verifyToken) Verifying token");
         SignedJWT signedJWT = SignedJWT.parse(token);
-        String kid = signedJWT.getHeader().getKeyID();
-        JWK jwk = jwkSet.getKeyByKeyId(kid);
-        if (!(jwk instanceof RSAKey rsaKey)) {
-            return false;
-        }
-
-        JWSVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-
-        if (!signedJWT.verify(verifier)) {
+        if (!verifySignature(jwkSet, signedJWT)) {
             return false;
         }
 
@@ -150,4 +241,7 @@ public class JwtUtil {
 
         return !new Date().after(expirationTime);
     }
+
+    private record CachedVerifier(JWK jwk, JWSVerifier verifier) {
+    }
 }
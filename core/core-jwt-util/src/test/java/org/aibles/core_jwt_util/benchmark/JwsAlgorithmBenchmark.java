@@ -0,0 +1,108 @@
+package org.aibles.core_jwt_util.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.aibles.core_jwt_util.constant.JwtConstant;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.aibles.core_jwt_util.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify cost per JWS algorithm for a token shaped like our access tokens.
+ *
+ * Run from core/core-jwt-util with:
+ * {@code mvn -q test-compile exec:java -Dexec.mainClass=org.aibles.core_jwt_util.benchmark.JwsAlgorithmBenchmark -Dexec.classpathScope=test}
+ * Verify is the number that matters: every gateway request pays it on a verified-token cache miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JWSSigner signer;
+    private JWSHeader header;
+    private JWTClaimsSet claims;
+    private JWKSet publicKeys;
+    private String token;
+
+    @Setup
+    public void setup() throws JOSEException {
+        JWK key = switch (algorithm) {
+            case "RS256" -> new RSAKeyGenerator(2048).keyID("rs").generate();
+            case "ES256" -> new ECKeyGenerator(Curve.P_256).keyID("es").generate();
+            case "EdDSA" -> new OctetKeyPairGenerator(Curve.Ed25519).keyID("ed").generate();
+            default -> throw new IllegalArgumentException(algorithm);
+        };
+        signer = switch (algorithm) {
+            case "RS256" -> new RSASSASigner((RSAKey) key);
+            case "ES256" -> new ECDSASigner((ECKey) key);
+            default -> new Ed25519Signer((OctetKeyPair) key);
+        };
+        header = new JWSHeader.Builder(JwtUtil.algorithmFor(key)).keyID(key.getKeyID()).build();
+        claims = new JWTClaimsSet.Builder()
+                .jwtID("bench")
+                .subject("user-1")
+                .claim(JwtConstant.ClaimKey.EMAIL, "user@example.com")
+                .claim(JwtConstant.ClaimKey.ROLES, List.of("USER"))
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        publicKeys = new JWKSet(key.toPublicJWK());
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() throws JOSEException {
+        SignedJWT signedJWT = new SignedJWT(header, claims);
+        signedJWT.sign(signer);
+        return signedJWT.serialize();
+    }
+
+    @Benchmark
+    public TokenClaims verifyAndExtract() throws ParseException, JOSEException {
+        return JwtUtil.verifyAndExtractClaims(publicKeys, token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwsAlgorithmBenchmark.class.getSimpleName()).build()).run();
+    }
+}
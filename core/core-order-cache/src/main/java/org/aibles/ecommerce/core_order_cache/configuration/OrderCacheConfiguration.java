@@ -1,11 +1,21 @@
 package org.aibles.ecommerce.core_order_cache.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.OrderAcceptanceRepository;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.core_order_cache.repository.impl.CartCacheRepositoryImpl;
+import org.aibles.ecommerce.core_order_cache.repository.impl.OrderAcceptanceRepositoryImpl;
 import org.aibles.ecommerce.core_order_cache.repository.impl.PendingOrderCacheRepositoryImpl;
+import org.aibles.ecommerce.core_order_cache.repository.impl.ShardedStockRepositoryImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
 
 @Configuration
 public class OrderCacheConfiguration {
@@ -16,4 +26,23 @@ public class OrderCacheConfiguration {
             ObjectMapper objectMapper) {
         return new PendingOrderCacheRepositoryImpl(redisTemplate, objectMapper);
     }
+
+    @Bean
+    public ShardedStockRepository shardedStockRepository(
+            RedisTemplate<String, Object> redisTemplate,
+            @Value("${application.sharded-stock.registry-refresh:1s}") Duration registryRefresh) {
+        return new ShardedStockRepositoryImpl(redisTemplate, registryRefresh);
+    }
+
+    @Bean
+    public CartCacheRepository cartCacheRepository(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${application.cart.idle-ttl:7d}") Duration idleTtl) {
+        return new CartCacheRepositoryImpl(stringRedisTemplate, idleTtl);
+    }
+
+    @Bean
+    public OrderAcceptanceRepository orderAcceptanceRepository(StringRedisTemplate stringRedisTemplate) {
+        return new OrderAcceptanceRepositoryImpl(stringRedisTemplate);
+    }
 }
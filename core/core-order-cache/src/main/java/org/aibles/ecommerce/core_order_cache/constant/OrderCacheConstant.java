@@ -21,7 +21,60 @@ public class OrderCacheConstant {
 
     /**
      * Number of hours after which an unpaid order expires.
-     * After this time, the cleanup job will rollback the reservation.
+     * After this time, the expiry processor releases the reservation.
      */
     public static final int ORDER_EXPIRY_HOURS = 24;
+
+    /**
+     * Redis Hash registry of products in flash-sale (sharded) mode.
+     * Maps productId to its number of sub-counters.
+     * Format: HSET productAvailableShards {productId} {shardCount}
+     */
+    public static final String SHARDED_PRODUCTS_HASH = "productAvailableShards";
+
+    /**
+     * Infix between the base available key and the shard index of a sub-counter.
+     * Format: productAvailable:{productId}:shard:{n}
+     */
+    public static final String SHARD_KEY_INFIX = ":shard:";
+
+    /**
+     * Redis Set of every product the inventory service keeps an available-stock counter for,
+     * plain or sharded. A plain set instead of a key scan, so it also works on Redis Cluster.
+     * Format: SADD stockedProducts {productId}
+     */
+    public static final String STOCKED_PRODUCTS_SET = "stockedProducts";
+
+    /** Upper bound on sub-counters per product, to keep stealing and draining cheap. */
+    public static final int MAX_SHARDS = 64;
+
+    /**
+     * Redis Hash prefix holding a user's shopping cart, keyed by shopping_cart_id (the user ID).
+     * Format: HSET cart:{userId} loaded 1 p:{productId}:id {itemId} p:{productId}:qty {n}
+     *         p:{productId}:price {price} i:{itemId} {productId}
+     * Expires once the cart has not been written for the configured idle TTL.
+     */
+    public static final String CART_KEY = "cart:";
+
+    /**
+     * Redis String prefix naming the user owning a cart item, for item-level updates. Expires
+     * with the cart; a missing entry is looked up in MySQL instead.
+     * Format: SET cartItemOwner:{itemId} {userId}
+     */
+    public static final String CART_ITEM_OWNER_KEY = "cartItemOwner:";
+
+    /**
+     * Redis ZSET of users whose cart changed since it was last written to MySQL. Score 0 means
+     * due; a flusher claims a cart by moving its score to the claim deadline, so a cart whose
+     * flusher dies becomes due again once the claim runs out.
+     * Format: ZADD dirtyCartQueue {0 | claimUntilMillis} {userId}
+     */
+    public static final String DIRTY_CARTS_ZSET = "dirtyCartQueue";
+
+    /**
+     * Redis Hash prefix tracking an order accepted asynchronously, from enqueue until its
+     * worker created or rejected it.
+     * Format: HSET orderAcceptance:{orderId} userId {userId} status {status} errorCode {code}
+     */
+    public static final String ORDER_ACCEPTANCE_KEY = "orderAcceptance:";
 }
@@ -0,0 +1,12 @@
+package org.aibles.ecommerce.core_order_cache.model;
+
+/**
+ * One line of a shopping cart as held in the Redis cart hash.
+ *
+ * @param id        Cart item ID, the shopping_cart_item primary key
+ * @param productId Product ID
+ * @param quantity  Quantity in the cart
+ * @param price     Unit price at the time the product was last added
+ */
+public record CartItem(String id, String productId, long quantity, double price) {
+}
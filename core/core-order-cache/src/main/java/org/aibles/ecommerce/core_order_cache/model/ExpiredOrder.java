@@ -0,0 +1,13 @@
+package org.aibles.ecommerce.core_order_cache.model;
+
+import java.util.Map;
+
+/**
+ * A pending order claimed for expiry by {@code PendingOrderCacheRepository#claimExpiredOrders}.
+ *
+ * @param orderId           Order ID
+ * @param member            The order's pending-orders ZSET member, handed back on release
+ * @param productQuantities Map of product ID to reserved quantity
+ */
+public record ExpiredOrder(String orderId, String member, Map<String, Long> productQuantities) {
+}
@@ -0,0 +1,11 @@
+package org.aibles.ecommerce.core_order_cache.model;
+
+/**
+ * Where an asynchronously accepted order stands.
+ *
+ * @param userId    owner of the order, checked before the status is shown to anyone
+ * @param status    status name as defined by the order service
+ * @param errorCode message code of the rejection, null unless rejected
+ */
+public record OrderAcceptance(String userId, String status, String errorCode) {
+}
@@ -0,0 +1,90 @@
+package org.aibles.ecommerce.core_order_cache.repository;
+
+import org.aibles.ecommerce.core_order_cache.model.CartItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Shopping carts kept in one Redis hash per user. Every change marks the cart dirty so a
+ * write-behind flusher can persist it later; see {@link #claimDirtyCarts}. Every write and load
+ * renews the cart's idle TTL, after which an untouched cart is dropped from Redis.
+ *
+ * A cart must be loaded (see {@link #load}) before it is read or added to; the methods below
+ * report a cart that is not loaded rather than treating it as empty.
+ */
+public interface CartCacheRepository {
+
+    /**
+     * Seeds a user's cart with its persisted items, unless it is already loaded.
+     *
+     * @param userId User ID (the shopping_cart_id)
+     * @param items Items persisted for the cart
+     */
+    void load(String userId, List<CartItem> items);
+
+    /**
+     * Returns the items of a loaded cart.
+     *
+     * @param userId User ID
+     * @return Optional containing the cart items, or empty if the cart is not loaded
+     */
+    Optional<List<CartItem>> getItems(String userId);
+
+    /**
+     * Atomically merges a product into a loaded cart: the quantity is added (HINCRBY) and the
+     * price replaced, creating the item with {@code newItemId} if the product is not in the cart.
+     *
+     * @return Optional containing the resulting quantity, or empty if the cart is not loaded
+     */
+    Optional<Long> addItem(String userId, String productId, long quantity, double price, String newItemId);
+
+    /**
+     * Finds the user owning a cart item, if the item was added or loaded here within the idle TTL.
+     *
+     * @return Optional containing the owning user ID, or empty if the item is unknown here
+     */
+    Optional<String> findItemOwner(String itemId);
+
+    /**
+     * Sets the quantity of an item in a user's cart.
+     *
+     * @return true if the item is in the user's loaded cart, false otherwise
+     */
+    boolean updateItem(String userId, String itemId, long quantity);
+
+    /**
+     * Removes an item from a user's cart.
+     *
+     * @return true if the item was in the user's loaded cart, false otherwise
+     */
+    boolean deleteItem(String userId, String itemId);
+
+    /**
+     * Claims up to {@code count} due dirty carts by moving them to {@code claimUntilMillis}, so
+     * concurrent flushers never persist the same cart at once. A claim whose flusher dies runs
+     * out and the cart becomes due again; a cart changed after being claimed is due again at once.
+     *
+     * @return the claimed user IDs
+     */
+    Set<String> claimDirtyCarts(int count, long nowMillis, long claimUntilMillis);
+
+    /**
+     * Drops persisted carts from the dirty queue, unless they changed after being claimed.
+     *
+     * @param claimUntilMillis the deadline they were claimed with
+     */
+    void completeDirtyCarts(Collection<String> userIds, long claimUntilMillis);
+
+    /**
+     * Makes users' carts due again, e.g. after they failed to persist.
+     */
+    void markDirty(Collection<String> userIds);
+
+    /**
+     * Counts carts waiting to be persisted.
+     */
+    long countDirtyCarts();
+}
@@ -0,0 +1,33 @@
+package org.aibles.ecommerce.core_order_cache.repository;
+
+import org.aibles.ecommerce.core_order_cache.model.OrderAcceptance;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Status of orders accepted asynchronously, one short-lived Redis hash per order. It answers
+ * status polls until the order exists in MySQL, and lets a redelivered request be recognised.
+ */
+public interface OrderAcceptanceRepository {
+
+    /**
+     * Records (or overwrites) the status of several orders in one round trip.
+     *
+     * @param acceptances Order ID to its status
+     * @param ttl How long the records are kept
+     */
+    void saveAll(Map<String, OrderAcceptance> acceptances, Duration ttl);
+
+    default void save(String orderId, OrderAcceptance acceptance, Duration ttl) {
+        saveAll(Map.of(orderId, acceptance), ttl);
+    }
+
+    /**
+     * @return Optional containing the order's status, or empty if unknown or expired
+     */
+    Optional<OrderAcceptance> find(String orderId);
+
+    void delete(String orderId);
+}
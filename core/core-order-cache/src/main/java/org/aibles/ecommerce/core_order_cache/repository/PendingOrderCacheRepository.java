@@ -1,7 +1,12 @@
 package org.aibles.ecommerce.core_order_cache.repository;
 
+import org.aibles.ecommerce.core_order_cache.model.ExpiredOrder;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface PendingOrderCacheRepository {
 
@@ -29,13 +34,63 @@ public interface PendingOrderCacheRepository {
     void addToPendingOrders(String orderId, double orderPrice, Map<String, Long> productQuantities, long expiryTimestampMillis);
 
     /**
-     * Retrieves all expired orders from the pending orders ZSET.
-     * Returns orders with score (expiry timestamp) less than the current timestamp.
+     * Claims up to {@code limit} orders whose expiry timestamp has passed, oldest first.
+     * Claiming atomically moves each order's score to {@code claimUntilMillis}, so concurrent
+     * callers never claim the same order, and an order whose claimer dies before releasing it
+     * becomes due again once the claim runs out.
      *
      * @param currentTimestampMillis Current timestamp in milliseconds (epoch time)
-     * @return Map of order ID to product quantities for expired orders
+     * @param limit Maximum number of orders to claim
+     * @param claimUntilMillis Timestamp until which the claimed orders are hidden from other callers
+     * @return the claimed orders, oldest expiry first
+     */
+    List<ExpiredOrder> claimExpiredOrders(long currentTimestampMillis, int limit, long claimUntilMillis);
+
+    /**
+     * Atomically removes a claimed expired order from the pending orders ZSET and index and
+     * increments the available counter of each of its products by the reserved quantity.
+     * Nothing is released if the order already left the ZSET (paid or canceled meanwhile).
+     *
+     * @param keyPrefix The prefix for available counter keys (e.g., "productAvailable:")
+     * @param order Order previously returned by {@link #claimExpiredOrders}
+     * @return true if the reservation was released, false if the order was no longer pending
+     */
+    boolean releaseExpiredOrder(String keyPrefix, ExpiredOrder order);
+
+    /**
+     * Releases the reservations of several pending orders in one Lua evaluation. Each order
+     * that is still pending is removed from the ZSET and index and has its products' available
+     * counters incremented, atomically; orders no longer pending are left alone.
+     *
+     * @param keyPrefix The prefix for available counter keys (e.g., "productAvailable:")
+     * @param orderIds Order IDs to release
+     * @return the IDs of the orders whose reservations were released
      */
-    Map<String, Map<String, Long>> getExpiredOrders(long currentTimestampMillis);
+    Set<String> releasePendingOrders(String keyPrefix, Collection<String> orderIds);
+
+    /**
+     * Which of the given orders are still pending, with one HMGET on the index. Read-only: an
+     * order reported here may still be released by someone else before the caller acts on it.
+     *
+     * @param orderIds Order IDs to check
+     * @return the IDs of the orders that are still pending
+     */
+    Set<String> findPendingOrders(Collection<String> orderIds);
+
+    /**
+     * Counts orders past their expiry timestamp that are not currently claimed.
+     *
+     * @param currentTimestampMillis Current timestamp in milliseconds (epoch time)
+     * @return number of due, unclaimed orders
+     */
+    long countExpiredOrders(long currentTimestampMillis);
+
+    /**
+     * Returns the earliest expiry timestamp in the pending orders ZSET.
+     *
+     * @return Optional containing the earliest score, or empty if no order is pending
+     */
+    Optional<Long> getEarliestExpiry();
 
     /**
      * Removes an order from the pending orders ZSET.
@@ -71,4 +126,15 @@ public interface PendingOrderCacheRepository {
      * @return true if all products were successfully reserved, false if any product has insufficient stock
      */
     boolean checkAndReserveAvailableAtomic(String keyPrefix, Map<String, Long> productQuantities);
+
+    /**
+     * Runs {@link #checkAndReserveAvailableAtomic} for several orders in one Lua evaluation.
+     * Orders are applied in list order, each all-or-nothing, exactly as if they had been
+     * submitted one after another; one order falling short does not affect the others.
+     *
+     * @param keyPrefix The prefix for Redis keys (e.g., "productAvailable:")
+     * @param orders Product quantities of each order
+     * @return one result per order, in the same order: true if that order was reserved
+     */
+    List<Boolean> checkAndReserveAvailableBatch(String keyPrefix, List<Map<String, Long>> orders);
 }
@@ -0,0 +1,103 @@
+package org.aibles.ecommerce.core_order_cache.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flash-sale mode for the available-stock counters: an opt-in product keeps its stock spread
+ * over N sub-counters ({@code productAvailable:{id}:shard:{n}}) instead of the single
+ * {@code productAvailable:{id}} key, so concurrent reservations stop queueing on one hot key.
+ *
+ * The base key stays valid in both modes. Releases (cancel, expiry, reservation rollback) and
+ * admin additions keep writing it, and sharded reservations fall back to it once the shards
+ * are exhausted. That makes mode switches and rebalancing safe while traffic is live: stock in
+ * flight between keys can cause a short-lived false "out of stock", never an oversell.
+ */
+public interface ShardedStockRepository {
+
+    /**
+     * Products currently in sharded mode, mapped to their shard count.
+     * Served from a local copy of the registry refreshed at most every refresh interval.
+     *
+     * @return productId to shard count, empty when no product is sharded
+     */
+    Map<String, Integer> shardedProducts();
+
+    /**
+     * Reserves each product from its shards: starts at a random shard, steals from the others
+     * when it runs dry, then falls back to the base counter. All-or-nothing across products.
+     *
+     * @param productQuantities Map of sharded product ID to quantity to reserve
+     * @return true if everything was reserved, false if any product is short (nothing is kept)
+     */
+    boolean reserve(Map<String, Long> productQuantities);
+
+    /**
+     * Applies an admin stock adjustment. Additions land on the base counter and reach the shards
+     * on the next rebalance. Removals take from the base counter first and then from the shards,
+     * so they hit the stock where it actually sits; only what the product does not hold is left
+     * as a deficit on the base counter, which blocks sharded reservations until it is settled.
+     *
+     * @param productId Product ID
+     * @param delta Units to add (positive) or remove (negative)
+     */
+    void adjust(String productId, long delta);
+
+    /**
+     * Switches a product into sharded mode (or changes its shard count) and moves its current
+     * stock evenly onto the shards.
+     *
+     * @param productId Product ID
+     * @param shards Number of sub-counters, between 2 and {@code OrderCacheConstant.MAX_SHARDS}
+     */
+    void enable(String productId, int shards);
+
+    /**
+     * Switches a product back to the single counter and drains its shards into the base key.
+     *
+     * @param productId Product ID
+     */
+    void disable(String productId);
+
+    /**
+     * Evens out a sharded product's stock across its shards, folding in whatever has been
+     * released onto the base key since the last rebalance. No-op for non-sharded products.
+     *
+     * @param productId Product ID
+     */
+    void rebalance(String productId);
+
+    /**
+     * Resets a product's counters to {@code stock}: spread over the shards when the product is
+     * sharded, on the base key otherwise. Used to reconcile Redis with the DB.
+     *
+     * @param productId Product ID
+     * @param stock Available stock, negative values are treated as zero
+     */
+    void reseed(String productId, long stock);
+
+    /**
+     * Current value of each shard of a product, in shard order, followed by the base counter.
+     *
+     * @param productId Product ID
+     * @return shard values then base value; only the base value for non-sharded products
+     */
+    List<Long> counters(String productId);
+
+    /**
+     * Records products as having an available-stock counter, for {@link #productIds()}.
+     *
+     * @param productIds Product IDs
+     */
+    void register(Collection<String> productIds);
+
+    /**
+     * Every product registered as having an available-stock counter (plain or sharded).
+     * Meant for startup warm-ups, not the request path.
+     *
+     * @return product IDs
+     */
+    Set<String> productIds();
+}
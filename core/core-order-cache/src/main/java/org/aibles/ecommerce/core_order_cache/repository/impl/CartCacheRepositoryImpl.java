@@ -0,0 +1,245 @@
+package org.aibles.ecommerce.core_order_cache.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
+import org.aibles.ecommerce.core_order_cache.model.CartItem;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.*;
+
+@Slf4j
+public class CartCacheRepositoryImpl implements CartCacheRepository {
+
+    private static final String PRODUCT_FIELD_PREFIX = "p:";
+    private static final String ID_SUFFIX = ":id";
+    private static final String QUANTITY_SUFFIX = ":qty";
+    private static final String PRICE_SUFFIX = ":price";
+
+    /**
+     * Seeds a cart hash only if it does not exist yet, so a load racing with writes never
+     * overwrites them. The "loaded" marker keeps an empty cart distinguishable from a missing one.
+     * KEYS: cartKey, then the owner key of each item. ARGV: userId, ttlMillis, then per item:
+     * itemId, productId, quantity, price
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "redis.call('HSET', KEYS[1], 'loaded', '1')\n" +
+            "for i = 0, #KEYS - 2 do\n" +
+            "    local itemId = ARGV[3 + i * 4]\n" +
+            "    local productId = ARGV[4 + i * 4]\n" +
+            "    redis.call('HSET', KEYS[1],\n" +
+            "        'p:' .. productId .. ':id', itemId,\n" +
+            "        'p:' .. productId .. ':qty', ARGV[5 + i * 4],\n" +
+            "        'p:' .. productId .. ':price', ARGV[6 + i * 4],\n" +
+            "        'i:' .. itemId, productId)\n" +
+            "    redis.call('SET', KEYS[2 + i], ARGV[1], 'PX', ARGV[2])\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * Merges a product into a loaded cart, the Redis counterpart of the ON DUPLICATE KEY upsert.
+     * KEYS: cartKey, ownerKey of newItemId, dirtyKey. ARGV: userId, productId, quantity, price,
+     * newItemId, ttlMillis
+     * Returns the resulting quantity, or -1 if the cart is not loaded.
+     */
+    private static final RedisScript<Long> ADD_ITEM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "local idField = 'p:' .. ARGV[2] .. ':id'\n" +
+            "if redis.call('HEXISTS', KEYS[1], idField) == 0 then\n" +
+            "    redis.call('HSET', KEYS[1], idField, ARGV[5], 'i:' .. ARGV[5], ARGV[2])\n" +
+            "    redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[6])\n" +
+            "end\n" +
+            "local quantity = redis.call('HINCRBY', KEYS[1], 'p:' .. ARGV[2] .. ':qty', ARGV[3])\n" +
+            "redis.call('HSET', KEYS[1], 'p:' .. ARGV[2] .. ':price', ARGV[4])\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[6])\n" +
+            "redis.call('ZADD', KEYS[3], 0, ARGV[1])\n" +
+            "return quantity", Long.class);
+
+    /**
+     * Sets (ARGV[3] present) or removes (ARGV[3] empty) an item of a user's cart.
+     * KEYS: cartKey, ownerKey, dirtyKey. ARGV: userId, itemId, quantity or "", ttlMillis
+     * Returns 1 on success, 0 if the item is not in the user's loaded cart.
+     */
+    private static final RedisScript<Long> CHANGE_ITEM_SCRIPT = new DefaultRedisScript<>(
+            "local productId = redis.call('HGET', KEYS[1], 'i:' .. ARGV[2])\n" +
+            "if not productId then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "if ARGV[3] == '' then\n" +
+            "    redis.call('HDEL', KEYS[1], 'i:' .. ARGV[2],\n" +
+            "        'p:' .. productId .. ':id', 'p:' .. productId .. ':qty', 'p:' .. productId .. ':price')\n" +
+            "    redis.call('DEL', KEYS[2])\n" +
+            "else\n" +
+            "    redis.call('HSET', KEYS[1], 'p:' .. productId .. ':qty', ARGV[3])\n" +
+            "    redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[4])\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4])\n" +
+            "redis.call('ZADD', KEYS[3], 0, ARGV[1])\n" +
+            "return 1", Long.class);
+
+    /**
+     * Claims due dirty carts by moving their score to the claim deadline.
+     * KEYS: dirtyKey. ARGV: nowMillis, count, claimUntilMillis
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_DIRTY_SCRIPT = new DefaultRedisScript<>(
+            "local userIds = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])\n" +
+            "for _, userId in ipairs(userIds) do\n" +
+            "    redis.call('ZADD', KEYS[1], ARGV[3], userId)\n" +
+            "end\n" +
+            "return userIds", List.class);
+
+    /**
+     * Removes flushed carts still holding the given claim; a cart changed since is back at 0.
+     * KEYS: dirtyKey. ARGV: claimUntilMillis, then the user IDs
+     */
+    private static final RedisScript<Long> COMPLETE_DIRTY_SCRIPT = new DefaultRedisScript<>(
+            "local removed = 0\n" +
+            "for i = 2, #ARGV do\n" +
+            "    local score = redis.call('ZSCORE', KEYS[1], ARGV[i])\n" +
+            "    if score and tonumber(score) == tonumber(ARGV[1]) then\n" +
+            "        removed = removed + redis.call('ZREM', KEYS[1], ARGV[i])\n" +
+            "    end\n" +
+            "end\n" +
+            "return removed", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String idleTtlMillis;
+
+    public CartCacheRepositoryImpl(StringRedisTemplate redisTemplate, Duration idleTtl) {
+        this.redisTemplate = redisTemplate;
+        this.idleTtlMillis = String.valueOf(idleTtl.toMillis());
+    }
+
+    @Override
+    public void load(String userId, List<CartItem> items) {
+        log.info("(load) Loading cart of user {} with {} items", userId, items.size());
+
+        List<String> keys = new ArrayList<>(1 + items.size());
+        keys.add(cartKey(userId));
+        List<String> args = new ArrayList<>(2 + items.size() * 4);
+        args.add(userId);
+        args.add(idleTtlMillis);
+        for (CartItem item : items) {
+            keys.add(itemOwnerKey(item.id()));
+            args.add(item.id());
+            args.add(item.productId());
+            args.add(String.valueOf(item.quantity()));
+            args.add(String.valueOf(item.price()));
+        }
+        redisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+    }
+
+    @Override
+    public Optional<List<CartItem>> getItems(String userId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(cartKey(userId));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<CartItem> items = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : fields.entrySet()) {
+            String field = entry.getKey().toString();
+            if (!field.startsWith(PRODUCT_FIELD_PREFIX) || !field.endsWith(ID_SUFFIX)) {
+                continue;
+            }
+            String productId = field.substring(PRODUCT_FIELD_PREFIX.length(), field.length() - ID_SUFFIX.length());
+            Object quantity = fields.get(PRODUCT_FIELD_PREFIX + productId + QUANTITY_SUFFIX);
+            Object price = fields.get(PRODUCT_FIELD_PREFIX + productId + PRICE_SUFFIX);
+            if (quantity == null || price == null) {
+                log.warn("(getItems) Incomplete cart item for user {}, product {}", userId, productId);
+                continue;
+            }
+            items.add(new CartItem(entry.getValue().toString(), productId,
+                    Long.parseLong(quantity.toString()), Double.parseDouble(price.toString())));
+        }
+        items.sort(Comparator.comparing(CartItem::productId));
+        return Optional.of(items);
+    }
+
+    @Override
+    public Optional<Long> addItem(String userId, String productId, long quantity, double price, String newItemId) {
+        log.info("(addItem) userId: {}, productId: {}, quantity: {}", userId, productId, quantity);
+        Long result = redisTemplate.execute(ADD_ITEM_SCRIPT,
+                List.of(cartKey(userId), itemOwnerKey(newItemId), OrderCacheConstant.DIRTY_CARTS_ZSET),
+                userId, productId, String.valueOf(quantity), String.valueOf(price), newItemId, idleTtlMillis);
+        return result == null || result < 0 ? Optional.empty() : Optional.of(result);
+    }
+
+    @Override
+    public Optional<String> findItemOwner(String itemId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(itemOwnerKey(itemId)));
+    }
+
+    @Override
+    public boolean updateItem(String userId, String itemId, long quantity) {
+        log.info("(updateItem) userId: {}, itemId: {}, quantity: {}", userId, itemId, quantity);
+        return changeItem(userId, itemId, String.valueOf(quantity));
+    }
+
+    @Override
+    public boolean deleteItem(String userId, String itemId) {
+        log.info("(deleteItem) userId: {}, itemId: {}", userId, itemId);
+        return changeItem(userId, itemId, "");
+    }
+
+    private boolean changeItem(String userId, String itemId, String quantity) {
+        Long result = redisTemplate.execute(CHANGE_ITEM_SCRIPT,
+                List.of(cartKey(userId), itemOwnerKey(itemId), OrderCacheConstant.DIRTY_CARTS_ZSET),
+                userId, itemId, quantity, idleTtlMillis);
+        return result != null && result == 1L;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> claimDirtyCarts(int count, long nowMillis, long claimUntilMillis) {
+        List<String> userIds = redisTemplate.execute(CLAIM_DIRTY_SCRIPT, List.of(OrderCacheConstant.DIRTY_CARTS_ZSET),
+                String.valueOf(nowMillis), String.valueOf(count), String.valueOf(claimUntilMillis));
+        return userIds == null ? Set.of() : new LinkedHashSet<>(userIds);
+    }
+
+    @Override
+    public void completeDirtyCarts(Collection<String> userIds, long claimUntilMillis) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(1 + userIds.size());
+        args.add(String.valueOf(claimUntilMillis));
+        args.addAll(userIds);
+        redisTemplate.execute(COMPLETE_DIRTY_SCRIPT, List.of(OrderCacheConstant.DIRTY_CARTS_ZSET), args.toArray());
+    }
+
+    @Override
+    public void markDirty(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> due = new HashSet<>();
+        userIds.forEach(userId -> due.add(ZSetOperations.TypedTuple.of(userId, 0.0)));
+        redisTemplate.opsForZSet().add(OrderCacheConstant.DIRTY_CARTS_ZSET, due);
+    }
+
+    @Override
+    public long countDirtyCarts() {
+        Long size = redisTemplate.opsForZSet().zCard(OrderCacheConstant.DIRTY_CARTS_ZSET);
+        return size != null ? size : 0L;
+    }
+
+    private static String cartKey(String userId) {
+        return OrderCacheConstant.CART_KEY + userId;
+    }
+
+    private static String itemOwnerKey(String itemId) {
+        return OrderCacheConstant.CART_ITEM_OWNER_KEY + itemId;
+    }
+}
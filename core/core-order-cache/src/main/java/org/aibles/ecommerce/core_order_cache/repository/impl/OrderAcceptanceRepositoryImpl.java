@@ -0,0 +1,75 @@
+package org.aibles.ecommerce.core_order_cache.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
+import org.aibles.ecommerce.core_order_cache.model.OrderAcceptance;
+import org.aibles.ecommerce.core_order_cache.repository.OrderAcceptanceRepository;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+public class OrderAcceptanceRepositoryImpl implements OrderAcceptanceRepository {
+
+    private static final String USER_ID_FIELD = "userId";
+    private static final String STATUS_FIELD = "status";
+    private static final String ERROR_CODE_FIELD = "errorCode";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public OrderAcceptanceRepositoryImpl(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void saveAll(Map<String, OrderAcceptance> acceptances, Duration ttl) {
+        if (acceptances.isEmpty()) {
+            return;
+        }
+        log.info("(saveAll) Saving status of {} accepted orders", acceptances.size());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            acceptances.forEach((orderId, acceptance) -> {
+                String key = key(orderId);
+                Map<String, String> fields = new HashMap<>();
+                fields.put(USER_ID_FIELD, acceptance.userId());
+                fields.put(STATUS_FIELD, acceptance.status());
+                if (acceptance.errorCode() != null) {
+                    fields.put(ERROR_CODE_FIELD, acceptance.errorCode());
+                } else {
+                    stringConnection.hDel(key, ERROR_CODE_FIELD);
+                }
+                stringConnection.hMSet(key, fields);
+                stringConnection.expire(key, ttl.toSeconds());
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<OrderAcceptance> find(String orderId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(orderId));
+        if (fields.isEmpty() || fields.get(STATUS_FIELD) == null) {
+            return Optional.empty();
+        }
+        Object errorCode = fields.get(ERROR_CODE_FIELD);
+        return Optional.of(new OrderAcceptance(
+                String.valueOf(fields.get(USER_ID_FIELD)),
+                fields.get(STATUS_FIELD).toString(),
+                errorCode != null ? errorCode.toString() : null));
+    }
+
+    @Override
+    public void delete(String orderId) {
+        redisTemplate.delete(key(orderId));
+    }
+
+    private static String key(String orderId) {
+        return OrderCacheConstant.ORDER_ACCEPTANCE_KEY + orderId;
+    }
+}
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
+import org.aibles.ecommerce.core_order_cache.model.ExpiredOrder;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
 import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -114,6 +117,106 @@ public class PendingOrderCacheRepositoryImpl implements PendingOrderCacheReposit
             "\n" +
             "return 1  -- Success\n";
 
+    /**
+     * Batched form of CHECK_AND_RESERVE_AVAILABLE_LUA_SCRIPT: one evaluation, one result per order.
+     * Args: keyPrefix, numOrders, then per order: numProducts, productIds..., quantities...
+     */
+    private static final String CHECK_AND_RESERVE_AVAILABLE_BATCH_LUA_SCRIPT =
+            "local keyPrefix = ARGV[1]\n" +
+            "local numOrders = tonumber(ARGV[2])\n" +
+            "local argOffset = 3\n" +
+            "local results = {}\n" +
+            "\n" +
+            "for o = 1, numOrders do\n" +
+            "    local numProducts = tonumber(ARGV[argOffset])\n" +
+            "    local ids = argOffset + 1\n" +
+            "    local quantities = ids + numProducts\n" +
+            "    argOffset = quantities + numProducts\n" +
+            "\n" +
+            "    -- Phase 1: check this order only against the counters as left by earlier orders\n" +
+            "    local ok = 1\n" +
+            "    for i = 0, numProducts - 1 do\n" +
+            "        local available = tonumber(redis.call('GET', keyPrefix .. ARGV[ids + i])) or 0\n" +
+            "        if available < tonumber(ARGV[quantities + i]) then\n" +
+            "            ok = 0\n" +
+            "            break\n" +
+            "        end\n" +
+            "    end\n" +
+            "\n" +
+            "    -- Phase 2: all-or-nothing per order\n" +
+            "    if ok == 1 then\n" +
+            "        for i = 0, numProducts - 1 do\n" +
+            "            redis.call('DECRBY', keyPrefix .. ARGV[ids + i], tonumber(ARGV[quantities + i]))\n" +
+            "        end\n" +
+            "    end\n" +
+            "    results[o] = ok\n" +
+            "end\n" +
+            "\n" +
+            "return results\n";
+
+    /**
+     * Claims due pending orders: pages through the ZSET by score with LIMIT and pushes each
+     * claimed member's score out to the claim deadline, all in one atomic evaluation.
+     * Args: zsetKey, currentTimestamp, limit, claimUntil
+     */
+    private static final String CLAIM_EXPIRED_ORDERS_LUA_SCRIPT =
+            "local due = redis.call('ZRANGEBYSCORE', ARGV[1], '-inf', ARGV[2], 'LIMIT', 0, tonumber(ARGV[3]))\n" +
+            "for i = 1, #due do\n" +
+            "    redis.call('ZADD', ARGV[1], 'XX', ARGV[4], due[i])\n" +
+            "end\n" +
+            "return due\n";
+
+    /**
+     * Releases a claimed expired order exactly once: only the caller whose ZREM removes the
+     * member gives the stock back, so a concurrent payment or cancel cannot double-release.
+     * Args: zsetKey, indexKey, member, indexField, keyPrefix, numProducts, productIds..., quantities...
+     */
+    private static final String RELEASE_EXPIRED_ORDER_LUA_SCRIPT =
+            "if redis.call('ZREM', ARGV[1], ARGV[3]) == 0 then\n" +
+            "    return 0  -- No longer pending, nothing to release\n" +
+            "end\n" +
+            "redis.call('HDEL', ARGV[2], ARGV[4])\n" +
+            "local numProducts = tonumber(ARGV[6])\n" +
+            "for i = 1, numProducts do\n" +
+            "    redis.call('INCRBY', ARGV[5] .. ARGV[6 + i], tonumber(ARGV[6 + numProducts + i]))\n" +
+            "end\n" +
+            "return 1\n";
+
+    /**
+     * Batched form of RELEASE_EXPIRED_ORDER_LUA_SCRIPT: one evaluation, one result per order.
+     * Args: zsetKey, indexKey, keyPrefix, numOrders, then per order:
+     * member, indexField, numProducts, productIds..., quantities...
+     */
+    private static final String RELEASE_PENDING_ORDERS_BATCH_LUA_SCRIPT =
+            "local zsetKey = ARGV[1]\n" +
+            "local indexKey = ARGV[2]\n" +
+            "local keyPrefix = ARGV[3]\n" +
+            "local numOrders = tonumber(ARGV[4])\n" +
+            "local argOffset = 5\n" +
+            "local results = {}\n" +
+            "\n" +
+            "for o = 1, numOrders do\n" +
+            "    local member = ARGV[argOffset]\n" +
+            "    local field = ARGV[argOffset + 1]\n" +
+            "    local numProducts = tonumber(ARGV[argOffset + 2])\n" +
+            "    local ids = argOffset + 3\n" +
+            "    local quantities = ids + numProducts\n" +
+            "    argOffset = quantities + numProducts\n" +
+            "\n" +
+            "    -- Only the caller whose ZREM removes the member gives the stock back\n" +
+            "    if redis.call('ZREM', zsetKey, member) == 1 then\n" +
+            "        redis.call('HDEL', indexKey, field)\n" +
+            "        for i = 0, numProducts - 1 do\n" +
+            "            redis.call('INCRBY', keyPrefix .. ARGV[ids + i], tonumber(ARGV[quantities + i]))\n" +
+            "        end\n" +
+            "        results[o] = 1\n" +
+            "    else\n" +
+            "        results[o] = 0\n" +
+            "    end\n" +
+            "end\n" +
+            "\n" +
+            "return results\n";
+
     public PendingOrderCacheRepositoryImpl(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
@@ -240,6 +343,72 @@ public class PendingOrderCacheRepositoryImpl implements PendingOrderCacheReposit
         }
     }
 
+    @Override
+    public List<Boolean> checkAndReserveAvailableBatch(String keyPrefix, List<Map<String, Long>> orders) {
+        log.info("(checkAndReserveAvailableBatch) Executing batched available check-and-reserve for {} orders with keyPrefix: {}",
+                orders.size(), keyPrefix);
+
+        List<Boolean> results = new ArrayList<>(Collections.nCopies(orders.size(), Boolean.FALSE));
+        List<Integer> submitted = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        args.add(keyPrefix);                                       // ARGV[1]
+        args.add(null);                                            // ARGV[2], filled in below
+
+        for (int o = 0; o < orders.size(); o++) {
+            Map<String, Long> productQuantities = orders.get(o);
+            if (productQuantities.isEmpty()) {
+                results.set(o, Boolean.TRUE);
+                continue;
+            }
+            boolean valid = productQuantities.values().stream().allMatch(quantity -> quantity != null && quantity > 0L);
+            if (!valid) {
+                log.error("(checkAndReserveAvailableBatch) Non-positive quantity in order #{} — rejecting it", o);
+                continue;
+            }
+            List<String> productIds = new ArrayList<>(productQuantities.keySet());
+            args.add(String.valueOf(productIds.size()));
+            args.addAll(productIds);
+            for (String productId : productIds) {
+                args.add(String.valueOf(productQuantities.get(productId)));
+            }
+            submitted.add(o);
+        }
+
+        if (submitted.isEmpty()) {
+            return results;
+        }
+        args.set(1, String.valueOf(submitted.size()));
+
+        try {
+            List<Object> replies = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                byte[][] argBytes = args.stream()
+                        .map(arg -> arg.getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new);
+
+                return connection.scriptingCommands().eval(
+                        CHECK_AND_RESERVE_AVAILABLE_BATCH_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                        ReturnType.MULTI,
+                        0,
+                        argBytes
+                );
+            });
+
+            if (replies == null || replies.size() != submitted.size()) {
+                log.error("(checkAndReserveAvailableBatch) Unexpected reply from Lua script: {}", replies);
+                return results;
+            }
+            for (int i = 0; i < submitted.size(); i++) {
+                Object reply = replies.get(i);
+                results.set(submitted.get(i), reply instanceof Number number && number.longValue() == 1L);
+            }
+            log.info("(checkAndReserveAvailableBatch) Reserved {} of {} orders", results.stream().filter(r -> r).count(), orders.size());
+            return results;
+        } catch (Exception e) {
+            log.error("(checkAndReserveAvailableBatch) Exception while executing Lua script", e);
+            return results;
+        }
+    }
+
     @Override
     public void addToPendingOrders(String orderId, double orderPrice, Map<String, Long> productQuantities, long expiryTimestampMillis) {
         log.info("(addToPendingOrders) Adding order {} to pending orders ZSET with price: {}, expiry: {}",
@@ -279,69 +448,211 @@ public class PendingOrderCacheRepositoryImpl implements PendingOrderCacheReposit
     }
 
     @Override
-    public Map<String, Map<String, Long>> getExpiredOrders(long currentTimestampMillis) {
-        log.info("(getExpiredOrders) Fetching expired orders with timestamp < {}", currentTimestampMillis);
+    public List<ExpiredOrder> claimExpiredOrders(long currentTimestampMillis, int limit, long claimUntilMillis) {
+        log.info("(claimExpiredOrders) Claiming up to {} orders with timestamp <= {}", limit, currentTimestampMillis);
+
+        List<byte[]> args = List.of(
+                bytes(OrderCacheConstant.PENDING_ORDERS_ZSET),    // ARGV[1]
+                bytes(String.valueOf(currentTimestampMillis)),    // ARGV[2]
+                bytes(String.valueOf(limit)),                     // ARGV[3]
+                bytes(String.valueOf(claimUntilMillis)));         // ARGV[4]
+
+        List<Object> members = redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+                connection.scriptingCommands().eval(
+                        CLAIM_EXPIRED_ORDERS_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                        ReturnType.MULTI,
+                        0,
+                        args.toArray(byte[][]::new)
+                ));
 
-        try {
-            // Get all ZSET members with score (expiry time) less than current time
-            Set<Object> expiredMembers = redisTemplate.opsForZSet().rangeByScore(
-                    OrderCacheConstant.PENDING_ORDERS_ZSET,
-                    0,
-                    currentTimestampMillis
-            );
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
 
-            if (expiredMembers == null || expiredMembers.isEmpty()) {
-                log.info("(getExpiredOrders) No expired orders found");
-                return Collections.emptyMap();
+        List<ExpiredOrder> claimed = new ArrayList<>(members.size());
+        for (Object raw : members) {
+            Object deserialized = redisTemplate.getValueSerializer().deserialize((byte[]) raw);
+            if (deserialized == null) {
+                continue;
             }
+            String member = deserialized.toString();
 
-            log.info("(getExpiredOrders) Found {} expired orders", expiredMembers.size());
+            // Parse member: orderId:jsonData
+            int separatorIndex = member.indexOf(':');
+            if (separatorIndex == -1) {
+                log.warn("(claimExpiredOrders) Invalid member format (missing separator): {}", member);
+                continue;
+            }
 
-            Map<String, Map<String, Long>> expiredOrders = new HashMap<>();
+            String orderId = member.substring(0, separatorIndex);
+            try {
+                claimed.add(new ExpiredOrder(orderId, member, parseProductQuantities(member.substring(separatorIndex + 1))));
+            } catch (JsonProcessingException e) {
+                // Still claimed, so still released: the order's metadata is dropped without stock changes.
+                log.error("(claimExpiredOrders) Failed to deserialize order data for order: {}", orderId, e);
+                claimed.add(new ExpiredOrder(orderId, member, Map.of()));
+            }
+        }
 
-            for (Object memberObj : expiredMembers) {
-                String member = memberObj.toString();
+        log.info("(claimExpiredOrders) Claimed {} expired orders", claimed.size());
+        return claimed;
+    }
 
-                // Parse member: orderId:jsonData
-                int separatorIndex = member.indexOf(':');
-                if (separatorIndex == -1) {
-                    log.warn("(getExpiredOrders) Invalid member format (missing separator): {}", member);
-                    continue;
-                }
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean releaseExpiredOrder(String keyPrefix, ExpiredOrder order) {
+        log.info("(releaseExpiredOrder) Releasing expired order {} with products: {}",
+                order.orderId(), order.productQuantities());
+
+        List<String> productIds = new ArrayList<>(order.productQuantities().keySet());
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(OrderCacheConstant.PENDING_ORDERS_ZSET));                     // ARGV[1]
+        args.add(bytes(OrderCacheConstant.PENDING_ORDERS_INDEX));                    // ARGV[2]
+        // Member and index field go over in the template's own encoding, as they were written
+        args.add(((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(order.member()));   // ARGV[3]
+        args.add(((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(order.orderId())); // ARGV[4]
+        args.add(bytes(keyPrefix));                                                   // ARGV[5]
+        args.add(bytes(String.valueOf(productIds.size())));                          // ARGV[6]
+        for (String productId : productIds) {
+            args.add(bytes(productId));
+        }
+        for (String productId : productIds) {
+            args.add(bytes(String.valueOf(order.productQuantities().get(productId))));
+        }
 
-                String orderId = member.substring(0, separatorIndex);
-                String orderDataJson = member.substring(separatorIndex + 1);
-
-                try {
-                    // Deserialize order data (contains price and products)
-                    Map<String, Object> orderData = objectMapper.readValue(
-                            orderDataJson,
-                            new TypeReference<Map<String, Object>>() {}
-                    );
-
-                    // Extract products from order data
-                    Object productsObj = orderData.get("products");
-                    if (productsObj instanceof Map<?, ?> rawMap) {
-                        Map<String, Long> productQuantities = new HashMap<>();
-                        for (Map.Entry<?, ?> entry : rawMap.entrySet()) {
-                            if (entry.getKey() instanceof String key && entry.getValue() instanceof Number value) {
-                                productQuantities.put(key, value.longValue());
-                            }
-                        }
-                        expiredOrders.put(orderId, productQuantities);
-                    } else {
-                        log.warn("(getExpiredOrders) Invalid products data for order: {}", orderId);
-                    }
-                } catch (JsonProcessingException e) {
-                    log.error("(getExpiredOrders) Failed to deserialize order data for order: {}", orderId, e);
-                }
+        Long result = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.scriptingCommands().eval(
+                        RELEASE_EXPIRED_ORDER_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                        ReturnType.INTEGER,
+                        0,
+                        args.toArray(byte[][]::new)
+                ));
+
+        boolean released = result != null && result == 1L;
+        if (!released) {
+            log.info("(releaseExpiredOrder) Order {} is no longer pending, nothing released", order.orderId());
+        }
+        return released;
+    }
+
+    @Override
+    public Set<String> findPendingOrders(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Set.of();
+        }
+        List<String> ids = new ArrayList<>(orderIds);
+        List<Object> members = redisTemplate.opsForHash().multiGet(
+                OrderCacheConstant.PENDING_ORDERS_INDEX, new ArrayList<>(ids));
+        Set<String> pending = new LinkedHashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i < members.size() && members.get(i) != null) {
+                pending.add(ids.get(i));
             }
+        }
+        log.info("(findPendingOrders) {} of {} orders are still pending", pending.size(), ids.size());
+        return pending;
+    }
 
-            return expiredOrders;
-        } catch (Exception e) {
-            log.error("(getExpiredOrders) Exception while fetching expired orders", e);
-            return Collections.emptyMap();
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> releasePendingOrders(String keyPrefix, Collection<String> orderIds) {
+        log.info("(releasePendingOrders) Releasing {} pending orders with keyPrefix: {}", orderIds.size(), keyPrefix);
+
+        if (orderIds.isEmpty()) {
+            return Set.of();
+        }
+
+        // One HMGET for every order's ZSET member instead of one HGET per order
+        List<String> ids = new ArrayList<>(orderIds);
+        List<Object> members = redisTemplate.opsForHash().multiGet(
+                OrderCacheConstant.PENDING_ORDERS_INDEX, new ArrayList<>(ids));
+
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        RedisSerializer<Object> hashKeySerializer = (RedisSerializer<Object>) redisTemplate.getHashKeySerializer();
+        List<String> submitted = new ArrayList<>();
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(OrderCacheConstant.PENDING_ORDERS_ZSET));     // ARGV[1]
+        args.add(bytes(OrderCacheConstant.PENDING_ORDERS_INDEX));    // ARGV[2]
+        args.add(bytes(keyPrefix));                                  // ARGV[3]
+        args.add(null);                                              // ARGV[4], filled in below
+
+        for (int i = 0; i < ids.size(); i++) {
+            String orderId = ids.get(i);
+            Object memberObj = i < members.size() ? members.get(i) : null;
+            if (memberObj == null) {
+                log.warn("(releasePendingOrders) Order ID: {} is invalid or expired", orderId);
+                continue;
+            }
+            String member = memberObj.toString();
+            int separatorIndex = member.indexOf(':');
+            Map<String, Long> productQuantities;
+            try {
+                productQuantities = separatorIndex == -1 ? Map.of() : parseProductQuantities(member.substring(separatorIndex + 1));
+            } catch (JsonProcessingException e) {
+                log.error("(releasePendingOrders) Failed to deserialize order data for order: {}", orderId, e);
+                continue;
+            }
+            if (productQuantities.isEmpty()) {
+                log.warn("(releasePendingOrders) Order ID: {} has no products to release", orderId);
+                continue;
+            }
+
+            List<String> productIds = new ArrayList<>(productQuantities.keySet());
+            args.add(valueSerializer.serialize(member));
+            args.add(hashKeySerializer.serialize(orderId));
+            args.add(bytes(String.valueOf(productIds.size())));
+            for (String productId : productIds) {
+                args.add(bytes(productId));
+            }
+            for (String productId : productIds) {
+                args.add(bytes(String.valueOf(productQuantities.get(productId))));
+            }
+            submitted.add(orderId);
+        }
+
+        if (submitted.isEmpty()) {
+            return Set.of();
+        }
+        args.set(3, bytes(String.valueOf(submitted.size())));
+
+        List<Object> replies = redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+                connection.scriptingCommands().eval(
+                        RELEASE_PENDING_ORDERS_BATCH_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                        ReturnType.MULTI,
+                        0,
+                        args.toArray(byte[][]::new)
+                ));
+
+        if (replies == null || replies.size() != submitted.size()) {
+            log.error("(releasePendingOrders) Unexpected reply from Lua script: {}", replies);
+            return Set.of();
+        }
+        Set<String> released = new LinkedHashSet<>();
+        for (int i = 0; i < submitted.size(); i++) {
+            if (replies.get(i) instanceof Number number && number.longValue() == 1L) {
+                released.add(submitted.get(i));
+            }
         }
+        log.info("(releasePendingOrders) Released {} of {} orders", released.size(), orderIds.size());
+        return released;
+    }
+
+    @Override
+    public long countExpiredOrders(long currentTimestampMillis) {
+        Long count = redisTemplate.opsForZSet().count(
+                OrderCacheConstant.PENDING_ORDERS_ZSET, Double.NEGATIVE_INFINITY, currentTimestampMillis);
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public Optional<Long> getEarliestExpiry() {
+        Set<ZSetOperations.TypedTuple<Object>> earliest =
+                redisTemplate.opsForZSet().rangeWithScores(OrderCacheConstant.PENDING_ORDERS_ZSET, 0, 0);
+        if (earliest == null || earliest.isEmpty()) {
+            return Optional.empty();
+        }
+        Double score = earliest.iterator().next().getScore();
+        return Optional.ofNullable(score).map(Double::longValue);
     }
 
     @Override
@@ -476,4 +787,24 @@ public class PendingOrderCacheRepositoryImpl implements PendingOrderCacheReposit
             return Optional.empty();
         }
     }
+
+    private Map<String, Long> parseProductQuantities(String orderDataJson) throws JsonProcessingException {
+        Map<String, Object> orderData = objectMapper.readValue(
+                orderDataJson,
+                new TypeReference<Map<String, Object>>() {}
+        );
+        Map<String, Long> productQuantities = new HashMap<>();
+        if (orderData.get("products") instanceof Map<?, ?> rawMap) {
+            for (Map.Entry<?, ?> entry : rawMap.entrySet()) {
+                if (entry.getKey() instanceof String key && entry.getValue() instanceof Number value) {
+                    productQuantities.put(key, value.longValue());
+                }
+            }
+        }
+        return productQuantities;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
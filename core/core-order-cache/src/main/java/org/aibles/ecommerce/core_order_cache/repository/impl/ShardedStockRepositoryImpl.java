@@ -0,0 +1,405 @@
+package org.aibles.ecommerce.core_order_cache.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Every script here touches exactly one key and the shard keys carry no hash tag, so on a
+ * Redis Cluster the shards of a hot product land on different nodes. The price is that a
+ * multi-shard reservation is not atomic: it is a sequence of single-key takes, compensated by
+ * giving the taken amounts back when the product (or another product in the order) falls short.
+ *
+ * Operations only ever move amounts they actually took, so the sum of a product's counters is
+ * conserved across concurrent reservations, releases, rebalances and mode switches.
+ */
+@Slf4j
+public class ShardedStockRepositoryImpl implements ShardedStockRepository {
+
+    /**
+     * Takes up to ARGV[1] units from a counter and returns how many it got (0 when empty or in
+     * deficit). Never drives the counter below zero.
+     */
+    private static final String TAKE_LUA_SCRIPT =
+            "local available = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "if available <= 0 then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "local taken = math.min(available, tonumber(ARGV[1]))\n" +
+            "redis.call('DECRBY', KEYS[1], taken)\n" +
+            "return taken";
+
+    /** Removes a counter and returns what it held, deficit included. */
+    private static final String DRAIN_LUA_SCRIPT =
+            "return tonumber(redis.call('GETDEL', KEYS[1]) or '0')";
+
+    private static final int REGISTER_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long registryRefreshMillis;
+
+    private volatile Map<String, Integer> registry = Collections.emptyMap();
+    private volatile long registryLoadedAt;
+
+    public ShardedStockRepositoryImpl(RedisTemplate<String, Object> redisTemplate, Duration registryRefresh) {
+        this.redisTemplate = redisTemplate;
+        this.registryRefreshMillis = registryRefresh.toMillis();
+    }
+
+    @Override
+    public Map<String, Integer> shardedProducts() {
+        long now = System.currentTimeMillis();
+        if (now - registryLoadedAt >= registryRefreshMillis) {
+            try {
+                registry = loadRegistry();
+            } catch (Exception e) {
+                // Keep the previous view; a stale registry costs false negatives, not oversells.
+                log.error("(shardedProducts) Failed to refresh sharded product registry, error: {}", e.getMessage());
+            }
+            registryLoadedAt = now;
+        }
+        return registry;
+    }
+
+    @Override
+    public boolean reserve(Map<String, Long> productQuantities) {
+        log.info("(reserve) Reserving {} sharded products", productQuantities.size());
+        for (Map.Entry<String, Long> entry : productQuantities.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0L) {
+                log.error("(reserve) Non-positive quantity for product {} — rejecting reservation", entry.getKey());
+                return false;
+            }
+        }
+
+        Map<String, Integer> shardCounts = shardedProducts();
+        Map<String, Long> taken = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Long> entry : productQuantities.entrySet()) {
+                String productId = entry.getKey();
+                long remaining = entry.getValue();
+                int shards = shardCounts.getOrDefault(productId, 0);
+                if (shards > 0 && read(baseKey(productId)) < 0) {
+                    // More stock was removed than the product had; whatever sits on the shards
+                    // belongs to the deficit until the rebalancer settles it.
+                    log.warn("(reserve) Product {} is in deficit, rejecting reservation", productId);
+                    giveBack(taken);
+                    return false;
+                }
+                int start = shards > 0 ? ThreadLocalRandom.current().nextInt(shards) : 0;
+
+                for (int i = 0; i < shards && remaining > 0; i++) {
+                    String key = shardKey(productId, (start + i) % shards);
+                    long got = take(key, remaining);
+                    if (got > 0) {
+                        taken.merge(key, got, Long::sum);
+                        remaining -= got;
+                        if (i > 0) {
+                            log.debug("(reserve) Stole {} of product {} from shard {}", got, productId, (start + i) % shards);
+                        }
+                    }
+                }
+                if (remaining > 0) {
+                    String key = baseKey(productId);
+                    long got = take(key, remaining);
+                    if (got > 0) {
+                        taken.merge(key, got, Long::sum);
+                        remaining -= got;
+                    }
+                }
+                if (remaining > 0) {
+                    log.warn("(reserve) Insufficient available stock for product {}, short by {}", productId, remaining);
+                    giveBack(taken);
+                    return false;
+                }
+            }
+        } catch (Exception e) {
+            log.error("(reserve) Exception while reserving sharded stock", e);
+            giveBack(taken);
+            return false;
+        }
+        log.info("(reserve) Successfully reserved sharded products: {}", productQuantities.keySet());
+        return true;
+    }
+
+    @Override
+    public void adjust(String productId, long delta) {
+        log.info("(adjust) Adjusting available stock of product {} by {}", productId, delta);
+        Integer shards = loadRegistry().get(productId);
+        if (delta >= 0 || shards == null) {
+            if (delta != 0) {
+                give(baseKey(productId), delta);
+            }
+            return;
+        }
+
+        long remaining = -delta;
+        remaining -= take(baseKey(productId), remaining);
+        for (int i = 0; i < shards && remaining > 0; i++) {
+            remaining -= take(shardKey(productId, i), remaining);
+        }
+        if (remaining > 0) {
+            // Removed more than the product holds: record the deficit so reservations stay
+            // blocked and later additions pay it off first.
+            give(baseKey(productId), -remaining);
+            log.warn("(adjust) Product {} is short by {} after the adjustment", productId, remaining);
+        }
+    }
+
+    @Override
+    public void enable(String productId, int shards) {
+        if (shards < 2 || shards > OrderCacheConstant.MAX_SHARDS) {
+            throw new IllegalArgumentException("shards must be between 2 and " + OrderCacheConstant.MAX_SHARDS);
+        }
+        log.info("(enable) Switching product {} to {} shards", productId, shards);
+        execute(connection -> connection.hashCommands().hSet(
+                bytes(OrderCacheConstant.SHARDED_PRODUCTS_HASH), bytes(productId), bytes(String.valueOf(shards))));
+        registryLoadedAt = 0;
+        redistribute(productId, shards, true);
+    }
+
+    @Override
+    public void disable(String productId) {
+        log.info("(disable) Switching product {} back to a single counter", productId);
+        execute(connection -> connection.hashCommands().hDel(
+                bytes(OrderCacheConstant.SHARDED_PRODUCTS_HASH), bytes(productId)));
+        registryLoadedAt = 0;
+
+        // Late releases from reservers with a stale registry still land on the base key, and
+        // late give-backs onto a drained shard are picked up by the next reseed.
+        long drained = 0;
+        for (int i = 0; i < OrderCacheConstant.MAX_SHARDS; i++) {
+            drained += drain(shardKey(productId, i));
+        }
+        if (drained != 0) {
+            give(baseKey(productId), drained);
+        }
+        log.info("(disable) Moved {} units of product {} back to the base counter", drained, productId);
+    }
+
+    @Override
+    public void rebalance(String productId) {
+        Integer shards = loadRegistry().get(productId);
+        if (shards == null) {
+            log.debug("(rebalance) Product {} is not sharded, nothing to rebalance", productId);
+            return;
+        }
+        redistribute(productId, shards, false);
+    }
+
+    @Override
+    public void reseed(String productId, long stock) {
+        Integer shards = loadRegistry().get(productId);
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(bytes(baseKey(productId)));
+        // Shard keys go too when the product is not sharded, in case a give-back landed on a
+        // shard after the product was switched off.
+        for (int i = 0; i < OrderCacheConstant.MAX_SHARDS; i++) {
+            keys.add(bytes(shardKey(productId, i)));
+        }
+        execute(connection -> connection.keyCommands().del(keys.toArray(new byte[0][])));
+
+        long available = Math.max(0L, stock);
+        if (available == 0) {
+            return;
+        }
+        if (shards == null) {
+            give(baseKey(productId), available);
+            return;
+        }
+        for (int i = 0; i < shards; i++) {
+            long share = share(available, shards, i);
+            if (share > 0) {
+                give(shardKey(productId, i), share);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> counters(String productId) {
+        Integer shards = loadRegistry().get(productId);
+        int n = shards != null ? shards : 0;
+        byte[][] keys = new byte[n + 1][];
+        for (int i = 0; i < n; i++) {
+            keys[i] = bytes(shardKey(productId, i));
+        }
+        keys[n] = bytes(baseKey(productId));
+
+        List<byte[]> values = execute(connection -> connection.stringCommands().mGet(keys));
+        List<Long> counters = new ArrayList<>(n + 1);
+        for (int i = 0; i <= n; i++) {
+            byte[] value = values != null && i < values.size() ? values.get(i) : null;
+            counters.add(value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0L);
+        }
+        return counters;
+    }
+
+    /**
+     * Moves stock so every shard holds its even share of the product's total. Only the excess
+     * above a shard's share is taken, so shards are never zeroed while they hold their share.
+     * With {@code sweepStale}, shards beyond {@code shards} (left over from a larger count) are
+     * drained into the pool as well.
+     */
+    private void redistribute(String productId, int shards, boolean sweepStale) {
+        List<Long> values = new ArrayList<>(shards);
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            long value = read(shardKey(productId, i));
+            values.add(value);
+            total += value;
+        }
+
+        long pool = 0;
+        if (sweepStale) {
+            for (int i = shards; i < OrderCacheConstant.MAX_SHARDS; i++) {
+                long drained = drain(shardKey(productId, i));
+                pool += drained;
+                total += drained;
+            }
+        }
+
+        String base = baseKey(productId);
+        long baseValue = read(base);
+        total += baseValue;
+        if (baseValue > 0) {
+            pool += take(base, baseValue);
+        }
+
+        long target = Math.max(0L, total);
+        for (int i = 0; i < shards; i++) {
+            long excess = values.get(i) - share(target, shards, i);
+            if (excess > 0) {
+                pool += take(shardKey(productId, i), excess);
+            }
+        }
+
+        // A deficit on the base key (an admin removed more than the product held, and
+        // give-backs have landed on the shards since) is settled from the pool before
+        // anything is handed out.
+        if (baseValue < 0 && pool > 0) {
+            long settle = Math.min(pool, -baseValue);
+            give(base, settle);
+            pool -= settle;
+        }
+
+        for (int i = 0; i < shards && pool > 0; i++) {
+            long missing = share(target, shards, i) - values.get(i);
+            if (missing > 0) {
+                long amount = Math.min(pool, missing);
+                give(shardKey(productId, i), amount);
+                pool -= amount;
+            }
+        }
+        // Whatever is left was reserved away from an over-share shard between the read and the
+        // take; the base key is always a valid home for it.
+        if (pool != 0) {
+            give(base, pool);
+        }
+        log.info("(redistribute) Product {} rebalanced over {} shards, total: {}", productId, shards, total);
+    }
+
+    private Map<String, Integer> loadRegistry() {
+        Map<byte[], byte[]> entries = execute(connection ->
+                connection.hashCommands().hGetAll(bytes(OrderCacheConstant.SHARDED_PRODUCTS_HASH)));
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> loaded = new HashMap<>();
+        entries.forEach((field, value) -> loaded.put(
+                new String(field, StandardCharsets.UTF_8),
+                Integer.parseInt(new String(value, StandardCharsets.UTF_8))));
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    private void giveBack(Map<String, Long> taken) {
+        for (Map.Entry<String, Long> entry : taken.entrySet()) {
+            try {
+                give(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                // Lost units are restored by the next reseed from the DB.
+                log.error("(giveBack) Failed to return {} units to {}, error: {}",
+                        entry.getValue(), entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private long take(String key, long quantity) {
+        Long taken = execute(connection -> connection.scriptingCommands().eval(
+                TAKE_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                ReturnType.INTEGER,
+                1,
+                bytes(key),
+                bytes(String.valueOf(quantity))));
+        return taken != null ? taken : 0L;
+    }
+
+    private long drain(String key) {
+        Long drained = execute(connection -> connection.scriptingCommands().eval(
+                DRAIN_LUA_SCRIPT.getBytes(StandardCharsets.UTF_8),
+                ReturnType.INTEGER,
+                1,
+                bytes(key)));
+        return drained != null ? drained : 0L;
+    }
+
+    private void give(String key, long quantity) {
+        execute(connection -> connection.stringCommands().incrBy(bytes(key), quantity));
+    }
+
+    @Override
+    public void register(Collection<String> productIds) {
+        List<String> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += REGISTER_BATCH_SIZE) {
+            byte[][] members = ids.subList(from, Math.min(ids.size(), from + REGISTER_BATCH_SIZE)).stream()
+                    .map(ShardedStockRepositoryImpl::bytes)
+                    .toArray(byte[][]::new);
+            execute(connection -> connection.setCommands().sAdd(bytes(OrderCacheConstant.STOCKED_PRODUCTS_SET), members));
+        }
+    }
+
+    @Override
+    public Set<String> productIds() {
+        Set<byte[]> members = execute(connection ->
+                connection.setCommands().sMembers(bytes(OrderCacheConstant.STOCKED_PRODUCTS_SET)));
+        Set<String> productIds = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> productIds.add(new String(member, StandardCharsets.UTF_8)));
+        }
+        log.info("(productIds) Found {} products with stock counters", productIds.size());
+        return productIds;
+    }
+
+    private long read(String key) {
+        byte[] value = execute(connection -> connection.stringCommands().get(bytes(key)));
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0L;
+    }
+
+    private <T> T execute(RedisCallback<T> callback) {
+        return redisTemplate.execute(callback);
+    }
+
+    /** Even split of {@code total} over {@code shards}, the remainder going to the first shards. */
+    private static long share(long total, int shards, int index) {
+        return total / shards + (index < total % shards ? 1 : 0);
+    }
+
+    private static String baseKey(String productId) {
+        return RedisConstant.AVAILABLE_PRODUCT_KEY + productId;
+    }
+
+    static String shardKey(String productId, int index) {
+        return RedisConstant.AVAILABLE_PRODUCT_KEY + productId + OrderCacheConstant.SHARD_KEY_INFIX + index;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -157,6 +158,52 @@ class CheckAndReserveAvailableAtomicTest {
         verify(redisTemplate, never()).execute(any(RedisCallback.class));
     }
 
+    @Test
+    void batch_mapsPerOrderRepliesBackAndSkipsInvalidOrders() {
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.MULTI), eq(0), any(byte[][].class)))
+                .thenReturn(List.of(1L, 0L));
+
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisCallback<?> cb = inv.getArgument(0);
+            return cb.doInRedis(connection);
+        });
+
+        List<Boolean> results = repo.checkAndReserveAvailableBatch("productAvailable:", List.of(
+                Map.of("prod-A", 2L),
+                Map.of("prod-A", 0L),
+                Map.of("prod-B", 5L)));
+
+        assertThat(results).containsExactly(true, false, false);
+
+        org.mockito.ArgumentCaptor<byte[][]> argsCaptor =
+                org.mockito.ArgumentCaptor.forClass(byte[][].class);
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.MULTI), eq(0), argsCaptor.capture());
+
+        byte[][] argBytes = argsCaptor.getValue();
+        assertThat(argBytes).hasSize(8);
+        assertThat(new String(argBytes[1])).isEqualTo("2");
+        assertThat(new String(argBytes[2])).isEqualTo("1");
+        assertThat(new String(argBytes[3])).isEqualTo("prod-A");
+        assertThat(new String(argBytes[4])).isEqualTo("2");
+        assertThat(new String(argBytes[6])).isEqualTo("prod-B");
+        assertThat(new String(argBytes[7])).isEqualTo("5");
+    }
+
+    @Test
+    void batch_redisThrowsException_rejectsEveryOrder() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenThrow(new RuntimeException("Redis connection refused"));
+
+        List<Boolean> results = repo.checkAndReserveAvailableBatch("productAvailable:",
+                List.of(Map.of("prod-1", 1L), Map.of("prod-2", 1L)));
+
+        assertThat(results).containsExactly(false, false);
+    }
+
     private String captureScript() {
         try {
             java.lang.reflect.Field f = PendingOrderCacheRepositoryImpl.class
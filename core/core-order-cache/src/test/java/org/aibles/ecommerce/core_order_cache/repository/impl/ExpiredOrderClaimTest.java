@@ -0,0 +1,74 @@
+package org.aibles.ecommerce.core_order_cache.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aibles.ecommerce.core_order_cache.model.ExpiredOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExpiredOrderClaimTest {
+
+    private final GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+    private RedisScriptingCommands scriptingCommands;
+    private PendingOrderCacheRepositoryImpl repo;
+
+    @BeforeEach
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        scriptingCommands = mock(RedisScriptingCommands.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisCallback<?> cb = inv.getArgument(0);
+            return cb.doInRedis(connection);
+        });
+        doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getHashKeySerializer();
+        repo = new PendingOrderCacheRepositoryImpl(redisTemplate, new ObjectMapper());
+    }
+
+    @Test
+    void claimExpiredOrders_decodesMembersStoredByAddToPendingOrders() {
+        byte[] member = valueSerializer.serialize("order-1:{\"price\":10.0,\"products\":{\"prod-1\":3}}");
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.MULTI), eq(0), any(byte[][].class)))
+                .thenReturn(List.of(member));
+
+        List<ExpiredOrder> claimed = repo.claimExpiredOrders(1_000L, 50, 61_000L);
+
+        assertThat(claimed).singleElement().satisfies(order -> {
+            assertThat(order.orderId()).isEqualTo("order-1");
+            assertThat(order.productQuantities()).isEqualTo(Map.of("prod-1", 3L));
+        });
+    }
+
+    @Test
+    void releaseExpiredOrder_sendsMemberInTemplateEncodingAndReportsOutcome() {
+        ExpiredOrder order = new ExpiredOrder("order-1", "order-1:{}", Map.of("prod-1", 3L));
+        List<byte[]> sentMembers = new ArrayList<>();
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(0), any(byte[][].class)))
+                .thenAnswer(inv -> {
+                    // Mockito hands varargs over expanded: script, return type, numKeys, then ARGV[1..]
+                    sentMembers.add(inv.getArgument(5));
+                    return sentMembers.size() == 1 ? 1L : 0L;
+                });
+
+        assertThat(repo.releaseExpiredOrder("productAvailable:", order)).isTrue();
+        assertThat(repo.releaseExpiredOrder("productAvailable:", order)).isFalse();
+        assertThat(sentMembers).allSatisfy(member ->
+                assertThat(member).isEqualTo(valueSerializer.serialize("order-1:{}")));
+    }
+}
@@ -0,0 +1,268 @@
+package org.aibles.ecommerce.core_order_cache.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the repository against an in-memory stand-in for the handful of Redis commands it uses,
+ * so the stealing, compensation and conservation logic is exercised end to end.
+ */
+class ShardedStockRepositoryImplTest {
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Map<String, String> registry = new HashMap<>();
+    private final Set<String> stocked = new HashSet<>();
+    private ShardedStockRepositoryImpl repo;
+
+    @BeforeEach
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisScriptingCommands scripting = mock(RedisScriptingCommands.class);
+        RedisStringCommands strings = mock(RedisStringCommands.class);
+        RedisHashCommands hashes = mock(RedisHashCommands.class);
+        RedisKeyCommands keys = mock(RedisKeyCommands.class);
+        RedisSetCommands sets = mock(RedisSetCommands.class);
+        when(connection.setCommands()).thenReturn(sets);
+        when(connection.scriptingCommands()).thenReturn(scripting);
+        when(connection.stringCommands()).thenReturn(strings);
+        when(connection.hashCommands()).thenReturn(hashes);
+        when(connection.keyCommands()).thenReturn(keys);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisCallback<?> cb = inv.getArgument(0);
+            return cb.doInRedis(connection);
+        });
+
+        when(scripting.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[][].class))).thenAnswer(inv -> {
+            String script = str(inv.getArgument(0));
+            byte[][] keysAndArgs = varargs(inv, 3);
+            String key = str(keysAndArgs[0]);
+            long value = counters.getOrDefault(key, 0L);
+            if (script.contains("GETDEL")) {
+                counters.remove(key);
+                return value;
+            }
+            long taken = value <= 0 ? 0 : Math.min(value, Long.parseLong(str(keysAndArgs[1])));
+            counters.put(key, value - taken);
+            return taken;
+        });
+        when(strings.incrBy(any(byte[].class), anyLong())).thenAnswer(inv ->
+                counters.merge(str(inv.getArgument(0)), inv.getArgument(1), Long::sum));
+        when(strings.get(any(byte[].class))).thenAnswer(inv -> {
+            Long value = counters.get(str(inv.getArgument(0)));
+            return value != null ? bytes(String.valueOf(value)) : null;
+        });
+        when(strings.mGet(any(byte[][].class))).thenAnswer(inv -> {
+            List<byte[]> values = new ArrayList<>();
+            for (byte[] key : varargs(inv, 0)) {
+                Long value = counters.get(str(key));
+                values.add(value != null ? bytes(String.valueOf(value)) : null);
+            }
+            return values;
+        });
+        when(keys.del(any(byte[][].class))).thenAnswer(inv -> {
+            long removed = 0;
+            for (byte[] key : varargs(inv, 0)) {
+                removed += counters.remove(str(key)) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        when(hashes.hGetAll(any(byte[].class))).thenAnswer(inv -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            registry.forEach((field, value) -> entries.put(bytes(field), bytes(value)));
+            return entries;
+        });
+        when(hashes.hSet(any(byte[].class), any(byte[].class), any(byte[].class))).thenAnswer(inv ->
+                registry.put(str(inv.getArgument(1)), str(inv.getArgument(2))) == null);
+        when(hashes.hDel(any(byte[].class), any(byte[][].class))).thenAnswer(inv -> {
+            for (byte[] field : varargs(inv, 1)) {
+                registry.remove(str(field));
+            }
+            return 1L;
+        });
+
+        when(sets.sAdd(any(byte[].class), any(byte[][].class))).thenAnswer(inv -> {
+            long added = 0;
+            for (byte[] member : varargs(inv, 1)) {
+                added += stocked.add(str(member)) ? 1 : 0;
+            }
+            return added;
+        });
+        when(sets.sMembers(any(byte[].class))).thenAnswer(inv -> {
+            Set<byte[]> members = new HashSet<>();
+            stocked.forEach(member -> members.add(bytes(member)));
+            return members;
+        });
+
+        repo = new ShardedStockRepositoryImpl(redisTemplate, Duration.ZERO);
+    }
+
+    @Test
+    void enable_spreadsBaseStockEvenlyOverShards() {
+        counters.put("productAvailable:p1", 10L);
+
+        repo.enable("p1", 4);
+
+        assertThat(repo.shardedProducts()).containsEntry("p1", 4);
+        assertThat(repo.counters("p1")).containsExactly(3L, 3L, 2L, 2L, 0L);
+    }
+
+    @Test
+    void reserve_stealsFromOtherShardsAndTheBaseCounter() {
+        registry.put("p1", "3");
+        counters.put("productAvailable:p1:shard:0", 1L);
+        counters.put("productAvailable:p1:shard:1", 1L);
+        counters.put("productAvailable:p1:shard:2", 1L);
+        counters.put("productAvailable:p1", 2L);
+
+        boolean reserved = repo.reserve(Map.of("p1", 5L));
+
+        assertThat(reserved).isTrue();
+        assertThat(repo.counters("p1")).containsOnly(0L);
+    }
+
+    @Test
+    void reserve_givesEverythingBackWhenAnyProductIsShort() {
+        registry.put("p1", "2");
+        registry.put("p2", "2");
+        counters.put("productAvailable:p1:shard:0", 5L);
+        counters.put("productAvailable:p1:shard:1", 5L);
+        counters.put("productAvailable:p2:shard:0", 1L);
+
+        Map<String, Long> order = new LinkedHashMap<>();
+        order.put("p1", 8L);
+        order.put("p2", 2L);
+        boolean reserved = repo.reserve(order);
+
+        assertThat(reserved).isFalse();
+        assertThat(total("p1")).isEqualTo(10L);
+        assertThat(total("p2")).isEqualTo(1L);
+    }
+
+    @Test
+    void rebalance_foldsReleasesAndSettlesBaseDeficit() {
+        registry.put("p1", "2");
+        counters.put("productAvailable:p1:shard:0", 9L);
+        counters.put("productAvailable:p1:shard:1", 0L);
+        counters.put("productAvailable:p1", -3L);
+
+        repo.rebalance("p1");
+
+        assertThat(repo.counters("p1")).containsExactly(3L, 3L, 0L);
+    }
+
+    @Test
+    void disable_drainsShardsBackIntoBase() {
+        registry.put("p1", "2");
+        counters.put("productAvailable:p1:shard:0", 4L);
+        counters.put("productAvailable:p1:shard:1", 3L);
+        counters.put("productAvailable:p1", 1L);
+
+        repo.disable("p1");
+
+        assertThat(repo.shardedProducts()).doesNotContainKey("p1");
+        assertThat(repo.counters("p1")).containsExactly(8L);
+    }
+
+    @Test
+    void reseed_resetsShardsFromStock() {
+        registry.put("p1", "3");
+        counters.put("productAvailable:p1:shard:0", 40L);
+        counters.put("productAvailable:p1", 7L);
+
+        repo.reseed("p1", 10L);
+
+        assertThat(repo.counters("p1")).containsExactly(4L, 3L, 3L, 0L);
+    }
+
+    @Test
+    void adjust_removalTakesFromTheShardsWhereTheStockSits() {
+        registry.put("p1", "2");
+        counters.put("productAvailable:p1:shard:0", 4L);
+        counters.put("productAvailable:p1:shard:1", 4L);
+        counters.put("productAvailable:p1", 1L);
+
+        repo.adjust("p1", -6L);
+
+        assertThat(total("p1")).isEqualTo(3L);
+        assertThat(repo.counters("p1").get(2)).isZero();
+    }
+
+    @Test
+    void adjust_removingMoreThanHeldLeavesDeficitThatBlocksReservations() {
+        registry.put("p1", "2");
+        counters.put("productAvailable:p1:shard:0", 2L);
+        counters.put("productAvailable:p1:shard:1", 1L);
+
+        repo.adjust("p1", -5L);
+        // A give-back from an in-flight reservation lands on a shard while the deficit stands.
+        counters.put("productAvailable:p1:shard:0", 1L);
+
+        assertThat(repo.counters("p1")).containsExactly(1L, 0L, -2L);
+        assertThat(repo.reserve(Map.of("p1", 1L))).isFalse();
+        assertThat(total("p1")).isEqualTo(-1L);
+    }
+
+    @Test
+    void adjust_plainProductMovesTheBaseCounterOnly() {
+        counters.put("productAvailable:p1", 2L);
+
+        repo.adjust("p1", -5L);
+        repo.adjust("p1", 4L);
+
+        assertThat(repo.counters("p1")).containsExactly(1L);
+    }
+
+    @Test
+    void productIds_returnsRegisteredProducts() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            ids.add("p" + i);
+        }
+
+        repo.register(ids);
+        repo.register(List.of("p0"));
+
+        assertThat(repo.productIds()).hasSize(1500).contains("p0", "p1499");
+    }
+
+    private long total(String productId) {
+        return repo.counters(productId).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Mockito hands varargs over expanded, one argument per element. */
+    private static byte[][] varargs(InvocationOnMock inv, int from) {
+        Object[] args = inv.getArguments();
+        byte[][] values = new byte[args.length - from][];
+        for (int i = from; i < args.length; i++) {
+            values[i - from] = (byte[]) args[i];
+        }
+        return values;
+    }
+
+    private static String str(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
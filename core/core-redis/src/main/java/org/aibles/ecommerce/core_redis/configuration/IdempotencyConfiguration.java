@@ -0,0 +1,25 @@
+package org.aibles.ecommerce.core_redis.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aibles.ecommerce.core_redis.idempotency.IdempotencyService;
+import org.aibles.ecommerce.core_redis.idempotency.impl.IdempotencyServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfiguration {
+
+    @Bean
+    public IdempotencyService idempotencyService(
+            StringRedisTemplate stringRedisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${application.idempotency.ttl:24h}") Duration ttl,
+            @Value("${application.idempotency.lease:60s}") Duration lease,
+            @Value("${application.idempotency.wait-timeout:15s}") Duration waitTimeout) {
+        return new IdempotencyServiceImpl(stringRedisTemplate, objectMapper, ttl, lease, waitTimeout);
+    }
+}
@@ -9,4 +9,6 @@ public class RedisConstant {
     public static final String LOCK_QUEUE_PRODUCT_KEY = "lock:productQueue:";
 
     public static final String AVAILABLE_PRODUCT_KEY = "productAvailable:";
+
+    public static final String IDEMPOTENCY_KEY = "idempotency:";
 }
@@ -0,0 +1,38 @@
+package org.aibles.ecommerce.core_redis.idempotency;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs a non-idempotent request (order creation, payment) at most once per client-supplied
+ * {@code Idempotency-Key}. The first request with a key executes; retries with the same key
+ * and the same payload get the stored response back, and concurrent duplicates wait for the
+ * in-flight one to finish instead of executing again.
+ */
+public interface IdempotencyService {
+
+    /** Name of the request header carrying the client's idempotency key. */
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * @param scope        namespace of the key, e.g. "orders:{userId}", so keys never collide
+     *                     across endpoints or callers
+     * @param key          client-supplied key; null or blank runs {@code action} unguarded
+     * @param fingerprint  digest of the request payload, see {@link #fingerprint}; reusing a
+     *                     key with a different fingerprint is rejected
+     * @param responseType type to read a stored response back as
+     * @param replayable   whether a response may be stored and replayed; responses it rejects
+     *                     (and exceptions) clear the key so a retry executes again
+     * @param action       the request itself
+     * @return the response of the execution that ran for this key
+     */
+    <T> T execute(String scope, String key, String fingerprint, Class<T> responseType,
+                  Predicate<T> replayable, Supplier<T> action);
+
+    default <T> T execute(String scope, String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        return execute(scope, key, fingerprint, responseType, response -> true, action);
+    }
+
+    /** SHA-256 over the JSON form of {@code parts}. */
+    String fingerprint(Object... parts);
+}
@@ -0,0 +1,259 @@
+package org.aibles.ecommerce.core_redis.idempotency.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.exception.BadRequestException;
+import org.aibles.ecommerce.common_dto.exception.IdempotencyKeyReusedException;
+import org.aibles.ecommerce.common_dto.exception.IdempotentRequestInProgressException;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.aibles.ecommerce.core_redis.idempotency.IdempotencyService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Each key is one Redis string, {@code idempotency:{scope}:{key}}, holding a small JSON record:
+ * a PENDING marker (with a per-execution owner token) claimed with SET NX while the request
+ * runs, replaced by a DONE record carrying the serialized response once it succeeds.
+ *
+ * Duplicates arriving on this pod wait on a local future of the in-flight execution; those
+ * arriving on another pod poll the record until it is DONE or gone. The PENDING marker has
+ * its own, shorter, lease so a pod dying mid-request does not block the key for the full TTL.
+ */
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Pattern VALID_KEY = Pattern.compile("[\\x21-\\x7E]{1,255}");
+    private static final String PENDING = "PENDING";
+    private static final String DONE = "DONE";
+    private static final long MIN_POLL_MILLIS = 20;
+    private static final long MAX_POLL_MILLIS = 250;
+
+    /** Deletes the key only while it still holds our PENDING marker. */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "    return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    /** Replaces our PENDING marker with the DONE record, unless the lease ran out and someone else took the key. */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "    redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])\n" +
+            "    return 1\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(StringRedisTemplate redis, ObjectMapper objectMapper,
+                                  Duration ttl, Duration lease, Duration waitTimeout) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public <T> T execute(String scope, String key, String fingerprint, Class<T> responseType,
+                         Predicate<T> replayable, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (!VALID_KEY.matcher(key).matches()) {
+            throw new BadRequestException("common.idempotency.key_invalid");
+        }
+        String redisKey = RedisConstant.IDEMPOTENCY_KEY + scope + ":" + key;
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight existing = inFlight.putIfAbsent(redisKey, mine);
+        if (existing != null) {
+            log.info("(execute) Duplicate of an in-flight request on this instance, key: {}", redisKey);
+            return read(awaitLocal(existing, fingerprint), responseType);
+        }
+        try {
+            return executeOnce(redisKey, fingerprint, responseType, replayable, action, mine.result);
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(redisKey, mine);
+        }
+    }
+
+    private <T> T executeOnce(String redisKey, String fingerprint, Class<T> responseType,
+                              Predicate<T> replayable, Supplier<T> action, CompletableFuture<String> result) {
+        String pending = write(Map.of("state", PENDING, "fingerprint", fingerprint, "owner", UUID.randomUUID().toString()));
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        long pollMillis = MIN_POLL_MILLIS;
+
+        while (true) {
+            if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(redisKey, pending, lease))) {
+                return run(redisKey, pending, fingerprint, replayable, action, result);
+            }
+
+            String stored = redis.opsForValue().get(redisKey);
+            if (stored != null) {
+                Map<String, String> record = readRecord(stored);
+                if (!Objects.equals(fingerprint, record.get("fingerprint"))) {
+                    log.warn("(executeOnce) Key reused with a different payload, key: {}", redisKey);
+                    throw new IdempotencyKeyReusedException();
+                }
+                if (DONE.equals(record.get("state"))) {
+                    log.info("(executeOnce) Replaying stored response, key: {}", redisKey);
+                    result.complete(record.get("response"));
+                    return read(record.get("response"), responseType);
+                }
+            }
+            // PENDING on another instance, or the marker vanished in between: wait and look again.
+            if (System.nanoTime() > deadline) {
+                log.warn("(executeOnce) Gave up waiting for the in-flight request, key: {}", redisKey);
+                throw new IdempotentRequestInProgressException();
+            }
+            sleep(pollMillis);
+            pollMillis = Math.min(MAX_POLL_MILLIS, pollMillis * 2);
+        }
+    }
+
+    private <T> T run(String redisKey, String pending, String fingerprint, Predicate<T> replayable,
+                      Supplier<T> action, CompletableFuture<String> result) {
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(redisKey, pending);
+            throw e;
+        }
+        String json = write(response);
+        if (replayable.test(response)) {
+            Map<String, String> done = Map.of("state", DONE, "fingerprint", fingerprint, "response", json);
+            complete(redisKey, pending, write(done));
+        } else {
+            release(redisKey, pending);
+        }
+        result.complete(json);
+        return response;
+    }
+
+    private String awaitLocal(InFlight existing, String fingerprint) {
+        if (!Objects.equals(existing.fingerprint, fingerprint)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        try {
+            return existing.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotentRequestInProgressException();
+        } catch (ExecutionException | CompletionException e) {
+            // Same request, same outcome: surface the original failure to the duplicate too.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException();
+        }
+    }
+
+    private void complete(String redisKey, String pending, String done) {
+        try {
+            Long stored = redis.execute(COMPLETE_SCRIPT, List.of(redisKey), pending, done, String.valueOf(ttl.toMillis()));
+            if (!Long.valueOf(1L).equals(stored)) {
+                log.warn("(complete) Marker lease expired before the response was stored, key: {}", redisKey);
+            }
+        } catch (RuntimeException e) {
+            // The action already succeeded, so its response still goes back to the caller; a retry
+            // after the lease expires runs it again, as it would had this instance died.
+            log.error("(complete) Failed to store idempotent response, key: {}, error: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private void release(String redisKey, String pending) {
+        try {
+            redis.execute(RELEASE_SCRIPT, List.of(redisKey), pending);
+        } catch (RuntimeException e) {
+            // The marker then simply expires with its lease.
+            log.error("(release) Failed to clear idempotency marker, key: {}, error: {}", redisKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(write(parts).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, String> readRecord(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored response", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unserializable idempotent response", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException();
+        }
+    }
+
+    private static final class InFlight {
+
+        private final String fingerprint;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.aibles.ecommerce.core_redis.idempotency.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aibles.ecommerce.common_dto.exception.BadRequestException;
+import org.aibles.ecommerce.common_dto.exception.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceImplTest {
+
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+    private StringRedisTemplate redis;
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(inv -> store.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        when(ops.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        // release: (marker); complete: (marker, done record, ttl)
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+            String key = inv.<List<String>>getArgument(1).get(0);
+            if (inv.getArguments().length == 3) {
+                return store.remove(key, inv.getArgument(2)) ? 1L : 0L;
+            }
+            return store.replace(key, inv.getArgument(2), inv.getArgument(3)) ? 1L : 0L;
+        });
+
+        service = new IdempotencyServiceImpl(redis, new ObjectMapper(), Duration.ofHours(1),
+                Duration.ofSeconds(30), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void execute_replaysStoredResponseForSameKey() {
+        AtomicInteger runs = new AtomicInteger();
+        String fingerprint = service.fingerprint("u1", Map.of("product", "p1"));
+
+        String first = service.execute("orders:u1", "k1", fingerprint, String.class, () -> "order-" + runs.incrementAndGet());
+        String second = service.execute("orders:u1", "k1", fingerprint, String.class, () -> "order-" + runs.incrementAndGet());
+
+        assertThat(first).isEqualTo("order-1");
+        assertThat(second).isEqualTo("order-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void execute_sameKeyDifferentPayload_isRejected() {
+        service.execute("orders:u1", "k1", service.fingerprint("a"), String.class, () -> "first");
+
+        assertThatThrownBy(() -> service.execute("orders:u1", "k1", service.fingerprint("b"), String.class, () -> "second"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void execute_concurrentDuplicateWaitsForInFlightResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        String fingerprint = service.fingerprint("pay-1");
+
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                service.execute("payments", "k1", fingerprint, String.class, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "paid";
+                }));
+        started.await();
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() ->
+                service.execute("payments", "k1", fingerprint, String.class, () -> "again-" + runs.incrementAndGet()));
+        release.countDown();
+
+        assertThat(original.get()).isEqualTo("paid");
+        assertThat(duplicate.get()).isEqualTo("paid");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void execute_failureOrUnreplayableResponse_clearsKeyForRetry() {
+        String fingerprint = service.fingerprint("pay-1");
+
+        assertThatThrownBy(() -> service.execute("payments", "k1", fingerprint, String.class, () -> {
+            throw new IllegalStateException("gateway down");
+        })).isInstanceOf(IllegalStateException.class);
+        String declined = service.execute("payments", "k1", fingerprint, String.class,
+                response -> !response.equals("declined"), () -> "declined");
+        String paid = service.execute("payments", "k1", fingerprint, String.class, () -> "paid");
+
+        assertThat(declined).isEqualTo("declined");
+        assertThat(paid).isEqualTo("paid");
+    }
+
+    @Test
+    void execute_doneRecordOnlyReplacesOurOwnMarker() {
+        String fingerprint = service.fingerprint("pay-1");
+
+        String paid = service.execute("payments", "k1", fingerprint, String.class, () -> {
+            // Our lease ran out and another request took the key meanwhile.
+            store.put("idempotency:payments:k1", "someone-else");
+            return "paid";
+        });
+
+        assertThat(paid).isEqualTo("paid");
+        assertThat(store).containsEntry("idempotency:payments:k1", "someone-else");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_failedDoneWrite_stillReturnsTheResponse() {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        AtomicInteger runs = new AtomicInteger();
+
+        String paid = service.execute("payments", "k1", service.fingerprint("pay-1"), String.class,
+                () -> "paid-" + runs.incrementAndGet());
+
+        assertThat(paid).isEqualTo("paid-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void execute_withoutKeyRunsUnguarded_andRejectsMalformedKey() {
+        assertThat(service.execute("orders:u1", null, "f", String.class, () -> "ok")).isEqualTo("ok");
+        assertThat(store).isEmpty();
+
+        assertThatThrownBy(() -> service.execute("orders:u1", "has space", "f", String.class, () -> "ok"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
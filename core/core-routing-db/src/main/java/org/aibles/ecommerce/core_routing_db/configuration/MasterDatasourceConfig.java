@@ -26,6 +26,9 @@ public class MasterDatasourceConfig {
         mysqlXaDataSource.setUser(masterDataSourceProperties.getUsername());
         mysqlXaDataSource.setPassword(masterDataSourceProperties.getPassword());
         mysqlXaDataSource.setPinGlobalTxToPhysicalConnection(true);
+        // Without this Connector/J still sends a JDBC batch one INSERT per round trip; with it a
+        // batch goes out as a single multi-row INSERT.
+        mysqlXaDataSource.setRewriteBatchedStatements(true);
         AtomikosDataSourceBean dataSourceBean = new AtomikosDataSourceBean();
         dataSourceBean.setUniqueResourceName("master");
         dataSourceBean.setXaDataSource(mysqlXaDataSource);
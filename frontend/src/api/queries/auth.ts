@@ -139,10 +139,13 @@ export function useLogoutMutation() {
     mutationFn: async () => {
       const rt = auth.refreshToken;
       if (!rt) return;
+      // The access token is revoked by its jti too, so it stops working before it expires.
+      const headers: Record<string, string> = { Authorization: `Bearer ${rt}` };
+      if (auth.accessToken) headers['X-Access-Token'] = auth.accessToken;
       try {
         await fetch(`${BASE_URL}/authorization-server/v1/auth:logout`, {
           method: 'POST',
-          headers: { Authorization: `Bearer ${rt}` },
+          headers,
         });
       } catch {
         /* network failure — local clear still proceeds */
@@ -0,0 +1,18 @@
+package org.aibles.gateway.authorization;
+
+import org.aibles.gateway.entity.ApiRole;
+
+/**
+ * Compiled form of an {@link ApiRole.RateLimit}. {@code route} is the api_role path pattern the
+ * rule came from and namespaces the buckets, so every path under one pattern shares a budget.
+ */
+public record RateLimitRule(String route, long replenishRate, long burstCapacity, boolean keyByIp) {
+
+    static RateLimitRule from(String route, ApiRole.RateLimit rateLimit) {
+        if (rateLimit == null || rateLimit.getReplenishRate() <= 0 || rateLimit.getBurstCapacity() <= 0) {
+            return null;
+        }
+        return new RateLimitRule(route, rateLimit.getReplenishRate(), rateLimit.getBurstCapacity(),
+                "IP".equalsIgnoreCase(rateLimit.getKeyBy()));
+    }
+}
@@ -0,0 +1,26 @@
+package org.aibles.gateway.authorization;
+
+import java.util.Set;
+
+/**
+ * Result of an {@link RoutePermissionIndex} lookup: the union of roles granted by every
+ * {@code api_role} entry matching the request. An empty role set means the path is not
+ * registered for that method. {@code rateLimit} is the rule of the matching entry with the most
+ * specific pattern that declares one (method-specific entries win ties over method-less ones),
+ * or null.
+ */
+public record RoutePermission(Set<String> allowedRoles, RateLimitRule rateLimit) {
+
+    public static final String ROLE_PERMIT_ALL = "PERMIT_ALL";
+    public static final String ROLE_AUTHORIZED = "AUTHORIZED";
+
+    static final RoutePermission UNREGISTERED = new RoutePermission(Set.of(), null);
+
+    public boolean isRegistered() {
+        return !allowedRoles.isEmpty();
+    }
+
+    public boolean isPermitAll() {
+        return allowedRoles.contains(ROLE_PERMIT_ALL);
+    }
+}
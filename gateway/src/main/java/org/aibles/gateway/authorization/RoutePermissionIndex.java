@@ -0,0 +1,182 @@
+package org.aibles.gateway.authorization;
+
+import org.aibles.gateway.entity.ApiRole;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, pre-compiled view of the {@code api_role} collection.
+ *
+ * Entries are bucketed per HTTP method and stored in a segment trie keyed by the literal
+ * prefix of their Ant pattern ({@code /v1/products/**} lives under {@code v1 -> products}).
+ * A lookup walks the request path down the trie and only runs {@link AntPathMatcher} against
+ * the handful of patterns hanging off the visited nodes, instead of against every route.
+ * Role sets and rate-limit rules are frozen at compile time, so the hot path allocates nothing
+ * but the result set.
+ */
+public final class RoutePermissionIndex {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /** Bucket used for requests whose method has no dedicated entry (method-less rows only). */
+    private final Node anyMethod;
+    private final Map<String, Node> byMethod;
+    private final int routeCount;
+
+    private RoutePermissionIndex(Node anyMethod, Map<String, Node> byMethod, int routeCount) {
+        this.anyMethod = anyMethod;
+        this.byMethod = byMethod;
+        this.routeCount = routeCount;
+    }
+
+    public static RoutePermissionIndex compile(List<ApiRole> apiRoles) {
+        List<Entry> methodless = new ArrayList<>();
+        Map<String, List<Entry>> perMethod = new HashMap<>();
+
+        for (ApiRole apiRole : apiRoles) {
+            if (apiRole.getPath() == null || apiRole.getRoles() == null || apiRole.getRoles().isEmpty()) {
+                continue;
+            }
+            Entry entry = new Entry(apiRole.getPath(), Set.copyOf(apiRole.getRoles()),
+                    RateLimitRule.from(apiRole.getPath(), apiRole.getRateLimit()), apiRole.getMethod() != null);
+            if (apiRole.getMethod() == null) {
+                methodless.add(entry);
+            } else {
+                for (String method : apiRole.getMethod()) {
+                    perMethod.computeIfAbsent(method, m -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+
+        Node anyMethod = new Node();
+        methodless.forEach(anyMethod::insert);
+
+        Map<String, Node> byMethod = new HashMap<>();
+        perMethod.forEach((method, entries) -> {
+            Node root = new Node();
+            entries.forEach(root::insert);
+            methodless.forEach(root::insert);
+            byMethod.put(method, root);
+        });
+
+        return new RoutePermissionIndex(anyMethod, Map.copyOf(byMethod), apiRoles.size());
+    }
+
+    public RoutePermission lookup(String method, String path) {
+        Node root = byMethod.getOrDefault(method, anyMethod);
+        Match match = root.collect(path);
+        return match.roles.isEmpty() ? RoutePermission.UNREGISTERED
+                : new RoutePermission(Collections.unmodifiableSet(match.roles),
+                match.rateLimitEntry != null ? match.rateLimitEntry.rateLimit() : null);
+    }
+
+    public int size() {
+        return routeCount;
+    }
+
+    private record Entry(String pattern, Set<String> roles, RateLimitRule rateLimit, boolean methodSpecific) {
+    }
+
+    private static final class Match {
+
+        private final String path;
+        private final Set<String> roles = new LinkedHashSet<>();
+        private Entry rateLimitEntry;
+
+        private Match(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Keeps the rate-limited entry whose pattern is most specific for the path (as ordered by
+         * {@link AntPathMatcher#getPatternComparator}); on a tie, an entry for the request's method
+         * beats a method-less one. Trie depth and insertion order play no part.
+         */
+        void offerRateLimit(Entry entry) {
+            if (rateLimitEntry == null) {
+                rateLimitEntry = entry;
+                return;
+            }
+            int bySpecificity = PATH_MATCHER.getPatternComparator(path).compare(entry.pattern(), rateLimitEntry.pattern());
+            if (bySpecificity < 0 || (bySpecificity == 0 && entry.methodSpecific() && !rateLimitEntry.methodSpecific())) {
+                rateLimitEntry = entry;
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+
+        void insert(Entry entry) {
+            Node node = this;
+            for (String segment : segments(entry.pattern())) {
+                if (!isLiteral(segment)) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+            node.entries.add(entry);
+        }
+
+        Match collect(String path) {
+            Match match = new Match(path);
+            Node node = this;
+            node.match(path, match);
+            for (String segment : segments(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                node.match(path, match);
+            }
+            return match;
+        }
+
+        private void match(String path, Match match) {
+            for (Entry entry : entries) {
+                if (PATH_MATCHER.match(entry.pattern(), path)) {
+                    match.roles.addAll(entry.roles());
+                    if (entry.rateLimit() != null) {
+                        match.offerRateLimit(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package org.aibles.gateway.authorization;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.authorization")
+public class RoutePermissionProperties {
+
+    /** How often the api_role collection is re-read and, if changed, recompiled. */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+}
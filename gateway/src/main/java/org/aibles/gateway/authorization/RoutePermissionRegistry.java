@@ -0,0 +1,136 @@
+package org.aibles.gateway.authorization;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.entity.ApiRole;
+import org.aibles.gateway.repository.ApiRoleRepository;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link RoutePermissionIndex} and keeps it in sync with the
+ * {@code api_role} collection by polling it every {@code refresh-interval}.
+ *
+ * A reload only recompiles when the fetched rows differ from the last snapshot, and the swap is
+ * a single reference write, so in-flight lookups always see a complete index. Until the first
+ * load lands, lookups fall back to loading the index inline.
+ */
+@Slf4j
+public class RoutePermissionRegistry {
+
+    private final ApiRoleRepository apiRoleRepository;
+    private final RoutePermissionProperties properties;
+    private final Timer lookupTimer;
+    private final Timer reloadTimer;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicReference<Mono<Snapshot>> inflightReload = new AtomicReference<>();
+    private Disposable poller;
+
+    public RoutePermissionRegistry(ApiRoleRepository apiRoleRepository,
+                                   RoutePermissionProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.apiRoleRepository = apiRoleRepository;
+        this.properties = properties;
+        this.lookupTimer = Timer.builder("gateway.authorization.lookup")
+                .description("Route permission index lookup latency")
+                .register(meterRegistry);
+        this.reloadTimer = Timer.builder("gateway.authorization.reload")
+                .description("Time to fetch and compile the api_role permission index")
+                .register(meterRegistry);
+        Gauge.builder("gateway.authorization.routes", current,
+                        ref -> ref.get() == null ? 0 : ref.get().index().size())
+                .description("Number of api_role rows in the active permission index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("(init) Route permission index refresh scheduled every {}", properties.getRefreshInterval());
+        poller = Flux.interval(Duration.ZERO, properties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> reload()
+                        .onErrorResume(e -> {
+                            log.error("(init) Route permission index reload failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (poller != null) {
+            poller.dispose();
+        }
+    }
+
+    public Mono<RoutePermission> resolve(String method, String path) {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return Mono.just(lookup(snapshot.index(), method, path));
+        }
+        log.info("(resolve) Route permission index not loaded yet, loading inline");
+        return reload().map(loaded -> lookup(loaded.index(), method, path));
+    }
+
+    private RoutePermission lookup(RoutePermissionIndex index, String method, String path) {
+        long start = System.nanoTime();
+        RoutePermission permission = index.lookup(method, path);
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return permission;
+    }
+
+    /** Fetch api_role and swap in a freshly compiled index; concurrent callers share one fetch. */
+    Mono<Snapshot> reload() {
+        Mono<Snapshot> existing = inflightReload.get();
+        if (existing != null) {
+            return existing;
+        }
+
+        AtomicReference<Mono<Snapshot>> operationRef = new AtomicReference<>();
+        Mono<Snapshot> operation = Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return apiRoleRepository.findAll()
+                            .collectList()
+                            .map(rows -> {
+                                Snapshot snapshot = swapIfChanged(rows);
+                                reloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                return snapshot;
+                            });
+                })
+                .doFinally(signal -> inflightReload.compareAndSet(operationRef.get(), null))
+                .cache();
+        operationRef.set(operation);
+
+        if (inflightReload.compareAndSet(null, operation)) {
+            return operation;
+        }
+        Mono<Snapshot> winner = inflightReload.get();
+        return winner != null ? winner : operation;
+    }
+
+    private Snapshot swapIfChanged(List<ApiRole> rows) {
+        Snapshot previous = current.get();
+        if (previous != null && previous.rows().equals(rows)) {
+            log.debug("(swapIfChanged) api_role unchanged, keeping current index");
+            return previous;
+        }
+        Snapshot next = new Snapshot(List.copyOf(rows), RoutePermissionIndex.compile(rows));
+        current.set(next);
+        log.info("(swapIfChanged) Route permission index compiled with {} routes", rows.size());
+        return next;
+    }
+
+    record Snapshot(List<ApiRole> rows, RoutePermissionIndex index) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.aibles.gateway.cache;
+
+/**
+ * A buffered 200 or 204 response as stored in either cache tier. The body is kept verbatim
+ * (Jackson writes it as Base64 in the Redis tier), with its strong ETag computed once at store
+ * time. Entries written before the status was recorded read back with status 0, i.e. 200.
+ */
+public record CachedResponse(int status, String contentType, byte[] body, String etag, long expiresAtMillis) {
+
+    int statusOrOk() {
+        return status == 0 ? 200 : status;
+    }
+
+    long remainingMillis() {
+        return expiresAtMillis - System.currentTimeMillis();
+    }
+}
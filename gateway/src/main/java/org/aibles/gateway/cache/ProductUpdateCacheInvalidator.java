@@ -0,0 +1,44 @@
+package org.aibles.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.ProductUpdate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import reactor.core.publisher.Mono;
+
+/**
+ * Flushes every route flagged {@code invalidate-on-product-update} when product-service emits a
+ * Product.Updated event (relayed by the orchestrator onto {@code gateway.product.update}).
+ *
+ * Each gateway pod must see every event to drop its own local tier, so the consumer group id is
+ * unique per pod (see {@code application.gateway.response-cache.invalidation.group-id}).
+ * Listing pages embed any product, so routes are flushed whole rather than per product id;
+ * catalog writes are rare next to reads.
+ */
+@Slf4j
+public class ProductUpdateCacheInvalidator {
+
+    private final ResponseCacheProperties properties;
+    private final ResponseCacheStore store;
+
+    public ProductUpdateCacheInvalidator(ResponseCacheProperties properties, ResponseCacheStore store) {
+        this.properties = properties;
+        this.store = store;
+    }
+
+    @KafkaListener(groupId = "${application.gateway.response-cache.invalidation.group-id}",
+            topics = "${application.gateway.response-cache.invalidation.topic}")
+    public void handleProductUpdate(@Payload ProductUpdate productUpdate) {
+        log.info("(handleProductUpdate) Product {} updated, flushing catalog response cache", productUpdate.getId());
+        for (ResponseCacheProperties.Route route : properties.getRoutes()) {
+            if (!route.isInvalidateOnProductUpdate()) {
+                continue;
+            }
+            store.invalidateRoute(route.getId())
+                    .doOnError(e -> log.error("(handleProductUpdate) Failed to flush route {}: {}",
+                            route.getId(), e.getMessage()))
+                    .onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+    }
+}
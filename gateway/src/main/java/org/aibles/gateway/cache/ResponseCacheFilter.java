@@ -0,0 +1,249 @@
+package org.aibles.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves configured public GET routes from {@link ResponseCacheStore}.
+ *
+ * A request is only eligible when its path matches an entry in
+ * {@code application.gateway.response-cache.routes} and its api_role entry is PERMIT_ALL, so a
+ * cached body can never carry per-user data. Hits are answered without touching the downstream
+ * service; {@code If-None-Match} is honoured on both hits and misses with a 304. The key covers
+ * the configured {@code vary-headers}, and a response that varies on anything else is not stored.
+ *
+ * Runs just before {@link NettyWriteResponseFilter} so that, on a miss, the decorated response
+ * sees the proxied body as it is written back.
+ */
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final ResponseCacheProperties properties;
+    private final ResponseCacheStore store;
+    private final RoutePermissionRegistry routePermissionRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ResponseCacheFilter(ResponseCacheProperties properties,
+                               ResponseCacheStore store,
+                               RoutePermissionRegistry routePermissionRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.routePermissionRegistry = routePermissionRegistry;
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        String path = request.getPath().value();
+        ResponseCacheProperties.Route route = matchRoute(path);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        return routePermissionRegistry.resolve(HttpMethod.GET.name(), path)
+                .flatMap(permission -> {
+                    if (!permission.isPermitAll()) {
+                        log.debug("(filter) Route {} is not PERMIT_ALL, bypassing cache", route.getId());
+                        return chain.filter(exchange);
+                    }
+                    String key = cacheKey(request, properties.getVaryHeaders());
+                    return store.get(route.getId(), key)
+                            .flatMap(cached -> writeCached(exchange, cached))
+                            .switchIfEmpty(Mono.defer(() -> chain.filter(
+                                    exchange.mutate().response(new CachingResponse(exchange, route, key)).build())));
+                });
+    }
+
+    private ResponseCacheProperties.Route matchRoute(String path) {
+        for (ResponseCacheProperties.Route route : properties.getRoutes()) {
+            if (pathMatcher.match(route.getPath(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+
+        if (etagMatches(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(cached.statusOrOk()));
+        if (cached.body().length == 0) {
+            return response.setComplete();
+        }
+        if (cached.contentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean etagMatches(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
+
+    /** Path, query parameters in a canonical (sorted) order and the vary headers, digested. */
+    static String cacheKey(ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder canonical = new StringBuilder(request.getPath().value());
+        Map<String, List<String>> sorted = new TreeMap<>(request.getQueryParams());
+        sorted.forEach((name, values) -> values.forEach(value ->
+                canonical.append('&').append(name).append('=').append(value)));
+        for (String header : varyHeaders) {
+            canonical.append('\n').append(header).append(':').append(request.getHeaders().getOrEmpty(header));
+        }
+        return digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Buffers a 200 or 204 body on its way out, stores it and tags it with an ETag. A response
+     * completed without a body write (an empty 200 or a 204) is stored with an empty body.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final ResponseCacheProperties.Route route;
+        private final String key;
+        private final AtomicBoolean handled = new AtomicBoolean();
+
+        CachingResponse(ServerWebExchange exchange, ResponseCacheProperties.Route route, String key) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.route = route;
+            this.key = key;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!handled.compareAndSet(false, true) || !isCacheable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(Flux.from(body))
+                    .map(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(this::storeAndWrite);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            if (!handled.compareAndSet(false, true) || !isCacheable()) {
+                return super.setComplete();
+            }
+            return storeAndWrite(new byte[0]);
+        }
+
+        private Mono<Void> storeAndWrite(byte[] bytes) {
+            String etag = getHeaders().getETag();
+            if (etag == null) {
+                etag = "\"" + digest(bytes) + "\"";
+                getHeaders().setETag(etag);
+            }
+            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+
+            String contentType = getHeaders().getContentType() == null
+                    ? null : getHeaders().getContentType().toString();
+            CachedResponse cached = new CachedResponse(getStatusCode().value(), contentType, bytes, etag,
+                    System.currentTimeMillis() + route.getTtl().toMillis());
+
+            Mono<Void> write;
+            if (etagMatches(exchange.getRequest(), etag)) {
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                write = super.setComplete();
+            } else if (bytes.length == 0) {
+                write = super.setComplete();
+            } else {
+                write = super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }
+            return write.then(store.put(route.getId(), key, cached, route.getTtl()));
+        }
+
+        /**
+         * Only plain, identity-encoded 200s and 204s that the upstream did not mark private, and
+         * that vary on nothing beyond the key's headers, are stored.
+         */
+        private boolean isCacheable() {
+            HttpHeaders headers = getHeaders();
+            if (getStatusCode() == null || (getStatusCode().value() != HttpStatus.OK.value()
+                    && getStatusCode().value() != HttpStatus.NO_CONTENT.value())) {
+                return false;
+            }
+            if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            for (String vary : headers.getVary()) {
+                if (vary.equals("*") || properties.getVaryHeaders().stream().noneMatch(vary::equalsIgnoreCase)) {
+                    return false;
+                }
+            }
+            String cacheControl = headers.getCacheControl();
+            return cacheControl == null
+                    || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+    }
+}
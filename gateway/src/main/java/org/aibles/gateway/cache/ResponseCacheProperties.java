@@ -0,0 +1,47 @@
+package org.aibles.gateway.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = false;
+
+    /** Upper bound on entries held in each pod's local tier. */
+    private long localMaxEntries = 10_000;
+
+    /** Share cached responses across gateway pods through Redis as a second tier. */
+    private boolean redisEnabled = false;
+
+    private String redisKeyPrefix = "gateway:response-cache";
+
+    /** Request headers that are part of the cache key; a response that varies on others is not stored. */
+    private List<String> varyHeaders = new ArrayList<>(List.of("Accept", "Accept-Encoding", "Accept-Language", "Origin"));
+
+    /**
+     * Opt-in list of cacheable routes. Only GET requests on paths whose api_role entry is
+     * PERMIT_ALL are ever cached, whatever is listed here.
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+
+        /** Stable identifier, used to namespace keys so a route can be flushed on its own. */
+        private String id;
+
+        /** Ant pattern matched against the gateway request path. */
+        private String path;
+
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /** Flush this route when a Product.Updated event arrives. */
+        private boolean invalidateOnProductUpdate = false;
+    }
+}
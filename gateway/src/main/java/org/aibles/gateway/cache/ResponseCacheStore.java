@@ -0,0 +1,148 @@
+package org.aibles.gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier store behind {@link ResponseCacheFilter}: a per-pod Caffeine tier and an optional
+ * Redis tier shared by every gateway pod.
+ *
+ * Keys are namespaced by route id ({@code <routeId>:<request digest>}), and every Redis key is
+ * also recorded in a per-route index set, so a whole route can be flushed with one SMEMBERS
+ * and one DEL instead of a keyspace SCAN.
+ */
+@Slf4j
+public class ResponseCacheStore {
+
+    static final String CACHE_NAME = "gateway.response-cache";
+
+    private final Cache<String, CachedResponse> local;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String redisKeyPrefix;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param redisTemplate the shared tier, or {@code null} to run local-only
+     */
+    public ResponseCacheStore(ResponseCacheProperties properties,
+                              ReactiveStringRedisTemplate redisTemplate,
+                              MeterRegistry meterRegistry) {
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfter(new ExpireAtStoredDeadline())
+                .recordStats()
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.redisKeyPrefix = properties.getRedisKeyPrefix();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+    }
+
+    public Mono<CachedResponse> get(String routeId, String key) {
+        String cacheKey = routeId + ":" + key;
+        CachedResponse hit = local.getIfPresent(cacheKey);
+        if (hit != null) {
+            return Mono.just(hit);
+        }
+        if (redisTemplate == null) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().get(redisKey(cacheKey))
+                .flatMap(this::deserialize)
+                .filter(response -> response.remainingMillis() > 0)
+                .doOnNext(response -> local.put(cacheKey, response))
+                .onErrorResume(e -> {
+                    log.warn("(get) Redis tier unavailable, treating as miss: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Void> put(String routeId, String key, CachedResponse response, Duration ttl) {
+        String cacheKey = routeId + ":" + key;
+        local.put(cacheKey, response);
+        if (redisTemplate == null) {
+            return Mono.empty();
+        }
+        String redisKey = redisKey(cacheKey);
+        String indexKey = indexKey(routeId);
+        return serialize(response)
+                .flatMap(json -> redisTemplate.opsForValue().set(redisKey, json, ttl))
+                .then(redisTemplate.opsForSet().add(indexKey, redisKey))
+                .then(redisTemplate.expire(indexKey, ttl.multipliedBy(2)))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("(put) Failed to write Redis tier for route {}: {}", routeId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Void> invalidateRoute(String routeId) {
+        String prefix = routeId + ":";
+        local.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(prefix));
+        if (redisTemplate == null) {
+            return Mono.empty();
+        }
+        String indexKey = indexKey(routeId);
+        return redisTemplate.opsForSet().members(indexKey)
+                .collectList()
+                .flatMap(keys -> {
+                    keys.add(indexKey);
+                    return redisTemplate.delete(keys.toArray(String[]::new));
+                })
+                .doOnNext(deleted -> log.info("(invalidateRoute) Flushed route {} ({} Redis keys)", routeId, deleted))
+                .then();
+    }
+
+    private String redisKey(String cacheKey) {
+        return redisKeyPrefix + ":" + cacheKey;
+    }
+
+    private String indexKey(String routeId) {
+        return redisKeyPrefix + ":index:" + routeId;
+    }
+
+    private Mono<String> serialize(CachedResponse response) {
+        try {
+            return Mono.just(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private Mono<CachedResponse> deserialize(String json) {
+        try {
+            return Mono.just(objectMapper.readValue(json, CachedResponse.class));
+        } catch (JsonProcessingException e) {
+            log.warn("(deserialize) Dropping unreadable cache entry: {}", e.getMessage());
+            return Mono.empty();
+        }
+    }
+
+    private static final class ExpireAtStoredDeadline implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, response.remainingMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.aibles.gateway.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collapses identical concurrent GETs on configured public routes into one upstream exchange.
+ *
+ * The first request for a key becomes the leader and is proxied normally; its response is
+ * buffered as it is written and handed to every follower that arrived while it was in flight.
+ * The key is removed as soon as the leader's response is available, so only truly concurrent
+ * requests share it; nothing is retained afterwards. Only 2xx responses are shared, bodyless
+ * ones included, and never one that sets a cookie, which belongs to the leader's client alone;
+ * hop-by-hop headers are dropped before replay. If the leader's response is not shareable,
+ * fails or takes longer than {@code max-wait}, followers fall back to their own upstream call.
+ *
+ * Ordered outside the response cache, so cache hits and misses are both shared, and outside
+ * the concurrency limiter, so followers never occupy a slot.
+ */
+@Slf4j
+public class SingleFlightFilter implements GlobalFilter, Ordered {
+
+    static final String SINGLE_FLIGHT_HEADER = "X-Single-Flight";
+
+    /** Describe the leader's connection, not the response, so they are not replayed (RFC 9110 7.6.1). */
+    private static final List<String> HOP_BY_HOP_HEADERS = List.of(
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+            HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE);
+
+    private final SingleFlightProperties properties;
+    private final RoutePermissionRegistry routePermissionRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Sinks.One<SharedResponse>> inflight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    public SingleFlightFilter(SingleFlightProperties properties,
+                              RoutePermissionRegistry routePermissionRegistry,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.routePermissionRegistry = routePermissionRegistry;
+        this.leaders = Counter.builder("gateway.single-flight.requests")
+                .description("Eligible GETs by single-flight role")
+                .tag("role", "leader")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.single-flight.requests")
+                .description("Eligible GETs by single-flight role")
+                .tag("role", "coalesced")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (request.getMethod() != HttpMethod.GET || !isConfigured(path)) {
+            return chain.filter(exchange);
+        }
+
+        return routePermissionRegistry.resolve(HttpMethod.GET.name(), path)
+                .flatMap(permission -> permission.isPermitAll()
+                        ? coalesce(exchange, chain)
+                        : chain.filter(exchange));
+    }
+
+    private boolean isConfigured(String path) {
+        for (String route : properties.getRoutes()) {
+            if (pathMatcher.match(route, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String key = flightKey(exchange.getRequest(), properties.getVaryHeaders());
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> leader = inflight.putIfAbsent(key, sink);
+
+        if (leader != null) {
+            coalesced.increment();
+            return leader.asMono()
+                    .timeout(properties.getMaxWait())
+                    .flatMap(shared -> writeShared(exchange.getResponse(), shared))
+                    .onErrorResume(e -> {
+                        log.debug("(coalesce) Leader unavailable ({}), proxying follower on its own", e.getMessage());
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        }
+
+        leaders.increment();
+        return chain.filter(exchange.mutate().response(new LeaderResponse(exchange.getResponse(), key, sink)).build())
+                .doFinally(signal -> {
+                    inflight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    private static Mono<Void> writeShared(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        shared.headers().forEach((name, values) -> response.getHeaders().put(name, values));
+        response.getHeaders().set(SINGLE_FLIGHT_HEADER, "SHARED");
+        if (shared.body().length == 0) {
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    /** Path, canonically ordered query parameters and the configured vary headers, digested. */
+    static String flightKey(ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder canonical = new StringBuilder(request.getPath().value());
+        Map<String, List<String>> sorted = new TreeMap<>(request.getQueryParams());
+        sorted.forEach((name, values) -> values.forEach(value ->
+                canonical.append('&').append(name).append('=').append(value)));
+        for (String header : varyHeaders) {
+            canonical.append('\n').append(header).append(':').append(request.getHeaders().getOrEmpty(header));
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * Buffers the leader's body, publishes it to followers, then writes it through. A response
+     * completed without a body write is published with an empty body; anything other than a
+     * 2xx without Set-Cookie is written through untouched and releases the followers to go
+     * upstream themselves.
+     */
+    private class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Sinks.One<SharedResponse> sink;
+        private final AtomicBoolean handled = new AtomicBoolean();
+
+        LeaderResponse(ServerHttpResponse delegate, String key, Sinks.One<SharedResponse> sink) {
+            super(delegate);
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!handled.compareAndSet(false, true)) {
+                return super.writeWith(body);
+            }
+            if (!isShareable()) {
+                release();
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(Flux.from(body))
+                    .map(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        publish(bytes);
+                        return bytes.length == 0
+                                ? super.setComplete()
+                                : super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            if (handled.compareAndSet(false, true)) {
+                if (isShareable()) {
+                    publish(new byte[0]);
+                } else {
+                    release();
+                }
+            }
+            return super.setComplete();
+        }
+
+        private boolean isShareable() {
+            return getStatusCode() != null && getStatusCode().is2xxSuccessful()
+                    && !getHeaders().containsKey(HttpHeaders.SET_COOKIE);
+        }
+
+        private void publish(byte[] bytes) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(getHeaders());
+            HOP_BY_HOP_HEADERS.forEach(headers::remove);
+            inflight.remove(key, sink);
+            sink.tryEmitValue(new SharedResponse(getStatusCode(), headers, bytes));
+        }
+
+        /** Followers see an empty result and proxy on their own. */
+        private void release() {
+            inflight.remove(key, sink);
+            sink.tryEmitEmpty();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+    }
+}
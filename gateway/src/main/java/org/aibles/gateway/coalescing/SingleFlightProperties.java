@@ -0,0 +1,27 @@
+package org.aibles.gateway.coalescing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.single-flight")
+public class SingleFlightProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Ant patterns of idempotent GET routes eligible for coalescing. Only PERMIT_ALL routes are
+     * ever coalesced, since followers receive the leader's response verbatim.
+     */
+    private List<String> routes = new ArrayList<>();
+
+    /** Request headers that must also match for two requests to share one upstream exchange. */
+    private List<String> varyHeaders = new ArrayList<>(List.of("Accept", "Accept-Encoding", "Accept-Language", "Origin"));
+
+    /** How long a follower waits on the leader before falling back to its own upstream call. */
+    private Duration maxWait = Duration.ofSeconds(2);
+}
@@ -0,0 +1,37 @@
+package org.aibles.gateway.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /** Off unless switched on; routes need a sensible initial-limit before shedding is enabled. */
+    private boolean enabled = false;
+
+    /** Gateway route ids to limit; empty means every route. */
+    private List<String> routes = new ArrayList<>();
+
+    private int initialLimit = 20;
+    private int minLimit = 5;
+    private int maxLimit = 500;
+
+    /** Weight of each new estimate when moving the limit (0..1]. */
+    private double smoothing = 0.2;
+
+    /** How much slower than the no-load RTT a sample may be before the limit shrinks. */
+    private double rttTolerance = 1.5;
+
+    /** Number of samples the long-term (no-load) RTT average spans. */
+    private int longWindow = 600;
+
+    /** Multiplicative back-off applied when the upstream fails or times out. */
+    private double backoffRatio = 0.9;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
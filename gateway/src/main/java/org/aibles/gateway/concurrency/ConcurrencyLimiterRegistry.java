@@ -0,0 +1,52 @@
+package org.aibles.gateway.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link GradientConcurrencyLimit} per gateway route id, created on first use, each with
+ * its limit, in-flight and rejection meters tagged by route.
+ */
+public class ConcurrencyLimiterRegistry {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiterRegistry(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** @return the limiter for {@code routeId}, or null when the route is not limited */
+    public Limiter forRoute(String routeId) {
+        if (!properties.getRoutes().isEmpty() && !properties.getRoutes().contains(routeId)) {
+            return null;
+        }
+        return limiters.computeIfAbsent(routeId, this::create);
+    }
+
+    private Limiter create(String routeId) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        Gauge.builder("gateway.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limit, GradientConcurrencyLimit::getInFlight)
+                .description("Requests currently in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                .description("Requests shed because the route was at its concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return new Limiter(limit, rejected);
+    }
+
+    public record Limiter(GradientConcurrencyLimit limit, Counter rejected) {
+    }
+}
@@ -0,0 +1,87 @@
+package org.aibles.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style adaptive concurrency limit for one downstream route.
+ *
+ * The limit is learned from latency alone: a long-window average of round-trip times stands in
+ * for the no-load RTT, and each completed request's RTT is compared against it. While latency
+ * stays within {@code rttTolerance} of the baseline the limit grows by a queue allowance of
+ * {@code sqrt(limit)}; as latency inflates the gradient drops below 1 and the limit shrinks
+ * proportionally. Upstream failures apply a multiplicative back-off. Requests beyond the
+ * current limit are rejected up front instead of queueing behind a congested service.
+ */
+public class GradientConcurrencyLimit {
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRttNanos;
+    private long samples;
+
+    public GradientConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * Reserve a slot; every successful call must be matched by one {@link #release} or
+     * {@link #releaseWithoutSample}.
+     */
+    public boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param rttNanos      time from admission to upstream response
+     * @param inFlightAtStart concurrency observed when the request was admitted
+     * @param dropped       the upstream failed, timed out or signalled overload
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, dropped);
+    }
+
+    /** Frees the slot without an RTT sample, e.g. when the client went away before any response. */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean dropped) {
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * properties.getBackoffRatio();
+        } else {
+            if (samples < properties.getLongWindow()) {
+                samples++;
+            }
+            longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) / samples;
+
+            // Don't grow a limit the traffic isn't even using.
+            if (inFlightAtStart < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0,
+                    properties.getRttTolerance() * longRttNanos / Math.max(1L, rttNanos)));
+            double estimate = current * gradient + Math.sqrt(current);
+            next = current * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        }
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
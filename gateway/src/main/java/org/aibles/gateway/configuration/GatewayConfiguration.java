@@ -1,5 +1,14 @@
 package org.aibles.gateway.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.aibles.gateway.coalescing.SingleFlightFilter;
+import org.aibles.gateway.coalescing.SingleFlightProperties;
+import org.aibles.gateway.concurrency.ConcurrencyLimitProperties;
+import org.aibles.gateway.concurrency.ConcurrencyLimiterRegistry;
+import org.aibles.gateway.filter.ConcurrencyLimitFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +17,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @EnableWebFlux
+@EnableConfigurationProperties({ConcurrencyLimitProperties.class, SingleFlightProperties.class})
 public class GatewayConfiguration {
 
     @Bean
@@ -20,4 +30,21 @@ public class GatewayConfiguration {
     public WebClient lbWebClient(final WebClient.Builder lbWebClientBuilder) {
         return lbWebClientBuilder.build();
     }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.gateway.concurrency-limit", name = "enabled", havingValue = "true")
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties concurrencyLimitProperties,
+                                                         MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(
+                new ConcurrencyLimiterRegistry(concurrencyLimitProperties, meterRegistry),
+                concurrencyLimitProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.gateway.single-flight", name = "enabled", havingValue = "true")
+    public SingleFlightFilter singleFlightFilter(SingleFlightProperties singleFlightProperties,
+                                                 RoutePermissionRegistry routePermissionRegistry,
+                                                 MeterRegistry meterRegistry) {
+        return new SingleFlightFilter(singleFlightProperties, routePermissionRegistry, meterRegistry);
+    }
 }
@@ -0,0 +1,42 @@
+package org.aibles.gateway.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.aibles.gateway.cache.ProductUpdateCacheInvalidator;
+import org.aibles.gateway.cache.ResponseCacheFilter;
+import org.aibles.gateway.cache.ResponseCacheProperties;
+import org.aibles.gateway.cache.ResponseCacheStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+@ConditionalOnProperty(prefix = "application.gateway.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheConfiguration {
+
+    @Bean
+    public ResponseCacheStore responseCacheStore(ResponseCacheProperties properties,
+                                                 ObjectProvider<ReactiveStringRedisTemplate> redisTemplate,
+                                                 MeterRegistry meterRegistry) {
+        return new ResponseCacheStore(properties,
+                properties.isRedisEnabled() ? redisTemplate.getIfAvailable() : null,
+                meterRegistry);
+    }
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(ResponseCacheProperties properties,
+                                                   ResponseCacheStore responseCacheStore,
+                                                   RoutePermissionRegistry routePermissionRegistry) {
+        return new ResponseCacheFilter(properties, responseCacheStore, routePermissionRegistry);
+    }
+
+    @Bean
+    public ProductUpdateCacheInvalidator productUpdateCacheInvalidator(ResponseCacheProperties properties,
+                                                                       ResponseCacheStore responseCacheStore) {
+        return new ProductUpdateCacheInvalidator(properties, responseCacheStore);
+    }
+}
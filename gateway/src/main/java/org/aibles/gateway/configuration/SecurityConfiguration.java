@@ -1,11 +1,20 @@
 package org.aibles.gateway.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aibles.gateway.authorization.RoutePermissionProperties;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
 import org.aibles.gateway.filter.AuthorizationFilter;
 import org.aibles.gateway.filter.JwtAuthenticationFilter;
+import org.aibles.gateway.filter.RateLimitFilter;
+import org.aibles.gateway.ratelimit.RateLimitProperties;
+import org.aibles.gateway.ratelimit.TokenBucketRateLimiter;
 import org.aibles.gateway.repository.ApiRoleRepository;
+import org.aibles.gateway.revocation.RevocationProperties;
+import org.aibles.gateway.revocation.TokenRevocationChecker;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
@@ -17,17 +26,40 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @EnableWebFluxSecurity
-@EnableConfigurationProperties(CorsProperties.class)
+@EnableConfigurationProperties({CorsProperties.class, RoutePermissionProperties.class, RateLimitProperties.class,
+        RevocationProperties.class})
 public class SecurityConfiguration {
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(WebClient lbWebClient) {
-        return new JwtAuthenticationFilter(lbWebClient);
+    public TokenRevocationChecker tokenRevocationChecker(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                                         RevocationProperties revocationProperties,
+                                                         MeterRegistry meterRegistry) {
+        return new TokenRevocationChecker(reactiveStringRedisTemplate, revocationProperties, meterRegistry);
     }
 
     @Bean
-    public AuthorizationFilter authorizationFilter(ApiRoleRepository apiRoleRepository) {
-        return new AuthorizationFilter(apiRoleRepository);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(WebClient lbWebClient, MeterRegistry meterRegistry,
+                                                           TokenRevocationChecker tokenRevocationChecker) {
+        return new JwtAuthenticationFilter(lbWebClient, meterRegistry, tokenRevocationChecker);
+    }
+
+    @Bean
+    public RoutePermissionRegistry routePermissionRegistry(ApiRoleRepository apiRoleRepository,
+                                                           RoutePermissionProperties routePermissionProperties,
+                                                           MeterRegistry meterRegistry) {
+        return new RoutePermissionRegistry(apiRoleRepository, routePermissionProperties, meterRegistry);
+    }
+
+    @Bean
+    public AuthorizationFilter authorizationFilter(RoutePermissionRegistry routePermissionRegistry) {
+        return new AuthorizationFilter(routePermissionRegistry);
+    }
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                                         RateLimitProperties rateLimitProperties,
+                                                         MeterRegistry meterRegistry) {
+        return new TokenBucketRateLimiter(reactiveStringRedisTemplate, rateLimitProperties, meterRegistry);
     }
 
     @Bean
@@ -49,11 +81,21 @@ public class SecurityConfiguration {
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
                                                             JwtAuthenticationFilter jwtAuthenticationFilter,
                                                             AuthorizationFilter authorizationFilter,
+                                                            RoutePermissionRegistry routePermissionRegistry,
+                                                            TokenBucketRateLimiter tokenBucketRateLimiter,
+                                                            RateLimitProperties rateLimitProperties,
                                                             CorsConfigurationSource corsConfigurationSource) {
-        return http.cors(cors -> cors.configurationSource(corsConfigurationSource))
+        http.cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
-                .addFilterAt(authorizationFilter, SecurityWebFiltersOrder.AUTHORIZATION)
-                .build();
+                .addFilterAt(authorizationFilter, SecurityWebFiltersOrder.AUTHORIZATION);
+        if (rateLimitProperties.isEnabled()) {
+            // Not a bean: a WebFilter bean would also join the plain WebFlux chain and
+            // spend two tokens per request.
+            http.addFilterAfter(new RateLimitFilter(routePermissionRegistry, tokenBucketRateLimiter,
+                    rateLimitProperties.getTrustedProxies()),
+                    SecurityWebFiltersOrder.AUTHORIZATION);
+        }
+        return http.build();
     }
 }
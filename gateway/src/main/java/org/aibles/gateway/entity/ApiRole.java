@@ -18,4 +18,20 @@ public class ApiRole {
     private List<String> method;
 
     private List<String> roles;
+
+    /** Optional token-bucket limit for this route; absent means unlimited. */
+    private RateLimit rateLimit;
+
+    @Data
+    public static class RateLimit {
+
+        /** Tokens added to the bucket per second. */
+        private long replenishRate;
+
+        /** Maximum bucket size, i.e. the largest burst admitted at once. */
+        private long burstCapacity;
+
+        /** {@code PRINCIPAL} (falls back to client IP when anonymous) or {@code IP}. */
+        private String keyBy = "PRINCIPAL";
+    }
 }
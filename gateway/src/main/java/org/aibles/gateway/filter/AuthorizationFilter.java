@@ -1,35 +1,29 @@
 package org.aibles.gateway.filter;
 
 import lombok.extern.slf4j.Slf4j;
-import org.aibles.gateway.entity.ApiRole;
-import org.aibles.gateway.repository.ApiRoleRepository;
+import org.aibles.gateway.authorization.RoutePermission;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 import java.util.Collection;
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class AuthorizationFilter implements WebFilter {
 
-    private static final String ROLE_PERMIT_ALL = "PERMIT_ALL";
-    private static final String ROLE_AUTHORIZED = "AUTHORIZED";
+    private final RoutePermissionRegistry routePermissionRegistry;
 
-    private final ApiRoleRepository apiRoleRepository;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    public AuthorizationFilter(ApiRoleRepository apiRoleRepository) {
-        this.apiRoleRepository = apiRoleRepository;
+    public AuthorizationFilter(RoutePermissionRegistry routePermissionRegistry) {
+        this.routePermissionRegistry = routePermissionRegistry;
     }
 
     @Override
@@ -47,11 +41,8 @@ public class AuthorizationFilter implements WebFilter {
             return chain.filter(exchange);
         }
 
-        return apiRoleRepository.findAll()
-                .filter(apiRole -> pathMatcher.match(apiRole.getPath(), path))
-                .filter(apiRole -> apiRole.getMethod() == null || apiRole.getMethod().contains(method))
-                .collectList()
-                .flatMap(apiRoles -> handleAuthorization(apiRoles, exchange, chain))
+        return routePermissionRegistry.resolve(method, path)
+                .flatMap(permission -> handleAuthorization(permission, exchange, chain))
                 .onErrorResume(e -> {
                     log.error("(filter)Authorization error occurred: {}", e.getMessage(), e);
                     
@@ -68,17 +59,15 @@ public class AuthorizationFilter implements WebFilter {
                 });
     }
 
-    private Mono<Void> handleAuthorization(List<ApiRole> apiRoles, ServerWebExchange exchange, WebFilterChain chain) {
-        if (apiRoles.isEmpty()) {
+    private Mono<Void> handleAuthorization(RoutePermission permission, ServerWebExchange exchange, WebFilterChain chain) {
+        if (!permission.isRegistered()) {
             log.info("(handleAuthorization) API path is not registered in the system");
             return handleError(exchange, HttpStatus.FORBIDDEN, "auth.forbidden", ErrorResponseWriter.MSG_FORBIDDEN);
         }
 
-        Set<String> allowedRoles = apiRoles.stream()
-                .flatMap(apiRole -> apiRole.getRoles().stream())
-                .collect(Collectors.toSet());
+        Set<String> allowedRoles = permission.allowedRoles();
 
-        if (allowedRoles.contains(ROLE_PERMIT_ALL)) {
+        if (permission.isPermitAll()) {
             log.info("(handleAuthorization) API path has PERMIT_ALL access");
             return chain.filter(exchange);
         }
@@ -102,7 +91,7 @@ public class AuthorizationFilter implements WebFilter {
             return handleError(exchange, HttpStatus.UNAUTHORIZED, "auth.token_missing", ErrorResponseWriter.MSG_TOKEN_MISSING);
         }
 
-        if (allowedRoles.contains(ROLE_AUTHORIZED)) {
+        if (allowedRoles.contains(RoutePermission.ROLE_AUTHORIZED)) {
             log.info("(validateUserRoles) API path requires basic authorization only");
             return chain.filter(exchange);
         }
@@ -0,0 +1,100 @@
+package org.aibles.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.concurrency.ConcurrencyLimitProperties;
+import org.aibles.gateway.concurrency.ConcurrencyLimiterRegistry;
+import org.aibles.gateway.concurrency.GradientConcurrencyLimit;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load per downstream route once its {@link GradientConcurrencyLimit} is reached,
+ * answering 503 with {@code Retry-After} immediately instead of letting requests queue and
+ * inflate tail latency for everyone on the route.
+ *
+ * Ordered after the response cache so cache hits never take a slot. The slot is released and
+ * the RTT sampled when the response is committed, i.e. when the upstream headers are written
+ * back, so a slow client reading the body neither holds the slot nor inflates the sample. An
+ * exchange the client cancels before the commit frees its slot without a sample, since its
+ * duration says nothing about the upstream.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private final ConcurrencyLimiterRegistry limiterRegistry;
+    private final ConcurrencyLimitProperties properties;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiterRegistry limiterRegistry, ConcurrencyLimitProperties properties) {
+        this.limiterRegistry = limiterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        ConcurrencyLimiterRegistry.Limiter limiter = limiterRegistry.forRoute(route.getId());
+        if (limiter == null) {
+            return chain.filter(exchange);
+        }
+
+        GradientConcurrencyLimit limit = limiter.limit();
+        if (!limit.tryAcquire()) {
+            limiter.rejected().increment();
+            log.warn("(filter) Route {} at concurrency limit {}, shedding request", route.getId(), limit.getLimit());
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1L, properties.getRetryAfter().toSeconds())));
+            return ErrorResponseWriter.write(exchange, HttpStatus.SERVICE_UNAVAILABLE,
+                    "common.service_unavailable", ErrorResponseWriter.MSG_SERVICE_UNAVAILABLE);
+        }
+
+        int inFlightAtStart = limit.getInFlight();
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - start, inFlightAtStart,
+                        isDropped(exchange.getResponse().getStatusCode()));
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (!released.compareAndSet(false, true)) {
+                        return;
+                    }
+                    if (signal == SignalType.CANCEL) {
+                        limit.releaseWithoutSample();
+                    } else {
+                        // Failed before a response was committed, or completed without one.
+                        limit.release(System.nanoTime() - start, inFlightAtStart,
+                                signal == SignalType.ON_ERROR || isDropped(exchange.getResponse().getStatusCode()));
+                    }
+                });
+    }
+
+    /** Upstream overload statuses count as drops, not RTT samples. */
+    private static boolean isDropped(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value()
+                || status.value() == HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+}
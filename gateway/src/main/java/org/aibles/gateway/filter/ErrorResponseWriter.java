@@ -37,6 +37,9 @@ public final class ErrorResponseWriter {
     // conflicting one under the same key.
     public static final String MSG_BAD_REQUEST = "The request was invalid.";
     public static final String MSG_TIMEOUT = "The request timed out. Please try again.";
+    public static final String MSG_TOO_MANY_REQUESTS = "Too many requests. Please slow down and try again.";
+    public static final String MSG_SERVICE_UNAVAILABLE =
+            "The service is busy right now. Please try again shortly.";
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
@@ -2,6 +2,9 @@ package org.aibles.gateway.filter;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +12,7 @@ import org.aibles.core_jwt_util.dto.TokenClaims;
 import org.aibles.core_jwt_util.util.JwtUtil;
 import org.aibles.ecommerce.common_dto.exception.InternalErrorException;
 import org.aibles.ecommerce.common_dto.exception.UnauthorizedException;
+import org.aibles.gateway.revocation.TokenRevocationChecker;
 import org.apache.http.HttpHeaders;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -31,6 +35,7 @@ import reactor.util.retry.Retry;
 import java.text.ParseException;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -64,6 +69,14 @@ public class JwtAuthenticationFilter implements WebFilter {
     @Value("${jwt.token.cache.force-refresh-threshold:5}")
     private int forceRefreshThreshold;
 
+    @Value("${jwt.token.verified-cache.max-size:100000}")
+    private long verifiedCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+    private final TokenRevocationChecker tokenRevocationChecker;
+    private VerifiedTokenCache verifiedTokenCache;
+    private Timer verifyTimer;
+
     // Cache state
     private final AtomicReference<JWKSet> cachedJWKSet = new AtomicReference<>();
     private final AtomicLong lastRefreshTimestamp = new AtomicLong(0);
@@ -83,14 +96,23 @@ public class JwtAuthenticationFilter implements WebFilter {
     });
 
     // Constructor
-    public JwtAuthenticationFilter(WebClient lbWebClient) {
+    public JwtAuthenticationFilter(WebClient lbWebClient, MeterRegistry meterRegistry,
+                                   TokenRevocationChecker tokenRevocationChecker) {
         this.lbWebClient = lbWebClient;
+        this.meterRegistry = meterRegistry;
+        this.tokenRevocationChecker = tokenRevocationChecker;
     }
 
     @PostConstruct
     public void init() {
         log.info("(init) Initializing JwtAuthenticationFilter with JWK cache");
 
+        verifiedTokenCache = new VerifiedTokenCache(verifiedCacheMaxSize, meterRegistry);
+        verifyTimer = Timer.builder("gateway.jwt.verify")
+                .description("JWT signature verification and claim extraction time (cache misses only)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
         // Initial JWK fetch without blocking
         fetchAndUpdateCache()
                 .subscribeOn(Schedulers.boundedElastic())
@@ -123,8 +145,6 @@ public class JwtAuthenticationFilter implements WebFilter {
     private void onCacheRefreshSuccess(JWKSet jwkSet) {
         log.info("(onCacheRefreshSuccess) JWK Set refreshed successfully with {} keys",
                 jwkSet.getKeys().size());
-        lastRefreshTimestamp.set(System.currentTimeMillis());
-        failedValidationCount.set(0);
     }
 
     @Override
@@ -157,27 +177,75 @@ public class JwtAuthenticationFilter implements WebFilter {
     private Mono<Authentication> authenticateToken(String token) {
         log.debug("(authenticateToken) Authenticating token");
 
+        // Revocation is checked on every request, cache hit or not: a token can be revoked
+        // long after its claims were verified and cached.
+        return verifyToken(token)
+                .flatMap(claims -> tokenRevocationChecker.isRevoked(claims)
+                        .flatMap(revoked -> {
+                            if (Boolean.TRUE.equals(revoked)) {
+                                log.info("(authenticateToken) Rejected revoked token for user: {}", claims.getUserId());
+                                return Mono.error(new UnauthorizedException());
+                            }
+                            return Mono.just(toAuthentication(claims));
+                        }));
+    }
+
+    private Mono<TokenClaims> verifyToken(String token) {
+        TokenClaims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            log.debug("(verifyToken) Verified token cache hit for user: {}", cached.getEmail());
+            return Mono.just(cached);
+        }
+
+        SignedJWT signedJWT;
+        try {
+            signedJWT = SignedJWT.parse(token);
+        } catch (ParseException e) {
+            log.debug("(verifyToken) Unparseable token: {}", e.getMessage());
+            return Mono.error(new UnauthorizedException());
+        }
+
         return getJWKSet()
-                .flatMap(jwkSet -> validateTokenWithJWKSet(token, jwkSet))
-                .onErrorResume(UnauthorizedException.class, e -> {
-                    // Check if we should try with fresh keys
-                    if (shouldRefreshKeysOnFailure()) {
-                        log.info("(authenticateToken) Initial validation failed, attempting with fresh keys");
-                        return refreshAndRetryValidation(token);
+                .flatMap(jwkSet -> {
+                    // Plain expiry, not a key problem: reject without counting towards a JWKS refresh.
+                    if (isExpiredWithKnownKey(signedJWT, jwkSet)) {
+                        log.debug("(verifyToken) Token expired for known kid: {}", signedJWT.getHeader().getKeyID());
+                        return Mono.error(new UnauthorizedException());
                     }
-                    return Mono.error(e);
+                    return validateTokenWithJWKSet(token, signedJWT.getHeader().getKeyID(), jwkSet)
+                            .onErrorResume(UnauthorizedException.class, e -> {
+                                // Check if we should try with fresh keys
+                                if (shouldRefreshKeysOnFailure()) {
+                                    log.info("(verifyToken) Initial validation failed, attempting with fresh keys");
+                                    return refreshAndRetryValidation(token, signedJWT.getHeader().getKeyID());
+                                }
+                                return Mono.error(e);
+                            });
                 });
     }
 
+    private static boolean isExpiredWithKnownKey(SignedJWT signedJWT, JWKSet jwkSet) {
+        String kid = signedJWT.getHeader().getKeyID();
+        if (kid == null || jwkSet.getKeyByKeyId(kid) == null) {
+            return false;
+        }
+        try {
+            Date expirationTime = signedJWT.getJWTClaimsSet().getExpirationTime();
+            return expirationTime != null && new Date().after(expirationTime);
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
     private boolean shouldRefreshKeysOnFailure() {
         long timeSinceLastRefresh = System.currentTimeMillis() - lastRefreshTimestamp.get();
         long refreshThresholdMs = TimeUnit.MINUTES.toMillis(cacheRefreshMinutes / 2);
         return timeSinceLastRefresh > refreshThresholdMs;
     }
 
-    private Mono<Authentication> refreshAndRetryValidation(String token) {
+    private Mono<TokenClaims> refreshAndRetryValidation(String token, String keyId) {
         return fetchAndUpdateCache()
-                .flatMap(newJwkSet -> validateTokenWithJWKSet(token, newJwkSet))
+                .flatMap(newJwkSet -> validateTokenWithJWKSet(token, keyId, newJwkSet))
                 .onErrorResume(e -> {
                     log.warn("(refreshAndRetryValidation) Validation failed even with fresh keys");
                     return Mono.error(new UnauthorizedException());
@@ -189,10 +257,12 @@ public class JwtAuthenticationFilter implements WebFilter {
      * PERFORMANCE OPTIMIZATION: Now uses verifyAndExtractClaims() for single-pass verification + extraction
      * QUALITY FIX: Added null validation and removed overly broad Exception catch
      */
-    private Mono<Authentication> validateTokenWithJWKSet(String token, JWKSet jwkSet) {
+    private Mono<TokenClaims> validateTokenWithJWKSet(String token, String keyId, JWKSet jwkSet) {
         try {
             // PERFORMANCE: Single-pass verification and extraction
+            long verifyStart = System.nanoTime();
             TokenClaims claims = JwtUtil.verifyAndExtractClaims(jwkSet, token);
+            verifyTimer.record(System.nanoTime() - verifyStart, TimeUnit.NANOSECONDS);
 
             if (claims == null) {
                 log.warn("(validateTokenWithJWKSet) Token verification failed or token expired");
@@ -207,16 +277,10 @@ public class JwtAuthenticationFilter implements WebFilter {
                 return Mono.error(new UnauthorizedException());
             }
 
-            Collection<SimpleGrantedAuthority> roles = getAuthorities(claims.getRoles());
-
             log.debug("(validateTokenWithJWKSet) Token validated successfully for user: {}", claims.getEmail());
 
-            // CRITICAL BUG FIX: Using email as principal, userId as credentials (was using subject for both)
-            return Mono.just(new UsernamePasswordAuthenticationToken(
-                    claims.getEmail(),    // Principal - FIXED: was getSubjectFromToken()
-                    claims.getUserId(),   // Credentials - correct
-                    roles
-            ));
+            verifiedTokenCache.put(token, keyId, claims);
+            return Mono.just(claims);
 
         } catch (ParseException e) {
             log.error("(validateTokenWithJWKSet) Error parsing token: {}", e.getMessage());
@@ -229,6 +293,17 @@ public class JwtAuthenticationFilter implements WebFilter {
         // QUALITY FIX: Removed overly broad Exception catch - specific exceptions only
     }
 
+    private Authentication toAuthentication(TokenClaims claims) {
+        Collection<SimpleGrantedAuthority> roles = getAuthorities(claims.getRoles());
+
+        // CRITICAL BUG FIX: Using email as principal, userId as credentials (was using subject for both)
+        return new UsernamePasswordAuthenticationToken(
+                claims.getEmail(),    // Principal - FIXED: was getSubjectFromToken()
+                claims.getUserId(),   // Credentials - correct
+                roles
+        );
+    }
+
     private void trackFailedValidation() {
         long currentFailCount = failedValidationCount.incrementAndGet();
         log.debug("(trackFailedValidation) Failed validation count: {}", currentFailCount);
@@ -329,7 +404,12 @@ public class JwtAuthenticationFilter implements WebFilter {
 
         Mono<JWKSet> newOperation = fetchJWKSet()
                 .doOnNext(jwkSet -> {
-                    cachedJWKSet.set(jwkSet);
+                    JWKSet previous = cachedJWKSet.getAndSet(jwkSet);
+                    // Only claims verified with a key that is gone (or replaced) must be re-verified.
+                    verifiedTokenCache.invalidateRemovedKeys(previous, jwkSet);
+                    // Any successful refresh, scheduled or emergency, starts the failure count over.
+                    lastRefreshTimestamp.set(System.currentTimeMillis());
+                    failedValidationCount.set(0);
                     log.info("(fetchAndUpdateCache) JWK Set cached with {} keys", jwkSet.getKeys().size());
                 })
                 .doFinally(signalType -> {
@@ -0,0 +1,110 @@
+package org.aibles.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.authorization.RateLimitRule;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.aibles.gateway.ratelimit.TokenBucketRateLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admission control for routes whose api_role entry carries a {@code rateLimit}. Runs after
+ * {@link AuthorizationFilter}, so only requests that would otherwise be served spend tokens,
+ * and the authenticated principal is available to key the bucket.
+ */
+@Slf4j
+public class RateLimitFilter implements WebFilter {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final RoutePermissionRegistry routePermissionRegistry;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int trustedProxies;
+
+    public RateLimitFilter(RoutePermissionRegistry routePermissionRegistry,
+                           TokenBucketRateLimiter rateLimiter,
+                           int trustedProxies) {
+        this.routePermissionRegistry = routePermissionRegistry;
+        this.rateLimiter = rateLimiter;
+        this.trustedProxies = trustedProxies;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (path.startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+
+        return routePermissionRegistry.resolve(request.getMethod().name(), path)
+                .flatMap(permission -> {
+                    RateLimitRule rule = permission.rateLimit();
+                    if (rule == null) {
+                        return chain.filter(exchange);
+                    }
+                    return resolveSubject(exchange, rule)
+                            .flatMap(subject -> rateLimiter.tryAcquire(rule, subject))
+                            .flatMap(allowed -> {
+                                if (allowed) {
+                                    return chain.filter(exchange);
+                                }
+                                log.warn("(filter) Rate limit exceeded for route {} path {}", rule.route(), path);
+                                return ErrorResponseWriter.write(exchange, HttpStatus.TOO_MANY_REQUESTS,
+                                        "common.too_many_requests", ErrorResponseWriter.MSG_TOO_MANY_REQUESTS);
+                            });
+                });
+    }
+
+    private Mono<String> resolveSubject(ServerWebExchange exchange, RateLimitRule rule) {
+        String ipSubject = "ip:" + clientIp(exchange.getRequest(), trustedProxies);
+        if (rule.keyByIp()) {
+            return Mono.just(ipSubject);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(auth -> "user:" + auth.getName())
+                .defaultIfEmpty(ipSubject);
+    }
+
+    /**
+     * The X-Forwarded-For hop appended by the outermost of {@code trustedProxies} proxies, i.e.
+     * the {@code trustedProxies}-th entry from the right. Entries left of it are whatever the
+     * caller sent and could be rotated per request to get a fresh bucket, so they are never used.
+     * Falls back to the socket peer when no proxy is trusted or the header is shorter than expected.
+     */
+    static String clientIp(ServerHttpRequest request, int trustedProxies) {
+        if (trustedProxies > 0) {
+            List<String> hops = new ArrayList<>();
+            for (String header : request.getHeaders().getOrEmpty(FORWARDED_FOR)) {
+                for (String hop : header.split(",")) {
+                    if (!hop.isBlank()) {
+                        hops.add(hop.trim());
+                    }
+                }
+            }
+            if (hops.size() >= trustedProxies) {
+                return hops.get(hops.size() - trustedProxies);
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+}
@@ -0,0 +1,127 @@
+package org.aibles.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cache of already-verified {@link TokenClaims}, keyed by the SHA-256 digest of the raw
+ * bearer token (the token itself is never held as a key).
+ *
+ * Every entry expires exactly at the token's {@code exp}, so a cached hit can never outlive the
+ * token. Entries remember the kid they were verified with; when a JWK Set refresh removes or
+ * replaces a key, only that kid's entries are dropped, so a rotated-out key stops being honoured
+ * on the next refresh while a refresh that changes nothing keeps the cache warm.
+ */
+@Slf4j
+class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "gateway.jwt.verified";
+
+    private final Cache<String, Entry> cache;
+
+    VerifiedTokenCache(long maximumSize, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExp())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    TokenClaims get(String token) {
+        Entry entry = cache.getIfPresent(digest(token));
+        return entry == null ? null : entry.claims();
+    }
+
+    void put(String token, String keyId, TokenClaims claims) {
+        if (claims.getExpiresAt() == null || !claims.getExpiresAt().isAfter(Instant.now())) {
+            return;
+        }
+        cache.put(digest(token), new Entry(keyId == null ? "" : keyId, claims));
+    }
+
+    /**
+     * Drops the entries verified with a key that {@code current} no longer holds, or holds with
+     * different key material under the same kid. Returns the kids that were dropped.
+     */
+    Set<String> invalidateRemovedKeys(JWKSet previous, JWKSet current) {
+        if (previous == null) {
+            return Set.of();
+        }
+        Map<String, JWK> currentByKid = byKeyId(current);
+        Set<String> removed = new HashSet<>();
+        byKeyId(previous).forEach((kid, key) -> {
+            if (!key.equals(currentByKid.get(kid))) {
+                removed.add(kid);
+            }
+        });
+        if (!removed.isEmpty()) {
+            log.info("(invalidateRemovedKeys) Flushing verified tokens for removed kids: {}", removed);
+            cache.asMap().values().removeIf(entry -> removed.contains(entry.keyId()));
+        }
+        return removed;
+    }
+
+    private static Map<String, JWK> byKeyId(JWKSet jwkSet) {
+        Map<String, JWK> keys = new HashMap<>();
+        for (JWK key : jwkSet.getKeys()) {
+            keys.put(key.getKeyID() == null ? "" : key.getKeyID(), key);
+        }
+        return keys;
+    }
+
+    void invalidateAll() {
+        log.info("(invalidateAll) Flushing {} verified tokens", cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(String keyId, TokenClaims claims) {
+    }
+
+    private static final class ExpireAtTokenExp implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return Math.max(0L, Duration.between(Instant.now(), entry.claims().getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.aibles.gateway.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Permits leased from Redis per round trip and spent locally by this pod. Capped by the
+     * route's burst capacity. 1 disables local pre-aggregation.
+     */
+    private long localBatchSize = 5;
+
+    /**
+     * How long unspent leased permits stay usable. Short leases keep the cluster-wide limit
+     * accurate; permits left over when a lease lapses are simply dropped.
+     */
+    private Duration leaseDuration = Duration.ofMillis(500);
+
+    /** Admit requests when Redis is unreachable rather than rejecting all limited routes. */
+    private boolean failOpen = true;
+
+    /**
+     * Proxies in front of the gateway that append to X-Forwarded-For (e.g. 1 behind the
+     * ingress). The client address is the hop the outermost of them appended; anything further
+     * left is client-supplied and ignored. 0 ignores the header and keys on the socket peer.
+     */
+    private int trustedProxies = 0;
+
+    private String keyPrefix = "gateway:rate-limit";
+}
@@ -0,0 +1,154 @@
+package org.aibles.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.gateway.authorization.RateLimitRule;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide token buckets kept in Redis, with per-pod permit leasing.
+ *
+ * The bucket itself is refilled and debited by a single Lua script, so concurrent pods can
+ * never overdraw it. Instead of asking for one token per request, a pod asks for up to
+ * {@code local-batch-size} tokens and spends the surplus locally until its short lease
+ * lapses; under steady load only one request in {@code local-batch-size} pays a Redis round
+ * trip.
+ */
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    /**
+     * KEYS[1] = token count, KEYS[2] = last refill time (ms).
+     * ARGV[1] = replenish rate (tokens/s), ARGV[2] = burst capacity, ARGV[3] = tokens wanted.
+     * Refills by elapsed server time, grants min(wanted, whole tokens available) and returns
+     * the grant (0 = rejected). Keys expire once a full bucket would have refilled twice over.
+     */
+    private static final String TOKEN_BUCKET_LUA_SCRIPT =
+            "local tokensKey = KEYS[1]\n" +
+            "local timestampKey = KEYS[2]\n" +
+            "local rate = tonumber(ARGV[1])\n" +
+            "local capacity = tonumber(ARGV[2])\n" +
+            "local wanted = tonumber(ARGV[3])\n" +
+            "\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local ttl = math.max(1, math.ceil(capacity / rate) * 2)\n" +
+            "\n" +
+            "local tokens = tonumber(redis.call('GET', tokensKey)) or capacity\n" +
+            "local refreshed = tonumber(redis.call('GET', timestampKey)) or now\n" +
+            "local elapsed = math.max(0, now - refreshed)\n" +
+            "tokens = math.min(capacity, tokens + (elapsed * rate / 1000))\n" +
+            "\n" +
+            "local granted = math.min(wanted, math.floor(tokens))\n" +
+            "tokens = tokens - granted\n" +
+            "\n" +
+            "redis.call('SET', tokensKey, tostring(tokens), 'EX', ttl)\n" +
+            "redis.call('SET', timestampKey, tostring(now), 'EX', ttl)\n" +
+            "return granted\n";
+
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = RedisScript.of(TOKEN_BUCKET_LUA_SCRIPT, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final Cache<String, Lease> leases;
+
+    private final Counter localGrants;
+    private final Counter redisGrants;
+    private final Counter rejections;
+    private final Counter errors;
+
+    public TokenBucketRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                                  RateLimitProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.leases = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getLeaseDuration())
+                .maximumSize(100_000)
+                .build();
+        this.localGrants = decisions(meterRegistry, "local");
+        this.redisGrants = decisions(meterRegistry, "redis");
+        this.rejections = decisions(meterRegistry, "rejected");
+        this.errors = decisions(meterRegistry, "error");
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.rate-limit.decisions")
+                .description("Rate limit decisions by where the permit came from")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param subject the bucket owner within the route, e.g. {@code user:<email>} or {@code ip:<addr>}
+     * @return true if the request may proceed
+     */
+    public Mono<Boolean> tryAcquire(RateLimitRule rule, String subject) {
+        String bucket = properties.getKeyPrefix() + ":{" + rule.route() + ":" + subject + "}";
+
+        Lease lease = leases.getIfPresent(bucket);
+        if (lease != null && lease.tryTake()) {
+            localGrants.increment();
+            return Mono.just(true);
+        }
+
+        long wanted = Math.max(1L, Math.min(properties.getLocalBatchSize(), rule.burstCapacity()));
+        return redisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                        List.of(bucket + ":tokens", bucket + ":ts"),
+                        List.of(String.valueOf(rule.replenishRate()),
+                                String.valueOf(rule.burstCapacity()),
+                                String.valueOf(wanted)))
+                .next()
+                .map(granted -> {
+                    if (granted <= 0) {
+                        rejections.increment();
+                        return false;
+                    }
+                    if (granted > 1) {
+                        leases.asMap().merge(bucket, new Lease(granted - 1), Lease::absorb);
+                    }
+                    redisGrants.increment();
+                    return true;
+                })
+                .defaultIfEmpty(properties.isFailOpen())
+                .onErrorResume(e -> {
+                    errors.increment();
+                    log.error("(tryAcquire) Rate limit check failed for route {}, failOpen={}: {}",
+                            rule.route(), properties.isFailOpen(), e.getMessage());
+                    return Mono.just(properties.isFailOpen());
+                });
+    }
+
+    private static final class Lease {
+
+        private final AtomicLong remaining;
+
+        Lease(long permits) {
+            this.remaining = new AtomicLong(permits);
+        }
+
+        boolean tryTake() {
+            long current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        Lease absorb(Lease other) {
+            remaining.addAndGet(other.remaining.get());
+            return this;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.aibles.gateway.revocation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.gateway.revocation")
+public class RevocationProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How often the local Bloom filter is rebuilt from Redis. Bounds how long a freshly
+     * revoked token can still slip through this pod.
+     */
+    private Duration syncInterval = Duration.ofSeconds(5);
+
+    /** Minimum filter capacity; the filter grows to twice the live entry count when larger. */
+    private int expectedEntries = 10_000;
+
+    private double falsePositiveRate = 0.01;
+
+    /** Admit tokens when the exact Redis check fails rather than rejecting every filter hit. */
+    private boolean failOpen = true;
+}
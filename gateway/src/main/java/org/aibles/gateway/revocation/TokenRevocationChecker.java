@@ -0,0 +1,182 @@
+package org.aibles.gateway.revocation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.core_jwt_util.constant.JwtConstant;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.aibles.ecommerce.common_dto.exception.InternalErrorException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rejects access tokens revoked by the authorization-server (logout, logout-all, password
+ * change) before they expire.
+ *
+ * Each pod rebuilds a Bloom filter from the {@code revoked:entries} sorted set every
+ * {@code sync-interval}. A token whose subject and jti both miss the filter is accepted
+ * without touching Redis, which is the case for almost every request; only filter hits pay
+ * for an exact lookup of the {@code revoked:sub:} / {@code revoked:jti:} keys. Revocations
+ * newer than the last sync are not in the filter yet, so enforcement lags by at most one
+ * interval. Until the first sync lands every token gets the exact check.
+ */
+@Slf4j
+public class TokenRevocationChecker {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RevocationProperties properties;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private Disposable poller;
+
+    private final Timer syncTimer;
+    private final Counter filterMisses;
+    private final Counter exactClear;
+    private final Counter revoked;
+    private final Counter errors;
+
+    public TokenRevocationChecker(ReactiveStringRedisTemplate redisTemplate,
+                                  RevocationProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.syncTimer = Timer.builder("gateway.jwt.revocation.sync")
+                .description("Time to read revoked entries from Redis and rebuild the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("gateway.jwt.revocation.entries", current,
+                        ref -> ref.get() == null ? 0 : ref.get().entries())
+                .description("Live revocation entries in the local Bloom filter")
+                .register(meterRegistry);
+        this.filterMisses = checks(meterRegistry, "filter_miss");
+        this.exactClear = checks(meterRegistry, "exact_clear");
+        this.revoked = checks(meterRegistry, "revoked");
+        this.errors = checks(meterRegistry, "error");
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.jwt.revocation.checks")
+                .description("Access-token revocation checks by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            log.info("(init) Access-token revocation checks disabled");
+            return;
+        }
+        log.info("(init) Revocation filter sync scheduled every {}", properties.getSyncInterval());
+        poller = Flux.interval(Duration.ZERO, properties.getSyncInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> sync()
+                        .onErrorResume(e -> {
+                            log.error("(init) Revocation filter sync failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (poller != null) {
+            poller.dispose();
+        }
+    }
+
+    /** Emits true when the token has been revoked and must not be accepted. */
+    public Mono<Boolean> isRevoked(TokenClaims claims) {
+        if (!properties.isEnabled()) {
+            return Mono.just(false);
+        }
+        String subjectMember = JwtConstant.Revocation.SUBJECT_MEMBER_PREFIX + claims.getUserId();
+        String tokenMember = claims.getTokenId() == null ? null
+                : JwtConstant.Revocation.TOKEN_MEMBER_PREFIX + claims.getTokenId();
+
+        Snapshot snapshot = current.get();
+        if (snapshot != null
+                && !snapshot.filter().mightContain(subjectMember)
+                && (tokenMember == null || !snapshot.filter().mightContain(tokenMember))) {
+            filterMisses.increment();
+            return Mono.just(false);
+        }
+        return exactCheck(claims);
+    }
+
+    private Mono<Boolean> exactCheck(TokenClaims claims) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(JwtConstant.Revocation.SUBJECT_KEY_PREFIX + claims.getUserId());
+        if (claims.getTokenId() != null) {
+            keys.add(JwtConstant.Revocation.TOKEN_KEY_PREFIX + claims.getTokenId());
+        }
+        return redisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    boolean isRevoked = revokedBySubject(claims, values.get(0))
+                            || (values.size() > 1 && values.get(1) != null);
+                    (isRevoked ? revoked : exactClear).increment();
+                    return isRevoked;
+                })
+                .onErrorResume(e -> {
+                    errors.increment();
+                    log.error("(exactCheck) Revocation lookup failed: {}", e.getMessage());
+                    return properties.isFailOpen() ? Mono.just(false) : Mono.error(new InternalErrorException());
+                });
+    }
+
+    /**
+     * iat has whole-second precision, so a token minted in the same second as a logout-all is
+     * treated as revoked too; erring that way never lets a pre-revocation token through.
+     */
+    static boolean revokedBySubject(TokenClaims claims, String revokedAtMillis) {
+        if (revokedAtMillis == null) {
+            return false;
+        }
+        if (claims.getIssuedAt() == null) {
+            return true;
+        }
+        try {
+            return claims.getIssuedAt().toEpochMilli() <= Long.parseLong(revokedAtMillis);
+        } catch (NumberFormatException e) {
+            log.warn("(revokedBySubject) Malformed revocation timestamp for user: {}", claims.getUserId());
+            return true;
+        }
+    }
+
+    /** Read the live revocation entries and swap in a freshly built filter. */
+    Mono<Snapshot> sync() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Range<Double> live = Range.rightUnbounded(Range.Bound.exclusive((double) System.currentTimeMillis()));
+            return redisTemplate.opsForZSet()
+                    .rangeByScore(JwtConstant.Revocation.ENTRIES_KEY, live)
+                    .collectList()
+                    .map(members -> {
+                        BloomFilter filter = BloomFilter.create(
+                                Math.max(properties.getExpectedEntries(), members.size() * 2),
+                                properties.getFalsePositiveRate());
+                        members.forEach(filter::put);
+                        Snapshot snapshot = new Snapshot(filter, members.size());
+                        current.set(snapshot);
+                        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        log.debug("(sync) Revocation filter rebuilt with {} entries", members.size());
+                        return snapshot;
+                    });
+        });
+    }
+
+    record Snapshot(BloomFilter filter, int entries) {
+    }
+}
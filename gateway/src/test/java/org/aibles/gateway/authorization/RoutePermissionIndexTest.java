@@ -0,0 +1,118 @@
+package org.aibles.gateway.authorization;
+
+import org.aibles.gateway.entity.ApiRole;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutePermissionIndexTest {
+
+    private static ApiRole apiRole(String path, List<String> methods, String... roles) {
+        ApiRole apiRole = new ApiRole();
+        apiRole.setPath(path);
+        apiRole.setMethod(methods);
+        apiRole.setRoles(List.of(roles));
+        return apiRole;
+    }
+
+    @Test
+    void lookup_matchesWildcardPatternsUnderLiteralPrefix() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/product-service/v1/products/**", List.of("GET"), "PERMIT_ALL"),
+                apiRole("/order-service/v1/orders", List.of("POST"), "USER")));
+
+        assertThat(index.lookup("GET", "/product-service/v1/products/abc").isPermitAll()).isTrue();
+        assertThat(index.lookup("GET", "/product-service/v1/products").isPermitAll()).isTrue();
+        assertThat(index.lookup("POST", "/order-service/v1/orders").allowedRoles()).containsExactly("USER");
+    }
+
+    @Test
+    void lookup_filtersByMethod() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/order-service/v1/orders", List.of("POST"), "USER")));
+
+        assertThat(index.lookup("GET", "/order-service/v1/orders").isRegistered()).isFalse();
+        assertThat(index.lookup("DELETE", "/order-service/v1/orders").isRegistered()).isFalse();
+    }
+
+    @Test
+    void lookup_methodlessEntryAppliesToEveryMethod() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/bff-service/**", null, "AUTHORIZED"),
+                apiRole("/bff-service/v1/admin/**", List.of("GET"), "ADMIN")));
+
+        assertThat(index.lookup("GET", "/bff-service/v1/admin/users").allowedRoles())
+                .containsExactlyInAnyOrder("AUTHORIZED", "ADMIN");
+        assertThat(index.lookup("PATCH", "/bff-service/v1/cart").allowedRoles()).containsExactly("AUTHORIZED");
+    }
+
+    @Test
+    void lookup_unionsRolesAcrossPatternsAndLevels() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/**/v1/carts", List.of("GET"), "USER"),
+                apiRole("/order-service/*/carts", List.of("GET"), "ADMIN")));
+
+        assertThat(index.lookup("GET", "/order-service/v1/carts").allowedRoles())
+                .containsExactlyInAnyOrder("USER", "ADMIN");
+    }
+
+    @Test
+    void lookup_unknownPathIsUnregistered() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/product-service/v1/products/{id}", List.of("GET"), "PERMIT_ALL")));
+
+        assertThat(index.lookup("GET", "/product-service/v1/products/1/images").isRegistered()).isFalse();
+        assertThat(index.lookup("GET", "/inventory-service/v1/products/1").isRegistered()).isFalse();
+    }
+
+    @Test
+    void lookup_mostSpecificRateLimitWins() {
+        ApiRole broad = apiRole("/order-service/**", null, "USER");
+        broad.setRateLimit(rateLimit(100, 200, "IP"));
+        ApiRole narrow = apiRole("/order-service/v1/orders", List.of("POST"), "USER");
+        narrow.setRateLimit(rateLimit(5, 10, "PRINCIPAL"));
+
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(broad, narrow));
+
+        RateLimitRule rule = index.lookup("POST", "/order-service/v1/orders").rateLimit();
+        assertThat(rule.route()).isEqualTo("/order-service/v1/orders");
+        assertThat(rule.replenishRate()).isEqualTo(5);
+        assertThat(rule.keyByIp()).isFalse();
+        assertThat(index.lookup("GET", "/order-service/v1/orders").rateLimit().keyByIp()).isTrue();
+    }
+
+    @Test
+    void lookup_rateLimitPrecedenceIsBySpecificityNotInsertionOrder() {
+        ApiRole post = apiRole("/order-service/v1/orders", List.of("POST"), "USER");
+        post.setRateLimit(rateLimit(5, 10, "PRINCIPAL"));
+        ApiRole methodless = apiRole("/order-service/v1/orders", null, "USER");
+        methodless.setRateLimit(rateLimit(100, 200, "IP"));
+        ApiRole wildcard = apiRole("/order-service/v1/*", List.of("GET"), "USER");
+        wildcard.setRateLimit(rateLimit(50, 100, "IP"));
+
+        // Method-less entries are inserted after the method's own ones, on the same trie node.
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(post, methodless, wildcard));
+
+        assertThat(index.lookup("POST", "/order-service/v1/orders").rateLimit().replenishRate()).isEqualTo(5);
+        assertThat(index.lookup("GET", "/order-service/v1/orders").rateLimit().replenishRate()).isEqualTo(100);
+        assertThat(index.lookup("GET", "/order-service/v1/carts").rateLimit().replenishRate()).isEqualTo(50);
+    }
+
+    @Test
+    void lookup_routeWithoutRateLimitHasNoRule() {
+        RoutePermissionIndex index = RoutePermissionIndex.compile(List.of(
+                apiRole("/product-service/**", List.of("GET"), "PERMIT_ALL")));
+
+        assertThat(index.lookup("GET", "/product-service/v1/products").rateLimit()).isNull();
+    }
+
+    private static ApiRole.RateLimit rateLimit(long replenishRate, long burstCapacity, String keyBy) {
+        ApiRole.RateLimit rateLimit = new ApiRole.RateLimit();
+        rateLimit.setReplenishRate(replenishRate);
+        rateLimit.setBurstCapacity(burstCapacity);
+        rateLimit.setKeyBy(keyBy);
+        return rateLimit;
+    }
+}
@@ -0,0 +1,181 @@
+package org.aibles.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.gateway.authorization.RoutePermission;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheFilterTest {
+
+    private static final String PRODUCTS = "/product-service/v1/products";
+    private static final List<String> VARY = List.of("Accept", "Accept-Encoding", "Accept-Language", "Origin");
+
+    private final RoutePermissionRegistry routePermissionRegistry = mock(RoutePermissionRegistry.class);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private ResponseCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setId("products");
+        route.setPath(PRODUCTS + "/**");
+        route.setTtl(Duration.ofSeconds(30));
+        properties.getRoutes().add(route);
+        filter = new ResponseCacheFilter(properties,
+                new ResponseCacheStore(properties, null, new SimpleMeterRegistry()), routePermissionRegistry);
+        permit(Set.of("PERMIT_ALL"));
+    }
+
+    private void permit(Set<String> roles) {
+        when(routePermissionRegistry.resolve(anyString(), anyString()))
+                .thenReturn(Mono.just(new RoutePermission(roles, null)));
+    }
+
+    private GatewayFilterChain upstream(HttpStatus status, String body, String... headers) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(status);
+            for (int i = 0; i < headers.length; i += 2) {
+                exchange.getResponse().getHeaders().add(headers[i], headers[i + 1]);
+            }
+            if (body == null) {
+                return exchange.getResponse().setComplete();
+            }
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                    .wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private MockServerHttpResponse get(String path, GatewayFilterChain chain) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    @Test
+    void miss_storesTheBody_andTheNextRequestIsAHitWithoutCallingUpstream() {
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "[{\"id\":\"p1\"}]");
+
+        MockServerHttpResponse miss = get(PRODUCTS + "/p1", chain);
+        MockServerHttpResponse hit = get(PRODUCTS + "/p1", chain);
+
+        assertThat(miss.getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+        assertThat(miss.getBodyAsString().block()).isEqualTo("[{\"id\":\"p1\"}]");
+        assertThat(hit.getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(hit.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hit.getBodyAsString().block()).isEqualTo("[{\"id\":\"p1\"}]");
+        assertThat(hit.getHeaders().getETag()).isEqualTo(miss.getHeaders().getETag());
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void noContentResponse_isStoredAndReplayedAsNoContent() {
+        GatewayFilterChain chain = upstream(HttpStatus.NO_CONTENT, null);
+
+        get(PRODUCTS + "/p1", chain);
+        MockServerHttpResponse hit = get(PRODUCTS + "/p1", chain);
+
+        assertThat(hit.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(hit.getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void emptyOkBody_isStored() {
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "");
+
+        get(PRODUCTS + "?page=9", chain);
+        MockServerHttpResponse hit = get(PRODUCTS + "?page=9", chain);
+
+        assertThat(hit.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hit.getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void routeThatIsNotPermitAll_bypassesTheCache() {
+        permit(Set.of("ADMIN"));
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "[]");
+
+        MockServerHttpResponse first = get(PRODUCTS, chain);
+        get(PRODUCTS, chain);
+
+        assertThat(first.getHeaders().containsKey(ResponseCacheFilter.CACHE_STATUS_HEADER)).isFalse();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void nonGetRequest_bypassesTheCache() {
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "[]");
+
+        for (int i = 0; i < 2; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post(PRODUCTS)), chain).block();
+        }
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void responseVaryingOnAnUnkeyedHeader_isNotStored() {
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "[]", HttpHeaders.VARY, "Authorization");
+
+        get(PRODUCTS, chain);
+        get(PRODUCTS, chain);
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void cacheKey_ignoresQueryParameterOrder() {
+        String a = ResponseCacheFilter.cacheKey(
+                MockServerHttpRequest.get("/product-service/v1/products?page=1&size=20").build(), VARY);
+        String b = ResponseCacheFilter.cacheKey(
+                MockServerHttpRequest.get("/product-service/v1/products?size=20&page=1").build(), VARY);
+
+        assertThat(a).isEqualTo(b);
+    }
+
+    @Test
+    void cacheKey_differsByPathAndQuery() {
+        String page1 = ResponseCacheFilter.cacheKey(
+                MockServerHttpRequest.get("/product-service/v1/products?page=1").build(), VARY);
+        String page2 = ResponseCacheFilter.cacheKey(
+                MockServerHttpRequest.get("/product-service/v1/products?page=2").build(), VARY);
+        String detail = ResponseCacheFilter.cacheKey(
+                MockServerHttpRequest.get("/product-service/v1/products/abc").build(), VARY);
+
+        assertThat(page1).isNotEqualTo(page2).isNotEqualTo(detail);
+    }
+
+    @Test
+    void cacheKey_differsByVaryHeader() {
+        String json = ResponseCacheFilter.cacheKey(MockServerHttpRequest.get(PRODUCTS)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE).build(), VARY);
+        String xml = ResponseCacheFilter.cacheKey(MockServerHttpRequest.get(PRODUCTS)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_XML_VALUE).build(), VARY);
+
+        assertThat(json).isNotEqualTo(xml);
+    }
+}
@@ -0,0 +1,193 @@
+package org.aibles.gateway.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.gateway.authorization.RoutePermission;
+import org.aibles.gateway.authorization.RoutePermissionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SingleFlightFilterTest {
+
+    private static final List<String> VARY = List.of("Accept", "Origin");
+    private static final String PRODUCTS = "/product-service/v1/products";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> leaderGate = Sinks.empty();
+    private SingleFlightFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SingleFlightProperties properties = new SingleFlightProperties();
+        properties.getRoutes().add(PRODUCTS + "/**");
+        properties.setMaxWait(Duration.ofSeconds(5));
+        RoutePermissionRegistry routePermissionRegistry = mock(RoutePermissionRegistry.class);
+        when(routePermissionRegistry.resolve(anyString(), anyString()))
+                .thenReturn(Mono.just(new RoutePermission(Set.of("PERMIT_ALL"), null)));
+        filter = new SingleFlightFilter(properties, routePermissionRegistry, new SimpleMeterRegistry());
+    }
+
+    /**
+     * The first call is held until the gate opens and answers with the leader's status and body;
+     * every later call answers 200 "own" straight away, so a follower that went upstream shows.
+     */
+    private GatewayFilterChain upstream(HttpStatus leaderStatus, String leaderBody) {
+        return exchange -> {
+            if (upstreamCalls.incrementAndGet() > 1) {
+                return write(exchange, HttpStatus.OK, "own");
+            }
+            return leaderGate.asMono().then(Mono.defer(() -> write(exchange, leaderStatus, leaderBody)));
+        };
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String body) {
+        exchange.getResponse().setStatusCode(status);
+        if (body == null) {
+            return exchange.getResponse().setComplete();
+        }
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                .wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private MockServerWebExchange[] runLeaderAndFollower(GatewayFilterChain chain) {
+        MockServerWebExchange leader = MockServerWebExchange.from(MockServerHttpRequest.get(PRODUCTS + "/p1"));
+        MockServerWebExchange follower = MockServerWebExchange.from(MockServerHttpRequest.get(PRODUCTS + "/p1"));
+
+        Mono<Void> leading = filter.filter(leader, chain).cache();
+        leading.subscribe(v -> { }, e -> { });
+        Mono<Void> following = filter.filter(follower, chain).cache();
+        following.subscribe(v -> { }, e -> { });
+        leaderGate.tryEmitEmpty();
+
+        leading.onErrorResume(e -> Mono.empty()).block(Duration.ofSeconds(5));
+        following.block(Duration.ofSeconds(5));
+        return new MockServerWebExchange[]{leader, follower};
+    }
+
+    @Test
+    void concurrentFollower_receivesTheLeadersSuccessfulResponse() {
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(upstream(HttpStatus.OK, "[{\"id\":\"p1\"}]"));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(exchanges[1].getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchanges[1].getResponse().getHeaders().getFirst(SingleFlightFilter.SINGLE_FLIGHT_HEADER))
+                .isEqualTo("SHARED");
+        assertThat(exchanges[1].getResponse().getBodyAsString().block()).isEqualTo("[{\"id\":\"p1\"}]");
+        assertThat(exchanges[0].getResponse().getBodyAsString().block()).isEqualTo("[{\"id\":\"p1\"}]");
+    }
+
+    @Test
+    void bodylessLeaderResponse_isShared() {
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(upstream(HttpStatus.NO_CONTENT, null));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(exchanges[1].getResponse().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(exchanges[1].getResponse().getHeaders().getFirst(SingleFlightFilter.SINGLE_FLIGHT_HEADER))
+                .isEqualTo("SHARED");
+    }
+
+    @Test
+    void leaderErrorStatus_isNotShared_andTheFollowerGoesUpstream() {
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(upstream(HttpStatus.SERVICE_UNAVAILABLE, "busy"));
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(exchanges[0].getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchanges[1].getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchanges[1].getResponse().getBodyAsString().block()).isEqualTo("own");
+    }
+
+    @Test
+    void leaderResponseSettingACookie_isNotShared_andTheFollowerGoesUpstream() {
+        GatewayFilterChain chain = exchange -> {
+            if (upstreamCalls.incrementAndGet() > 1) {
+                return write(exchange, HttpStatus.OK, "own");
+            }
+            return leaderGate.asMono().then(Mono.defer(() -> {
+                exchange.getResponse().getHeaders().add(HttpHeaders.SET_COOKIE, "session=leader; HttpOnly");
+                return write(exchange, HttpStatus.OK, "leader");
+            }));
+        };
+
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(chain);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(exchanges[1].getResponse().getHeaders().containsKey(HttpHeaders.SET_COOKIE)).isFalse();
+        assertThat(exchanges[1].getResponse().getBodyAsString().block()).isEqualTo("own");
+    }
+
+    @Test
+    void sharedResponse_dropsHopByHopHeaders() {
+        GatewayFilterChain chain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return leaderGate.asMono().then(Mono.defer(() -> {
+                exchange.getResponse().getHeaders().add(HttpHeaders.CONNECTION, "keep-alive");
+                exchange.getResponse().getHeaders().add("Keep-Alive", "timeout=5");
+                exchange.getResponse().getHeaders().add(HttpHeaders.CACHE_CONTROL, "max-age=60");
+                return write(exchange, HttpStatus.OK, "shared");
+            }));
+        };
+
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(chain);
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(exchanges[1].getResponse().getHeaders().getCacheControl()).isEqualTo("max-age=60");
+        assertThat(exchanges[1].getResponse().getHeaders().containsKey(HttpHeaders.CONNECTION)).isFalse();
+        assertThat(exchanges[1].getResponse().getHeaders().containsKey("Keep-Alive")).isFalse();
+    }
+
+    @Test
+    void leaderFailure_letsTheFollowerRetryOnItsOwn() {
+        GatewayFilterChain chain = exchange -> upstreamCalls.incrementAndGet() > 1
+                ? write(exchange, HttpStatus.OK, "own")
+                : leaderGate.asMono().then(Mono.error(new IllegalStateException("connect refused")));
+
+        MockServerWebExchange[] exchanges = runLeaderAndFollower(chain);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(exchanges[1].getResponse().getBodyAsString().block()).isEqualTo("own");
+    }
+
+    @Test
+    void flightKey_sameForReorderedQueryAndUnrelatedHeaders() {
+        String a = SingleFlightFilter.flightKey(MockServerHttpRequest.get("/product-service/v1/products?page=1&size=20")
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer a")
+                .build(), VARY);
+        String b = SingleFlightFilter.flightKey(MockServerHttpRequest.get("/product-service/v1/products?size=20&page=1")
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer b")
+                .build(), VARY);
+
+        assertThat(a).isEqualTo(b);
+    }
+
+    @Test
+    void flightKey_differsByVaryHeader() {
+        String local = SingleFlightFilter.flightKey(MockServerHttpRequest.get("/product-service/v1/products/1")
+                .header("Origin", "http://localhost:5173")
+                .build(), VARY);
+        String cluster = SingleFlightFilter.flightKey(MockServerHttpRequest.get("/product-service/v1/products/1")
+                .header("Origin", "http://microecom.local")
+                .build(), VARY);
+
+        assertThat(local).isNotEqualTo(cluster);
+    }
+}
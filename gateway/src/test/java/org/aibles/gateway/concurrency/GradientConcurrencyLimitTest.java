@@ -0,0 +1,74 @@
+package org.aibles.gateway.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientConcurrencyLimitTest {
+
+    private static ConcurrencyLimitProperties properties() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        return properties;
+    }
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(30);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1_250);
+
+    @Test
+    void tryAcquire_rejectsBeyondLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties());
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void release_growsLimitWhileLatencyStaysAtBaseline() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties());
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void release_shrinksLimitWhenLatencyInflates() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties());
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, limit.getLimit(), false);
+        }
+        int learned = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(SLOW, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(learned);
+    }
+
+    @Test
+    void release_backsOffOnDropButNotBelowMinimum() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties());
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, 0, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+        assertThat(limit.getInFlight()).isZero();
+    }
+}
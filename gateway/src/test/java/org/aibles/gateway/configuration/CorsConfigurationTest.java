@@ -20,7 +20,8 @@ import static org.assertj.core.api.Assertions.assertThat;
         "eureka.client.fetch-registry=false",
         "spring.config.import=optional:vault://",
         "application.jwk-set-uri=http://authorization-server/authorization-server/v1/.well-known/jwks.json",
-        "application.gateway.cors.allowed-origins=http://localhost:3000"
+        "application.gateway.cors.allowed-origins=http://localhost:3000",
+        "application.gateway.response-cache.enabled=false"
     })
 class CorsConfigurationTest {
 
@@ -0,0 +1,91 @@
+package org.aibles.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.gateway.concurrency.ConcurrencyLimitProperties;
+import org.aibles.gateway.concurrency.ConcurrencyLimiterRegistry;
+import org.aibles.gateway.concurrency.GradientConcurrencyLimit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimiterRegistry registry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        registry = new ConcurrencyLimiterRegistry(properties, new SimpleMeterRegistry());
+        filter = new ConcurrencyLimitFilter(registry, properties);
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product-service/v1/products"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("product-service").uri("http://product-service").predicate(e -> true).build());
+        return exchange;
+    }
+
+    private GradientConcurrencyLimit limit() {
+        return registry.forRoute("product-service").limit();
+    }
+
+    @Test
+    void slotIsFreedWhenTheResponseCommits_notWhenTheBodyFinishes() {
+        AtomicInteger inFlightAfterCommit = new AtomicInteger(-1);
+
+        filter.filter(exchange(), ex -> ex.getResponse().setComplete()
+                .then(Mono.fromRunnable(() -> inFlightAfterCommit.set(limit().getInFlight()))))
+                .block();
+
+        assertThat(inFlightAfterCommit).hasValue(0);
+        assertThat(limit().getInFlight()).isZero();
+    }
+
+    @Test
+    void upstreamOverloadStatusAtCommit_backsTheLimitOff() {
+        int before = limit().getLimit();
+
+        filter.filter(exchange(), ex -> {
+            ex.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return ex.getResponse().setComplete();
+        }).block();
+
+        assertThat(limit().getLimit()).isLessThan(before);
+        assertThat(limit().getInFlight()).isZero();
+    }
+
+    @Test
+    void cancelledBeforeCommit_freesTheSlotWithoutTouchingTheLimit() {
+        int before = limit().getLimit();
+
+        Disposable subscription = filter.filter(exchange(), ex -> Mono.never()).subscribe();
+        assertThat(limit().getInFlight()).isEqualTo(1);
+        subscription.dispose();
+
+        assertThat(limit().getInFlight()).isZero();
+        assertThat(limit().getLimit()).isEqualTo(before);
+    }
+
+    @Test
+    void errorBeforeCommit_countsAsADrop() {
+        int before = limit().getLimit();
+
+        Mono<Void> failed = filter.filter(exchange(), ex -> Mono.error(new IllegalStateException("connect refused")));
+
+        assertThat(failed.onErrorResume(e -> Mono.empty()).block()).isNull();
+        assertThat(limit().getLimit()).isLessThan(before);
+        assertThat(limit().getInFlight()).isZero();
+    }
+}
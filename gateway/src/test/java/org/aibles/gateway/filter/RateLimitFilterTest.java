@@ -0,0 +1,42 @@
+package org.aibles.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static MockServerHttpRequest request(String... forwardedFor) {
+        return MockServerHttpRequest.get("/order-service/v1/orders")
+                .header("X-Forwarded-For", forwardedFor)
+                .remoteAddress(new InetSocketAddress("10.0.0.9", 40000))
+                .build();
+    }
+
+    @Test
+    void clientIp_usesHopAppendedByTrustedIngress_notClientSuppliedOnes() {
+        assertThat(RateLimitFilter.clientIp(request("1.1.1.1, 203.0.113.7"), 1)).isEqualTo("203.0.113.7");
+        // Rotating the client-supplied part does not move the caller to a fresh bucket.
+        assertThat(RateLimitFilter.clientIp(request("2.2.2.2, 203.0.113.7"), 1)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void clientIp_countsHopsAcrossRepeatedHeaders() {
+        assertThat(RateLimitFilter.clientIp(request("1.1.1.1", "203.0.113.7", "10.1.0.2"), 2)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void clientIp_withoutTrustedProxies_ignoresHeaderAndUsesSocketPeer() {
+        assertThat(RateLimitFilter.clientIp(request("1.1.1.1"), 0)).isEqualTo("10.0.0.9");
+    }
+
+    @Test
+    void clientIp_headerShorterThanProxyChain_fallsBackToSocketPeer() {
+        assertThat(RateLimitFilter.clientIp(request("203.0.113.7"), 2)).isEqualTo("10.0.0.9");
+        assertThat(RateLimitFilter.clientIp(MockServerHttpRequest.get("/")
+                .remoteAddress(new InetSocketAddress("10.0.0.9", 40000)).build(), 1)).isEqualTo("10.0.0.9");
+    }
+}
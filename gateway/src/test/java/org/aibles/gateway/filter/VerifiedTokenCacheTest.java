@@ -0,0 +1,98 @@
+package org.aibles.gateway.filter;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+
+    private static TokenClaims claims(Instant expiresAt) {
+        return TokenClaims.builder()
+                .userId("user-1")
+                .email("user@example.com")
+                .roles(List.of("USER"))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static RSAKey rsaKey(String kid) throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(kid).generate();
+    }
+
+    @Test
+    void get_returnsClaimsForSameTokenOnly() {
+        cache.put("token-a", "kid-1", claims(Instant.now().plusSeconds(60)));
+
+        assertThat(cache.get("token-a")).isNotNull();
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    void put_skipsAlreadyExpiredTokens() {
+        cache.put("token-a", "kid-1", claims(Instant.now().minusSeconds(1)));
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void invalidateAll_flushesEveryEntry() {
+        cache.put("token-a", "kid-1", claims(Instant.now().plusSeconds(60)));
+
+        cache.invalidateAll();
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void invalidateRemovedKeys_keepsEntriesWhenTheKeySetIsUnchanged() throws JOSEException {
+        RSAKey key = rsaKey("kid-1");
+        cache.put("token-a", "kid-1", claims(Instant.now().plusSeconds(60)));
+
+        assertThat(cache.invalidateRemovedKeys(new JWKSet(key.toPublicJWK()), new JWKSet(key.toPublicJWK())))
+                .isEmpty();
+        assertThat(cache.get("token-a")).isNotNull();
+    }
+
+    @Test
+    void invalidateRemovedKeys_dropsOnlyEntriesOfRemovedKids() throws JOSEException {
+        RSAKey kept = rsaKey("kid-1");
+        RSAKey removed = rsaKey("kid-2");
+        cache.put("token-a", "kid-1", claims(Instant.now().plusSeconds(60)));
+        cache.put("token-b", "kid-2", claims(Instant.now().plusSeconds(60)));
+
+        cache.invalidateRemovedKeys(
+                new JWKSet(List.of(kept.toPublicJWK(), removed.toPublicJWK())),
+                new JWKSet(List.of(kept.toPublicJWK(), rsaKey("kid-3").toPublicJWK())));
+
+        assertThat(cache.get("token-a")).isNotNull();
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    void invalidateRemovedKeys_treatsReplacedKeyMaterialUnderTheSameKidAsRemoved() throws JOSEException {
+        cache.put("token-a", "kid-1", claims(Instant.now().plusSeconds(60)));
+
+        assertThat(cache.invalidateRemovedKeys(
+                new JWKSet(rsaKey("kid-1").toPublicJWK()),
+                new JWKSet(rsaKey("kid-1").toPublicJWK())))
+                .containsExactly("kid-1");
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void digest_isStableAndDoesNotLeakTheToken() {
+        assertThat(VerifiedTokenCache.digest("token-a")).isEqualTo(VerifiedTokenCache.digest("token-a"));
+        assertThat(VerifiedTokenCache.digest("token-a")).doesNotContain("token-a");
+    }
+}
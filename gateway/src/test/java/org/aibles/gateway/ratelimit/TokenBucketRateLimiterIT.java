@@ -0,0 +1,90 @@
+package org.aibles.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.gateway.authorization.RateLimitRule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the token-bucket Lua script against a real Redis. */
+@Testcontainers
+class TokenBucketRateLimiterIT {
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+    static LettuceConnectionFactory connectionFactory;
+    static ReactiveStringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    private static TokenBucketRateLimiter limiter(long localBatchSize) {
+        return limiter("it:" + UUID.randomUUID(), localBatchSize);
+    }
+
+    private static TokenBucketRateLimiter limiter(String keyPrefix, long localBatchSize) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setLocalBatchSize(localBatchSize);
+        properties.setFailOpen(false);
+        properties.setKeyPrefix(keyPrefix);
+        return new TokenBucketRateLimiter(redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void burstCapacityIsGrantedThenRequestsAreRejected() {
+        TokenBucketRateLimiter limiter = limiter(1);
+        RateLimitRule rule = new RateLimitRule("/r", 1, 3, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(rule, "user:a").block()).isTrue();
+        }
+        assertThat(limiter.tryAcquire(rule, "user:a").block()).isFalse();
+        // Another subject has its own bucket.
+        assertThat(limiter.tryAcquire(rule, "user:b").block()).isTrue();
+    }
+
+    @Test
+    void podsSharingTheBucketCannotOverdrawIt() {
+        RateLimitRule rule = new RateLimitRule("/r", 1, 6, false);
+        String keyPrefix = "it:" + UUID.randomUUID();
+        TokenBucketRateLimiter podA = limiter(keyPrefix, 4);
+        TokenBucketRateLimiter podB = limiter(keyPrefix, 4);
+
+        int granted = 0;
+        for (int i = 0; i < 10; i++) {
+            granted += Boolean.TRUE.equals(podA.tryAcquire(rule, "user:a").block()) ? 1 : 0;
+            granted += Boolean.TRUE.equals(podB.tryAcquire(rule, "user:a").block()) ? 1 : 0;
+        }
+        assertThat(granted).isEqualTo(6);
+    }
+
+    @Test
+    void bucketRefillsAtReplenishRate() throws InterruptedException {
+        TokenBucketRateLimiter limiter = limiter(1);
+        RateLimitRule rule = new RateLimitRule("/r", 20, 1, false);
+
+        assertThat(limiter.tryAcquire(rule, "user:a").block()).isTrue();
+        assertThat(limiter.tryAcquire(rule, "user:a").block()).isFalse();
+        Thread.sleep(120);
+        assertThat(limiter.tryAcquire(rule, "user:a").block()).isTrue();
+    }
+}
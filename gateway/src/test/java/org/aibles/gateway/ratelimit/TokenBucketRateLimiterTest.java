@@ -0,0 +1,64 @@
+package org.aibles.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.gateway.authorization.RateLimitRule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TokenBucketRateLimiterTest {
+
+    private static final RateLimitRule RULE = new RateLimitRule("/order-service/v1/orders", 1, 10, false);
+
+    private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+
+    private TokenBucketRateLimiter limiter(boolean failOpen) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setFailOpen(failOpen);
+        return new TokenBucketRateLimiter(redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_spendsLeasedPermitsLocallyBeforeAskingRedisAgain() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(5L), Flux.just(0L));
+        TokenBucketRateLimiter limiter = limiter(true);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(RULE, "user:a").block()).isTrue();
+        }
+        assertThat(limiter.tryAcquire(RULE, "user:a").block()).isFalse();
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_redisError_followsFailOpenSetting() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("redis down")));
+
+        assertThat(limiter(true).tryAcquire(RULE, "user:a").block()).isTrue();
+        assertThat(limiter(false).tryAcquire(RULE, "user:a").block()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_bucketsAreScopedByRouteAndSubject() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        limiter(true).tryAcquire(RULE, "ip:203.0.113.7").block();
+
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("gateway:rate-limit:{/order-service/v1/orders:ip:203.0.113.7}:tokens",
+                        "gateway:rate-limit:{/order-service/v1/orders:ip:203.0.113.7}:ts")),
+                anyList());
+    }
+}
@@ -0,0 +1,58 @@
+package org.aibles.gateway.revocation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.core_jwt_util.dto.TokenClaims;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationCheckerTest {
+
+    private final ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, String> values = mock(ReactiveValueOperations.class);
+    private final TokenRevocationChecker checker =
+            new TokenRevocationChecker(redis, new RevocationProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void revokedBySubject_comparesIssueTimeWithRevocationTime() {
+        long revokedAt = 1_700_000_000_500L;
+        TokenClaims before = TokenClaims.builder().userId("u").issuedAt(Instant.ofEpochSecond(1_699_999_990L)).build();
+        TokenClaims sameSecond = TokenClaims.builder().userId("u").issuedAt(Instant.ofEpochSecond(1_700_000_000L)).build();
+        TokenClaims after = TokenClaims.builder().userId("u").issuedAt(Instant.ofEpochSecond(1_700_000_001L)).build();
+
+        assertThat(TokenRevocationChecker.revokedBySubject(before, String.valueOf(revokedAt))).isTrue();
+        assertThat(TokenRevocationChecker.revokedBySubject(sameSecond, String.valueOf(revokedAt))).isTrue();
+        assertThat(TokenRevocationChecker.revokedBySubject(after, String.valueOf(revokedAt))).isFalse();
+        assertThat(TokenRevocationChecker.revokedBySubject(after, null)).isFalse();
+    }
+
+    @Test
+    void isRevoked_rejectsATokenRevokedByItsJti() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.multiGet(List.of("revoked:sub:u", "revoked:jti:jti-1")))
+                .thenReturn(Mono.just(Arrays.asList(null, "1")));
+        TokenClaims claims = TokenClaims.builder().userId("u").tokenId("jti-1").issuedAt(Instant.now()).build();
+
+        assertThat(checker.isRevoked(claims).block()).isTrue();
+    }
+
+    @Test
+    void isRevoked_acceptsATokenWithNoRevocationEntry() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.multiGet(List.of("revoked:sub:u", "revoked:jti:jti-1")))
+                .thenReturn(Mono.just(Arrays.asList(null, null)));
+        TokenClaims claims = TokenClaims.builder().userId("u").tokenId("jti-1").issuedAt(Instant.now()).build();
+
+        assertThat(checker.isRevoked(claims).block()).isFalse();
+    }
+}
@@ -1,6 +1,7 @@
 package org.aibles.ecommerce.inventory_service.configuration;
 
 import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.inventory_service.entity.InventoryProduct;
@@ -9,6 +10,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * On inventory-service startup: (1) backfills the materialized `inventory_product.stock`
@@ -22,6 +24,10 @@ import java.util.List;
  * On Redis loss/restart, this runner reseeds all counters from the DB floor,
  * restoring reservation capability without manual intervention.
  *
+ * Products in flash-sale (sharded) mode are reconciled as a whole: base counter and every
+ * shard are cleared and the stock is spread evenly over the shards again. Every product is
+ * also registered in the stocked-products set that order-service warms its caches from.
+ *
  * Wired as a manual @Bean in InventoryServiceConfiguration (no @Component).
  */
 @Slf4j
@@ -29,11 +35,14 @@ public class AvailableStockSeeder implements ApplicationRunner {
 
     private final MasterInventoryProductRepository masterInventoryProductRepository;
     private final RedisRepository redisRepository;
+    private final ShardedStockRepository shardedStockRepository;
 
     public AvailableStockSeeder(MasterInventoryProductRepository masterInventoryProductRepository,
-                                RedisRepository redisRepository) {
+                                RedisRepository redisRepository,
+                                ShardedStockRepository shardedStockRepository) {
         this.masterInventoryProductRepository = masterInventoryProductRepository;
         this.redisRepository = redisRepository;
+        this.shardedStockRepository = shardedStockRepository;
     }
 
     @Override
@@ -44,9 +53,14 @@ public class AvailableStockSeeder implements ApplicationRunner {
         log.info("(AvailableStockSeeder) Seeding productAvailable counters from inventory_product.stock");
 
         List<InventoryProduct> products = masterInventoryProductRepository.findAll();
+        Map<String, Integer> sharded = products.isEmpty() ? Map.of() : shardedStockRepository.shardedProducts();
 
         for (InventoryProduct product : products) {
             long stock = product.getStock() != null ? Math.max(0L, product.getStock()) : 0L;
+            if (sharded.containsKey(product.getId())) {
+                shardedStockRepository.reseed(product.getId(), stock);
+                continue;
+            }
             String key = RedisConstant.AVAILABLE_PRODUCT_KEY + product.getId();
 
             redisRepository.delete(key);
@@ -56,6 +70,9 @@ public class AvailableStockSeeder implements ApplicationRunner {
             }
         }
 
-        log.info("(AvailableStockSeeder) Seeded available counters for {} products", products.size());
+        shardedStockRepository.register(products.stream().map(InventoryProduct::getId).toList());
+
+        log.info("(AvailableStockSeeder) Seeded available counters for {} products, {} of them sharded",
+                products.size(), sharded.size());
     }
 }
@@ -3,6 +3,7 @@ package org.aibles.ecommerce.inventory_service.configuration;
 import org.aibles.ecommerce.core_exception_api.configuration.EnableCoreExceptionApi;
 import org.aibles.ecommerce.core_order_cache.configuration.EnableOrderCache;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.configuration.EnableCoreRedis;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.core_routing_db.configuration.EnableDatasourceRouting;
@@ -12,7 +13,10 @@ import org.aibles.ecommerce.inventory_service.repository.master.MasterProductQua
 import org.aibles.ecommerce.inventory_service.repository.slave.SlaveInventoryProductRepository;
 import org.aibles.ecommerce.inventory_service.repository.slave.SlaveProductQuantityHistoryRepo;
 import org.aibles.ecommerce.inventory_service.service.InventoryService;
+import org.aibles.ecommerce.inventory_service.scheduler.ShardedStockRebalanceJob;
 import org.aibles.ecommerce.inventory_service.service.InventoryServiceImpl;
+import org.aibles.ecommerce.inventory_service.service.StockShardingService;
+import org.aibles.ecommerce.inventory_service.service.StockShardingServiceImpl;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
@@ -20,11 +24,13 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @EnableDatasourceRouting
 @EnableCoreExceptionApi
 @EnableAsync
+@EnableScheduling
 @EnableMongoAuditing
 @EnableCoreRedis
 @EnableOrderCache
@@ -34,8 +40,21 @@ public class InventoryServiceConfiguration {
     @Bean
     public AvailableStockSeeder availableStockSeeder(
             MasterInventoryProductRepository masterInventoryProductRepository,
-            RedisRepository redisRepository) {
-        return new AvailableStockSeeder(masterInventoryProductRepository, redisRepository);
+            RedisRepository redisRepository,
+            ShardedStockRepository shardedStockRepository) {
+        return new AvailableStockSeeder(masterInventoryProductRepository, redisRepository, shardedStockRepository);
+    }
+
+    @Bean
+    public StockShardingService stockShardingService(SlaveInventoryProductRepository slaveInventoryProductRepository,
+                                                     ShardedStockRepository shardedStockRepository,
+                                                     RedissonClient redissonClient) {
+        return new StockShardingServiceImpl(slaveInventoryProductRepository, shardedStockRepository, redissonClient);
+    }
+
+    @Bean
+    public ShardedStockRebalanceJob shardedStockRebalanceJob(StockShardingService stockShardingService) {
+        return new ShardedStockRebalanceJob(stockShardingService);
     }
 
     @Bean
@@ -44,7 +63,7 @@ public class InventoryServiceConfiguration {
                                              MasterProductQuantityHistoryRepo masterProductQuantityHistoryRepo,
                                              SlaveProductQuantityHistoryRepo slaveProductQuantityHistoryRepo,
                                              ApplicationEventPublisher applicationEventPublisher,
-                                             RedisRepository redisRepository,
+                                             ShardedStockRepository shardedStockRepository,
                                              PendingOrderCacheRepository pendingOrderCacheRepository,
                                              RedissonClient redissonClient,
                                              ProcessedPaymentEventRepository processedPaymentEventRepository) {
@@ -53,7 +72,7 @@ public class InventoryServiceConfiguration {
                 masterProductQuantityHistoryRepo,
                 slaveProductQuantityHistoryRepo,
                 applicationEventPublisher,
-                redisRepository,
+                shardedStockRepository,
                 pendingOrderCacheRepository,
                 redissonClient,
                 processedPaymentEventRepository);
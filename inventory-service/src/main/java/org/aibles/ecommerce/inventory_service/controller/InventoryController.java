@@ -6,7 +6,9 @@ import org.aibles.ecommerce.common_dto.request.PagingRequest;
 import org.aibles.ecommerce.common_dto.response.BaseResponse;
 import org.aibles.ecommerce.common_dto.response.PagingResponse;
 import org.aibles.ecommerce.inventory_service.dto.request.InventoryProductUpdateRequest;
+import org.aibles.ecommerce.inventory_service.dto.request.StockShardingRequest;
 import org.aibles.ecommerce.inventory_service.service.InventoryService;
+import org.aibles.ecommerce.inventory_service.service.StockShardingService;
 import org.springframework.web.bind.annotation.*;
 
 @Slf4j
@@ -15,9 +17,11 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockShardingService stockShardingService;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, StockShardingService stockShardingService) {
         this.inventoryService = inventoryService;
+        this.stockShardingService = stockShardingService;
     }
 
     @PatchMapping("/{id}")
@@ -33,4 +37,21 @@ public class InventoryController {
         PagingResponse response = inventoryService.listAll(pagingRequest.getPage(), pagingRequest.getSize());
         return BaseResponse.ok(response);
     }
+
+    @GetMapping("/{id}/shards")
+    public BaseResponse getShards(@PathVariable("id") String id) {
+        log.info("(getShards)id: {}", id);
+        return BaseResponse.ok(stockShardingService.get(id));
+    }
+
+    /**
+     * Switches a product in or out of flash-sale mode while orders keep flowing: shards &gt; 1
+     * spreads its available stock over that many counters, 1 folds it back into one. Sending
+     * the current count again rebalances the shards.
+     */
+    @PatchMapping("/{id}/shards")
+    public BaseResponse updateShards(@PathVariable("id") String id, @RequestBody @Valid StockShardingRequest request) {
+        log.info("(updateShards)id: {}, request: {}", id, request);
+        return BaseResponse.ok(stockShardingService.update(id, request.getShards()));
+    }
 }
@@ -0,0 +1,24 @@
+package org.aibles.ecommerce.inventory_service.dto.request;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class StockShardingRequest {
+
+    /** 1 switches the product back to a single counter. */
+    @NotNull
+    @Min(1)
+    @Max(OrderCacheConstant.MAX_SHARDS)
+    private Integer shards;
+}
@@ -0,0 +1,24 @@
+package org.aibles.ecommerce.inventory_service.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class StockShardingResponse {
+
+    private String id;
+    private int shards;
+    private List<Long> shardAvailable;
+    private long baseAvailable;
+    private long available;
+}
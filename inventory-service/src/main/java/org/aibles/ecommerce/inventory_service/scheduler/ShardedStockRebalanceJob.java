@@ -0,0 +1,26 @@
+package org.aibles.ecommerce.inventory_service.scheduler;
+
+import org.aibles.ecommerce.inventory_service.service.StockShardingService;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Periodically evens out sharded (flash-sale) stock counters and folds stock released onto the
+ * base counter back into the shards. Reservations already steal from other shards when theirs
+ * is empty; this keeps stealing the exception rather than the rule.
+ *
+ * Only one instance runs a pass at a time, and never while a product's mode is being switched;
+ * the service holds the lock, others skip the pass.
+ */
+public class ShardedStockRebalanceJob {
+
+    private final StockShardingService stockShardingService;
+
+    public ShardedStockRebalanceJob(StockShardingService stockShardingService) {
+        this.stockShardingService = stockShardingService;
+    }
+
+    @Scheduled(fixedDelayString = "${application.sharded-stock.rebalance-interval:PT10S}")
+    public void rebalance() {
+        stockShardingService.rebalanceAll();
+    }
+}
@@ -13,8 +13,8 @@ import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
 import org.aibles.ecommerce.common_dto.response.PagingResponse;
 import org.aibles.ecommerce.inventory_service.dto.response.InventoryProductListResponse;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
-import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.inventory_service.constant.PaymentEventType;
 import org.aibles.ecommerce.inventory_service.entity.InventoryProduct;
 import org.aibles.ecommerce.inventory_service.entity.ProcessedPaymentEvent;
@@ -57,7 +57,7 @@ public class InventoryServiceImpl implements InventoryService {
 
     private final ApplicationEventPublisher applicationEventPublisher;
 
-    private final RedisRepository redisRepository;
+    private final ShardedStockRepository shardedStockRepository;
 
     private final PendingOrderCacheRepository pendingOrderCacheRepository;
 
@@ -70,7 +70,7 @@ public class InventoryServiceImpl implements InventoryService {
                                 MasterProductQuantityHistoryRepo masterProductQuantityHistoryRepo,
                                 SlaveProductQuantityHistoryRepo slaveProductQuantityHistoryRepo,
                                 ApplicationEventPublisher applicationEventPublisher,
-                                RedisRepository redisRepository,
+                                ShardedStockRepository shardedStockRepository,
                                 PendingOrderCacheRepository pendingOrderCacheRepository,
                                 RedissonClient redissonClient,
                                 ProcessedPaymentEventRepository processedPaymentEventRepository) {
@@ -79,7 +79,7 @@ public class InventoryServiceImpl implements InventoryService {
         this.masterProductQuantityHistoryRepo = masterProductQuantityHistoryRepo;
         this.slaveProductQuantityHistoryRepo = slaveProductQuantityHistoryRepo;
         this.applicationEventPublisher = applicationEventPublisher;
-        this.redisRepository = redisRepository;
+        this.shardedStockRepository = shardedStockRepository;
         this.pendingOrderCacheRepository = pendingOrderCacheRepository;
         this.redissonClient = redissonClient;
         this.processedPaymentEventRepository = processedPaymentEventRepository;
@@ -92,6 +92,7 @@ public class InventoryServiceImpl implements InventoryService {
 
         if (!slaveInventoryProductRepository.existsById(productUpdate.getId().toString())) {
             masterInventoryProductRepository.save(InventoryProduct.from(productUpdate));
+            shardedStockRepository.register(List.of(productUpdate.getId().toString()));
             return;
         }
         Optional<InventoryProduct> inventoryProductOptional =
@@ -160,12 +161,8 @@ public class InventoryServiceImpl implements InventoryService {
         // Sync materialized stock column (admin ops: use adjustStock, operator accepts responsibility)
         masterInventoryProductRepository.adjustStock(id, actualQuantity);
 
-        // Sync Redis available counter
-        if (actualQuantity > 0) {
-            redisRepository.incr(RedisConstant.AVAILABLE_PRODUCT_KEY + id, actualQuantity);
-        } else if (actualQuantity < 0) {
-            redisRepository.decr(RedisConstant.AVAILABLE_PRODUCT_KEY + id, Math.abs(actualQuantity));
-        }
+        // Sync Redis available counter; removals must reach the shards of a flash-sale product
+        shardedStockRepository.adjust(id, actualQuantity);
 
         ProductQuantityUpdated eventData = ProductQuantityUpdated.newBuilder()
                 .setProductId(id)
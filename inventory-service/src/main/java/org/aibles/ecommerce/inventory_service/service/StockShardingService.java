@@ -0,0 +1,12 @@
+package org.aibles.ecommerce.inventory_service.service;
+
+import org.aibles.ecommerce.inventory_service.dto.response.StockShardingResponse;
+
+public interface StockShardingService {
+
+    StockShardingResponse get(String id);
+
+    StockShardingResponse update(String id, int shards);
+
+    void rebalanceAll();
+}
@@ -0,0 +1,151 @@
+package org.aibles.ecommerce.inventory_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.exception.InternalErrorException;
+import org.aibles.ecommerce.common_dto.exception.NotFoundException;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.inventory_service.dto.response.StockShardingResponse;
+import org.aibles.ecommerce.inventory_service.repository.slave.SlaveInventoryProductRepository;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin switch for flash-sale (sharded) stock counters. Switching happens while orders keep
+ * flowing: see {@link ShardedStockRepository} for why that can only cause brief false
+ * "out of stock" answers and never an oversell.
+ *
+ * Mode switches and rebalance passes share one Redisson lock: a rebalance that read the shards
+ * before a concurrent {@code disable} drained them would otherwise hand stock back onto shards
+ * no reservation looks at any more.
+ */
+@Slf4j
+public class StockShardingServiceImpl implements StockShardingService {
+
+    private static final String LOCK_KEY = "lock:shardedStockRebalance";
+    private static final int LOCK_WAIT_TIME_SECONDS = 5;
+
+    private final SlaveInventoryProductRepository slaveInventoryProductRepository;
+    private final ShardedStockRepository shardedStockRepository;
+    private final RedissonClient redissonClient;
+
+    public StockShardingServiceImpl(SlaveInventoryProductRepository slaveInventoryProductRepository,
+                                    ShardedStockRepository shardedStockRepository,
+                                    RedissonClient redissonClient) {
+        this.slaveInventoryProductRepository = slaveInventoryProductRepository;
+        this.shardedStockRepository = shardedStockRepository;
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public StockShardingResponse get(String id) {
+        log.info("(get)id: {}", id);
+        checkExists(id);
+        List<Long> counters = shardedStockRepository.counters(id);
+        List<Long> shardAvailable = counters.subList(0, counters.size() - 1);
+        long baseAvailable = counters.get(counters.size() - 1);
+        return StockShardingResponse.builder()
+                .id(id)
+                .shards(Math.max(1, shardAvailable.size()))
+                .shardAvailable(shardAvailable)
+                .baseAvailable(baseAvailable)
+                .available(counters.stream().mapToLong(Long::longValue).sum())
+                .build();
+    }
+
+    @Override
+    public StockShardingResponse update(String id, int shards) {
+        log.info("(update)id: {}, shards: {}", id, shards);
+        checkExists(id);
+        RLock lock = acquireLock();
+        try {
+            if (shards > 1) {
+                // Also the way to force a rebalance: re-applying the current count redistributes.
+                shardedStockRepository.enable(id, shards);
+            } else {
+                shardedStockRepository.disable(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return get(id);
+    }
+
+    @Override
+    public void rebalanceAll() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.debug("(rebalanceAll) Another instance is rebalancing or switching modes, skipping");
+            return;
+        }
+        try {
+            rebalanceSkewed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebalanceSkewed() {
+        Map<String, Integer> sharded = shardedStockRepository.shardedProducts();
+        for (String id : sharded.keySet()) {
+            try {
+                List<Long> counters = shardedStockRepository.counters(id);
+                if (isSkewed(counters)) {
+                    shardedStockRepository.rebalance(id);
+                }
+            } catch (Exception e) {
+                log.error("(rebalanceAll) Failed to rebalance product {}, error: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Worth rebalancing when stock sits on the base counter (releases, admin adjustments) or
+     * the shards drifted apart by more than half the average share, so that a reservation
+     * landing on the emptiest shard mostly succeeds without stealing.
+     */
+    static boolean isSkewed(List<Long> counters) {
+        int shards = counters.size() - 1;
+        if (shards < 1) {
+            return false;
+        }
+        if (counters.get(shards) != 0) {
+            return true;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            long value = counters.get(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            total += value;
+        }
+        return max - min > Math.max(1, total / shards / 2);
+    }
+
+    private RLock acquireLock() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        try {
+            if (lock.tryLock(LOCK_WAIT_TIME_SECONDS, TimeUnit.SECONDS)) {
+                return lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("(acquireLock) Interrupted while waiting for lock with key : {}", LOCK_KEY, e);
+            throw new InternalErrorException("inventory.lock.interrupted", Map.of("key", LOCK_KEY));
+        }
+        log.error("(acquireLock) Failed to acquire lock with key : {}", LOCK_KEY);
+        throw new InternalErrorException("inventory.lock.acquire_failed", Map.of("key", LOCK_KEY));
+    }
+
+    private void checkExists(String id) {
+        if (!slaveInventoryProductRepository.existsById(id)) {
+            log.warn("(checkExists)id: {} is invalid", id);
+            throw new NotFoundException("inventory.product.not_found", Map.of("id", id));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.aibles.ecommerce.inventory_service.configuration;
 
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.inventory_service.entity.InventoryProduct;
@@ -10,6 +11,7 @@ import org.mockito.InOrder;
 import org.springframework.boot.DefaultApplicationArguments;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 
@@ -17,13 +19,15 @@ class AvailableStockSeederTest {
 
     private MasterInventoryProductRepository masterInventoryProductRepository;
     private RedisRepository redisRepository;
+    private ShardedStockRepository shardedStockRepository;
     private AvailableStockSeeder seeder;
 
     @BeforeEach
     void setUp() {
         masterInventoryProductRepository = mock(MasterInventoryProductRepository.class);
         redisRepository = mock(RedisRepository.class);
-        seeder = new AvailableStockSeeder(masterInventoryProductRepository, redisRepository);
+        shardedStockRepository = mock(ShardedStockRepository.class);
+        seeder = new AvailableStockSeeder(masterInventoryProductRepository, redisRepository, shardedStockRepository);
     }
 
     @Test
@@ -56,6 +60,8 @@ class AvailableStockSeederTest {
 
         verify(redisRepository).delete(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-2");
         verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-2", 15L);
+
+        verify(shardedStockRepository).register(List.of("prod-1", "prod-2"));
     }
 
     @Test
@@ -109,4 +115,25 @@ class AvailableStockSeederTest {
         verify(masterInventoryProductRepository).backfillStockFromLedger();
         verifyNoInteractions(redisRepository);
     }
+
+    @Test
+    void run_reseedsShardedProductAcrossItsShards() throws Exception {
+        InventoryProduct sharded = new InventoryProduct();
+        sharded.setId("prod-flash");
+        sharded.setStock(1000L);
+
+        InventoryProduct plain = new InventoryProduct();
+        plain.setId("prod-plain");
+        plain.setStock(7L);
+
+        when(masterInventoryProductRepository.findAll()).thenReturn(List.of(sharded, plain));
+        when(shardedStockRepository.shardedProducts()).thenReturn(Map.of("prod-flash", 8));
+
+        seeder.run(new DefaultApplicationArguments());
+
+        verify(shardedStockRepository).reseed("prod-flash", 1000L);
+        verify(redisRepository, never()).delete(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-flash");
+        verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-plain", 7L);
+        verify(shardedStockRepository, never()).reseed(eq("prod-plain"), anyLong());
+    }
 }
@@ -1,6 +1,7 @@
 package org.aibles.ecommerce.inventory_service.service;
 
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.inventory_service.constant.PaymentEventType;
@@ -32,6 +33,7 @@ class InventoryCommitPathTest {
     private SlaveProductQuantityHistoryRepo slaveProductQuantityHistoryRepo;
     private ApplicationEventPublisher applicationEventPublisher;
     private RedisRepository redisRepository;
+    private ShardedStockRepository shardedStockRepository;
     private PendingOrderCacheRepository pendingOrderCacheRepository;
     private RedissonClient redissonClient;
     private ProcessedPaymentEventRepository processedPaymentEventRepository;
@@ -46,6 +48,7 @@ class InventoryCommitPathTest {
         slaveProductQuantityHistoryRepo = mock(SlaveProductQuantityHistoryRepo.class);
         applicationEventPublisher = mock(ApplicationEventPublisher.class);
         redisRepository = mock(RedisRepository.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
         pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
         redissonClient = mock(RedissonClient.class);
         processedPaymentEventRepository = mock(ProcessedPaymentEventRepository.class);
@@ -56,7 +59,7 @@ class InventoryCommitPathTest {
                 masterProductQuantityHistoryRepo,
                 slaveProductQuantityHistoryRepo,
                 applicationEventPublisher,
-                redisRepository,
+                shardedStockRepository,
                 pendingOrderCacheRepository,
                 redissonClient,
                 processedPaymentEventRepository
@@ -92,6 +95,7 @@ class InventoryCommitPathTest {
                 eq(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1"), anyLong());
         verify(redisRepository, never()).incr(
                 eq(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1"), anyLong());
+        verify(shardedStockRepository, never()).adjust(eq("prod-1"), anyLong());
     }
 
     @Test
@@ -54,8 +54,9 @@ public class EventListenerHandler {
         );
 
         if (converted != null) {
-            publishToTopics(converted, Collections.singletonList(
-                    "inventory-service.product.update"
+            publishToTopics(converted, List.of(
+                    "inventory-service.product.update",
+                    "gateway.product.update"
             ));
         }
     }
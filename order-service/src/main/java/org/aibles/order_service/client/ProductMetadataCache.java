@@ -0,0 +1,137 @@
+package org.aibles.order_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.ProductUpdate;
+import org.aibles.ecommerce.common_dto.response.InventoryProductIdsResponse;
+import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Local copy of product price, name and image URL, so creating an order does not need an
+ * inventory round trip. Stock is never cached here: the Redis available counters are the
+ * reservation authority, and products come back with a null quantity.
+ *
+ * The cache is warmed at startup for every product with a stock counter and kept current by
+ * {@code ProductUpdate} events, which overwrite the cached entry. A miss falls back to inventory
+ * gRPC for the missing products only, behind that client's circuit breaker; products inventory
+ * does not return are not cached, so they are looked up again on the next order. Entries also
+ * expire after {@code ttl} as a bound on staleness should an event be missed.
+ */
+@Slf4j
+public class ProductMetadataCache {
+
+    static final String CACHE_NAME = "order.product.metadata";
+
+    private final InventoryGrpcClientService inventoryGrpcClientService;
+    private final ShardedStockRepository shardedStockRepository;
+    private final int warmBatchSize;
+    private final Cache<String, ProductMetadata> cache;
+    private final Counter fallbackProducts;
+
+    public ProductMetadataCache(InventoryGrpcClientService inventoryGrpcClientService,
+                                ShardedStockRepository shardedStockRepository,
+                                long maximumSize,
+                                Duration ttl,
+                                int warmBatchSize,
+                                MeterRegistry meterRegistry) {
+        this.inventoryGrpcClientService = inventoryGrpcClientService;
+        this.shardedStockRepository = shardedStockRepository;
+        this.warmBatchSize = warmBatchSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.fallbackProducts = Counter.builder("order.product.metadata.fallbacks")
+                .description("Products whose metadata had to be fetched from inventory over gRPC")
+                .register(meterRegistry);
+        log.info("(ProductMetadataCache) maximumSize: {}, ttl: {}", maximumSize, ttl);
+    }
+
+    /**
+     * Metadata of the given products, from the cache where possible and from inventory for the
+     * rest. Products unknown to inventory are left out of the response.
+     */
+    public InventoryProductIdsResponse fetchProducts(Collection<String> productIds) {
+        Map<String, ProductMetadata> products = cache.getAll(productIds, this::load);
+        return new InventoryProductIdsResponse(productIds.stream()
+                .distinct()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(ProductMetadata::toResponse)
+                .toList());
+    }
+
+    /** Applies a product update; products this pod has not cached are left to load on demand. */
+    public void update(ProductUpdate productUpdate) {
+        ProductMetadata updated = new ProductMetadata(productUpdate.getId().toString(),
+                productUpdate.getName().toString(),
+                productUpdate.getPrice(),
+                productUpdate.getImageUrl() != null ? productUpdate.getImageUrl().toString() : null);
+        cache.asMap().computeIfPresent(updated.id(), (id, current) -> updated);
+    }
+
+    /**
+     * Loads every product with a stock counter before the pod reports ready, so the first
+     * orders after a deploy are not all misses. A failure leaves the cache to fill on demand.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        try {
+            List<String> productIds = new ArrayList<>(shardedStockRepository.productIds());
+            for (int from = 0; from < productIds.size(); from += warmBatchSize) {
+                List<String> batch = productIds.subList(from, Math.min(from + warmBatchSize, productIds.size()));
+                cache.putAll(fetchFromInventory(batch));
+            }
+            log.info("(warm) Cached metadata of {} products", cache.estimatedSize());
+        } catch (Exception e) {
+            log.error("(warm) Failed to warm product metadata, filling on demand instead", e);
+        }
+    }
+
+    private Map<String, ProductMetadata> load(Set<? extends String> productIds) {
+        log.info("(load) {} products not cached, fetching from inventory", productIds.size());
+        fallbackProducts.increment(productIds.size());
+        return fetchFromInventory(List.copyOf(productIds));
+    }
+
+    private Map<String, ProductMetadata> fetchFromInventory(List<String> productIds) {
+        return inventoryGrpcClientService.fetchInventoryData(productIds).getInventoryProducts().stream()
+                .map(ProductMetadata::from)
+                .collect(Collectors.toMap(ProductMetadata::id, Function.identity(), (a, b) -> a));
+    }
+
+    private record ProductMetadata(String id, String name, Double price, String imageUrl) {
+
+        private static ProductMetadata from(InventoryProductResponse product) {
+            return new ProductMetadata(product.getId(), product.getName(), product.getPrice(), product.getImageUrl());
+        }
+
+        private InventoryProductResponse toResponse() {
+            return InventoryProductResponse.builder()
+                    .id(id)
+                    .name(name)
+                    .price(price)
+                    .imageUrl(imageUrl)
+                    .build();
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package org.aibles.order_service.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.aibles.ecommerce.core_exception_api.configuration.EnableCoreExceptionApi;
 import org.aibles.ecommerce.core_order_cache.configuration.EnableOrderCache;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.OrderAcceptanceRepository;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.configuration.EnableCoreRedis;
+import org.aibles.ecommerce.core_redis.configuration.EnableIdempotency;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.ecommerce.core_routing_db.configuration.EnableDatasourceRouting;
 import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.CartStorage;
+import org.aibles.order_service.constant.ReservationMode;
 import org.aibles.order_service.repository.ProcessedPaymentEventRepository;
 import org.aibles.order_service.repository.master.MasterOrderItemRepo;
 import org.aibles.order_service.repository.master.MasterOrderRepo;
@@ -15,18 +23,31 @@ import org.aibles.order_service.repository.master.MasterShoppingCartRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderRepo;
 import org.aibles.order_service.repository.slave.SlaveShoppingCartRepo;
+import org.aibles.order_service.scheduler.CartWriteBehindFlusher;
+import org.aibles.order_service.scheduler.ExpiredOrderProcessor;
+import org.aibles.order_service.service.OrderAcceptanceService;
 import org.aibles.order_service.service.OrderService;
 import org.aibles.order_service.service.ShoppingCartService;
+import org.aibles.order_service.service.impl.OrderAcceptanceServiceImpl;
 import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.RedisShoppingCartServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
 import org.aibles.order_service.service.impl.ShoppingCartServiceImpl;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 @EnableCoreExceptionApi
@@ -34,38 +55,123 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @EnableDiscoveryClient
 @EnableCoreRedis
 @EnableOrderCache
+@EnableIdempotency
 @EnableJpaAuditing
 @EnableMongoAuditing
 @EnableAsync
 public class OrderServiceConfiguration {
 
+    @Value("${application.order.reservation-mode:LOCKED}")
+    private ReservationMode reservationMode;
+
+    @Value("${application.cart.storage:MYSQL}")
+    private CartStorage cartStorage;
+
+    @Bean
+    public ReservationBatcher reservationBatcher(
+            PendingOrderCacheRepository pendingOrderCacheRepository,
+            RedisRepository redisRepository,
+            @Value("${application.order.reservation-batch.enabled:true}") boolean enabled,
+            @Value("${application.order.reservation-batch.window:1ms}") Duration window,
+            @Value("${application.order.reservation-batch.max-size:128}") int maxSize,
+            @Value("${application.order.reservation-batch.timeout:2s}") Duration timeout,
+            MeterRegistry meterRegistry) {
+        return new ReservationBatcher(pendingOrderCacheRepository, redisRepository, enabled, window, maxSize,
+                timeout, meterRegistry);
+    }
+
+    @Bean
+    public ExpiredOrderProcessor expiredOrderProcessor(
+            PendingOrderCacheRepository pendingOrderCacheRepository,
+            @Value("${application.order.expiry.batch-size:200}") int batchSize,
+            @Value("${application.order.expiry.max-batches-per-run:50}") int maxBatchesPerRun,
+            @Value("${application.order.expiry.parallelism:4}") int parallelism,
+            @Value("${application.order.expiry.claim-timeout:60s}") Duration claimTimeout,
+            MeterRegistry meterRegistry) {
+        return new ExpiredOrderProcessor(pendingOrderCacheRepository, batchSize, maxBatchesPerRun, parallelism,
+                claimTimeout, Clock.systemUTC(), meterRegistry);
+    }
+
     @Bean
     public ShoppingCartService shoppingCartService(MasterShoppingCartRepo masterShoppingCartRepo,
                                                    SlaveShoppingCartRepo slaveShoppingCartRepo,
-                                                   MasterShoppingCartItemRepo masterShoppingCartItemRepo) {
+                                                   MasterShoppingCartItemRepo masterShoppingCartItemRepo,
+                                                   CartCacheRepository cartCacheRepository) {
+        if (cartStorage == CartStorage.REDIS) {
+            return new RedisShoppingCartServiceImpl(cartCacheRepository, masterShoppingCartItemRepo);
+        }
         return new ShoppingCartServiceImpl(masterShoppingCartRepo, slaveShoppingCartRepo, masterShoppingCartItemRepo);
     }
 
     @Bean
-    public OrderService orderService(InventoryGrpcClientService inventoryGrpcClientService,
+    @ConditionalOnProperty(prefix = "application.cart", name = "storage", havingValue = "REDIS")
+    public CartWriteBehindFlusher cartWriteBehindFlusher(
+            CartCacheRepository cartCacheRepository,
+            MasterShoppingCartRepo masterShoppingCartRepo,
+            MasterShoppingCartItemRepo masterShoppingCartItemRepo,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.cart.flush-batch-size:200}") int batchSize,
+            @Value("${application.cart.claim-timeout:60s}") Duration claimTimeout,
+            MeterRegistry meterRegistry) {
+        return new CartWriteBehindFlusher(cartCacheRepository, masterShoppingCartRepo, masterShoppingCartItemRepo,
+                transactionManager, batchSize, claimTimeout, meterRegistry);
+    }
+
+    @Bean
+    public ProductMetadataCache productMetadataCache(
+            InventoryGrpcClientService inventoryGrpcClientService,
+            ShardedStockRepository shardedStockRepository,
+            @Value("${application.product-metadata.maximum-size:100000}") long maximumSize,
+            @Value("${application.product-metadata.ttl:1h}") Duration ttl,
+            @Value("${application.product-metadata.warm-batch-size:500}") int warmBatchSize,
+            MeterRegistry meterRegistry) {
+        return new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, maximumSize, ttl,
+                warmBatchSize, meterRegistry);
+    }
+
+    @Bean
+    public OrderService orderService(ProductMetadataCache productMetadataCache,
                                      RedisRepository redisRepository,
                                      PendingOrderCacheRepository pendingOrderCacheRepository,
+                                     ShardedStockRepository shardedStockRepository,
+                                     ReservationBatcher reservationBatcher,
                                      MasterOrderRepo masterOrderRepo,
                                      MasterOrderItemRepo masterOrderItemRepo,
                                      RedissonClient redissonClient,
                                      ProcessedPaymentEventRepository processedPaymentEventRepository,
                                      ApplicationEventPublisher eventPublisher,
                                      SlaveOrderRepo slaveOrderRepo,
-                                     SlaveOrderItemRepo slaveOrderItemRepo) {
-        return new OrderServiceImpl(inventoryGrpcClientService,
+                                     SlaveOrderItemRepo slaveOrderItemRepo,
+                                     MeterRegistry meterRegistry) {
+        return new OrderServiceImpl(productMetadataCache,
                 redisRepository,
                 pendingOrderCacheRepository,
+                shardedStockRepository,
+                reservationBatcher,
                 masterOrderRepo,
                 masterOrderItemRepo,
                 redissonClient,
                 processedPaymentEventRepository,
                 eventPublisher,
                 slaveOrderRepo,
-                slaveOrderItemRepo);
+                slaveOrderItemRepo,
+                reservationMode,
+                meterRegistry);
+    }
+
+    @Bean
+    public OrderAcceptanceService orderAcceptanceService(
+            OrderService orderService,
+            OrderAcceptanceRepository orderAcceptanceRepository,
+            SlaveOrderRepo slaveOrderRepo,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${application.kafka.topics.order-service.order.requested}") String topic,
+            @Value("${application.order.async-acceptance.status-ttl:1h}") Duration statusTtl,
+            @Value("${application.order.async-acceptance.send-timeout:5s}") Duration sendTimeout,
+            @Value("${application.order.async-acceptance.max-attempts:3}") int maxAttempts,
+            @Value("${application.order.async-acceptance.retry-backoff:500ms}") Duration retryBackoff,
+            MeterRegistry meterRegistry) {
+        return new OrderAcceptanceServiceImpl(orderService, orderAcceptanceRepository, slaveOrderRepo,
+                kafkaTemplate, topic, statusTtl, sendTimeout, maxAttempts, retryBackoff, meterRegistry);
     }
 }
@@ -0,0 +1,13 @@
+package org.aibles.order_service.constant;
+
+/**
+ * Where {@code ShoppingCartService} keeps the authoritative cart.
+ */
+public enum CartStorage {
+
+    /** Every cart read and write goes to MySQL. */
+    MYSQL,
+
+    /** Carts live in Redis; a write-behind flusher persists changes to MySQL in batches. */
+    REDIS
+}
@@ -0,0 +1,16 @@
+package org.aibles.order_service.constant;
+
+/**
+ * How {@code POST /v1/orders} handles a new order.
+ */
+public enum OrderAcceptanceMode {
+
+    /** Reserve stock and persist the order on the request thread; answers 201 with the order. */
+    SYNC,
+
+    /**
+     * Validate and enqueue the request on a Kafka topic keyed by user; answers 202 with an order
+     * handle whose status is polled while workers reserve and persist queued orders in batches.
+     */
+    ASYNC
+}
@@ -0,0 +1,8 @@
+package org.aibles.order_service.constant;
+
+public enum OrderAcceptanceStatus {
+
+    QUEUED,
+    CREATED,
+    REJECTED
+}
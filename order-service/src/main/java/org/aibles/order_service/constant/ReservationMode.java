@@ -0,0 +1,13 @@
+package org.aibles.order_service.constant;
+
+/**
+ * How {@code OrderServiceImpl.create} serialises stock reservation.
+ */
+public enum ReservationMode {
+
+    /** Per-product Redisson fair locks held around validation and reservation. */
+    LOCKED,
+
+    /** No locks: the available-counter Lua script is the only serialisation point. */
+    LOCK_FREE
+}
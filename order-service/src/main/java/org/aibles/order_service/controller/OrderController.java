@@ -5,12 +5,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.aibles.ecommerce.common_dto.request.PagingRequest;
 import org.aibles.ecommerce.common_dto.response.BaseResponse;
 import org.aibles.ecommerce.common_dto.response.PagingResponse;
+import org.aibles.ecommerce.core_redis.idempotency.IdempotencyService;
+import org.aibles.order_service.constant.OrderAcceptanceMode;
 import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
 import org.aibles.order_service.dto.response.OrderCancelResponse;
+import org.aibles.order_service.dto.response.OrderCreatedResponse;
 import org.aibles.order_service.dto.response.OrderDetailResponse;
+import org.aibles.order_service.dto.response.OrderHistoryResponse;
 import org.aibles.order_service.dto.response.OrderSummaryResponse;
+import org.aibles.order_service.service.OrderAcceptanceService;
 import org.aibles.order_service.service.OrderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @Slf4j
@@ -19,17 +27,44 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderAcceptanceService orderAcceptanceService;
+    private final IdempotencyService idempotencyService;
+    private final OrderAcceptanceMode acceptanceMode;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           OrderAcceptanceService orderAcceptanceService,
+                           IdempotencyService idempotencyService,
+                           @Value("${application.order.acceptance-mode:SYNC}") OrderAcceptanceMode acceptanceMode) {
         this.orderService = orderService;
+        this.orderAcceptanceService = orderAcceptanceService;
+        this.idempotencyService = idempotencyService;
+        this.acceptanceMode = acceptanceMode;
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public BaseResponse create(@RequestHeader("X-User-Id") String userId, @RequestBody @Valid OrderRequest request) {
-        log.info("(create)request : {}", request);
-        var response = orderService.create(userId, request);
-        return BaseResponse.created(response);
+    public ResponseEntity<BaseResponse> create(@RequestHeader("X-User-Id") String userId,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                               @RequestBody @Valid OrderRequest request) {
+        log.info("(create)request : {}, idempotencyKey: {}, mode: {}", request, idempotencyKey, acceptanceMode);
+        if (acceptanceMode == OrderAcceptanceMode.ASYNC) {
+            var accepted = idempotencyService.execute("orders:" + userId, idempotencyKey,
+                    idempotencyService.fingerprint(userId, request), OrderAcceptedResponse.class,
+                    () -> orderAcceptanceService.accept(userId, request));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Location", "/v1/orders/" + accepted.getOrderId() + "/acceptance")
+                    .body(BaseResponse.from(HttpStatus.ACCEPTED.value(), HttpStatus.ACCEPTED.getReasonPhrase(), accepted));
+        }
+        var response = idempotencyService.execute("orders:" + userId, idempotencyKey,
+                idempotencyService.fingerprint(userId, request), OrderCreatedResponse.class,
+                () -> orderService.create(userId, request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(BaseResponse.created(response));
+    }
+
+    @GetMapping("/{orderId}/acceptance")
+    @ResponseStatus(HttpStatus.OK)
+    public BaseResponse acceptance(@RequestHeader("X-User-Id") String userId, @PathVariable String orderId) {
+        OrderAcceptedResponse orderAcceptedResponse = orderAcceptanceService.status(userId, orderId);
+        return BaseResponse.ok(orderAcceptedResponse);
     }
 
     @GetMapping
@@ -39,6 +74,15 @@ public class OrderController {
         return BaseResponse.ok(pagingResponse);
     }
 
+    @GetMapping("/history")
+    @ResponseStatus(HttpStatus.OK)
+    public BaseResponse history(@RequestHeader("X-User-Id") String userId,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "20") int limit) {
+        OrderHistoryResponse orderHistoryResponse = orderService.history(userId, cursor, limit);
+        return BaseResponse.ok(orderHistoryResponse);
+    }
+
     @GetMapping("/{orderId}")
     @ResponseStatus(HttpStatus.OK)
     public BaseResponse get(@RequestHeader("X-User-Id") String userId, @PathVariable String orderId) {
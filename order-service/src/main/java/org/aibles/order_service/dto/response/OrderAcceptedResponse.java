@@ -0,0 +1,24 @@
+package org.aibles.order_service.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.aibles.order_service.constant.OrderAcceptanceStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class OrderAcceptedResponse {
+
+    private String orderId;
+
+    private OrderAcceptanceStatus status;
+
+    /** Message code of the rejection; null unless {@code status} is REJECTED. */
+    private String errorCode;
+}
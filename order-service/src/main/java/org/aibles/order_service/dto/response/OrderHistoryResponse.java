@@ -0,0 +1,21 @@
+package org.aibles.order_service.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class OrderHistoryResponse {
+
+    private List<OrderSummaryResponse> items;
+
+    /** Pass back as {@code cursor} for the next, older page; null on the last page. */
+    private String nextCursor;
+}
@@ -6,23 +6,25 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.aibles.order_service.constant.OrderStatus;
+import org.aibles.order_service.util.IdGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "\"order\"")
+@Table(name = "\"order\"", indexes = @Index(name = "idx_order_user_created_id", columnList = "user_id, created_at, id"))
 @Builder
-public class Order {
+public class Order implements Persistable<String> {
 
     @Id
+    @Column(columnDefinition = "char(36) character set ascii")
     private String id;
 
     @Enumerated(EnumType.STRING)
@@ -43,8 +45,18 @@ public class Order {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    /**
+     * Ids are assigned before persisting (asynchronously accepted orders carry theirs from the
+     * request), so "new" cannot mean "id is null"; auditing fills createdAt on first insert.
+     * Otherwise save() would issue a SELECT per order to decide between persist and merge.
+     */
+    @Override
+    public boolean isNew() {
+        return createdAt == null;
+    }
+
     @PrePersist
     private void generateId() {
-        this.id = this.id == null ? UUID.randomUUID().toString() : this.id;
+        this.id = this.id == null ? IdGenerator.timeOrderedUuid() : this.id;
     }
 }
@@ -5,8 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.aibles.order_service.util.IdGenerator;
 
 @Entity
+@Table(indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +16,7 @@ import lombok.NoArgsConstructor;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(columnDefinition = "char(36) character set ascii")
     private String id;
 
     @Column(nullable = false)
@@ -23,7 +25,7 @@ public class OrderItem {
     @Column(nullable = false)
     private Long quantity;
 
-    @Column(nullable = false)
+    @Column(nullable = false, columnDefinition = "char(36) character set ascii")
     private String orderId;
 
     @Column(nullable = false)
@@ -34,4 +36,9 @@ public class OrderItem {
 
     @Column(name = "image_url", length = 512)
     private String imageUrl;
+
+    @PrePersist
+    private void generateId() {
+        this.id = this.id == null ? IdGenerator.timeOrderedUuid() : this.id;
+    }
 }
@@ -0,0 +1,11 @@
+package org.aibles.order_service.exception;
+
+import org.aibles.ecommerce.common_dto.exception.BaseException;
+
+public class OrderQueueUnavailableException extends BaseException {
+
+    public OrderQueueUnavailableException() {
+        setStatus(503);
+        setCode("common.service_unavailable");
+    }
+}
@@ -0,0 +1,11 @@
+package org.aibles.order_service.exception;
+
+import org.aibles.ecommerce.common_dto.exception.BaseException;
+
+public class ReservationUnavailableException extends BaseException {
+
+    public ReservationUnavailableException() {
+        setStatus(503);
+        setCode("common.service_unavailable");
+    }
+}
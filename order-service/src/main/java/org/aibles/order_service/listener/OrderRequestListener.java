@@ -0,0 +1,55 @@
+package org.aibles.order_service.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
+import org.aibles.order_service.service.OrderAcceptanceService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker side of asynchronous order acceptance: drains the order request topic a whole poll at
+ * a time, so a burst of checkouts costs one inventory fetch, one reservation round trip and one
+ * batched insert per poll. A failing batch is retried by {@link OrderAcceptanceService#process}
+ * and finally recorded as rejected; if the worker dies mid-batch the poll is redelivered and
+ * orders already decided are skipped.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "application.order", name = "acceptance-mode", havingValue = "ASYNC")
+public class OrderRequestListener {
+
+    private final OrderAcceptanceService orderAcceptanceService;
+
+    public OrderRequestListener(OrderAcceptanceService orderAcceptanceService) {
+        this.orderAcceptanceService = orderAcceptanceService;
+    }
+
+    @KafkaListener(groupId = "${application.kafka.group-id.order.create}",
+            topics = "${application.kafka.topics.order-service.order.requested}",
+            batch = "true",
+            concurrency = "${application.order.async-acceptance.concurrency:3}",
+            properties = "max.poll.records=${application.order.async-acceptance.max-batch-size:200}")
+    public void handleOrderRequests(List<ConsumerRecord<String, Object>> records) {
+        log.info("(handleOrderRequests) records: {}", records.size());
+
+        List<OrderRequested> requests = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> consumerRecord : records) {
+            if (consumerRecord.value() instanceof OrderRequested request) {
+                requests.add(request);
+            } else {
+                log.warn("(handleOrderRequests) Skipping unexpected record on {}-{}@{}: {}",
+                        consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(),
+                        consumerRecord.value());
+            }
+        }
+
+        if (!requests.isEmpty()) {
+            orderAcceptanceService.process(requests);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.aibles.order_service.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.PaymentCanceled;
+import org.aibles.ecommerce.common_dto.avro_kafka.PaymentFailed;
+import org.aibles.ecommerce.common_dto.avro_kafka.PaymentSuccess;
+import org.aibles.order_service.constant.PaymentEventType;
+import org.aibles.order_service.entity.ProcessedPaymentEvent;
+import org.aibles.order_service.service.OrderService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch counterpart of {@link OrderServiceListener}: consumes the three payment result topics
+ * a whole poll at a time and hands the lot to {@link OrderService#handlePaymentEvents}, so a
+ * saga burst costs one bulk insert, one Lua evaluation and one UPDATE per status per poll
+ * instead of per record. If the batch fails it is redelivered as a whole; events recorded by a
+ * completed earlier delivery are then skipped, the rest are applied again.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "application.kafka.batch-listener", name = "enabled", havingValue = "true")
+public class OrderServiceBatchListener {
+
+    private final OrderService orderService;
+
+    public OrderServiceBatchListener(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @KafkaListener(groupId = "${application.kafka.group-id.order.update-status}",
+            topics = {
+                    "${application.kafka.topics.order-service.order.canceled-status}",
+                    "${application.kafka.topics.order-service.order.failed-status}",
+                    "${application.kafka.topics.order-service.order.success-status}"
+            },
+            batch = "true",
+            properties = "max.poll.records=${application.kafka.batch-listener.max-poll-records:500}")
+    public void handlePaymentResults(List<ConsumerRecord<String, Object>> records) {
+        log.info("(handlePaymentResults) records: {}", records.size());
+
+        List<ProcessedPaymentEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> consumerRecord : records) {
+            Object value = consumerRecord.value();
+            PaymentEventType eventType;
+            String orderId;
+            if (value instanceof PaymentSuccess success) {
+                eventType = PaymentEventType.PAYMENT_SUCCESS;
+                orderId = success.getOrderId().toString();
+            } else if (value instanceof PaymentFailed paymentFailed) {
+                eventType = PaymentEventType.PAYMENT_FAILED;
+                orderId = paymentFailed.getOrderId().toString();
+            } else if (value instanceof PaymentCanceled paymentCanceled) {
+                eventType = PaymentEventType.PAYMENT_CANCELED;
+                orderId = paymentCanceled.getOrderId().toString();
+            } else {
+                log.warn("(handlePaymentResults) Skipping unexpected record on {}-{}@{}: {}",
+                        consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(), value);
+                continue;
+            }
+            events.add(ProcessedPaymentEvent.builder()
+                    .orderId(orderId)
+                    .eventType(eventType)
+                    .kafkaPartition(consumerRecord.partition())
+                    .kafkaOffset(consumerRecord.offset())
+                    .build());
+        }
+
+        if (!events.isEmpty()) {
+            orderService.handlePaymentEvents(events);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.aibles.ecommerce.common_dto.avro_kafka.PaymentCanceled;
 import org.aibles.ecommerce.common_dto.avro_kafka.PaymentFailed;
 import org.aibles.ecommerce.common_dto.avro_kafka.PaymentSuccess;
 import org.aibles.order_service.service.OrderService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
@@ -13,6 +14,8 @@ import org.springframework.stereotype.Component;
 
 @Component
 @Slf4j
+@ConditionalOnProperty(prefix = "application.kafka.batch-listener", name = "enabled", havingValue = "false",
+        matchIfMissing = true)
 public class OrderServiceListener {
 
     private final OrderService orderService;
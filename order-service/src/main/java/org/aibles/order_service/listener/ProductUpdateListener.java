@@ -0,0 +1,31 @@
+package org.aibles.order_service.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.ProductUpdate;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this pod's {@link ProductMetadataCache} current from the product updates the orchestrator
+ * relays to inventory. Every pod holds its own copy, so the consumer group id is unique per pod
+ * (see {@code application.kafka.group-id.order.product-metadata}).
+ */
+@Component
+@Slf4j
+public class ProductUpdateListener {
+
+    private final ProductMetadataCache productMetadataCache;
+
+    public ProductUpdateListener(ProductMetadataCache productMetadataCache) {
+        this.productMetadataCache = productMetadataCache;
+    }
+
+    @KafkaListener(groupId = "${application.kafka.group-id.order.product-metadata}",
+            topics = "${application.kafka.topics.inventory-service.product.update}")
+    public void handleProductUpdate(@Payload ProductUpdate productUpdate) {
+        log.info("(handleProductUpdate) Product {} updated", productUpdate.getId());
+        productMetadataCache.update(productUpdate);
+    }
+}
@@ -11,5 +11,6 @@ import org.springframework.stereotype.Repository;
  * that attempting to insert a duplicate event will throw DuplicateKeyException.
  */
 @Repository
-public interface ProcessedPaymentEventRepository extends MongoRepository<ProcessedPaymentEvent, String> {
+public interface ProcessedPaymentEventRepository extends MongoRepository<ProcessedPaymentEvent, String>,
+        ProcessedPaymentEventRepositoryCustom {
 }
\ No newline at end of file
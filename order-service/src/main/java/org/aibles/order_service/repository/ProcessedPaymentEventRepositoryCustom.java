@@ -0,0 +1,24 @@
+package org.aibles.order_service.repository;
+
+import org.aibles.order_service.entity.ProcessedPaymentEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessedPaymentEventRepositoryCustom {
+
+    /**
+     * Inserts all events in one unordered bulk write. Events already recorded are rejected by
+     * the unique (orderId, eventType) index without stopping the rest of the write.
+     *
+     * @return the events that were newly recorded, i.e. not processed before
+     */
+    List<ProcessedPaymentEvent> insertAllNew(List<ProcessedPaymentEvent> events);
+
+    /**
+     * Looks up which of the given events are already recorded, in one query.
+     *
+     * @return the subset of {@code events} whose (orderId, eventType) is recorded
+     */
+    List<ProcessedPaymentEvent> findProcessed(Collection<ProcessedPaymentEvent> events);
+}
@@ -0,0 +1,80 @@
+package org.aibles.order_service.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.order_service.entity.ProcessedPaymentEvent;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Repository
+public class ProcessedPaymentEventRepositoryCustomImpl implements ProcessedPaymentEventRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProcessedPaymentEventRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<ProcessedPaymentEvent> insertAllNew(List<ProcessedPaymentEvent> events) {
+        log.info("(insertAllNew) Recording {} payment events", events.size());
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProcessedPaymentEvent.class)
+                    .insert(events)
+                    .execute();
+            return events;
+        } catch (BulkOperationException e) {
+            Set<Integer> duplicates = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(error.getIndex());
+            }
+
+            List<ProcessedPaymentEvent> inserted = new ArrayList<>(events.size() - duplicates.size());
+            for (int i = 0; i < events.size(); i++) {
+                if (!duplicates.contains(i)) {
+                    inserted.add(events.get(i));
+                }
+            }
+            log.info("(insertAllNew) {} of {} payment events were already processed", duplicates.size(), events.size());
+            return inserted;
+        }
+    }
+
+    @Override
+    public List<ProcessedPaymentEvent> findProcessed(Collection<ProcessedPaymentEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        Set<String> orderIds = new HashSet<>();
+        events.forEach(event -> orderIds.add(event.getOrderId()));
+
+        Query query = Query.query(Criteria.where("orderId").in(orderIds));
+        query.fields().include("orderId", "eventType");
+        Set<String> recorded = new HashSet<>();
+        mongoTemplate.find(query, ProcessedPaymentEvent.class)
+                .forEach(event -> recorded.add(event.getOrderId() + ":" + event.getEventType()));
+
+        return events.stream()
+                .filter(event -> recorded.contains(event.getOrderId() + ":" + event.getEventType()))
+                .toList();
+    }
+}
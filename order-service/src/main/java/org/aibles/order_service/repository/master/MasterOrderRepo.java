@@ -7,10 +7,16 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface MasterOrderRepo extends JpaRepository<Order, String> {
 
     @Modifying
     @Query("update Order o set o.status = :status where o.id = :orderId")
     void updateStatus(String orderId, OrderStatus status);
+
+    @Modifying
+    @Query("update Order o set o.status = :status where o.id in :orderIds")
+    int updateStatusIn(Collection<String> orderIds, OrderStatus status);
 }
@@ -6,6 +6,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MasterShoppingCartItemRepo extends JpaRepository<ShoppingCartItem, String> {
 
@@ -23,4 +26,24 @@ public interface MasterShoppingCartItemRepo extends JpaRepository<ShoppingCartIt
                                     price = new.price
             """, nativeQuery = true)
     void upsertItem(String id, String cartId, String productId, Long quantity, Double price);
+
+    // Write-behind target: the Redis cart is authoritative, so quantities are set, not added.
+    @Modifying
+    @Query(value = """
+            INSERT INTO shopping_cart_item (id, shopping_cart_id, product_id, quantity, price)
+            VALUES (:id, :cartId, :productId, :quantity, :price) AS new
+            ON DUPLICATE KEY UPDATE quantity = new.quantity,
+                                    price = new.price
+            """, nativeQuery = true)
+    void replaceItem(String id, String cartId, String productId, Long quantity, Double price);
+
+    List<ShoppingCartItem> findAllByShoppingCartId(String shoppingCartId);
+
+    @Modifying
+    @Query("delete from ShoppingCartItem sci where sci.shoppingCartId = :cartId and sci.productId not in :productIds")
+    void deleteItemsNotIn(String cartId, Collection<String> productIds);
+
+    @Modifying
+    @Query("delete from ShoppingCartItem sci where sci.shoppingCartId = :cartId")
+    void deleteAllItems(String cartId);
 }
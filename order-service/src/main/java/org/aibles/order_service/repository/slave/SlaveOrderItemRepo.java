@@ -4,10 +4,13 @@ import org.aibles.order_service.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SlaveOrderItemRepo extends JpaRepository<OrderItem, String> {
 
     List<OrderItem> findAllByOrderId(String orderId);
+
+    List<OrderItem> findAllByOrderIdIn(Collection<String> orderIds);
 }
@@ -1,11 +1,15 @@
 package org.aibles.order_service.repository.slave;
 
 import org.aibles.order_service.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,16 @@ public interface SlaveOrderRepo extends JpaRepository<Order, String> {
     Page<Order> findAllByUserId(String userId, Pageable pageable);
 
     Optional<Order> findByIdAndUserId(String id, String userId);
+
+    // Keyset pages over idx_order_user_created_id, newest first: no OFFSET scan and no COUNT.
+    @Query("select o from Order o where o.userId = :userId order by o.createdAt desc, o.id desc")
+    List<Order> findHistory(String userId, Limit limit);
+
+    @Query("""
+            select o from Order o
+            where o.userId = :userId
+              and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id))
+            order by o.createdAt desc, o.id desc
+            """)
+    List<Order> findHistoryBefore(String userId, LocalDateTime createdAt, String id, Limit limit);
 }
@@ -0,0 +1,137 @@
+package org.aibles.order_service.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.model.CartItem;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.aibles.order_service.repository.master.MasterShoppingCartItemRepo;
+import org.aibles.order_service.repository.master.MasterShoppingCartRepo;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists Redis carts to MySQL behind the request path.
+ *
+ * Every cart write marks the user dirty; each {@code flush-interval} this job claims up to
+ * {@code flush-batch-size} users for {@code claim-timeout} (so replicas never flush the same cart
+ * concurrently) and writes their current carts in one transaction. However many times a cart
+ * changed in between, only its latest state is written. A cart leaves the dirty queue only once
+ * its batch has committed: a batch that fails is marked dirty again and retried on the next run,
+ * and one whose flusher dies becomes due again when the claim runs out.
+ */
+@Slf4j
+public class CartWriteBehindFlusher {
+
+    private final CartCacheRepository cartCacheRepository;
+    private final MasterShoppingCartRepo masterShoppingCartRepo;
+    private final MasterShoppingCartItemRepo masterShoppingCartItemRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration claimTimeout;
+
+    private final Counter flushedCarts;
+    private final Counter failedCarts;
+    private final AtomicLong dirtyCarts = new AtomicLong();
+
+    public CartWriteBehindFlusher(CartCacheRepository cartCacheRepository,
+                                  MasterShoppingCartRepo masterShoppingCartRepo,
+                                  MasterShoppingCartItemRepo masterShoppingCartItemRepo,
+                                  PlatformTransactionManager transactionManager,
+                                  int batchSize,
+                                  Duration claimTimeout,
+                                  MeterRegistry meterRegistry) {
+        this.cartCacheRepository = cartCacheRepository;
+        this.masterShoppingCartRepo = masterShoppingCartRepo;
+        this.masterShoppingCartItemRepo = masterShoppingCartItemRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.claimTimeout = claimTimeout;
+
+        this.flushedCarts = flushedCarts(meterRegistry, "flushed");
+        this.failedCarts = flushedCarts(meterRegistry, "failed");
+        Gauge.builder("order.cart.dirty", dirtyCarts, AtomicLong::get)
+                .description("Carts changed in Redis and not yet written to MySQL")
+                .register(meterRegistry);
+        log.info("(CartWriteBehindFlusher) batchSize: {}, claimTimeout: {}", batchSize, claimTimeout);
+    }
+
+    private static Counter flushedCarts(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("order.cart.flushes")
+                .description("Carts written behind to MySQL, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.cart.flush-interval:PT1S}")
+    public void flush() {
+        try {
+            Set<String> userIds;
+            boolean flushed = true;
+            do {
+                long now = System.currentTimeMillis();
+                long claimUntil = now + claimTimeout.toMillis();
+                userIds = cartCacheRepository.claimDirtyCarts(batchSize, now, claimUntil);
+                if (!userIds.isEmpty()) {
+                    flushed = flushBatch(userIds, claimUntil);
+                }
+                // A failed batch is due again at once; leave it to the next run.
+            } while (flushed && userIds.size() == batchSize);
+        } catch (Exception e) {
+            log.error("(flush) Unexpected error while flushing carts", e);
+        } finally {
+            refreshDirtyCount();
+        }
+    }
+
+    private boolean flushBatch(Set<String> userIds, long claimUntil) {
+        try {
+            Map<String, List<CartItem>> carts = new LinkedHashMap<>();
+            for (String userId : userIds) {
+                Optional<List<CartItem>> items = cartCacheRepository.getItems(userId);
+                // A dirty cart whose hash is gone has nothing newer than MySQL to write.
+                items.ifPresent(cartItems -> carts.put(userId, cartItems));
+            }
+            transactionTemplate.executeWithoutResult(status -> carts.forEach(this::writeCart));
+            flushedCarts.increment(carts.size());
+        } catch (Exception e) {
+            log.error("(flushBatch) Failed to flush {} carts, marking them dirty again", userIds.size(), e);
+            failedCarts.increment(userIds.size());
+            cartCacheRepository.markDirty(userIds);
+            return false;
+        }
+        // Committed; if this fails the claim simply runs out and the carts are written again.
+        cartCacheRepository.completeDirtyCarts(userIds, claimUntil);
+        return true;
+    }
+
+    private void writeCart(String userId, List<CartItem> items) {
+        masterShoppingCartRepo.upsertCart(userId);
+        if (items.isEmpty()) {
+            masterShoppingCartItemRepo.deleteAllItems(userId);
+            return;
+        }
+        masterShoppingCartItemRepo.deleteItemsNotIn(userId, items.stream().map(CartItem::productId).toList());
+        for (CartItem item : items) {
+            masterShoppingCartItemRepo.replaceItem(item.id(), userId, item.productId(), item.quantity(), item.price());
+        }
+    }
+
+    private void refreshDirtyCount() {
+        try {
+            dirtyCarts.set(cartCacheRepository.countDirtyCarts());
+        } catch (Exception e) {
+            log.warn("(refreshDirtyCount) Failed to read dirty cart count: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.aibles.order_service.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.model.ExpiredOrder;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Releases the stock of unpaid orders shortly after they expire, treating the pending orders
+ * ZSET as a delayed queue.
+ *
+ * Every {@code poll-interval} each replica claims due orders in batches of at most
+ * {@code batch-size} (ZRANGEBYSCORE ... LIMIT); a claim atomically pushes the orders' scores out
+ * by {@code claim-timeout}, so replicas share the work without a global lock and an order whose
+ * claimer dies is picked up again afterwards. Claimed orders are released by at most
+ * {@code parallelism} threads, each release atomically removing the order and incrementing its
+ * available counters, so an order paid or canceled meanwhile is skipped rather than released twice.
+ * Only one batch is held in memory at a time, however large the backlog.
+ */
+@Slf4j
+public class ExpiredOrderProcessor {
+
+    private final PendingOrderCacheRepository pendingOrderCacheRepository;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long claimTimeoutMillis;
+    private final Clock clock;
+    private final ExecutorService executor;
+
+    private final Counter released;
+    private final Counter skipped;
+    private final Counter failed;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public ExpiredOrderProcessor(PendingOrderCacheRepository pendingOrderCacheRepository,
+                                 int batchSize,
+                                 int maxBatchesPerRun,
+                                 int parallelism,
+                                 Duration claimTimeout,
+                                 Clock clock,
+                                 MeterRegistry meterRegistry) {
+        this.pendingOrderCacheRepository = pendingOrderCacheRepository;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.claimTimeoutMillis = claimTimeout.toMillis();
+        this.clock = clock;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "order-expiry-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.released = expiredOrders(meterRegistry, "released");
+        this.skipped = expiredOrders(meterRegistry, "skipped");
+        this.failed = expiredOrders(meterRegistry, "failed");
+        Gauge.builder("order.expiry.backlog", backlog, AtomicLong::get)
+                .description("Expired pending orders not yet claimed for release")
+                .register(meterRegistry);
+        Gauge.builder("order.expiry.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Seconds the oldest unclaimed expired order has been waiting for release")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        log.info("(ExpiredOrderProcessor) batchSize: {}, maxBatchesPerRun: {}, parallelism: {}, claimTimeout: {}",
+                batchSize, maxBatchesPerRun, parallelism, claimTimeout);
+    }
+
+    private static Counter expiredOrders(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("order.expiry.orders")
+                .description("Expired pending orders processed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.order.expiry.poll-interval:PT1S}")
+    public void processExpiredOrders() {
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                long now = clock.millis();
+                List<ExpiredOrder> claimed = pendingOrderCacheRepository.claimExpiredOrders(
+                        now, batchSize, now + claimTimeoutMillis);
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                releaseAll(claimed);
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("(processExpiredOrders) Unexpected error while processing expired orders", e);
+        } finally {
+            refreshBacklog();
+        }
+    }
+
+    /** Waits for the whole batch so the next claim never outruns the release threads. */
+    private void releaseAll(List<ExpiredOrder> orders) throws InterruptedException {
+        List<Callable<Void>> releases = orders.stream()
+                .map(order -> (Callable<Void>) () -> {
+                    release(order);
+                    return null;
+                })
+                .toList();
+        executor.invokeAll(releases);
+    }
+
+    private void release(ExpiredOrder order) {
+        try {
+            if (pendingOrderCacheRepository.releaseExpiredOrder(RedisConstant.AVAILABLE_PRODUCT_KEY, order)) {
+                released.increment();
+            } else {
+                skipped.increment();
+            }
+        } catch (Exception e) {
+            // The claim runs out and the order is picked up again.
+            failed.increment();
+            log.error("(release) Failed to release expired order: {}", order.orderId(), e);
+        }
+    }
+
+    private void refreshBacklog() {
+        try {
+            long now = clock.millis();
+            backlog.set(pendingOrderCacheRepository.countExpiredOrders(now));
+            lagMillis.set(pendingOrderCacheRepository.getEarliestExpiry()
+                    .map(earliest -> Math.max(0L, now - earliest))
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.warn("(refreshBacklog) Failed to read expiry backlog: {}", e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.aibles.order_service.service;
+
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
+import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
+
+import java.util.List;
+
+/**
+ * Asynchronous order acceptance: requests are queued on a Kafka topic keyed by user and turned
+ * into orders by workers, while clients poll the order handle they were given.
+ */
+public interface OrderAcceptanceService {
+
+    /**
+     * Assigns the order its id, records it as QUEUED and enqueues it. Returns once the broker
+     * has acknowledged the request, so an accepted order is never lost.
+     */
+    OrderAcceptedResponse accept(String userId, OrderRequest request);
+
+    /**
+     * Current status of an order accepted for {@code userId}: QUEUED, REJECTED with the reason,
+     * or CREATED once the order exists.
+     */
+    OrderAcceptedResponse status(String userId, String orderId);
+
+    /**
+     * Worker entry point: creates a poll's worth of queued orders and records their outcome.
+     * Requests already handled (a redelivery) are skipped. A poll that keeps failing is
+     * recorded as REJECTED once its attempts are exhausted.
+     */
+    void process(List<OrderRequested> requests);
+}
@@ -1,15 +1,30 @@
 package org.aibles.order_service.service;
 
 import org.aibles.ecommerce.common_dto.response.PagingResponse;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
 import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
 import org.aibles.order_service.dto.response.OrderCancelResponse;
 import org.aibles.order_service.dto.response.OrderCreatedResponse;
 import org.aibles.order_service.dto.response.OrderDetailResponse;
+import org.aibles.order_service.dto.response.OrderHistoryResponse;
+import org.aibles.order_service.entity.ProcessedPaymentEvent;
+
+import java.util.List;
 
 public interface OrderService {
 
     OrderCreatedResponse create(String userId, OrderRequest request);
 
+    /**
+     * Worker side of asynchronous acceptance: validates, reserves and persists a poll's worth of
+     * queued orders together, each under the id it was accepted with. Orders that cannot be
+     * created are reported as REJECTED rather than failing the rest.
+     *
+     * @return one outcome per request
+     */
+    List<OrderAcceptedResponse> createAccepted(List<OrderRequested> requests);
+
     OrderCancelResponse cancel(String userId, String orderId);
 
     void handleCanceledOrder(String orderId);
@@ -18,7 +33,20 @@ public interface OrderService {
 
     void handleSuccessOrder(String orderId);
 
+    /**
+     * Applies a poll's worth of payment results at once: duplicates are dropped, each target
+     * status becomes a single UPDATE ... WHERE id IN (...), and once that has committed the
+     * stock is released and the idempotency records are written in one bulk insert.
+     */
+    void handlePaymentEvents(List<ProcessedPaymentEvent> events);
+
     PagingResponse list(String userId, int page, int size);
 
+    /**
+     * Returns up to {@code limit} of the user's orders, newest first, starting right after the
+     * order encoded in {@code cursor} (first page when null).
+     */
+    OrderHistoryResponse history(String userId, String cursor, int limit);
+
     OrderDetailResponse get(String userId, String orderId);
 }
@@ -0,0 +1,205 @@
+package org.aibles.order_service.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequestedItem;
+import org.aibles.ecommerce.common_dto.exception.NotFoundException;
+import org.aibles.ecommerce.core_order_cache.model.OrderAcceptance;
+import org.aibles.ecommerce.core_order_cache.repository.OrderAcceptanceRepository;
+import org.aibles.order_service.constant.OrderAcceptanceStatus;
+import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
+import org.aibles.order_service.exception.OrderQueueUnavailableException;
+import org.aibles.order_service.repository.slave.SlaveOrderRepo;
+import org.aibles.order_service.service.OrderAcceptanceService;
+import org.aibles.order_service.service.OrderService;
+import org.aibles.order_service.util.IdGenerator;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+public class OrderAcceptanceServiceImpl implements OrderAcceptanceService {
+
+    private static final String FAILED_CODE = "order.acceptance.failed";
+
+    private final OrderService orderService;
+    private final OrderAcceptanceRepository orderAcceptanceRepository;
+    private final SlaveOrderRepo slaveOrderRepo;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final Duration statusTtl;
+    private final Duration sendTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueTime;
+
+    public OrderAcceptanceServiceImpl(OrderService orderService,
+                                      OrderAcceptanceRepository orderAcceptanceRepository,
+                                      SlaveOrderRepo slaveOrderRepo,
+                                      KafkaTemplate<String, Object> kafkaTemplate,
+                                      String topic,
+                                      Duration statusTtl,
+                                      Duration sendTimeout,
+                                      int maxAttempts,
+                                      Duration retryBackoff,
+                                      MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.orderAcceptanceRepository = orderAcceptanceRepository;
+        this.slaveOrderRepo = slaveOrderRepo;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.statusTtl = statusTtl;
+        this.sendTimeout = sendTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.meterRegistry = meterRegistry;
+        this.queueTime = Timer.builder("order.acceptance.queue.time")
+                .description("Time from accepting an order request to a worker picking it up")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public OrderAcceptedResponse accept(String userId, OrderRequest request) {
+        String orderId = IdGenerator.timeOrderedUuid();
+        log.info("(accept) Accepting order {} for user: {}", orderId, userId);
+
+        OrderRequested message = OrderRequested.newBuilder()
+                .setOrderId(orderId)
+                .setUserId(userId)
+                .setAddress(request.getAddress())
+                .setPhoneNumber(request.getPhoneNumber())
+                .setItems(request.getItems().stream()
+                        .map(item -> OrderRequestedItem.newBuilder()
+                                .setProductId(item.getProductId())
+                                .setQuantity(item.getQuantity())
+                                .build())
+                        .toList())
+                .setRequestedAt(System.currentTimeMillis())
+                .build();
+
+        // Recorded first so a poll racing the worker never sees an unknown order.
+        orderAcceptanceRepository.save(orderId,
+                new OrderAcceptance(userId, OrderAcceptanceStatus.QUEUED.name(), null), statusTtl);
+        try {
+            // Keyed by user: one user's orders stay in order on one partition.
+            kafkaTemplate.send(topic, userId, message).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            orderAcceptanceRepository.delete(orderId);
+            throw new OrderQueueUnavailableException();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("(accept) Failed to enqueue order {}", orderId, e);
+            orderAcceptanceRepository.delete(orderId);
+            throw new OrderQueueUnavailableException();
+        }
+
+        return OrderAcceptedResponse.builder()
+                .orderId(orderId)
+                .status(OrderAcceptanceStatus.QUEUED)
+                .build();
+    }
+
+    @Override
+    public OrderAcceptedResponse status(String userId, String orderId) {
+        log.info("(status) userId: {}, orderId: {}", userId, orderId);
+        Optional<OrderAcceptance> acceptance = orderAcceptanceRepository.find(orderId);
+        if (acceptance.isPresent()) {
+            if (!userId.equals(acceptance.get().userId())) {
+                throw new NotFoundException("order.not_found", Map.of("id", orderId));
+            }
+            return OrderAcceptedResponse.builder()
+                    .orderId(orderId)
+                    .status(OrderAcceptanceStatus.valueOf(acceptance.get().status()))
+                    .errorCode(acceptance.get().errorCode())
+                    .build();
+        }
+        // The status record has expired; the order itself is the answer from then on.
+        return slaveOrderRepo.findByIdAndUserId(orderId, userId)
+                .map(order -> OrderAcceptedResponse.builder()
+                        .orderId(orderId)
+                        .status(OrderAcceptanceStatus.CREATED)
+                        .build())
+                .orElseThrow(() -> new NotFoundException("order.not_found", Map.of("id", orderId)));
+    }
+
+    @Override
+    public void process(List<OrderRequested> requests) {
+        log.info("(process) Processing {} queued orders", requests.size());
+        long now = System.currentTimeMillis();
+        Map<String, String> owners = new HashMap<>();
+        List<OrderRequested> pending = requests.stream()
+                .filter(request -> {
+                    String orderId = request.getOrderId().toString();
+                    owners.put(orderId, request.getUserId().toString());
+                    // Anything but QUEUED was already decided by an earlier delivery.
+                    return orderAcceptanceRepository.find(orderId)
+                            .map(acceptance -> OrderAcceptanceStatus.QUEUED.name().equals(acceptance.status()))
+                            .orElse(true);
+                })
+                .toList();
+        pending.forEach(request ->
+                queueTime.record(Math.max(0L, now - request.getRequestedAt()), TimeUnit.MILLISECONDS));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<OrderAcceptedResponse> outcomes = createWithRetry(pending);
+
+        Map<String, OrderAcceptance> statuses = new HashMap<>();
+        for (OrderAcceptedResponse outcome : outcomes) {
+            statuses.put(outcome.getOrderId(), new OrderAcceptance(owners.get(outcome.getOrderId()),
+                    outcome.getStatus().name(), outcome.getErrorCode()));
+            meterRegistry.counter("order.acceptance.orders", "outcome", outcome.getStatus().name().toLowerCase())
+                    .increment();
+        }
+        orderAcceptanceRepository.saveAll(statuses, statusTtl);
+    }
+
+    /**
+     * Retries a failed poll in place. Each attempt is its own transaction, and a failed attempt
+     * has released its reservations. Once the attempts are used up, the orders are recorded as
+     * REJECTED instead of being left QUEUED until their status expires and the poll answers 404.
+     */
+    private List<OrderAcceptedResponse> createWithRetry(List<OrderRequested> pending) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return orderService.createAccepted(pending);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("(createWithRetry) Giving up on {} queued orders after {} attempts",
+                            pending.size(), attempt, e);
+                    return pending.stream()
+                            .map(request -> OrderAcceptedResponse.builder()
+                                    .orderId(request.getOrderId().toString())
+                                    .status(OrderAcceptanceStatus.REJECTED)
+                                    .errorCode(FAILED_CODE)
+                                    .build())
+                            .toList();
+                }
+                log.warn("(createWithRetry) Attempt {} of {} failed for {} queued orders, error: {}",
+                        attempt, maxAttempts, pending.size(), e.getMessage());
+                sleep(retryBackoff.multipliedBy(attempt));
+            }
+        }
+    }
+
+    private static void sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying queued orders", e);
+        }
+    }
+}
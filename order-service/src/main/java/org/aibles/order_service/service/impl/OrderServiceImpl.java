@@ -1,9 +1,14 @@
 package org.aibles.order_service.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.ecommerce.common_dto.avro_kafka.OrderCreated;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
 import org.aibles.ecommerce.common_dto.event.EcommerceEvent;
 import org.aibles.ecommerce.common_dto.event.MongoSavedEvent;
+import org.aibles.ecommerce.common_dto.exception.BadRequestException;
+import org.aibles.ecommerce.common_dto.exception.BaseException;
 import org.aibles.ecommerce.common_dto.exception.ForbiddenException;
 import org.aibles.ecommerce.common_dto.exception.InternalErrorException;
 import org.aibles.ecommerce.common_dto.exception.NotFoundException;
@@ -17,15 +22,20 @@ import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
 import org.aibles.ecommerce.common_dto.response.PagingResponse;
 import org.aibles.ecommerce.core_order_cache.constant.OrderCacheConstant;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
-import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.OrderAcceptanceStatus;
 import org.aibles.order_service.constant.OrderStatus;
 import org.aibles.order_service.constant.PaymentEventType;
+import org.aibles.order_service.constant.ReservationMode;
 import org.aibles.order_service.dto.request.OrderItemRequest;
 import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
 import org.aibles.order_service.dto.response.OrderCreatedResponse;
 import org.aibles.order_service.dto.response.OrderDetailResponse;
+import org.aibles.order_service.dto.response.OrderHistoryResponse;
 import org.aibles.order_service.dto.response.OrderItemResponse;
 import org.aibles.order_service.dto.response.OrderSummaryResponse;
 import org.aibles.order_service.entity.Order;
@@ -42,12 +52,17 @@ import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -61,10 +76,15 @@ public class OrderServiceImpl implements OrderService {
     private static final int MAX_LOCK_RETRY_ATTEMPTS = 3;
     private static final long INITIAL_BACKOFF_MS = 100;
     private static final Random RANDOM = new Random();
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = ":";
+    private static final String OUT_OF_STOCK_CODE = "order.product.invalid_quantity";
 
-    private final InventoryGrpcClientService inventoryGrpcClientService;
+    private final ProductMetadataCache productMetadataCache;
     private final RedisRepository redisRepository;
     private final PendingOrderCacheRepository pendingOrderCacheRepository;
+    private final ShardedStockRepository shardedStockRepository;
+    private final ReservationBatcher reservationBatcher;
     private final MasterOrderRepo masterOrderRepo;
     private final MasterOrderItemRepo masterOrderItemRepo;
     private final RedissonClient redissonClient;
@@ -72,20 +92,29 @@ public class OrderServiceImpl implements OrderService {
     private final ApplicationEventPublisher eventPublisher;
     private final SlaveOrderRepo slaveOrderRepo;
     private final SlaveOrderItemRepo slaveOrderItemRepo;
+    private final ReservationMode reservationMode;
+    private final MeterRegistry meterRegistry;
+    private final Timer lockWaitTimer;
 
-    public OrderServiceImpl(InventoryGrpcClientService inventoryGrpcClientService,
+    public OrderServiceImpl(ProductMetadataCache productMetadataCache,
                             RedisRepository redisRepository,
                             PendingOrderCacheRepository pendingOrderCacheRepository,
+                            ShardedStockRepository shardedStockRepository,
+                            ReservationBatcher reservationBatcher,
                             MasterOrderRepo masterOrderRepo,
                             MasterOrderItemRepo masterOrderItemRepo,
                             RedissonClient redissonClient,
                             ProcessedPaymentEventRepository processedPaymentEventRepository,
                             ApplicationEventPublisher eventPublisher,
                             SlaveOrderRepo slaveOrderRepo,
-                            SlaveOrderItemRepo slaveOrderItemRepo) {
-        this.inventoryGrpcClientService = inventoryGrpcClientService;
+                            SlaveOrderItemRepo slaveOrderItemRepo,
+                            ReservationMode reservationMode,
+                            MeterRegistry meterRegistry) {
+        this.productMetadataCache = productMetadataCache;
         this.redisRepository = redisRepository;
         this.pendingOrderCacheRepository = pendingOrderCacheRepository;
+        this.shardedStockRepository = shardedStockRepository;
+        this.reservationBatcher = reservationBatcher;
         this.masterOrderRepo = masterOrderRepo;
         this.masterOrderItemRepo = masterOrderItemRepo;
         this.redissonClient = redissonClient;
@@ -93,6 +122,12 @@ public class OrderServiceImpl implements OrderService {
         this.eventPublisher = eventPublisher;
         this.slaveOrderRepo = slaveOrderRepo;
         this.slaveOrderItemRepo = slaveOrderItemRepo;
+        this.reservationMode = reservationMode;
+        this.meterRegistry = meterRegistry;
+        this.lockWaitTimer = Timer.builder("order.reservation.lock.wait")
+                .description("Time spent acquiring the per-product fair locks before reserving stock (LOCKED mode)")
+                .register(meterRegistry);
+        log.info("(OrderServiceImpl) Stock reservation mode: {}", reservationMode);
     }
 
     @Override
@@ -106,14 +141,192 @@ public class OrderServiceImpl implements OrderService {
         // Step 2: Get deterministically ordered product IDs for deadlock prevention
         List<String> sortedProductIds = getSortedProductIds(productQuantityMap);
 
-        // Step 3: Execute order creation with distributed locks
-        String orderId = executeWithDistributedLocks(userId, request, productQuantityMap, sortedProductIds);
+        // Step 3: Reserve stock and create the order, under per-product locks only in LOCKED mode
+        String orderId = reservationMode == ReservationMode.LOCK_FREE
+                ? executeLockFree(userId, request, productQuantityMap, sortedProductIds)
+                : executeWithDistributedLocks(userId, request, productQuantityMap, sortedProductIds);
 
         return OrderCreatedResponse.builder()
                 .orderId(orderId)
                 .build();
     }
 
+    @Override
+    @Transactional
+    public List<OrderAcceptedResponse> createAccepted(List<OrderRequested> requests) {
+        log.info("(createAccepted) Creating {} accepted orders", requests.size());
+        List<OrderAcceptedResponse> outcomes = new ArrayList<>(requests.size());
+
+        // A redelivered poll may contain orders committed before the consumer crashed.
+        Set<String> existing = masterOrderRepo.findAllById(requests.stream()
+                        .map(request -> request.getOrderId().toString()).toList())
+                .stream()
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+
+        List<AcceptedOrder> candidates = new ArrayList<>();
+        for (OrderRequested request : requests) {
+            String orderId = request.getOrderId().toString();
+            if (existing.contains(orderId)) {
+                outcomes.add(acceptanceOutcome(orderId, OrderAcceptanceStatus.CREATED, null));
+            } else {
+                candidates.add(AcceptedOrder.from(request));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return outcomes;
+        }
+
+        // One inventory lookup for every product in the poll, then per-order validation.
+        List<String> productIds = candidates.stream()
+                .flatMap(order -> order.quantities().keySet().stream())
+                .distinct()
+                .sorted()
+                .toList();
+        Map<String, InventoryProductResponse> products = fetchInventoryData(new InventoryProductIdsRequest(productIds))
+                .getInventoryProducts().stream()
+                .collect(Collectors.toMap(InventoryProductResponse::getId, product -> product, (a, b) -> a));
+
+        List<AcceptedOrder> valid = new ArrayList<>();
+        for (AcceptedOrder order : candidates) {
+            try {
+                InventoryProductIdsResponse orderProducts = new InventoryProductIdsResponse(order.quantities().keySet()
+                        .stream()
+                        .map(products::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+                validateProductExistence(orderProducts.getInventoryProducts(), order.quantities());
+                valid.add(order.withReservation(InventoryReservationResult.builder()
+                        .inventoryResponse(orderProducts)
+                        .priceMap(buildAndValidatePriceMap(orderProducts))
+                        .reservedQuantities(order.quantities())
+                        .build()));
+            } catch (BaseException e) {
+                log.warn("(createAccepted) Rejecting order {}: {}", order.orderId(), e.getCode());
+                outcomes.add(acceptanceOutcome(order.orderId(), OrderAcceptanceStatus.REJECTED, e.getCode()));
+            }
+        }
+
+        List<AcceptedOrder> reserved = reserveAll(valid, outcomes);
+        if (!reserved.isEmpty()) {
+            persistAccepted(reserved);
+            reserved.forEach(order ->
+                    outcomes.add(acceptanceOutcome(order.orderId(), OrderAcceptanceStatus.CREATED, null)));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Orders without flash-sale products are reserved together in one Lua evaluation, in poll
+     * order, each all-or-nothing; the rest go through the sharded path one by one.
+     */
+    private List<AcceptedOrder> reserveAll(List<AcceptedOrder> orders, List<OrderAcceptedResponse> outcomes) {
+        Set<String> shardedProducts = shardedStockRepository.shardedProducts().keySet();
+        List<AcceptedOrder> plain = new ArrayList<>();
+        List<AcceptedOrder> reserved = new ArrayList<>();
+        for (AcceptedOrder order : orders) {
+            if (Collections.disjoint(shardedProducts, order.quantities().keySet())) {
+                plain.add(order);
+            } else if (reserveAvailable(order.quantities())) {
+                reserved.add(order);
+            } else {
+                outcomes.add(acceptanceOutcome(order.orderId(), OrderAcceptanceStatus.REJECTED, OUT_OF_STOCK_CODE));
+            }
+        }
+
+        if (!plain.isEmpty()) {
+            List<Boolean> results = pendingOrderCacheRepository.checkAndReserveAvailableBatch(
+                    RedisConstant.AVAILABLE_PRODUCT_KEY, plain.stream().map(AcceptedOrder::quantities).toList());
+            for (int i = 0; i < plain.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    reserved.add(plain.get(i));
+                } else {
+                    outcomes.add(acceptanceOutcome(plain.get(i).orderId(), OrderAcceptanceStatus.REJECTED, OUT_OF_STOCK_CODE));
+                }
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * Group commit: every reserved order of the poll and all their items are written in this one
+     * transaction (as JDBC batches), then registered as pending. If the write fails, the
+     * reservations are released and the exception redelivers the poll.
+     */
+    private void persistAccepted(List<AcceptedOrder> orders) {
+        List<Order> entities = new ArrayList<>(orders.size());
+        List<OrderItem> items = new ArrayList<>();
+        for (AcceptedOrder order : orders) {
+            entities.add(Order.builder()
+                    .id(order.orderId())
+                    .status(OrderStatus.PROCESSING)
+                    .userId(order.userId())
+                    .address(order.request().getAddress())
+                    .phoneNumber(order.request().getPhoneNumber())
+                    .build());
+            Map<String, InventoryProductResponse> productMap = order.reservation().getInventoryResponse()
+                    .getInventoryProducts().stream()
+                    .collect(Collectors.toMap(InventoryProductResponse::getId, product -> product));
+            items.addAll(buildOrderItems(order.request().getItems(), order.orderId(),
+                    order.reservation().getPriceMap(), productMap));
+        }
+
+        Set<String> pending = new HashSet<>();
+        try {
+            masterOrderRepo.saveAll(entities);
+            masterOrderItemRepo.saveAll(items);
+            masterOrderRepo.flush();
+
+            long expiryTimestamp = Instant.now()
+                    .plus(OrderCacheConstant.ORDER_EXPIRY_HOURS, ChronoUnit.HOURS)
+                    .toEpochMilli();
+            for (AcceptedOrder order : orders) {
+                pendingOrderCacheRepository.addToPendingOrders(order.orderId(),
+                        calculateTotalPrice(order.reservation().getPriceMap(), order.quantities()),
+                        order.quantities(), expiryTimestamp);
+                pending.add(order.orderId());
+            }
+        } catch (RuntimeException e) {
+            log.error("(persistAccepted) Failed to persist {} accepted orders, releasing their reservations",
+                    orders.size(), e);
+            // Orders already in the pending ZSET are released by the expiry processor instead.
+            orders.stream()
+                    .filter(order -> !pending.contains(order.orderId()))
+                    .forEach(order -> rollbackInventoryReservation(order.quantities()));
+            throw e;
+        }
+
+        for (AcceptedOrder order : orders) {
+            eventPublisher.publishEvent(new MongoSavedEvent(this, EcommerceEvent.ORDER_CREATED.getValue(),
+                    OrderCreated.newBuilder().setOrderId(order.orderId()).build()));
+        }
+    }
+
+    private static OrderAcceptedResponse acceptanceOutcome(String orderId, OrderAcceptanceStatus status, String errorCode) {
+        return OrderAcceptedResponse.builder().orderId(orderId).status(status).errorCode(errorCode).build();
+    }
+
+    /** A queued order request on its way through {@link #createAccepted}; reservation is set once validated. */
+    private record AcceptedOrder(String orderId, String userId, OrderRequest request, Map<String, Long> quantities,
+                                 InventoryReservationResult reservation) {
+
+        private static AcceptedOrder from(OrderRequested message) {
+            List<OrderItemRequest> items = message.getItems().stream()
+                    .map(item -> new OrderItemRequest(item.getProductId().toString(), item.getQuantity()))
+                    .toList();
+            OrderRequest request = new OrderRequest(message.getAddress().toString(),
+                    message.getPhoneNumber().toString(), items);
+            Map<String, Long> quantities = items.stream()
+                    .collect(Collectors.toMap(OrderItemRequest::getProductId, OrderItemRequest::getQuantity, Long::sum));
+            return new AcceptedOrder(message.getOrderId().toString(), message.getUserId().toString(), request,
+                    quantities, null);
+        }
+
+        private AcceptedOrder withReservation(InventoryReservationResult reservation) {
+            return new AcceptedOrder(orderId, userId, request, quantities, reservation);
+        }
+    }
+
     /**
      * Builds a map of product ID to quantity from order request.
      * Aggregates quantities if same product appears multiple times.
@@ -146,14 +359,62 @@ public class OrderServiceImpl implements OrderService {
                                                 Map<String, Long> productQuantityMap,
                                                 List<String> sortedProductIds) {
         DistributedLockContext lockContext = new DistributedLockContext(sortedProductIds);
-        boolean inventoryReserved = false;
+        Timer.Sample reservationSample = Timer.start(meterRegistry);
 
         try {
             // Acquire all locks in deterministic order
-            acquireAllLocks(lockContext);
+            Timer.Sample lockSample = Timer.start(meterRegistry);
+            try {
+                acquireAllLocks(lockContext);
+            } catch (RuntimeException e) {
+                reservationSample.stop(reservationTimer("lock_failed"));
+                throw e;
+            } finally {
+                lockSample.stop(lockWaitTimer);
+            }
 
+            return reserveAndCreateOrder(userId, request, productQuantityMap, sortedProductIds, reservationSample);
+        } finally {
+            lockContext.releaseAllInReverse();
+        }
+    }
+
+    /**
+     * Executes order creation without any per-product lock.
+     * checkAndReserveAvailableAtomic checks and decrements every counter in one Lua script, so
+     * concurrent orders for the same product cannot oversell; the locks only serialised the
+     * gRPC validation in front of it. Validation therefore runs first, unlocked, and a failed
+     * order creation releases the reservation exactly as in LOCKED mode.
+     */
+    private String executeLockFree(String userId, OrderRequest request,
+                                   Map<String, Long> productQuantityMap,
+                                   List<String> sortedProductIds) {
+        return reserveAndCreateOrder(userId, request, productQuantityMap, sortedProductIds, Timer.start(meterRegistry));
+    }
+
+    /**
+     * Validate → reserve → create order → publish, releasing the reservation if anything after
+     * it fails. {@code reservationSample} started when the request began waiting for stock.
+     */
+    private String reserveAndCreateOrder(String userId, OrderRequest request,
+                                         Map<String, Long> productQuantityMap,
+                                         List<String> sortedProductIds,
+                                         Timer.Sample reservationSample) {
+        boolean inventoryReserved = false;
+
+        try {
             // Validate and atomically reserve inventory
-            InventoryReservationResult reservation = validateAndReserveInventoryAtomic(productQuantityMap, sortedProductIds);
+            InventoryReservationResult reservation;
+            try {
+                reservation = validateAndReserveInventoryAtomic(productQuantityMap, sortedProductIds);
+            } catch (InvalidProductQuantityException e) {
+                reservationSample.stop(reservationTimer("rejected"));
+                throw e;
+            } catch (RuntimeException e) {
+                reservationSample.stop(reservationTimer("error"));
+                throw e;
+            }
+            reservationSample.stop(reservationTimer("reserved"));
             inventoryReserved = true;  // Only set to true AFTER successful reservation
 
             // Create order and persist metadata to cache
@@ -172,20 +433,26 @@ public class OrderServiceImpl implements OrderService {
             return order.getId();
 
         } catch (Exception e) {
-            log.error("(executeWithDistributedLocks) Exception during order creation", e);
+            log.error("(reserveAndCreateOrder) Exception during order creation", e);
             // Only rollback if inventory was actually reserved
             if (inventoryReserved) {
-                log.warn("(executeWithDistributedLocks) Inventory was reserved, initiating rollback");
+                log.warn("(reserveAndCreateOrder) Inventory was reserved, initiating rollback");
                 rollbackInventoryReservation(productQuantityMap);
             } else {
-                log.debug("(executeWithDistributedLocks) Inventory was not reserved, skipping rollback");
+                log.debug("(reserveAndCreateOrder) Inventory was not reserved, skipping rollback");
             }
             throw e;
-        } finally {
-            lockContext.releaseAllInReverse();
         }
     }
 
+    private Timer reservationTimer(String outcome) {
+        return Timer.builder("order.reservation.latency")
+                .description("Time from entering order creation to the stock reservation decision, lock wait included")
+                .tag("mode", reservationMode.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     /**
      * Acquires distributed locks for all products in the lock context.
      */
@@ -200,8 +467,8 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * Validates product existence and prices via gRPC, then atomically reserves inventory
-     * using the self-contained available-counter Lua script.
+     * Validates product existence and prices (cached metadata, gRPC on a miss), then atomically
+     * reserves inventory using the self-contained available-counter Lua script.
      * NO maxInventory snapshot is fetched — the Redis available counter is the authority.
      */
     private InventoryReservationResult validateAndReserveInventoryAtomic(
@@ -220,11 +487,8 @@ public class OrderServiceImpl implements OrderService {
         // Validate product existence (Lua script handles the availability check atomically)
         validateProductExistence(inventoryResponse.getInventoryProducts(), productQuantityMap);
 
-        // Atomically check and decrement the available counter (no external snapshot)
-        boolean reserved = pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
-                RedisConstant.AVAILABLE_PRODUCT_KEY,
-                productQuantityMap
-        );
+        // Atomically check and decrement the available counters (no external snapshot)
+        boolean reserved = reserveAvailable(productQuantityMap);
 
         if (!reserved) {
             log.warn("(validateAndReserveInventoryAtomic) Atomic reservation failed — insufficient available stock");
@@ -241,6 +505,33 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
+    /**
+     * Reserves plain products with the all-or-nothing available-counter script (batched with
+     * concurrent orders by {@link ReservationBatcher}) and products in
+     * flash-sale mode from their sharded counters. When only the sharded part falls short, the
+     * plain part is released again so the order as a whole stays all-or-nothing.
+     */
+    private boolean reserveAvailable(Map<String, Long> productQuantityMap) {
+        Map<String, Integer> shardedProducts = shardedStockRepository.shardedProducts();
+        if (Collections.disjoint(shardedProducts.keySet(), productQuantityMap.keySet())) {
+            return reservationBatcher.reserve(productQuantityMap);
+        }
+
+        Map<String, Long> plain = new HashMap<>();
+        Map<String, Long> sharded = new HashMap<>();
+        productQuantityMap.forEach((productId, quantity) ->
+                (shardedProducts.containsKey(productId) ? sharded : plain).put(productId, quantity));
+
+        if (!plain.isEmpty() && !reservationBatcher.reserve(plain)) {
+            return false;
+        }
+        if (!shardedStockRepository.reserve(sharded)) {
+            rollbackInventoryReservation(plain);
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Builds price map from inventory response and validates all prices are present.
      * Throws exception if any price is missing.
@@ -285,7 +576,8 @@ public class OrderServiceImpl implements OrderService {
         for (String productId : productQuantityMap.keySet()) {
             InventoryProductResponse product = productMap.get(productId);
 
-            if (product == null || product.getQuantity() == null) {
+            // Existence only: quantity is not carried by cached metadata, stock is checked in Redis.
+            if (product == null) {
                 invalidProducts.add(productId);
             }
         }
@@ -348,6 +640,7 @@ public class OrderServiceImpl implements OrderService {
     /**
      * Releases inventory reservations by incrementing the available counter.
      * Called when order creation fails after a successful reservation.
+     * Sharded products are released onto the base counter too; the rebalancer spreads it back.
      */
     private void rollbackInventoryReservation(Map<String, Long> productQuantityMap) {
         if (productQuantityMap == null || productQuantityMap.isEmpty()) {
@@ -417,6 +710,85 @@ public class OrderServiceImpl implements OrderService {
         updateOrderStatus(orderId, OrderStatus.COMPLETED);
     }
 
+    @Override
+    @Transactional
+    public void handlePaymentEvents(List<ProcessedPaymentEvent> events) {
+        log.info("(handlePaymentEvents) Processing {} payment events", events.size());
+
+        // Redelivered or repeated records within one poll collapse onto one (orderId, eventType)
+        Map<String, ProcessedPaymentEvent> unique = new LinkedHashMap<>();
+        for (ProcessedPaymentEvent event : events) {
+            unique.putIfAbsent(event.getOrderId() + ":" + event.getEventType(), event);
+        }
+        // Stock release and processed markers happen only once the status updates have committed.
+        // Setting a status is idempotent and the release only acts on orders still pending, so a
+        // poll that fails or dies anywhere along the way is simply applied again on redelivery
+        // instead of being skipped as already processed.
+        List<ProcessedPaymentEvent> fresh = new ArrayList<>(unique.values());
+        fresh.removeAll(processedPaymentEventRepository.findProcessed(unique.values()));
+        if (unique.size() < events.size()) {
+            log.warn("(handlePaymentEvents) Skipping {} duplicate events within the poll", events.size() - unique.size());
+        }
+        if (fresh.size() < unique.size()) {
+            log.warn("(handlePaymentEvents) Skipping {} already processed events", unique.size() - fresh.size());
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        Map<PaymentEventType, Set<String>> orderIdsByType = new EnumMap<>(PaymentEventType.class);
+        for (ProcessedPaymentEvent event : fresh) {
+            orderIdsByType.computeIfAbsent(event.getEventType(), type -> new LinkedHashSet<>()).add(event.getOrderId());
+        }
+        Set<String> canceled = orderIdsByType.getOrDefault(PaymentEventType.PAYMENT_CANCELED, Set.of());
+        Set<String> failed = orderIdsByType.getOrDefault(PaymentEventType.PAYMENT_FAILED, Set.of());
+        Set<String> succeeded = orderIdsByType.getOrDefault(PaymentEventType.PAYMENT_SUCCESS, Set.of());
+
+        // Only canceled and failed orders still pending change status and give their stock back,
+        // as in processOrderStatusChange.
+        Set<String> toRelease = new LinkedHashSet<>(canceled);
+        toRelease.addAll(failed);
+        Set<String> pending = pendingOrderCacheRepository.findPendingOrders(toRelease);
+
+        updateOrderStatuses(canceled.stream().filter(pending::contains).toList(), OrderStatus.CANCELED);
+        updateOrderStatuses(failed.stream().filter(pending::contains).toList(), OrderStatus.FAILED);
+        // inventory-service finishes successful orders from the pending ZSET, see handleSuccessOrder
+        updateOrderStatuses(new ArrayList<>(succeeded), OrderStatus.COMPLETED);
+
+        afterCommit(() -> {
+            // One Lua evaluation; an order the expiry processor got to first is skipped.
+            pendingOrderCacheRepository.releasePendingOrders(RedisConstant.AVAILABLE_PRODUCT_KEY, pending);
+            LocalDateTime now = LocalDateTime.now();
+            fresh.forEach(event -> event.setProcessedAt(now));
+            processedPaymentEventRepository.insertAllNew(fresh);
+        });
+    }
+
+    /**
+     * Runs {@code action} once the surrounding transaction has committed, or right away without
+     * one. A failure there propagates to the listener, which gets the poll redelivered.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void updateOrderStatuses(List<String> orderIds, OrderStatus status) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        log.info("(updateOrderStatuses) Updating {} orders to status {}", orderIds.size(), status);
+        masterOrderRepo.updateStatusIn(orderIds, status);
+    }
+
     private void processOrderStatusChange(String orderId, OrderStatus newStatus) {
         log.info("(processOrderStatusChange) Processing order {} status change to {}", orderId, newStatus);
 
@@ -448,6 +820,14 @@ public class OrderServiceImpl implements OrderService {
             return;
         }
 
+        if (reservationMode == ReservationMode.LOCK_FREE) {
+            // INCR is atomic on its own; nothing else reads the counter under these locks.
+            for (Map.Entry<String, Long> entry : productQuantityMap.entrySet()) {
+                redisRepository.incr(RedisConstant.AVAILABLE_PRODUCT_KEY + entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
         List<String> productIds = new ArrayList<>(productQuantityMap.keySet());
         Collections.sort(productIds);
 
@@ -541,7 +921,13 @@ public class OrderServiceImpl implements OrderService {
                                 Map<String, Double> itemPriceMap,
                                 Map<String, org.aibles.ecommerce.common_dto.response.InventoryProductResponse> productMap) {
         log.info("(saveOrderItems) Saving order items for order: {}", orderId);
-        List<OrderItem> items = orderItems.stream()
+        masterOrderItemRepo.saveAll(buildOrderItems(orderItems, orderId, itemPriceMap, productMap));
+    }
+
+    private List<OrderItem> buildOrderItems(List<OrderItemRequest> orderItems, String orderId,
+                                            Map<String, Double> itemPriceMap,
+                                            Map<String, org.aibles.ecommerce.common_dto.response.InventoryProductResponse> productMap) {
+        return orderItems.stream()
                 .map(item -> {
                     org.aibles.ecommerce.common_dto.response.InventoryProductResponse product =
                             productMap.get(item.getProductId());
@@ -555,13 +941,11 @@ public class OrderServiceImpl implements OrderService {
                             .build();
                 })
                 .toList();
-
-        masterOrderItemRepo.saveAll(items);
     }
 
     private InventoryProductIdsResponse fetchInventoryData(InventoryProductIdsRequest request) {
         log.info("(fetchInventoryData) Fetching inventory data for {} products", request.getIds().size());
-        return inventoryGrpcClientService.fetchInventoryData(request.getIds());
+        return productMetadataCache.fetchProducts(request.getIds());
     }
 
     /**
@@ -607,21 +991,73 @@ public class OrderServiceImpl implements OrderService {
         log.info("(list) userId: {}, page: {}, size: {}", userId, page, size);
         PageRequest pageRequest = PageRequest.of(page - 1, size);
         Page<Order> ordersByPage = slaveOrderRepo.findAllByUserId(userId, pageRequest);
-        List<Order> orders = ordersByPage.toList();
-        List<OrderSummaryResponse> orderSummaryResponses = orders.stream()
-                .map(order -> {
-                    List<OrderItem> items = slaveOrderItemRepo.findAllByOrderId(order.getId());
-                    return OrderSummaryResponse.from(order, items);
-                })
-                .toList();
         return PagingResponse.builder()
                 .size(size)
                 .page(page)
                 .total(ordersByPage.getTotalElements())
-                .data(orderSummaryResponses)
+                .data(summarize(ordersByPage.toList()))
                 .build();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public OrderHistoryResponse history(String userId, String cursor, int limit) {
+        log.info("(history) userId: {}, cursor: {}, limit: {}", userId, cursor, limit);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+
+        // One extra row tells whether another page exists without a COUNT query.
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Order> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = slaveOrderRepo.findHistory(userId, fetch);
+        } else {
+            Order last = decodeCursor(cursor);
+            orders = slaveOrderRepo.findHistoryBefore(userId, last.getCreatedAt(), last.getId(), fetch);
+        }
+
+        if (orders.size() <= pageSize) {
+            return new OrderHistoryResponse(summarize(orders), null);
+        }
+        List<Order> page = orders.subList(0, pageSize);
+        return new OrderHistoryResponse(summarize(page), encodeCursor(page.get(pageSize - 1)));
+    }
+
+    /** Fetches the items of all {@code orders} in one IN query rather than one query per order. */
+    private List<OrderSummaryResponse> summarize(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<String, List<OrderItem>> itemsByOrder = slaveOrderItemRepo
+                .findAllByOrderIdIn(orders.stream().map(Order::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(OrderItem::getOrderId));
+        return orders.stream()
+                .map(order -> OrderSummaryResponse.from(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList();
+    }
+
+    private static String encodeCursor(Order last) {
+        String raw = last.getCreatedAt() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns the last order of the previous page, holding only the keyset columns. */
+    private static Order decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(CURSOR_SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new BadRequestException("common.invalid_cursor");
+            }
+            return Order.builder()
+                    .createdAt(LocalDateTime.parse(raw.substring(0, separator)))
+                    .id(raw.substring(separator + 1))
+                    .build();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("common.invalid_cursor");
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OrderDetailResponse get(String userId, String orderId) {
@@ -0,0 +1,109 @@
+package org.aibles.order_service.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.model.CartItem;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.aibles.order_service.dto.request.ShoppingCartAddRequest;
+import org.aibles.order_service.dto.response.ShoppingCartListResponse;
+import org.aibles.order_service.dto.response.ShoppingCartResponse;
+import org.aibles.order_service.entity.ShoppingCartItem;
+import org.aibles.order_service.repository.master.MasterShoppingCartItemRepo;
+import org.aibles.order_service.service.ShoppingCartService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps each cart as a Redis hash that is authoritative for reads and writes; MySQL is only
+ * the durable copy, brought up to date by {@code CartWriteBehindFlusher}. A cart not yet in
+ * Redis is loaded from the master on first touch, after which the request is retried.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedisShoppingCartServiceImpl implements ShoppingCartService {
+
+    private final CartCacheRepository cartCacheRepository;
+
+    private final MasterShoppingCartItemRepo masterShoppingCartItemRepo;
+
+    @Override
+    public void addItem(String userId, ShoppingCartAddRequest request) {
+        log.info("(addItem)userId: {} request: {}", userId, request);
+        String newItemId = UUID.randomUUID().toString();
+        Optional<Long> quantity = add(userId, request, newItemId);
+        if (quantity.isEmpty()) {
+            loadFromDatabase(userId);
+            quantity = add(userId, request, newItemId);
+        }
+        if (quantity.isEmpty()) {
+            throw new IllegalStateException("Cart of user " + userId + " could not be loaded into the cache");
+        }
+    }
+
+    private Optional<Long> add(String userId, ShoppingCartAddRequest request, String newItemId) {
+        return cartCacheRepository.addItem(userId, request.getProductId(), request.getQuantity(),
+                request.getPrice(), newItemId);
+    }
+
+    @Override
+    public ShoppingCartListResponse list(String userId) {
+        log.info("(list)userId: {}", userId);
+        List<CartItem> items = cartCacheRepository.getItems(userId)
+                .orElseGet(() -> loadFromDatabase(userId));
+        ShoppingCartListResponse shoppingCartListResponse = new ShoppingCartListResponse();
+        shoppingCartListResponse.setShoppingCarts(items.stream()
+                .map(item -> ShoppingCartResponse.builder()
+                        .id(item.id())
+                        .quantity(item.quantity())
+                        .price(item.price())
+                        .productId(item.productId())
+                        .build()).toList());
+        return shoppingCartListResponse;
+    }
+
+    @Override
+    public void updateItem(String itemId, Long quantity) {
+        log.info("(updateItem)itemId: {}, quantity: {}", itemId, quantity);
+        findOwner(itemId).ifPresent(userId -> {
+            if (!cartCacheRepository.updateItem(userId, itemId, quantity)) {
+                loadFromDatabase(userId);
+                cartCacheRepository.updateItem(userId, itemId, quantity);
+            }
+        });
+    }
+
+    @Override
+    public void deleteItem(String itemId) {
+        log.info("(deleteItem)itemId: {}", itemId);
+        findOwner(itemId).ifPresent(userId -> {
+            if (!cartCacheRepository.deleteItem(userId, itemId)) {
+                loadFromDatabase(userId);
+                cartCacheRepository.deleteItem(userId, itemId);
+            }
+        });
+    }
+
+    /**
+     * An item unknown to Redis either does not exist (a no-op, as with the MySQL-backed service)
+     * or belongs to a cart that has not been loaded, or has expired, here.
+     */
+    private Optional<String> findOwner(String itemId) {
+        return cartCacheRepository.findItemOwner(itemId)
+                .or(() -> masterShoppingCartItemRepo.findById(itemId).map(ShoppingCartItem::getShoppingCartId));
+    }
+
+    /**
+     * Reads the master, not a replica: a lagging replica would seed Redis with a stale cart that
+     * the write-behind would then flush back over newer rows. If another request loaded the cart
+     * first, its copy is kept and returned.
+     */
+    private List<CartItem> loadFromDatabase(String userId) {
+        List<ShoppingCartItem> rows = masterShoppingCartItemRepo.findAllByShoppingCartId(userId);
+        cartCacheRepository.load(userId, rows.stream()
+                .map(row -> new CartItem(row.getId(), row.getProductId(), row.getQuantity(), row.getPrice()))
+                .toList());
+        return cartCacheRepository.getItems(userId).orElse(List.of());
+    }
+}
@@ -0,0 +1,238 @@
+package org.aibles.order_service.service.impl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.aibles.ecommerce.core_redis.repository.RedisRepository;
+import org.aibles.order_service.exception.ReservationUnavailableException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent available-stock reservations into one Lua evaluation per batch, so a
+ * burst of orders on a hot product costs one Redis round trip instead of one per order.
+ *
+ * A single dispatcher thread takes the first waiting request, collects whatever else arrives
+ * within {@code window} (up to {@code maxBatchSize}), and submits the lot through
+ * {@link PendingOrderCacheRepository#checkAndReserveAvailableBatch}. The script applies orders
+ * one after another, each all-or-nothing, so the outcome is the same as serial reservations.
+ * Under sustained load the queue is never empty and batches fill without waiting; at low load
+ * a request pays at most {@code window} extra latency.
+ *
+ * A caller waits at most {@code timeout}. A Redis failure, a timeout or a shutdown is thrown
+ * to the caller rather than reported as "out of stock". If a batch reserves an order whose
+ * caller has already given up, that reservation is released again.
+ *
+ * When disabled, {@link #reserve} calls {@code checkAndReserveAvailableAtomic} directly.
+ */
+@Slf4j
+public class ReservationBatcher {
+
+    private final PendingOrderCacheRepository pendingOrderCacheRepository;
+    private final RedisRepository redisRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    public ReservationBatcher(PendingOrderCacheRepository pendingOrderCacheRepository,
+                              RedisRepository redisRepository,
+                              boolean enabled,
+                              Duration window,
+                              int maxBatchSize,
+                              Duration timeout,
+                              MeterRegistry meterRegistry) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.pendingOrderCacheRepository = pendingOrderCacheRepository;
+        this.redisRepository = redisRepository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.batchSizes = DistributionSummary.builder("order.reservation.batch.size")
+                .description("Orders reserved per Lua evaluation by the reservation batcher")
+                .register(meterRegistry);
+        if (enabled) {
+            this.dispatcher = new Thread(this::dispatchLoop, "reservation-batcher");
+            this.dispatcher.setDaemon(true);
+            this.dispatcher.start();
+        } else {
+            this.dispatcher = null;
+        }
+        log.info("(ReservationBatcher) enabled: {}, window: {}, maxBatchSize: {}, timeout: {}",
+                enabled, window, maxBatchSize, timeout);
+    }
+
+    /**
+     * Atomically checks and decrements the available counter of every product in the order.
+     * Blocks until the batch holding this order has been evaluated, or for at most {@code timeout}.
+     *
+     * @return true if the whole order was reserved, false if any product is short
+     * @throws ReservationUnavailableException if the batcher is shut down or the batch did not
+     *         complete within {@code timeout}; the order is then not reserved
+     * @throws RuntimeException the Redis error that failed the batch
+     */
+    public boolean reserve(Map<String, Long> productQuantities) {
+        if (!enabled) {
+            return pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
+                    RedisConstant.AVAILABLE_PRODUCT_KEY, productQuantities);
+        }
+        Request request = new Request(productQuantities);
+        if (!running || !queue.offer(request)) {
+            throw new ReservationUnavailableException();
+        }
+        if (!running) {
+            // Raced with shutdown(): nobody will dequeue this request any more.
+            failQueued();
+        }
+        // The dispatcher completes every request it dequeues, and shutdown() fails the rest.
+        try {
+            return request.result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Claim the result first, so a batch that completes later releases what it reserved.
+            if (request.result.completeExceptionally(e)) {
+                log.warn("(reserve) No reservation result within {}", timeout);
+                throw new ReservationUnavailableException();
+            }
+            return request.result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (request.result.completeExceptionally(e)) {
+                throw new ReservationUnavailableException();
+            }
+            return request.result.join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Stops accepting requests; requests still queued fail with {@link ReservationUnavailableException}. */
+    public void shutdown() {
+        if (dispatcher == null) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                collect(batch);
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                // Shutting down mid-collection: still dispatch what was already dequeued.
+            }
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void collect(List<Request> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void dispatch(List<Request> batch) {
+        // Callers that timed out while queued are not evaluated at all.
+        batch.removeIf(request -> request.result.isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        List<Map<String, Long>> orders = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            orders.add(request.productQuantities);
+        }
+        List<Boolean> results;
+        try {
+            results = pendingOrderCacheRepository.checkAndReserveAvailableBatch(
+                    RedisConstant.AVAILABLE_PRODUCT_KEY, orders);
+        } catch (RuntimeException e) {
+            log.error("(dispatch) Batched reservation of {} orders failed", batch.size(), e);
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            boolean reserved = i < results.size() && Boolean.TRUE.equals(results.get(i));
+            if (!batch.get(i).result.complete(reserved) && reserved) {
+                release(batch.get(i).productQuantities);
+            }
+        }
+    }
+
+    /** Gives back a reservation its caller stopped waiting for. */
+    private void release(Map<String, Long> productQuantities) {
+        log.warn("(release) Caller gave up before its reservation completed, releasing {} products",
+                productQuantities.size());
+        productQuantities.forEach((productId, quantity) -> {
+            try {
+                redisRepository.incr(RedisConstant.AVAILABLE_PRODUCT_KEY + productId, quantity);
+            } catch (RuntimeException e) {
+                log.error("(release) Failed to release product: {}", productId, e);
+            }
+        });
+    }
+
+    private void failQueued() {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(new ReservationUnavailableException());
+        }
+    }
+
+    private static final class Request {
+
+        private final Map<String, Long> productQuantities;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Request(Map<String, Long> productQuantities) {
+            this.productQuantities = productQuantities;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- V3: compact, time-ordered keys for order and order_item.
+-- New ids are UUIDv7 (see IdGenerator), so inserts append to the clustered index instead of
+-- splitting random pages. The columns shrink from VARCHAR(255) utf8mb4 to fixed CHAR(36) ascii,
+-- which also narrows every secondary index that carries the primary key.
+-- Existing random UUIDs stay valid: they fit the new type, they just do not sort by time.
+
+ALTER TABLE `order`
+    MODIFY COLUMN id CHAR(36) CHARACTER SET ascii NOT NULL;
+
+ALTER TABLE order_item
+    MODIFY COLUMN id CHAR(36) CHARACTER SET ascii NOT NULL,
+    MODIFY COLUMN order_id CHAR(36) CHARACTER SET ascii NOT NULL;
+
+-- Rebuild so pages fragmented by the random keys are compacted once.
+OPTIMIZE TABLE `order`, order_item;
@@ -0,0 +1,130 @@
+package org.aibles.order_service.benchmark;
+
+import org.aibles.order_service.util.IdGenerator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Order write throughput and index size for each combination of key scheme (random UUID in
+ * VARCHAR(255) utf8mb4 vs UUIDv7 in CHAR(36) ascii) and write mode (one INSERT per row vs a JDBC
+ * batch rewritten into multi-row INSERTs). Each order and its items commit in one transaction,
+ * as in {@code OrderServiceImpl.create}.
+ *
+ * Needs a scratch MySQL schema; the bench_* tables are dropped and recreated. Run from
+ * order-service with:
+ * {@code mvn -q test-compile exec:java -Dexec.mainClass=org.aibles.order_service.benchmark.OrderInsertBenchmark -Dexec.classpathScope=test -Dbench.url=jdbc:mysql://localhost:3306/bench -Dbench.user=root -Dbench.password=...}
+ * Optional: {@code -Dbench.orders=20000 -Dbench.items=5}.
+ */
+public class OrderInsertBenchmark {
+
+    private record KeyScheme(String name, String columnType, Supplier<String> ids) {}
+
+    private static final List<KeyScheme> KEY_SCHEMES = List.of(
+            new KeyScheme("random-varchar", "VARCHAR(255) CHARACTER SET utf8mb4", () -> UUID.randomUUID().toString()),
+            new KeyScheme("uuidv7-ascii", "CHAR(36) CHARACTER SET ascii", IdGenerator::timeOrderedUuid));
+
+    public static void main(String[] args) throws SQLException {
+        String url = System.getProperty("bench.url");
+        String user = System.getProperty("bench.user", "root");
+        String password = System.getProperty("bench.password", "");
+        int orders = Integer.getInteger("bench.orders", 20_000);
+        int itemsPerOrder = Integer.getInteger("bench.items", 5);
+        if (url == null) {
+            throw new IllegalArgumentException("-Dbench.url=jdbc:mysql://host:port/schema is required");
+        }
+
+        System.out.printf("%-16s %-8s %12s %14s %14s%n", "keys", "writes", "rows/sec", "data bytes", "index bytes");
+        for (KeyScheme keys : KEY_SCHEMES) {
+            for (boolean batched : new boolean[]{false, true}) {
+                // rewriteBatchedStatements only changes anything for batched writes.
+                String connectionUrl = url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=" + batched;
+                try (Connection connection = DriverManager.getConnection(connectionUrl, user, password)) {
+                    createTables(connection, keys);
+                    double rowsPerSecond = insert(connection, keys, batched, orders, itemsPerOrder);
+                    long[] sizes = sizes(connection);
+                    System.out.printf("%-16s %-8s %12.0f %14d %14d%n",
+                            keys.name(), batched ? "batched" : "single", rowsPerSecond, sizes[0], sizes[1]);
+                }
+            }
+        }
+    }
+
+    private static void createTables(Connection connection, KeyScheme keys) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_order_item, bench_order");
+            statement.execute("CREATE TABLE bench_order (" +
+                    "id " + keys.columnType() + " NOT NULL PRIMARY KEY, " +
+                    "user_id VARCHAR(255) NOT NULL, " +
+                    "status VARCHAR(20) NOT NULL, " +
+                    "address VARCHAR(500) NOT NULL, " +
+                    "phone_number VARCHAR(20) NOT NULL, " +
+                    "created_at DATETIME(6) NOT NULL, " +
+                    "INDEX idx_bench_order_user_created_id (user_id, created_at, id)) ENGINE=InnoDB");
+            statement.execute("CREATE TABLE bench_order_item (" +
+                    "id " + keys.columnType() + " NOT NULL PRIMARY KEY, " +
+                    "order_id " + keys.columnType() + " NOT NULL, " +
+                    "product_id VARCHAR(255) NOT NULL, " +
+                    "price DOUBLE NOT NULL, " +
+                    "quantity BIGINT NOT NULL, " +
+                    "INDEX idx_bench_order_item_order_id (order_id)) ENGINE=InnoDB");
+        }
+    }
+
+    private static double insert(Connection connection, KeyScheme keys, boolean batched,
+                                 int orders, int itemsPerOrder) throws SQLException {
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement orderInsert = connection.prepareStatement(
+                "INSERT INTO bench_order (id, user_id, status, address, phone_number, created_at) " +
+                        "VALUES (?, ?, 'PROCESSING', 'bench address', '0123456789', NOW(6))");
+             PreparedStatement itemInsert = connection.prepareStatement(
+                     "INSERT INTO bench_order_item (id, order_id, product_id, price, quantity) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < orders; i++) {
+                String orderId = keys.ids().get();
+                orderInsert.setString(1, orderId);
+                orderInsert.setString(2, "user-" + (i % 1000));
+                orderInsert.executeUpdate();
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    itemInsert.setString(1, keys.ids().get());
+                    itemInsert.setString(2, orderId);
+                    itemInsert.setString(3, "product-" + j);
+                    itemInsert.setDouble(4, 10.0);
+                    itemInsert.setLong(5, 1L);
+                    if (batched) {
+                        itemInsert.addBatch();
+                    } else {
+                        itemInsert.executeUpdate();
+                    }
+                }
+                if (batched) {
+                    itemInsert.executeBatch();
+                }
+                connection.commit();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        connection.setAutoCommit(true);
+        return orders * (1 + itemsPerOrder) / seconds;
+    }
+
+    /** {data_length, index_length} summed over both tables, after refreshing the statistics. */
+    private static long[] sizes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE bench_order, bench_order_item");
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT SUM(data_length), SUM(index_length) FROM information_schema.tables " +
+                            "WHERE table_schema = DATABASE() AND table_name IN ('bench_order', 'bench_order_item')")) {
+                resultSet.next();
+                return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.aibles.order_service.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.common_dto.avro_kafka.ProductUpdate;
+import org.aibles.ecommerce.common_dto.response.InventoryProductIdsResponse;
+import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ProductMetadataCacheTest {
+
+    private InventoryGrpcClientService inventoryGrpcClientService;
+    private ShardedStockRepository shardedStockRepository;
+    private ProductMetadataCache sut;
+
+    @BeforeEach
+    void setUp() {
+        inventoryGrpcClientService = mock(InventoryGrpcClientService.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
+        sut = new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000,
+                Duration.ofMinutes(10), 2, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void warm_thenOrderProducts_areServedWithoutGrpc() {
+        when(shardedStockRepository.productIds()).thenReturn(Set.of("p1", "p2", "p3"));
+        when(inventoryGrpcClientService.fetchInventoryData(anyList())).thenAnswer(invocation -> inventory(
+                invocation.<List<String>>getArgument(0).stream().map(id -> product(id, 10.0)).toList()));
+
+        sut.warm();
+        clearInvocations(inventoryGrpcClientService);
+
+        InventoryProductIdsResponse response = sut.fetchProducts(List.of("p1", "p3"));
+
+        assertThat(response.getInventoryProducts()).extracting(InventoryProductResponse::getId)
+                .containsExactly("p1", "p3");
+        // Stock is the Redis counters' business, never the cache's.
+        assertThat(response.getInventoryProducts()).allSatisfy(product -> assertThat(product.getQuantity()).isNull());
+        verifyNoInteractions(inventoryGrpcClientService);
+    }
+
+    @Test
+    void miss_fetchesOnlyMissingProducts_andUnknownProductsAreNotCached() {
+        when(inventoryGrpcClientService.fetchInventoryData(List.of("p1"))).thenReturn(inventory(List.of(product("p1", 10.0))));
+        sut.fetchProducts(List.of("p1"));
+        when(inventoryGrpcClientService.fetchInventoryData(List.of("p2"))).thenReturn(inventory(List.of()));
+
+        InventoryProductIdsResponse response = sut.fetchProducts(List.of("p1", "p2"));
+        sut.fetchProducts(List.of("p2"));
+
+        assertThat(response.getInventoryProducts()).extracting(InventoryProductResponse::getId).containsExactly("p1");
+        verify(inventoryGrpcClientService, times(1)).fetchInventoryData(List.of("p1"));
+        verify(inventoryGrpcClientService, times(2)).fetchInventoryData(List.of("p2"));
+    }
+
+    @Test
+    void productUpdate_replacesCachedMetadata() {
+        when(inventoryGrpcClientService.fetchInventoryData(List.of("p1"))).thenReturn(inventory(List.of(product("p1", 10.0))));
+        sut.fetchProducts(List.of("p1"));
+
+        sut.update(ProductUpdate.newBuilder().setId("p1").setName("Renamed").setPrice(12.5).setImageUrl(null).build());
+
+        InventoryProductResponse product = sut.fetchProducts(List.of("p1")).getInventoryProducts().get(0);
+        assertThat(product.getName()).isEqualTo("Renamed");
+        assertThat(product.getPrice()).isEqualTo(12.5);
+        verify(inventoryGrpcClientService, times(1)).fetchInventoryData(anyList());
+    }
+
+    private static InventoryProductIdsResponse inventory(List<InventoryProductResponse> products) {
+        return new InventoryProductIdsResponse(products);
+    }
+
+    private static InventoryProductResponse product(String id, double price) {
+        return InventoryProductResponse.builder().id(id).name("Product " + id).price(price).quantity(5L).build();
+    }
+}
@@ -4,8 +4,10 @@ import org.aibles.ecommerce.common_dto.exception.OrderAlreadyCanceledException;
 import org.aibles.ecommerce.common_dto.exception.OrderNotCancellableException;
 import org.aibles.ecommerce.core_exception_api.configuration.CoreApiExceptionConfiguration;
 import org.aibles.ecommerce.core_exception_api.configuration.MessageResourcesProperties;
+import org.aibles.ecommerce.core_redis.idempotency.IdempotencyService;
 import org.aibles.order_service.constant.OrderStatus;
 import org.aibles.order_service.dto.response.OrderCancelResponse;
+import org.aibles.order_service.service.OrderAcceptanceService;
 import org.aibles.order_service.service.OrderService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +38,12 @@ class OrderControllerCancelTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderAcceptanceService orderAcceptanceService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Test
     void cancelHappyPath_returnsCanceled() throws Exception {
         when(orderService.cancel(eq("u1"), eq("o1")))
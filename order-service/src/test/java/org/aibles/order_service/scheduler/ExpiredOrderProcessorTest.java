@@ -0,0 +1,102 @@
+package org.aibles.order_service.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.core_order_cache.model.ExpiredOrder;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExpiredOrderProcessorTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredOrderProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(pendingOrderCacheRepository.getEarliestExpiry()).thenReturn(Optional.empty());
+        processor = new ExpiredOrderProcessor(pendingOrderCacheRepository, 2, 10, 2, Duration.ofSeconds(60),
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void processExpiredOrders_releasesClaimedOrdersToAvailableCounter() {
+        ExpiredOrder order = expired("order-expired", Map.of("prod-1", 4L));
+        when(pendingOrderCacheRepository.claimExpiredOrders(NOW, 2, NOW + 60_000)).thenReturn(List.of(order));
+        when(pendingOrderCacheRepository.releaseExpiredOrder(RedisConstant.AVAILABLE_PRODUCT_KEY, order)).thenReturn(true);
+
+        processor.processExpiredOrders();
+
+        verify(pendingOrderCacheRepository).releaseExpiredOrder(RedisConstant.AVAILABLE_PRODUCT_KEY, order);
+        assertThat(meterRegistry.get("order.expiry.orders").tag("outcome", "released").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void processExpiredOrders_noExpiredOrders_releasesNothing() {
+        when(pendingOrderCacheRepository.claimExpiredOrders(anyLong(), anyInt(), anyLong())).thenReturn(List.of());
+
+        processor.processExpiredOrders();
+
+        verify(pendingOrderCacheRepository, never()).releaseExpiredOrder(any(), any());
+    }
+
+    @Test
+    void processExpiredOrders_pagesUntilBatchComesBackShort() {
+        when(pendingOrderCacheRepository.claimExpiredOrders(anyLong(), anyInt(), anyLong()))
+                .thenReturn(List.of(expired("o1", Map.of("p", 1L)), expired("o2", Map.of("p", 1L))))
+                .thenReturn(List.of(expired("o3", Map.of("p", 1L))));
+        when(pendingOrderCacheRepository.releaseExpiredOrder(any(), any())).thenReturn(true);
+
+        processor.processExpiredOrders();
+
+        verify(pendingOrderCacheRepository, times(2)).claimExpiredOrders(anyLong(), eq(2), anyLong());
+        verify(pendingOrderCacheRepository, times(3)).releaseExpiredOrder(any(), any());
+    }
+
+    @Test
+    void processExpiredOrders_failedReleaseDoesNotStopTheBatch_andBacklogIsExported() {
+        ExpiredOrder broken = expired("o1", Map.of("p", 1L));
+        ExpiredOrder paid = expired("o2", Map.of("p", 1L));
+        when(pendingOrderCacheRepository.claimExpiredOrders(anyLong(), anyInt(), anyLong()))
+                .thenReturn(List.of(broken, paid))
+                .thenReturn(List.of());
+        when(pendingOrderCacheRepository.releaseExpiredOrder(any(), eq(broken))).thenThrow(new RuntimeException("Redis down"));
+        when(pendingOrderCacheRepository.releaseExpiredOrder(any(), eq(paid))).thenReturn(false);
+        when(pendingOrderCacheRepository.countExpiredOrders(NOW)).thenReturn(7L);
+        when(pendingOrderCacheRepository.getEarliestExpiry()).thenReturn(Optional.of(NOW - 5_000));
+
+        processor.processExpiredOrders();
+
+        assertThat(meterRegistry.get("order.expiry.orders").tag("outcome", "failed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("order.expiry.orders").tag("outcome", "skipped").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("order.expiry.backlog").gauge().value()).isEqualTo(7.0);
+        assertThat(meterRegistry.get("order.expiry.lag").gauge().value()).isEqualTo(5.0);
+    }
+
+    private static ExpiredOrder expired(String orderId, Map<String, Long> productQuantities) {
+        return new ExpiredOrder(orderId, orderId + ":{}", productQuantities);
+    }
+}
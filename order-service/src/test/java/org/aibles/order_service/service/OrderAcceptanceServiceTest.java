@@ -0,0 +1,154 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequestedItem;
+import org.aibles.ecommerce.common_dto.exception.NotFoundException;
+import org.aibles.ecommerce.core_order_cache.model.OrderAcceptance;
+import org.aibles.ecommerce.core_order_cache.repository.OrderAcceptanceRepository;
+import org.aibles.order_service.constant.OrderAcceptanceStatus;
+import org.aibles.order_service.dto.request.OrderItemRequest;
+import org.aibles.order_service.dto.request.OrderRequest;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
+import org.aibles.order_service.entity.Order;
+import org.aibles.order_service.exception.OrderQueueUnavailableException;
+import org.aibles.order_service.repository.slave.SlaveOrderRepo;
+import org.aibles.order_service.service.impl.OrderAcceptanceServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderAcceptanceServiceTest {
+
+    private static final Duration STATUS_TTL = Duration.ofHours(1);
+
+    private OrderService orderService;
+    private OrderAcceptanceRepository orderAcceptanceRepository;
+    private SlaveOrderRepo slaveOrderRepo;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OrderAcceptanceService sut;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderService = mock(OrderService.class);
+        orderAcceptanceRepository = mock(OrderAcceptanceRepository.class);
+        slaveOrderRepo = mock(SlaveOrderRepo.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        sut = new OrderAcceptanceServiceImpl(orderService, orderAcceptanceRepository, slaveOrderRepo, kafkaTemplate,
+                "order-service.order.requested", STATUS_TTL, Duration.ofSeconds(1), 3, Duration.ZERO,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void accept_recordsQueuedAndEnqueuesKeyedByUser() {
+        when(kafkaTemplate.send(eq("order-service.order.requested"), eq("user-1"), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        OrderAcceptedResponse response = sut.accept("user-1", request());
+
+        assertThat(response.getStatus()).isEqualTo(OrderAcceptanceStatus.QUEUED);
+        verify(orderAcceptanceRepository).save(eq(response.getOrderId()),
+                eq(new OrderAcceptance("user-1", "QUEUED", null)), eq(STATUS_TTL));
+        verify(kafkaTemplate).send(eq("order-service.order.requested"), eq("user-1"),
+                argThat(message -> ((OrderRequested) message).getOrderId().toString().equals(response.getOrderId())));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void accept_brokerUnavailable_forgetsOrderAndAnswers503() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThatThrownBy(() -> sut.accept("user-1", request()))
+                .isInstanceOf(OrderQueueUnavailableException.class);
+        verify(orderAcceptanceRepository).delete(anyString());
+    }
+
+    @Test
+    void status_ofAnotherUsersOrder_isNotFound() {
+        when(orderAcceptanceRepository.find("o1")).thenReturn(Optional.of(new OrderAcceptance("user-2", "QUEUED", null)));
+
+        assertThatThrownBy(() -> sut.status("user-1", "o1")).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void status_afterRecordExpired_isAnsweredByTheOrder() {
+        when(orderAcceptanceRepository.find("o1")).thenReturn(Optional.empty());
+        when(slaveOrderRepo.findByIdAndUserId("o1", "user-1")).thenReturn(Optional.of(new Order()));
+
+        assertThat(sut.status("user-1", "o1").getStatus()).isEqualTo(OrderAcceptanceStatus.CREATED);
+    }
+
+    @Test
+    void process_skipsRedeliveredOrders_andRecordsOutcomesInOneWrite() {
+        OrderRequested queued = message("o1");
+        OrderRequested decided = message("o2");
+        when(orderAcceptanceRepository.find("o1")).thenReturn(Optional.of(new OrderAcceptance("user-1", "QUEUED", null)));
+        when(orderAcceptanceRepository.find("o2")).thenReturn(Optional.of(new OrderAcceptance("user-1", "CREATED", null)));
+        when(orderService.createAccepted(List.of(queued))).thenReturn(List.of(OrderAcceptedResponse.builder()
+                .orderId("o1").status(OrderAcceptanceStatus.REJECTED).errorCode("order.product.invalid_quantity").build()));
+
+        sut.process(List.of(queued, decided));
+
+        verify(orderService).createAccepted(List.of(queued));
+        verify(orderAcceptanceRepository).saveAll(
+                Map.of("o1", new OrderAcceptance("user-1", "REJECTED", "order.product.invalid_quantity")), STATUS_TTL);
+    }
+
+    @Test
+    void process_retriesAFailedPoll() {
+        OrderRequested queued = message("o1");
+        when(orderAcceptanceRepository.find("o1")).thenReturn(Optional.empty());
+        when(orderService.createAccepted(List.of(queued)))
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenReturn(List.of(OrderAcceptedResponse.builder()
+                        .orderId("o1").status(OrderAcceptanceStatus.CREATED).build()));
+
+        sut.process(List.of(queued));
+
+        verify(orderService, times(2)).createAccepted(List.of(queued));
+        verify(orderAcceptanceRepository).saveAll(Map.of("o1", new OrderAcceptance("user-1", "CREATED", null)), STATUS_TTL);
+    }
+
+    @Test
+    void process_pollStillFailingAfterLastAttempt_recordsOrdersRejected() {
+        OrderRequested first = message("o1");
+        OrderRequested second = message("o2");
+        when(orderAcceptanceRepository.find(anyString())).thenReturn(Optional.empty());
+        when(orderService.createAccepted(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        sut.process(List.of(first, second));
+
+        verify(orderService, times(3)).createAccepted(List.of(first, second));
+        verify(orderAcceptanceRepository).saveAll(Map.of(
+                "o1", new OrderAcceptance("user-1", "REJECTED", "order.acceptance.failed"),
+                "o2", new OrderAcceptance("user-1", "REJECTED", "order.acceptance.failed")), STATUS_TTL);
+    }
+
+    private static OrderRequest request() {
+        return new OrderRequest("1 Main St", "0912345678", List.of(new OrderItemRequest("prod-1", 2L)));
+    }
+
+    private static OrderRequested message(String orderId) {
+        return OrderRequested.newBuilder()
+                .setOrderId(orderId)
+                .setUserId("user-1")
+                .setAddress("1 Main St")
+                .setPhoneNumber("0912345678")
+                .setItems(List.of(OrderRequestedItem.newBuilder().setProductId("prod-1").setQuantity(2L).build()))
+                .setRequestedAt(System.currentTimeMillis())
+                .build();
+    }
+}
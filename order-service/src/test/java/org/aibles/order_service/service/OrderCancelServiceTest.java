@@ -1,5 +1,6 @@
 package org.aibles.order_service.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aibles.ecommerce.common_dto.avro_kafka.PaymentCanceled;
 import org.aibles.ecommerce.common_dto.event.EcommerceEvent;
 import org.aibles.ecommerce.common_dto.event.MongoSavedEvent;
@@ -8,8 +9,11 @@ import org.aibles.ecommerce.common_dto.exception.NotFoundException;
 import org.aibles.ecommerce.common_dto.exception.OrderAlreadyCanceledException;
 import org.aibles.ecommerce.common_dto.exception.OrderNotCancellableException;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.ReservationMode;
 import org.aibles.order_service.constant.OrderStatus;
 import org.aibles.order_service.dto.response.OrderCancelResponse;
 import org.aibles.order_service.entity.Order;
@@ -20,12 +24,14 @@ import org.aibles.order_service.repository.master.MasterOrderRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderRepo;
 import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -46,6 +52,7 @@ class OrderCancelServiceTest {
     private InventoryGrpcClientService inventoryGrpcClientService;
     private RedisRepository redisRepository;
     private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private ShardedStockRepository shardedStockRepository;
     private MasterOrderRepo masterOrderRepo;
     private MasterOrderItemRepo masterOrderItemRepo;
     private RedissonClient redissonClient;
@@ -61,6 +68,7 @@ class OrderCancelServiceTest {
         inventoryGrpcClientService = mock(InventoryGrpcClientService.class);
         redisRepository = mock(RedisRepository.class);
         pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
         masterOrderRepo = mock(MasterOrderRepo.class);
         masterOrderItemRepo = mock(MasterOrderItemRepo.class);
         redissonClient = mock(RedissonClient.class);
@@ -70,16 +78,22 @@ class OrderCancelServiceTest {
         slaveOrderItemRepo = mock(SlaveOrderItemRepo.class);
 
         orderService = new OrderServiceImpl(
-                inventoryGrpcClientService,
+                new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000, Duration.ofMinutes(10), 100,
+                        new SimpleMeterRegistry()),
                 redisRepository,
                 pendingOrderCacheRepository,
+                shardedStockRepository,
+                new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1, Duration.ofSeconds(2),
+                        new SimpleMeterRegistry()),
                 masterOrderRepo,
                 masterOrderItemRepo,
                 redissonClient,
                 processedPaymentEventRepository,
                 eventPublisher,
                 slaveOrderRepo,
-                slaveOrderItemRepo
+                slaveOrderItemRepo,
+                ReservationMode.LOCKED,
+                new SimpleMeterRegistry()
         );
     }
 
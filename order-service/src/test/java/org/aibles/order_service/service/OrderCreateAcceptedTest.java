@@ -0,0 +1,185 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequested;
+import org.aibles.ecommerce.common_dto.avro_kafka.OrderRequestedItem;
+import org.aibles.ecommerce.common_dto.response.InventoryProductIdsResponse;
+import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.aibles.ecommerce.core_redis.repository.RedisRepository;
+import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.OrderAcceptanceStatus;
+import org.aibles.order_service.constant.ReservationMode;
+import org.aibles.order_service.dto.response.OrderAcceptedResponse;
+import org.aibles.order_service.entity.Order;
+import org.aibles.order_service.repository.ProcessedPaymentEventRepository;
+import org.aibles.order_service.repository.master.MasterOrderItemRepo;
+import org.aibles.order_service.repository.master.MasterOrderRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderRepo;
+import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderCreateAcceptedTest {
+
+    private static final String OUT_OF_STOCK = "order.product.invalid_quantity";
+
+    private InventoryGrpcClientService inventoryGrpcClientService;
+    private RedisRepository redisRepository;
+    private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private ShardedStockRepository shardedStockRepository;
+    private MasterOrderRepo masterOrderRepo;
+    private MasterOrderItemRepo masterOrderItemRepo;
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryGrpcClientService = mock(InventoryGrpcClientService.class);
+        redisRepository = mock(RedisRepository.class);
+        pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
+        masterOrderRepo = mock(MasterOrderRepo.class);
+        masterOrderItemRepo = mock(MasterOrderItemRepo.class);
+
+        orderService = new OrderServiceImpl(
+                new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000, Duration.ofMinutes(10), 100,
+                        new SimpleMeterRegistry()),
+                redisRepository,
+                pendingOrderCacheRepository,
+                shardedStockRepository,
+                new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1, Duration.ofSeconds(2),
+                        new SimpleMeterRegistry()),
+                masterOrderRepo,
+                masterOrderItemRepo,
+                mock(RedissonClient.class),
+                mock(ProcessedPaymentEventRepository.class),
+                mock(ApplicationEventPublisher.class),
+                mock(SlaveOrderRepo.class),
+                mock(SlaveOrderItemRepo.class),
+                ReservationMode.LOCK_FREE,
+                new SimpleMeterRegistry()
+        );
+
+        when(inventoryGrpcClientService.fetchInventoryData(anyList())).thenReturn(new InventoryProductIdsResponse(List.of(
+                product("prod-1"), product("prod-2"), product("prod-flash"))));
+        when(shardedStockRepository.shardedProducts()).thenReturn(Map.of());
+        when(masterOrderRepo.findAllById(anyIterable())).thenReturn(List.of());
+    }
+
+    @Test
+    void createAccepted_unknownProduct_rejectsOnlyThatOrder() {
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyList()))
+                .thenReturn(List.of(true));
+
+        Map<String, OrderAcceptedResponse> outcomes = byOrderId(orderService.createAccepted(List.of(
+                message("o1", "prod-1"), message("o2", "prod-missing"))));
+
+        assertThat(outcomes.get("o1").getStatus()).isEqualTo(OrderAcceptanceStatus.CREATED);
+        assertThat(outcomes.get("o2").getStatus()).isEqualTo(OrderAcceptanceStatus.REJECTED);
+        assertThat(outcomes.get("o2").getErrorCode()).isEqualTo(OUT_OF_STOCK);
+        verify(pendingOrderCacheRepository).checkAndReserveAvailableBatch(
+                RedisConstant.AVAILABLE_PRODUCT_KEY, List.of(Map.of("prod-1", 1L)));
+    }
+
+    @Test
+    void createAccepted_reservesPlainOrdersInOneBatchedCall_andRejectsTheShortOnes() {
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyList()))
+                .thenReturn(List.of(true, false));
+
+        Map<String, OrderAcceptedResponse> outcomes = byOrderId(orderService.createAccepted(List.of(
+                message("o1", "prod-1"), message("o2", "prod-1", "prod-2"))));
+
+        assertThat(outcomes.get("o1").getStatus()).isEqualTo(OrderAcceptanceStatus.CREATED);
+        assertThat(outcomes.get("o2").getStatus()).isEqualTo(OrderAcceptanceStatus.REJECTED);
+        assertThat(outcomes.get("o2").getErrorCode()).isEqualTo(OUT_OF_STOCK);
+        verify(pendingOrderCacheRepository, times(1)).checkAndReserveAvailableBatch(
+                RedisConstant.AVAILABLE_PRODUCT_KEY, List.of(Map.of("prod-1", 1L), Map.of("prod-1", 1L, "prod-2", 1L)));
+        verify(pendingOrderCacheRepository, never()).checkAndReserveAvailableAtomic(any(), any());
+        verify(masterOrderRepo).saveAll(argThat((List<Order> orders) -> orders.size() == 1 && "o1".equals(orders.get(0).getId())));
+    }
+
+    @Test
+    void createAccepted_flashSaleOrdersGoThroughTheShards_plainOnesThroughTheBatch() {
+        when(shardedStockRepository.shardedProducts()).thenReturn(Map.of("prod-flash", 4));
+        when(shardedStockRepository.reserve(Map.of("prod-flash", 1L))).thenReturn(true);
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyList()))
+                .thenReturn(List.of(true));
+
+        Map<String, OrderAcceptedResponse> outcomes = byOrderId(orderService.createAccepted(List.of(
+                message("o1", "prod-flash"), message("o2", "prod-2"))));
+
+        assertThat(outcomes.values()).allMatch(outcome -> outcome.getStatus() == OrderAcceptanceStatus.CREATED);
+        verify(shardedStockRepository).reserve(Map.of("prod-flash", 1L));
+        verify(pendingOrderCacheRepository).checkAndReserveAvailableBatch(
+                RedisConstant.AVAILABLE_PRODUCT_KEY, List.of(Map.of("prod-2", 1L)));
+    }
+
+    @Test
+    void createAccepted_persistFailure_releasesReservationsAndRethrows() {
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyList()))
+                .thenReturn(List.of(true, true));
+        when(masterOrderRepo.saveAll(anyList())).thenThrow(new IllegalStateException("DB unavailable"));
+
+        assertThatThrownBy(() -> orderService.createAccepted(List.of(message("o1", "prod-1"), message("o2", "prod-2"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1", 1L);
+        verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-2", 1L);
+        verify(pendingOrderCacheRepository, never()).addToPendingOrders(anyString(), anyDouble(), anyMap(), anyLong());
+    }
+
+    @Test
+    void createAccepted_redelivery_skipsOrdersThatAlreadyExist() {
+        Order existing = new Order();
+        existing.setId("o1");
+        when(masterOrderRepo.findAllById(anyIterable())).thenReturn(List.of(existing));
+
+        List<OrderAcceptedResponse> outcomes = orderService.createAccepted(List.of(message("o1", "prod-1")));
+
+        assertThat(outcomes).singleElement()
+                .satisfies(outcome -> assertThat(outcome.getStatus()).isEqualTo(OrderAcceptanceStatus.CREATED));
+        verifyNoInteractions(inventoryGrpcClientService);
+        verify(pendingOrderCacheRepository, never()).checkAndReserveAvailableBatch(any(), any());
+        verify(masterOrderRepo, never()).saveAll(anyList());
+    }
+
+    private static Map<String, OrderAcceptedResponse> byOrderId(List<OrderAcceptedResponse> outcomes) {
+        return outcomes.stream().collect(Collectors.toMap(OrderAcceptedResponse::getOrderId, outcome -> outcome));
+    }
+
+    private static InventoryProductResponse product(String id) {
+        return InventoryProductResponse.builder().id(id).name(id).price(5.0).quantity(10L).build();
+    }
+
+    private static OrderRequested message(String orderId, String... productIds) {
+        return OrderRequested.newBuilder()
+                .setOrderId(orderId)
+                .setUserId("user-1")
+                .setAddress("1 Main St")
+                .setPhoneNumber("0912345678")
+                .setItems(Arrays.stream(productIds)
+                        .map(productId -> OrderRequestedItem.newBuilder().setProductId(productId).setQuantity(1L).build())
+                        .toList())
+                .setRequestedAt(System.currentTimeMillis())
+                .build();
+    }
+}
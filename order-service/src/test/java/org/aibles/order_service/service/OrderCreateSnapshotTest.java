@@ -1,10 +1,14 @@
 package org.aibles.order_service.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aibles.ecommerce.common_dto.response.InventoryProductIdsResponse;
 import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.ReservationMode;
 import org.aibles.order_service.dto.request.OrderItemRequest;
 import org.aibles.order_service.dto.request.OrderRequest;
 import org.aibles.order_service.entity.Order;
@@ -16,6 +20,7 @@ import org.aibles.order_service.repository.master.MasterOrderRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderRepo;
 import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -23,6 +28,7 @@ import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,6 +46,7 @@ class OrderCreateSnapshotTest {
     private InventoryGrpcClientService inventoryGrpcClientService;
     private RedisRepository redisRepository;
     private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private ShardedStockRepository shardedStockRepository;
     private MasterOrderRepo masterOrderRepo;
     private MasterOrderItemRepo masterOrderItemRepo;
     private RedissonClient redissonClient;
@@ -55,6 +62,7 @@ class OrderCreateSnapshotTest {
         inventoryGrpcClientService = mock(InventoryGrpcClientService.class);
         redisRepository = mock(RedisRepository.class);
         pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
         masterOrderRepo = mock(MasterOrderRepo.class);
         masterOrderItemRepo = mock(MasterOrderItemRepo.class);
         redissonClient = mock(RedissonClient.class);
@@ -64,16 +72,22 @@ class OrderCreateSnapshotTest {
         slaveOrderItemRepo = mock(SlaveOrderItemRepo.class);
 
         orderService = new OrderServiceImpl(
-                inventoryGrpcClientService,
+                new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000, Duration.ofMinutes(10), 100,
+                        new SimpleMeterRegistry()),
                 redisRepository,
                 pendingOrderCacheRepository,
+                shardedStockRepository,
+                new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1, Duration.ofSeconds(2),
+                        new SimpleMeterRegistry()),
                 masterOrderRepo,
                 masterOrderItemRepo,
                 redissonClient,
                 processedPaymentEventRepository,
                 eventPublisher,
                 slaveOrderRepo,
-                slaveOrderItemRepo
+                slaveOrderItemRepo,
+                ReservationMode.LOCKED,
+                new SimpleMeterRegistry()
         );
     }
 
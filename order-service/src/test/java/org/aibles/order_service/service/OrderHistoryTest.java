@@ -0,0 +1,117 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.common_dto.exception.BadRequestException;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.core_redis.repository.RedisRepository;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.OrderStatus;
+import org.aibles.order_service.constant.ReservationMode;
+import org.aibles.order_service.dto.response.OrderHistoryResponse;
+import org.aibles.order_service.dto.response.OrderSummaryResponse;
+import org.aibles.order_service.entity.Order;
+import org.aibles.order_service.entity.OrderItem;
+import org.aibles.order_service.repository.ProcessedPaymentEventRepository;
+import org.aibles.order_service.repository.master.MasterOrderItemRepo;
+import org.aibles.order_service.repository.master.MasterOrderRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderRepo;
+import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderHistoryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_000_000);
+
+    private SlaveOrderRepo slaveOrderRepo;
+    private SlaveOrderItemRepo slaveOrderItemRepo;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        PendingOrderCacheRepository pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        slaveOrderRepo = mock(SlaveOrderRepo.class);
+        slaveOrderItemRepo = mock(SlaveOrderItemRepo.class);
+        orderService = new OrderServiceImpl(
+                mock(ProductMetadataCache.class),
+                mock(RedisRepository.class),
+                pendingOrderCacheRepository,
+                mock(ShardedStockRepository.class),
+                new ReservationBatcher(pendingOrderCacheRepository, mock(RedisRepository.class), false, Duration.ZERO, 1,
+                        Duration.ofSeconds(2), new SimpleMeterRegistry()),
+                mock(MasterOrderRepo.class),
+                mock(MasterOrderItemRepo.class),
+                mock(RedissonClient.class),
+                mock(ProcessedPaymentEventRepository.class),
+                mock(ApplicationEventPublisher.class),
+                slaveOrderRepo,
+                slaveOrderItemRepo,
+                ReservationMode.LOCK_FREE,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void history_fetchesItemsOfWholePageInOneQuery_andReturnsCursorWhenMoreRemain() {
+        Order newest = order("o3", T0.plusMinutes(2));
+        Order middle = order("o2", T0.plusMinutes(1));
+        Order oldest = order("o1", T0);
+        when(slaveOrderRepo.findHistory(eq("user-1"), argThat(limit -> limit.max() == 3))).thenReturn(List.of(newest, middle, oldest));
+        when(slaveOrderItemRepo.findAllByOrderIdIn(List.of("o3", "o2"))).thenReturn(List.of(
+                item("o3", 10.0, 2L), item("o3", 5.0, 1L), item("o2", 7.0, 1L)));
+
+        OrderHistoryResponse page = orderService.history("user-1", null, 2);
+
+        assertThat(page.getItems()).extracting(OrderSummaryResponse::getId).containsExactly("o3", "o2");
+        assertThat(page.getItems().get(0).getTotalAmount()).isEqualByComparingTo(BigDecimal.valueOf(25.0));
+        assertThat(page.getItems().get(0).getItemCount()).isEqualTo(2);
+        assertThat(page.getNextCursor()).isNotNull();
+        verify(slaveOrderItemRepo, times(1)).findAllByOrderIdIn(anyCollection());
+        verify(slaveOrderItemRepo, never()).findAllByOrderId(any());
+        verify(slaveOrderRepo, never()).findAllByUserId(any(), any());
+
+        // The cursor resumes strictly after the last order returned.
+        when(slaveOrderRepo.findHistoryBefore(eq("user-1"), eq(middle.getCreatedAt()), eq("o2"), argThat(limit -> limit.max() == 3)))
+                .thenReturn(List.of(oldest));
+        when(slaveOrderItemRepo.findAllByOrderIdIn(List.of("o1"))).thenReturn(List.of());
+
+        OrderHistoryResponse next = orderService.history("user-1", page.getNextCursor(), 2);
+
+        assertThat(next.getItems()).extracting(OrderSummaryResponse::getId).containsExactly("o1");
+        assertThat(next.getNextCursor()).isNull();
+    }
+
+    @Test
+    void history_malformedCursor_isRejected() {
+        assertThatThrownBy(() -> orderService.history("user-1", "not a cursor!", 20))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(slaveOrderRepo);
+    }
+
+    private static Order order(String id, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUserId("user-1");
+        order.setStatus(OrderStatus.COMPLETED);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+
+    private static OrderItem item(String orderId, double price, long quantity) {
+        return OrderItem.builder().orderId(orderId).productId("p-" + orderId).price(price).quantity(quantity).build();
+    }
+}
@@ -0,0 +1,136 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.aibles.ecommerce.core_redis.repository.RedisRepository;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.OrderStatus;
+import org.aibles.order_service.constant.PaymentEventType;
+import org.aibles.order_service.constant.ReservationMode;
+import org.aibles.order_service.entity.ProcessedPaymentEvent;
+import org.aibles.order_service.repository.ProcessedPaymentEventRepository;
+import org.aibles.order_service.repository.master.MasterOrderItemRepo;
+import org.aibles.order_service.repository.master.MasterOrderRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
+import org.aibles.order_service.repository.slave.SlaveOrderRepo;
+import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderPaymentEventsBatchTest {
+
+    private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private MasterOrderRepo masterOrderRepo;
+    private ProcessedPaymentEventRepository processedPaymentEventRepository;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        masterOrderRepo = mock(MasterOrderRepo.class);
+        processedPaymentEventRepository = mock(ProcessedPaymentEventRepository.class);
+        orderService = new OrderServiceImpl(
+                mock(ProductMetadataCache.class),
+                mock(RedisRepository.class),
+                pendingOrderCacheRepository,
+                mock(ShardedStockRepository.class),
+                new ReservationBatcher(pendingOrderCacheRepository, mock(RedisRepository.class), false, Duration.ZERO, 1,
+                        Duration.ofSeconds(2), new SimpleMeterRegistry()),
+                masterOrderRepo,
+                mock(MasterOrderItemRepo.class),
+                mock(RedissonClient.class),
+                processedPaymentEventRepository,
+                mock(ApplicationEventPublisher.class),
+                mock(SlaveOrderRepo.class),
+                mock(SlaveOrderItemRepo.class),
+                ReservationMode.LOCK_FREE,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void handlePaymentEvents_dedupesAndIssuesOneUpdatePerStatus() {
+        // o3's cancel was recorded by an earlier poll
+        when(processedPaymentEventRepository.findProcessed(anyCollection())).thenAnswer(inv -> {
+            Collection<ProcessedPaymentEvent> events = inv.getArgument(0);
+            return events.stream().filter(event -> event.getOrderId().equals("o3")).toList();
+        });
+        when(pendingOrderCacheRepository.findPendingOrders(anyCollection())).thenReturn(Set.of("o1", "o4"));
+
+        orderService.handlePaymentEvents(List.of(
+                event("o1", PaymentEventType.PAYMENT_CANCELED),
+                event("o1", PaymentEventType.PAYMENT_CANCELED),
+                event("o2", PaymentEventType.PAYMENT_SUCCESS),
+                event("o3", PaymentEventType.PAYMENT_CANCELED),
+                event("o4", PaymentEventType.PAYMENT_FAILED),
+                event("o5", PaymentEventType.PAYMENT_FAILED)));
+
+        verify(processedPaymentEventRepository).findProcessed(argThat(events -> events.size() == 5));
+        verify(pendingOrderCacheRepository).findPendingOrders(Set.of("o1", "o4", "o5"));
+        verify(masterOrderRepo).updateStatusIn(List.of("o1"), OrderStatus.CANCELED);
+        // o5 was no longer pending (expired or invalid), so its status is left alone
+        verify(masterOrderRepo).updateStatusIn(List.of("o4"), OrderStatus.FAILED);
+        verify(masterOrderRepo).updateStatusIn(List.of("o2"), OrderStatus.COMPLETED);
+        verify(masterOrderRepo, never()).updateStatus(any(), any());
+        verify(pendingOrderCacheRepository).releasePendingOrders(RedisConstant.AVAILABLE_PRODUCT_KEY, Set.of("o1", "o4"));
+        verify(processedPaymentEventRepository).insertAllNew(argThat(events -> events.size() == 4));
+    }
+
+    @Test
+    void handlePaymentEvents_releasesStockAndRecordsMarkersOnlyAfterTheStatusUpdates() {
+        when(processedPaymentEventRepository.findProcessed(anyCollection())).thenReturn(List.of());
+        when(pendingOrderCacheRepository.findPendingOrders(anyCollection())).thenReturn(Set.of("o1"));
+
+        orderService.handlePaymentEvents(List.of(event("o1", PaymentEventType.PAYMENT_CANCELED)));
+
+        InOrder inOrder = inOrder(masterOrderRepo, pendingOrderCacheRepository, processedPaymentEventRepository);
+        inOrder.verify(masterOrderRepo).updateStatusIn(List.of("o1"), OrderStatus.CANCELED);
+        inOrder.verify(pendingOrderCacheRepository).releasePendingOrders(RedisConstant.AVAILABLE_PRODUCT_KEY, Set.of("o1"));
+        inOrder.verify(processedPaymentEventRepository).insertAllNew(anyList());
+    }
+
+    @Test
+    void handlePaymentEvents_statusUpdateFails_leavesNoMarkersAndNoRelease() {
+        when(processedPaymentEventRepository.findProcessed(anyCollection())).thenReturn(List.of());
+        when(pendingOrderCacheRepository.findPendingOrders(anyCollection())).thenReturn(Set.of("o1"));
+        when(masterOrderRepo.updateStatusIn(anyCollection(), any())).thenThrow(new IllegalStateException("DB unavailable"));
+
+        assertThatThrownBy(() -> orderService.handlePaymentEvents(List.of(event("o1", PaymentEventType.PAYMENT_CANCELED))))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(pendingOrderCacheRepository, never()).releasePendingOrders(any(), anyCollection());
+        verify(processedPaymentEventRepository, never()).insertAllNew(anyList());
+    }
+
+    @Test
+    void handlePaymentEvents_allAlreadyProcessed_touchesNothing() {
+        when(processedPaymentEventRepository.findProcessed(anyCollection())).thenAnswer(inv ->
+                List.copyOf((Collection<ProcessedPaymentEvent>) inv.getArgument(0)));
+
+        orderService.handlePaymentEvents(List.of(event("o1", PaymentEventType.PAYMENT_SUCCESS)));
+
+        verify(masterOrderRepo, never()).updateStatusIn(any(), any());
+        assertThat(mockingDetails(masterOrderRepo).getInvocations()).isEmpty();
+        verify(processedPaymentEventRepository, never()).insertAllNew(anyList());
+        verifyNoInteractions(pendingOrderCacheRepository);
+    }
+
+    private static ProcessedPaymentEvent event(String orderId, PaymentEventType eventType) {
+        return ProcessedPaymentEvent.builder().orderId(orderId).eventType(eventType).build();
+    }
+}
@@ -1,11 +1,15 @@
 package org.aibles.order_service.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aibles.ecommerce.common_dto.response.InventoryProductIdsResponse;
 import org.aibles.ecommerce.common_dto.response.InventoryProductResponse;
 import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_order_cache.repository.ShardedStockRepository;
 import org.aibles.ecommerce.core_redis.constant.RedisConstant;
 import org.aibles.ecommerce.core_redis.repository.RedisRepository;
 import org.aibles.order_service.client.InventoryGrpcClientService;
+import org.aibles.order_service.client.ProductMetadataCache;
+import org.aibles.order_service.constant.ReservationMode;
 import org.aibles.order_service.dto.request.OrderItemRequest;
 import org.aibles.order_service.dto.request.OrderRequest;
 import org.aibles.order_service.entity.Order;
@@ -18,12 +22,14 @@ import org.aibles.order_service.repository.master.MasterOrderRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderItemRepo;
 import org.aibles.order_service.repository.slave.SlaveOrderRepo;
 import org.aibles.order_service.service.impl.OrderServiceImpl;
+import org.aibles.order_service.service.impl.ReservationBatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +42,7 @@ class OrderReserveAvailableTest {
     private InventoryGrpcClientService inventoryGrpcClientService;
     private RedisRepository redisRepository;
     private PendingOrderCacheRepository pendingOrderCacheRepository;
+    private ShardedStockRepository shardedStockRepository;
     private MasterOrderRepo masterOrderRepo;
     private MasterOrderItemRepo masterOrderItemRepo;
     private RedissonClient redissonClient;
@@ -51,6 +58,7 @@ class OrderReserveAvailableTest {
         inventoryGrpcClientService = mock(InventoryGrpcClientService.class);
         redisRepository = mock(RedisRepository.class);
         pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+        shardedStockRepository = mock(ShardedStockRepository.class);
         masterOrderRepo = mock(MasterOrderRepo.class);
         masterOrderItemRepo = mock(MasterOrderItemRepo.class);
         redissonClient = mock(RedissonClient.class);
@@ -60,16 +68,22 @@ class OrderReserveAvailableTest {
         slaveOrderItemRepo = mock(SlaveOrderItemRepo.class);
 
         orderService = new OrderServiceImpl(
-                inventoryGrpcClientService,
+                new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000, Duration.ofMinutes(10), 100,
+                        new SimpleMeterRegistry()),
                 redisRepository,
                 pendingOrderCacheRepository,
+                shardedStockRepository,
+                new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1, Duration.ofSeconds(2),
+                        new SimpleMeterRegistry()),
                 masterOrderRepo,
                 masterOrderItemRepo,
                 redissonClient,
                 processedPaymentEventRepository,
                 eventPublisher,
                 slaveOrderRepo,
-                slaveOrderItemRepo
+                slaveOrderItemRepo,
+                ReservationMode.LOCKED,
+                new SimpleMeterRegistry()
         );
 
         RLock lock = mock(RLock.class);
@@ -176,4 +190,113 @@ class OrderReserveAvailableTest {
         // duplicate event: inventory must NOT be released a second time
         verify(redisRepository, never()).incr(anyString(), anyLong());
     }
+
+    @Test
+    void create_lockFree_reservesWithoutTakingAnyLock() {
+        OrderService lockFreeService = lockFreeOrderService();
+        InventoryProductResponse product = InventoryProductResponse.builder()
+                .id("prod-1").name("Widget").price(9.99).quantity(10L).build();
+        when(inventoryGrpcClientService.fetchInventoryData(anyList()))
+                .thenReturn(new InventoryProductIdsResponse(List.of(product)));
+        when(pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyMap()))
+                .thenReturn(true);
+        Order saved = new Order();
+        saved.setId("order-1");
+        when(masterOrderRepo.save(any(Order.class))).thenReturn(saved);
+
+        lockFreeService.create("user-1", new OrderRequest("123 Main", "0912345678",
+                List.of(new OrderItemRequest("prod-1", 2L))));
+
+        verify(pendingOrderCacheRepository).checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), eq(Map.of("prod-1", 2L)));
+        verify(redissonClient, never()).getFairLock(anyString());
+    }
+
+    @Test
+    void create_lockFree_rollsBackReservationWhenOrderSaveFails() {
+        OrderService lockFreeService = lockFreeOrderService();
+        InventoryProductResponse product = InventoryProductResponse.builder()
+                .id("prod-1").name("Widget").price(9.99).quantity(10L).build();
+        when(inventoryGrpcClientService.fetchInventoryData(anyList()))
+                .thenReturn(new InventoryProductIdsResponse(List.of(product)));
+        when(pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyMap()))
+                .thenReturn(true);
+        when(masterOrderRepo.save(any(Order.class)))
+                .thenThrow(new RuntimeException("DB unavailable"));
+
+        Assertions.assertThrows(RuntimeException.class, () -> lockFreeService.create("user-1",
+                new OrderRequest("123 Main", "0912345678", List.of(new OrderItemRequest("prod-1", 2L)))));
+
+        verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1", 2L);
+        verify(redissonClient, never()).getFairLock(anyString());
+    }
+
+    @Test
+    void create_splitsShardedProductsFromPlainOnes() {
+        OrderService lockFreeService = lockFreeOrderService();
+        when(shardedStockRepository.shardedProducts()).thenReturn(Map.of("prod-flash", 8));
+        when(inventoryGrpcClientService.fetchInventoryData(anyList()))
+                .thenReturn(new InventoryProductIdsResponse(List.of(
+                        InventoryProductResponse.builder().id("prod-1").name("Widget").price(9.99).quantity(10L).build(),
+                        InventoryProductResponse.builder().id("prod-flash").name("Deal").price(1.0).quantity(500L).build())));
+        when(pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyMap()))
+                .thenReturn(true);
+        when(shardedStockRepository.reserve(anyMap())).thenReturn(true);
+        Order saved = new Order();
+        saved.setId("order-1");
+        when(masterOrderRepo.save(any(Order.class))).thenReturn(saved);
+
+        lockFreeService.create("user-1", new OrderRequest("123 Main", "0912345678",
+                List.of(new OrderItemRequest("prod-1", 2L), new OrderItemRequest("prod-flash", 1L))));
+
+        verify(pendingOrderCacheRepository).checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), eq(Map.of("prod-1", 2L)));
+        verify(shardedStockRepository).reserve(Map.of("prod-flash", 1L));
+        verify(redisRepository, never()).incr(anyString(), anyLong());
+    }
+
+    @Test
+    void create_releasesPlainReservationWhenShardedProductIsShort() {
+        OrderService lockFreeService = lockFreeOrderService();
+        when(shardedStockRepository.shardedProducts()).thenReturn(Map.of("prod-flash", 8));
+        when(inventoryGrpcClientService.fetchInventoryData(anyList()))
+                .thenReturn(new InventoryProductIdsResponse(List.of(
+                        InventoryProductResponse.builder().id("prod-1").name("Widget").price(9.99).quantity(10L).build(),
+                        InventoryProductResponse.builder().id("prod-flash").name("Deal").price(1.0).quantity(0L).build())));
+        when(pendingOrderCacheRepository.checkAndReserveAvailableAtomic(
+                eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyMap()))
+                .thenReturn(true);
+        when(shardedStockRepository.reserve(anyMap())).thenReturn(false);
+
+        Assertions.assertThrows(RuntimeException.class, () -> lockFreeService.create("user-1",
+                new OrderRequest("123 Main", "0912345678",
+                        List.of(new OrderItemRequest("prod-1", 2L), new OrderItemRequest("prod-flash", 1L)))));
+
+        verify(redisRepository).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1", 2L);
+        verify(masterOrderRepo, never()).save(any(Order.class));
+    }
+
+    private OrderService lockFreeOrderService() {
+        return new OrderServiceImpl(
+                new ProductMetadataCache(inventoryGrpcClientService, shardedStockRepository, 1_000, Duration.ofMinutes(10), 100,
+                        new SimpleMeterRegistry()),
+                redisRepository,
+                pendingOrderCacheRepository,
+                shardedStockRepository,
+                new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1, Duration.ofSeconds(2),
+                        new SimpleMeterRegistry()),
+                masterOrderRepo,
+                masterOrderItemRepo,
+                redissonClient,
+                processedPaymentEventRepository,
+                eventPublisher,
+                slaveOrderRepo,
+                slaveOrderItemRepo,
+                ReservationMode.LOCK_FREE,
+                new SimpleMeterRegistry()
+        );
+    }
 }
@@ -0,0 +1,133 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.core_order_cache.model.CartItem;
+import org.aibles.ecommerce.core_order_cache.repository.CartCacheRepository;
+import org.aibles.order_service.dto.request.ShoppingCartAddRequest;
+import org.aibles.order_service.entity.ShoppingCartItem;
+import org.aibles.order_service.repository.master.MasterShoppingCartItemRepo;
+import org.aibles.order_service.repository.master.MasterShoppingCartRepo;
+import org.aibles.order_service.scheduler.CartWriteBehindFlusher;
+import org.aibles.order_service.service.impl.RedisShoppingCartServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisShoppingCartServiceTest {
+
+    private CartCacheRepository cartCacheRepository;
+    private MasterShoppingCartRepo masterShoppingCartRepo;
+    private MasterShoppingCartItemRepo masterShoppingCartItemRepo;
+    private ShoppingCartService sut;
+
+    @BeforeEach
+    void setUp() {
+        cartCacheRepository = mock(CartCacheRepository.class);
+        masterShoppingCartRepo = mock(MasterShoppingCartRepo.class);
+        masterShoppingCartItemRepo = mock(MasterShoppingCartItemRepo.class);
+        sut = new RedisShoppingCartServiceImpl(cartCacheRepository, masterShoppingCartItemRepo);
+    }
+
+    @Test
+    void addItem_loadedCart_mergesInRedisWithoutTouchingMySql() {
+        when(cartCacheRepository.addItem(eq("user-1"), eq("prod-1"), eq(2L), eq(65.0), anyString()))
+                .thenReturn(Optional.of(2L));
+
+        sut.addItem("user-1", new ShoppingCartAddRequest("prod-1", 2L, 65.0));
+
+        verify(cartCacheRepository, never()).load(any(), anyList());
+        verifyNoInteractions(masterShoppingCartItemRepo, masterShoppingCartRepo);
+    }
+
+    @Test
+    void addItem_cartNotInRedis_loadsFromMasterAndRetries() {
+        when(cartCacheRepository.addItem(eq("user-1"), eq("prod-1"), eq(1L), eq(10.0), anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(3L));
+        when(masterShoppingCartItemRepo.findAllByShoppingCartId("user-1"))
+                .thenReturn(List.of(new ShoppingCartItem("item-1", "user-1", 10.0, 2L, "prod-1")));
+
+        sut.addItem("user-1", new ShoppingCartAddRequest("prod-1", 1L, 10.0));
+
+        verify(cartCacheRepository).load("user-1", List.of(new CartItem("item-1", "prod-1", 2L, 10.0)));
+        verify(cartCacheRepository, times(2)).addItem(eq("user-1"), eq("prod-1"), eq(1L), eq(10.0), anyString());
+    }
+
+    @Test
+    void list_isServedFromRedis() {
+        when(cartCacheRepository.getItems("user-1"))
+                .thenReturn(Optional.of(List.of(new CartItem("item-1", "prod-1", 2L, 10.0))));
+
+        assertThat(sut.list("user-1").getShoppingCarts())
+                .singleElement()
+                .satisfies(item -> {
+                    assertThat(item.getId()).isEqualTo("item-1");
+                    assertThat(item.getQuantity()).isEqualTo(2L);
+                });
+        verifyNoInteractions(masterShoppingCartItemRepo);
+    }
+
+    @Test
+    void updateItem_ownerUnknownToRedis_isResolvedFromMasterAndTheCartLoaded() {
+        when(cartCacheRepository.findItemOwner("item-1")).thenReturn(Optional.empty());
+        ShoppingCartItem row = new ShoppingCartItem("item-1", "user-1", 10.0, 2L, "prod-1");
+        when(masterShoppingCartItemRepo.findById("item-1")).thenReturn(Optional.of(row));
+        when(masterShoppingCartItemRepo.findAllByShoppingCartId("user-1")).thenReturn(List.of(row));
+        when(cartCacheRepository.updateItem("user-1", "item-1", 4L)).thenReturn(false).thenReturn(true);
+
+        sut.updateItem("item-1", 4L);
+
+        verify(cartCacheRepository).load("user-1", List.of(new CartItem("item-1", "prod-1", 2L, 10.0)));
+        verify(cartCacheRepository, times(2)).updateItem("user-1", "item-1", 4L);
+    }
+
+    @Test
+    void deleteItem_unknownItem_isANoOp() {
+        when(cartCacheRepository.findItemOwner("missing")).thenReturn(Optional.empty());
+        when(masterShoppingCartItemRepo.findById("missing")).thenReturn(Optional.empty());
+
+        sut.deleteItem("missing");
+
+        verify(cartCacheRepository, never()).deleteItem(any(), any());
+        verify(cartCacheRepository, never()).load(any(), anyList());
+    }
+
+    @Test
+    void flush_writesLatestCartStateInOneTransaction_andRequeuesOnFailure() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        CartWriteBehindFlusher flusher = new CartWriteBehindFlusher(cartCacheRepository, masterShoppingCartRepo,
+                masterShoppingCartItemRepo, transactionManager, 10, Duration.ofSeconds(60), new SimpleMeterRegistry());
+        when(cartCacheRepository.claimDirtyCarts(eq(10), anyLong(), anyLong())).thenReturn(Set.of("user-1"));
+        when(cartCacheRepository.getItems("user-1"))
+                .thenReturn(Optional.of(List.of(new CartItem("item-1", "prod-1", 5L, 10.0))));
+
+        flusher.flush();
+
+        verify(masterShoppingCartRepo).upsertCart("user-1");
+        verify(masterShoppingCartItemRepo).deleteItemsNotIn("user-1", List.of("prod-1"));
+        verify(masterShoppingCartItemRepo).replaceItem("item-1", "user-1", "prod-1", 5L, 10.0);
+        verify(transactionManager).commit(any());
+        // The dirty mark is dropped only after the commit, under the claim it was taken with.
+        InOrder inOrder = inOrder(cartCacheRepository, transactionManager);
+        inOrder.verify(cartCacheRepository).claimDirtyCarts(eq(10), anyLong(), anyLong());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(cartCacheRepository).completeDirtyCarts(eq(Set.of("user-1")), anyLong());
+
+        doThrow(new RuntimeException("MySQL down")).when(masterShoppingCartRepo).upsertCart("user-1");
+
+        flusher.flush();
+
+        verify(cartCacheRepository).markDirty(Set.of("user-1"));
+        verify(cartCacheRepository, times(1)).completeDirtyCarts(any(), anyLong());
+    }
+}
@@ -0,0 +1,112 @@
+package org.aibles.order_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheRepository;
+import org.aibles.ecommerce.core_redis.constant.RedisConstant;
+import org.aibles.ecommerce.core_redis.repository.RedisRepository;
+import org.aibles.order_service.exception.ReservationUnavailableException;
+import org.aibles.order_service.service.impl.ReservationBatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReservationBatcherTest {
+
+    private final PendingOrderCacheRepository pendingOrderCacheRepository = mock(PendingOrderCacheRepository.class);
+    private final RedisRepository redisRepository = mock(RedisRepository.class);
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+    private ReservationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void reserve_coalescesConcurrentOrdersIntoOneEvaluation() {
+        // Only prod-ok orders succeed, so each caller can tell its own result apart.
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(eq(RedisConstant.AVAILABLE_PRODUCT_KEY), anyList()))
+                .thenAnswer(inv -> {
+                    List<Map<String, Long>> orders = inv.getArgument(1);
+                    return orders.stream().map(order -> order.containsKey("prod-ok")).toList();
+                });
+        batcher = new ReservationBatcher(pendingOrderCacheRepository, redisRepository, true, Duration.ofSeconds(5), 3,
+                Duration.ofSeconds(10), new SimpleMeterRegistry());
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        results.add(CompletableFuture.supplyAsync(() -> batcher.reserve(Map.of("prod-ok", 1L)), callers));
+        results.add(CompletableFuture.supplyAsync(() -> batcher.reserve(Map.of("prod-short", 1L)), callers));
+        results.add(CompletableFuture.supplyAsync(() -> batcher.reserve(Map.of("prod-ok", 2L)), callers));
+
+        assertThat(results.stream().map(CompletableFuture::join)).containsExactly(true, false, true);
+        verify(pendingOrderCacheRepository, times(1)).checkAndReserveAvailableBatch(any(), argThat(orders -> orders.size() == 3));
+        verify(pendingOrderCacheRepository, never()).checkAndReserveAvailableAtomic(any(), anyMap());
+    }
+
+    @Test
+    void reserve_disabled_callsSingleOrderScriptDirectly() {
+        when(pendingOrderCacheRepository.checkAndReserveAvailableAtomic(RedisConstant.AVAILABLE_PRODUCT_KEY, Map.of("prod-1", 1L)))
+                .thenReturn(true);
+        batcher = new ReservationBatcher(pendingOrderCacheRepository, redisRepository, false, Duration.ZERO, 1,
+                Duration.ofSeconds(2), new SimpleMeterRegistry());
+
+        assertThat(batcher.reserve(Map.of("prod-1", 1L))).isTrue();
+        verify(pendingOrderCacheRepository, never()).checkAndReserveAvailableBatch(any(), anyList());
+    }
+
+    @Test
+    void reserve_batchFailure_isThrownToTheCaller_notReportedAsOutOfStock() {
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(any(), anyList()))
+                .thenThrow(new IllegalStateException("Redis connection refused"));
+        batcher = new ReservationBatcher(pendingOrderCacheRepository, redisRepository, true, Duration.ZERO, 8,
+                Duration.ofSeconds(2), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> batcher.reserve(Map.of("prod-1", 1L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Redis connection refused");
+    }
+
+    @Test
+    void reserve_timesOut_andAReservationThatLandsLaterIsReleased() {
+        CountDownLatch redisStalled = new CountDownLatch(1);
+        when(pendingOrderCacheRepository.checkAndReserveAvailableBatch(any(), anyList())).thenAnswer(inv -> {
+            redisStalled.await();
+            return List.of(true);
+        });
+        batcher = new ReservationBatcher(pendingOrderCacheRepository, redisRepository, true, Duration.ZERO, 8,
+                Duration.ofMillis(100), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> batcher.reserve(Map.of("prod-1", 2L)))
+                .isInstanceOf(ReservationUnavailableException.class);
+        redisStalled.countDown();
+
+        verify(redisRepository, timeout(2_000)).incr(RedisConstant.AVAILABLE_PRODUCT_KEY + "prod-1", 2L);
+    }
+
+    @Test
+    void reserve_afterShutdown_isUnavailable() {
+        batcher = new ReservationBatcher(pendingOrderCacheRepository, redisRepository, true, Duration.ZERO, 8,
+                Duration.ofSeconds(2), new SimpleMeterRegistry());
+        batcher.shutdown();
+
+        assertThatThrownBy(() -> batcher.reserve(Map.of("prod-1", 1L)))
+                .isInstanceOf(ReservationUnavailableException.class);
+        verify(pendingOrderCacheRepository, never()).checkAndReserveAvailableBatch(any(), anyList());
+    }
+}
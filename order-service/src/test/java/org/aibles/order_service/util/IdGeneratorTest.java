@@ -0,0 +1,28 @@
+package org.aibles.order_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdGeneratorTest {
+
+    @Test
+    void timeOrderedUuid_isVersion7_andSortsInCreationOrder() {
+        long before = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(IdGenerator.timeOrderedUuid());
+        }
+
+        UUID first = UUID.fromString(ids.get(0));
+        assertThat(first.version()).isEqualTo(7);
+        assertThat(first.variant()).isEqualTo(2);
+        assertThat(first.getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(before);
+        // Strictly increasing as strings too, which is what the keyset and clustered index see.
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+}
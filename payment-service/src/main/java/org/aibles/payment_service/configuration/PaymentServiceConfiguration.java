@@ -6,6 +6,7 @@ import org.aibles.ecommerce.core_order_cache.repository.PendingOrderCacheReposit
 import org.aibles.ecommerce.core_paypal.configuration.EnableCorePaypal;
 import org.aibles.ecommerce.core_paypal.service.PaypalService;
 import org.aibles.ecommerce.core_redis.configuration.EnableCoreRedis;
+import org.aibles.ecommerce.core_redis.configuration.EnableIdempotency;
 import org.aibles.ecommerce.core_routing_db.configuration.EnableDatasourceRouting;
 import org.aibles.payment_service.repository.master.MasterPaymentRepo;
 import org.aibles.payment_service.repository.slave.SlavePaymentRepo;
@@ -25,6 +26,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @EnableCorePaypal
 @EnableCoreRedis
 @EnableOrderCache
+@EnableIdempotency
 @EnableJpaAuditing
 @EnableMongoAuditing
 @EnableAsync
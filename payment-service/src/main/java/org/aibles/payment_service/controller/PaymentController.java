@@ -2,6 +2,7 @@ package org.aibles.payment_service.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.aibles.ecommerce.common_dto.response.BaseResponse;
+import org.aibles.ecommerce.core_redis.idempotency.IdempotencyService;
 import org.aibles.payment_service.dto.PaymentResponse;
 import org.aibles.payment_service.service.PaymentService;
 import org.springframework.http.HttpStatus;
@@ -13,16 +14,23 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, IdempotencyService idempotencyService) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.OK)
-    public BaseResponse purchase(@RequestParam("orderId") String orderId) {
-        log.info("(purchase)orderId: {}", orderId);
-        return paymentService.purchase(orderId);
+    public BaseResponse purchase(@RequestHeader("X-User-Id") String userId,
+                                 @RequestParam("orderId") String orderId,
+                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        log.info("(purchase)userId: {}, orderId: {}, idempotencyKey: {}", userId, orderId, idempotencyKey);
+        // Error bodies are returned rather than thrown here; only successful purchases are replayed.
+        return idempotencyService.execute("payments:" + userId, idempotencyKey, idempotencyService.fingerprint(userId, orderId),
+                BaseResponse.class, response -> response.getStatus() < 400,
+                () -> paymentService.purchase(orderId));
     }
 
     @GetMapping("/by-order/{orderId}")
@@ -41,6 +41,7 @@ APP_TOPICS=(
     "order-service.order.success-status:${PARTITIONS}:delete"
     "order-service.order.failed-status:${PARTITIONS}:delete"
     "order-service.order.canceled-status:${PARTITIONS}:delete"
+    "order-service.order.requested:${PARTITIONS}:delete"
 
     # Inventory Service topics
     "inventory-service.product.update:${PARTITIONS}:delete"
@@ -49,6 +50,9 @@ APP_TOPICS=(
     # Product Service topics
     "product-service.product.update-quantity:${PARTITIONS}:delete"
 
+    # Gateway topics
+    "gateway.product.update:${PARTITIONS}:delete"
+
     # Dead Letter Queue topics
     "dlq-mongodb-sink:1:delete"
     "dlq-order-processing:1:delete"
@@ -201,6 +205,7 @@ Topics Created:
     - order-service.order.success-status
     - order-service.order.failed-status
     - order-service.order.canceled-status
+    - order-service.order.requested
     - inventory-service.product.update
     - inventory-service.inventory-product.update-quantity
     - product-service.product.update-quantity